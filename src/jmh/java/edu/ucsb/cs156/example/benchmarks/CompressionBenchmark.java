@@ -0,0 +1,78 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * CPU cost of gzipping the JSON of an {@code /all} response, as Tomcat does when {@code
+ * server.compression.enabled} is true, at the fastest level and at the default level (which is
+ * the one Tomcat uses).
+ *
+ * <p>The bytes saved do not depend on timing, so they are printed once per trial (look for {@code
+ * gzip level} in the output) rather than measured; compare them with the time per operation, and
+ * with {@link SerializationBenchmark} for the cost of producing the JSON in the first place.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+  @Param({"MenuItemReview", "UCSBDiningCommonsMenuItem", "UCSBOrganizations"})
+  public String entity;
+
+  @Param({"10", "100", "1000"})
+  public int size;
+
+  @Param({"1", "6"})
+  public int level;
+
+  private byte[] json;
+
+  @Setup
+  public void setup() throws IOException {
+    json =
+        Jackson2ObjectMapperBuilder.json()
+            .build()
+            .writeValueAsBytes(EntityFixtures.rows(entity, size));
+    int compressed = gzip().length;
+    System.out.printf(
+        "%n%d %s as JSON: %d bytes, %d bytes with gzip level %d (%.0f%% saved)%n",
+        size,
+        entity,
+        json.length,
+        compressed,
+        level,
+        100.0 * (json.length - compressed) / json.length);
+  }
+
+  @Benchmark
+  public byte[] gzip() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+    try (GZIPOutputStream gzip =
+        new GZIPOutputStream(out) {
+          {
+            def.setLevel(level);
+          }
+        }) {
+      gzip.write(json);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.CurrentUserServiceImpl;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Cost of {@link CurrentUserServiceImpl#getUser()}, which runs on every authenticated request,
+ * with and without the per-sub User cache. The UserRepository is an in-memory stub, so the
+ * uncached number is a lower bound: in the running app it also includes a database query.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurrentUserBenchmark {
+
+  private CurrentUserServiceImpl service;
+
+  @Setup
+  public void setup() {
+    User user =
+        User.builder().id(1L).email("cgaucho@ucsb.edu").googleSub("115856948234298493496").build();
+    UserRepository userRepository =
+        (UserRepository)
+            Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[] {UserRepository.class},
+                (proxy, method, args) ->
+                    switch (method.getName()) {
+                      case "findByEmail" -> Optional.of(user);
+                      case "save" -> args[0];
+                      case "hashCode" -> System.identityHashCode(proxy);
+                      case "equals" -> proxy == args[0];
+                      default -> "UserRepository stub";
+                    });
+
+    service = new CurrentUserServiceImpl();
+    ReflectionTestUtils.setField(service, "userRepository", userRepository);
+    ReflectionTestUtils.setField(service, "cacheTtlMillis", 300_000L);
+    ReflectionTestUtils.setField(service, "cacheMaxSize", 10_000L);
+    ReflectionTestUtils.invokeMethod(service, "buildCache");
+
+    Map<String, Object> attributes =
+        Map.of(
+            "sub", user.getGoogleSub(),
+            "email", user.getEmail(),
+            "name", "Chris Gaucho",
+            "email_verified", true,
+            "hd", "ucsb.edu");
+    DefaultOAuth2User principal =
+        new DefaultOAuth2User(List.of(new SimpleGrantedAuthority("ROLE_USER")), attributes, "sub");
+    SecurityContextHolder.getContext()
+        .setAuthentication(
+            new OAuth2AuthenticationToken(
+                principal, principal.getAuthorities(), "my-oauth-provider"));
+  }
+
+  @TearDown
+  public void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Benchmark
+  public User cached() {
+    return service.getUser();
+  }
+
+  @Benchmark
+  public User uncached() {
+    service.invalidateAll();
+    return service.getUser();
+  }
+}
@@ -0,0 +1,114 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganizations;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/** Builds lists of realistic-looking, not yet saved entities for the benchmarks. */
+final class EntityFixtures {
+  private static final LocalDateTime WHEN = LocalDateTime.parse("2025-01-15T12:00:00");
+
+  private EntityFixtures() {}
+
+  /**
+   * Builds {@code size} entities of one type.
+   *
+   * @param entity simple class name of the entity, e.g. {@code Restaurant}
+   * @param size number of entities
+   * @return the entities, with ids (where they are generated) left unset
+   */
+  static List<?> rows(String entity, int size) {
+    IntFunction<?> row =
+        switch (entity) {
+          case "Article" ->
+              i ->
+                  Article.builder()
+                      .title("Article " + i)
+                      .url("https://example.org/articles/" + i)
+                      .explanation("An article about something that happened at UCSB, number " + i)
+                      .email("cgaucho@ucsb.edu")
+                      .dateAdded(WHEN.plusMinutes(i))
+                      .build();
+          case "HelpRequest" ->
+              i ->
+                  HelpRequest.builder()
+                      .requesterEmail("student" + i + "@ucsb.edu")
+                      .teamId("f25-" + (i % 20))
+                      .tableOrBreakoutRoom("table " + (i % 12))
+                      .requestTime(WHEN.plusMinutes(i))
+                      .explanation("Our tests fail with a NullPointerException, number " + i)
+                      .solved(i % 2 == 0)
+                      .build();
+          case "MenuItemReview" ->
+              i ->
+                  MenuItemReview.builder()
+                      .itemId(i % 50)
+                      .reviewerEmail("reviewer" + i + "@ucsb.edu")
+                      .stars(i % 5 + 1)
+                      .dateReviewed(WHEN.plusMinutes(i))
+                      .comments("Pretty good, would eat again; review number " + i)
+                      .build();
+          case "RecommendationRequest" ->
+              i ->
+                  RecommendationRequest.builder()
+                      .requesterEmail("student" + i + "@ucsb.edu")
+                      .professorEmail("prof" + (i % 30) + "@ucsb.edu")
+                      .explanation("Applying to graduate school, request number " + i)
+                      .dateRequested(WHEN.plusMinutes(i))
+                      .dateNeeded(WHEN.plusDays(30).plusMinutes(i))
+                      .done(i % 3 == 0)
+                      .build();
+          case "Restaurant" ->
+              i ->
+                  Restaurant.builder()
+                      .name("Restaurant " + i)
+                      .description("Tacos, burritos and more in Isla Vista, number " + i)
+                      .build();
+          case "UCSBDate" ->
+              i ->
+                  UCSBDate.builder()
+                      .quarterYYYYQ("2025" + (i % 4 + 1))
+                      .name("Date " + i)
+                      .localDateTime(WHEN.plusMinutes(i))
+                      .build();
+          case "UCSBDiningCommons" ->
+              i ->
+                  UCSBDiningCommons.builder()
+                      .code("dc" + i)
+                      .name("Dining Commons " + i)
+                      .hasSackMeal(i % 2 == 0)
+                      .hasTakeOutMeal(i % 3 == 0)
+                      .hasDiningCam(true)
+                      .latitude(34.41 + i / 10000.0)
+                      .longitude(-119.85 - i / 10000.0)
+                      .build();
+          case "UCSBDiningCommonsMenuItem" ->
+              i ->
+                  UCSBDiningCommonsMenuItem.builder()
+                      .diningCommonsCode("dc" + (i % 4))
+                      .name("Menu item " + i)
+                      .station("Station " + (i % 8))
+                      .build();
+          case "UCSBOrganizations" ->
+              i ->
+                  UCSBOrganizations.builder()
+                      .orgCode("ORG" + i)
+                      .orgTranslationShort("Org " + i)
+                      .orgTranslation("Student Organization Number " + i)
+                      .inactive(i % 10 == 0)
+                      .build();
+          default -> throw new IllegalArgumentException("No fixtures for " + entity);
+        };
+    return IntStream.range(0, size).mapToObj(row).toList();
+  }
+}
@@ -0,0 +1,70 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobLogLineRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobLogHub;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cost of {@link JobContext#log} once a job has already logged {@code logSize} lines. Log lines are
+ * written to a repository that does nothing, and the application log line is turned off so that
+ * console output does not dominate, so this measures buffering and publishing to the JobLogHub, not
+ * the database.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JobContextLogBenchmark {
+
+  @Param({"0", "10000", "100000"})
+  public int logSize;
+
+  private JobContext context;
+
+  @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+  public void setup() {
+    ((Logger) LoggerFactory.getLogger(JobContext.class)).setLevel(Level.WARN);
+    JobLogLineRepository repository =
+        (JobLogLineRepository)
+            Proxy.newProxyInstance(
+                JobLogLineRepository.class.getClassLoader(),
+                new Class<?>[] {JobLogLineRepository.class},
+                (proxy, method, args) -> null);
+    JobsRepository jobsRepository =
+        (JobsRepository)
+            Proxy.newProxyInstance(
+                JobsRepository.class.getClassLoader(),
+                new Class<?>[] {JobsRepository.class},
+                (proxy, method, args) -> 1);
+    Job job = Job.builder().id(1L).status("running").build();
+    context = new JobContext(jobsRepository, repository, new JobLogHub(), job, 0, 100, 1000);
+    for (int i = 0; i < logSize; i++) {
+      context.log("line " + i);
+    }
+  }
+
+  @Benchmark
+  public void log() {
+    context.log("Processed another batch of rows");
+  }
+}
@@ -0,0 +1,74 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import edu.ucsb.cs156.example.ExampleApplication;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.support.Repositories;
+
+/**
+ * Cost of {@code findAll()} (what every {@code /all} endpoint runs) against the in-memory H2
+ * database of the {@code integration} Spring profile, with the schema created by Liquibase. This
+ * includes Hibernate, but not Postgres, so compare results with each other rather than with
+ * production latencies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+  @Param({"Article", "MenuItemReview", "UCSBDiningCommons", "UCSBOrganizations"})
+  public String entity;
+
+  @Param({"100", "5000"})
+  public int size;
+
+  private ConfigurableApplicationContext context;
+  private CrudRepository<Object, ?> repository;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setup() throws ClassNotFoundException {
+    context =
+        new SpringApplicationBuilder(ExampleApplication.class)
+            .run(
+                "--spring.profiles.active=integration",
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.level.sql=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+    Class<?> domainClass = Class.forName("edu.ucsb.cs156.example.entities." + entity);
+    repository =
+        (CrudRepository<Object, ?>)
+            new Repositories(context)
+                .getRepositoryFor(domainClass)
+                .orElseThrow(() -> new IllegalArgumentException("No repository for " + entity));
+    repository.saveAll((Iterable<Object>) EntityFixtures.rows(entity, size));
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Iterable<Object> findAll() {
+    return repository.findAll();
+  }
+}
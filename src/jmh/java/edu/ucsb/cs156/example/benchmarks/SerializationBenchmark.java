@@ -0,0 +1,61 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Cost of serializing an entity list to JSON, as the {@code /all} endpoints do (e.g. {@code
+ * Iterable<MenuItemReview>} from {@code GET /api/menuitemreview/all}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+  @Param({
+    "Article",
+    "HelpRequest",
+    "MenuItemReview",
+    "RecommendationRequest",
+    "Restaurant",
+    "UCSBDate",
+    "UCSBDiningCommons",
+    "UCSBDiningCommonsMenuItem",
+    "UCSBOrganizations"
+  })
+  public String entity;
+
+  @Param({"10", "1000"})
+  public int size;
+
+  private ObjectMapper mapper;
+  private List<?> rows;
+
+  @Setup
+  public void setup() {
+    // configured the way Spring Boot configures the ObjectMapper the controllers use
+    mapper = Jackson2ObjectMapperBuilder.json().build();
+    rows = EntityFixtures.rows(entity, size);
+  }
+
+  @Benchmark
+  public byte[] serializeList() throws Exception {
+    return mapper.writeValueAsBytes(rows);
+  }
+}
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Profile;
 import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
@@ -16,7 +17,8 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 /** The ExampleApplication class is the main entry point for the application. */
 @SpringBootApplication
 @Slf4j
-@EnableAsync // for @Async annotation for JobsService
+@EnableCaching // for @Cacheable on the reference data repositories (see spring.cache.*)
+@EnableAsync // for @Async annotation for JobsService (see JobsExecutorConfig)
 @EnableScheduling // for @Scheduled annotation for JobsService
 public class ExampleApplication {
 
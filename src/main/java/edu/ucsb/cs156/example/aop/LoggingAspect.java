@@ -1,27 +1,53 @@
 package edu.ucsb.cs156.example.aop;
 
+import edu.ucsb.cs156.example.logging.DiagnosticLogger;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.Optional;
-import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.JoinPoint;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
- * This class is an Aspect that logs all invocations of controller methods that are annotated with
- * {@code @RequestMapping}, {@code @GetMapping}, {@code @PostMapping}, {@code @PutMapping},
- * {@code @DeleteMapping}, or {@code @PatchMapping}.
+ * This class is an Aspect that times and (optionally) logs all invocations of controller methods
+ * that are annotated with {@code @RequestMapping}, {@code @GetMapping}, {@code @PostMapping},
+ * {@code @PutMapping}, {@code @DeleteMapping}, or {@code @PatchMapping}.
+ *
+ * <p>For each controller method it records, with Micrometer (see {@code /actuator/metrics} and
+ * {@code /actuator/prometheus}):
+ *
+ * <ul>
+ *   <li>{@code controller.requests}: a timer (with a latency histogram) of every call;
+ *   <li>{@code controller.errors}: a counter of calls that threw, tagged with the exception;
+ *   <li>{@code controller.requests.active}: a gauge of the calls in progress.
+ * </ul>
+ *
+ * <p>All three are tagged with {@code controller} and {@code method}. The meters of a method are
+ * looked up once and then reused, so timing a call costs two clock reads and a few atomic updates.
+ * Each call is also logged at INFO unless {@code app.request-log.enabled} is false; the log is
+ * sampled and rate limited (see DiagnosticLogger).
  *
  * <p>For more information on Aspect Oriented Programming (AOP) and AspectJ, including what a {@code
  * JoinPoint} is, refer to <a
  * href="https://www.baeldung.com/aspectj">https://www.baeldung.com/aspectj</a>
  */
-@Slf4j
 @Aspect
 @Component
 public class LoggingAspect {
@@ -36,33 +62,101 @@ public class LoggingAspect {
       @annotation(org.springframework.web.bind.annotation.PatchMapping)
       """;
 
-  private ArrayList<String> stoplist =
-      new ArrayList<String>(
-          Arrays.asList("edu.ucsb.cs156.example.controllers.FrontendProxyController"));
+  private static final Set<String> stoplist =
+      Set.of("edu.ucsb.cs156.example.controllers.FrontendProxyController");
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Value("${app.request-log.enabled:true}")
+  private boolean requestLogEnabled;
+
+  @Value("${app.request-log.sample-every:1}")
+  private int requestLogSampleEvery;
+
+  @Value("${app.request-log.max-per-second:10}")
+  private int requestLogMaxPerSecond;
+
+  private DiagnosticLogger requestLog;
+
+  private final Map<Method, EndpointMeters> meters = new ConcurrentHashMap<>();
+
+  /** The meters of one controller method */
+  private record EndpointMeters(Tags tags, Timer timer, AtomicInteger active) {}
+
+  @PostConstruct
+  void buildRequestLog() {
+    requestLog =
+        new DiagnosticLogger(
+            LoggerFactory.getLogger(LoggingAspect.class),
+            requestLogSampleEvery,
+            requestLogMaxPerSecond);
+  }
 
   /**
-   * This method is called before any controller method that is annotated with
+   * This method is called around any controller method that is annotated with
    * {@code @RequestMapping}, {@code @GetMapping}, {@code @PostMapping}, {@code @PutMapping},
    * {@code @DeleteMapping}, or {@code @PatchMapping}.
    *
    * @param joinPoint the join point (injected by Spring framework)
+   * @return whatever the controller method returns
+   * @throws Throwable whatever the controller method throws
    */
-  @Before(pointcut)
-  public void logControllers(JoinPoint joinPoint) {
-    getCurrentHttpRequest()
-        .ifPresent(
-            request -> {
-              String declaringTypeName = joinPoint.getSignature().getDeclaringTypeName();
-              if (!stoplist.contains(declaringTypeName)) {
-                log.info(
-                    "===== %s %s handled by %s in %s"
-                        .formatted(
-                            request.getMethod(),
-                            request.getRequestURI(),
-                            joinPoint.getSignature().getName(),
-                            declaringTypeName));
-              }
-            });
+  @Around(pointcut)
+  public Object timeControllers(ProceedingJoinPoint joinPoint) throws Throwable {
+    String declaringTypeName = joinPoint.getSignature().getDeclaringTypeName();
+    if (stoplist.contains(declaringTypeName)) {
+      return joinPoint.proceed();
+    }
+    EndpointMeters endpoint =
+        meters.computeIfAbsent(
+            ((MethodSignature) joinPoint.getSignature()).getMethod(), this::metersFor);
+
+    if (requestLogEnabled) {
+      getCurrentHttpRequest()
+          .ifPresent(
+              request ->
+                  requestLog.info(
+                      "request",
+                      () ->
+                          Map.of(
+                              "method", request.getMethod(),
+                              "uri", request.getRequestURI(),
+                              "handler",
+                                  declaringTypeName + "." + joinPoint.getSignature().getName())));
+    }
+
+    endpoint.active().incrementAndGet();
+    long start = System.nanoTime();
+    try {
+      return joinPoint.proceed();
+    } catch (Throwable t) {
+      meterRegistry
+          .counter(
+              "controller.errors", endpoint.tags().and("exception", t.getClass().getSimpleName()))
+          .increment();
+      throw t;
+    } finally {
+      endpoint.timer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      endpoint.active().decrementAndGet();
+    }
+  }
+
+  private EndpointMeters metersFor(Method method) {
+    Tags tags =
+        Tags.of(
+            "controller", method.getDeclaringClass().getSimpleName(), "method", method.getName());
+    Timer timer =
+        Timer.builder("controller.requests")
+            .description("Time spent in controller methods")
+            .tags(tags)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    AtomicInteger active = new AtomicInteger();
+    Gauge.builder("controller.requests.active", active, AtomicInteger::get)
+        .description("Controller method calls in progress")
+        .tags(tags)
+        .register(meterRegistry);
+    return new EndpointMeters(tags, timer, active);
   }
 
   /**
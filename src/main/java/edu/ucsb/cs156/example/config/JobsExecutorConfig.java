@@ -0,0 +1,74 @@
+package edu.ucsb.cs156.example.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * The `JobsExecutorConfig` class defines the executor that background jobs run on (see {@code
+ * JobService.runJobAsync}).
+ *
+ * <p>The executor has a bounded number of threads and a bounded queue, so that a burst of job
+ * launches cannot exhaust the platform threads or the database connection pool. When both are full,
+ * new jobs are left in the database queue (see {@code JobService}) instead of piling up in memory.
+ *
+ * <p>With {@code app.jobs.virtual-threads=true}, each job runs on its own virtual thread instead of
+ * a platform thread; the pool size and queue limits still apply, since they are what protect the
+ * database connection pool.
+ *
+ * <p>Server-sent events of jobs are written to their clients on a separate executor (see {@code
+ * JobLogHub}), so that a job never blocks on a slow client.
+ */
+@Configuration
+@Slf4j
+public class JobsExecutorConfig {
+
+  /**
+   * The executor used for {@code @Async("jobs")} methods.
+   *
+   * @param corePoolSize number of jobs that may run at once before jobs start being queued
+   * @param maxPoolSize number of jobs that may run at once when the queue is full
+   * @param queueCapacity number of jobs that may wait for a thread
+   * @param virtualThreads whether to run jobs on virtual threads
+   * @return the executor
+   */
+  @Bean(name = "jobs")
+  public ThreadPoolTaskExecutor jobsExecutor(
+      @Value("${app.jobs.core-pool-size:2}") int corePoolSize,
+      @Value("${app.jobs.max-pool-size:4}") int maxPoolSize,
+      @Value("${app.jobs.queue-capacity:100}") int queueCapacity,
+      @Value("${app.jobs.virtual-threads:false}") boolean virtualThreads) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(corePoolSize);
+    executor.setMaxPoolSize(maxPoolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("job-");
+    if (virtualThreads) {
+      executor.setThreadFactory(Thread.ofVirtual().name("job-", 1).factory());
+    }
+    log.info(
+        "jobs executor: corePoolSize={} maxPoolSize={} queueCapacity={} virtualThreads={}",
+        corePoolSize,
+        maxPoolSize,
+        queueCapacity,
+        virtualThreads);
+    return executor;
+  }
+
+  /**
+   * The executor that {@code JobLogHub} writes the events of jobs to their clients on. Each
+   * subscriber has at most one task at a time, which may block on a slow client, so it runs on
+   * virtual threads.
+   *
+   * @return the executor
+   */
+  @Bean(name = "jobStreams")
+  public SimpleAsyncTaskExecutor jobStreamsExecutor() {
+    SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("job-stream-");
+    executor.setVirtualThreads(true);
+    return executor;
+  }
+}
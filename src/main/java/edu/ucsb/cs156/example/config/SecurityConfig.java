@@ -2,36 +2,49 @@ package edu.ucsb.cs156.example.config;
 
 import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.logging.DiagnosticLogger;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.UserAdminChangedEvent;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.function.Supplier;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
 import org.springframework.security.access.hierarchicalroles.RoleHierarchyImpl;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManagers;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
 import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.Http403ForbiddenEntryPoint;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
@@ -50,14 +63,40 @@ import org.springframework.web.filter.OncePerRequestFilter;
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
-@Slf4j
 public class SecurityConfig {
+  private static final DiagnosticLogger diagnostics =
+      DiagnosticLogger.getLogger(SecurityConfig.class);
 
   @Value("${app.admin.emails}")
   private final List<String> adminEmails = new ArrayList<>();
 
   @Autowired UserRepository userRepository;
 
+  @Value("${app.metrics.scrape-token:}")
+  private String scrapeToken;
+
+  @Value("${app.admin.cache-ttl-ms:300000}")
+  private long adminCacheTtlMillis;
+
+  @Value("${app.admin.cache-max-size:10000}")
+  private long adminCacheMaxSize;
+
+  /** The configured admin emails, as a hash set for constant-time lookups */
+  private Set<String> adminEmailSet = Set.of();
+
+  /** Admin flag of users in the database, by email */
+  private Cache<String, Boolean> adminByEmail;
+
+  @PostConstruct
+  void buildAdminLookup() {
+    adminEmailSet = Set.copyOf(adminEmails);
+    adminByEmail =
+        Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMillis(adminCacheTtlMillis))
+            .maximumSize(adminCacheMaxSize)
+            .build();
+  }
+
   /**
    * The `filterChain` method in this Java code configures various security settings for an HTTP
    * request, including authorization, exception handling, OAuth2 login, CSRF protection, and logout
@@ -79,7 +118,18 @@ public class SecurityConfig {
                 csrf.csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
                     .csrfTokenRequestHandler(new SpaCsrfTokenRequestHandler()))
         .addFilterAfter(new CsrfCookieFilter(), BasicAuthenticationFilter.class)
-        .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+        .authorizeHttpRequests(
+            auth ->
+                // the actuator endpoints list every route and internal metrics: admins only,
+                // except that a Prometheus server may scrape with the scrape token
+                auth.requestMatchers(antMatcher("/actuator/prometheus"))
+                    .access(
+                        AuthorizationManagers.anyOf(
+                            this::hasScrapeToken, AuthorityAuthorizationManager.hasRole("ADMIN")))
+                    .requestMatchers(antMatcher("/actuator/**"))
+                    .hasRole("ADMIN")
+                    .anyRequest()
+                    .permitAll())
         .logout(
             logout ->
                 logout
@@ -88,6 +138,23 @@ public class SecurityConfig {
     return http.build();
   }
 
+  /**
+   * Grants access to requests that carry {@code Authorization: Bearer <app.metrics.scrape-token>},
+   * so that Prometheus can scrape without an admin login. When no token is configured, nobody gets
+   * in this way.
+   */
+  private AuthorizationDecision hasScrapeToken(
+      Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+    String header = context.getRequest().getHeader(HttpHeaders.AUTHORIZATION);
+    boolean granted =
+        !scrapeToken.isEmpty()
+            && header != null
+            && MessageDigest.isEqual(
+                ("Bearer " + scrapeToken).getBytes(StandardCharsets.UTF_8),
+                header.getBytes(StandardCharsets.UTF_8));
+    return new AuthorizationDecision(granted);
+  }
+
   /**
    * The `webSecurityCustomizer` method is used to configure web security in Java, specifically
    * ignoring requests to the "/h2-console/**" path.
@@ -100,15 +167,12 @@ public class SecurityConfig {
   private GrantedAuthoritiesMapper userAuthoritiesMapper() {
     return (authorities) -> {
       Set<GrantedAuthority> mappedAuthorities = new HashSet<>();
-      log.info("********** authorities={}", authorities);
 
       authorities.forEach(
           authority -> {
-            log.info("********** authority={}", authority);
             mappedAuthorities.add(authority);
             if (authority instanceof OAuth2UserAuthority oauth2UserAuthority) {
               Map<String, Object> userAttributes = oauth2UserAuthority.getAttributes();
-              log.info("********** userAttributes={}", userAttributes);
 
               mappedAuthorities.add(new SimpleGrantedAuthority("ROLE_USER"));
 
@@ -122,7 +186,9 @@ public class SecurityConfig {
               }
             }
           });
-      log.info("********** mappedAuthorities={}", mappedAuthorities);
+      diagnostics.debug(
+          "mapped authorities",
+          () -> Map.of("authorities", authorities, "mappedAuthorities", mappedAuthorities));
       return mappedAuthorities;
     };
   }
@@ -131,15 +197,34 @@ public class SecurityConfig {
    * This method checks if the given email belongs to an admin user either from a predefined list or
    * by querying the user repository.
    *
+   * <p>The answer from the user repository is cached for {@code app.admin.cache-ttl-ms}, so that
+   * many users logging in at once do not each cost a query; concurrent logins of the same user
+   * share one query. See {@link #onUserAdminChanged} and {@link #invalidateAdminCache}.
+   *
    * @param email email address of the user
    * @return whether the user with the given email is an admin
    */
   public boolean getAdmin(String email) {
-    if (adminEmails.contains(email)) {
+    if (adminEmailSet.contains(email)) {
       return true;
     }
-    Optional<User> u = userRepository.findByEmail(email);
-    return u.isPresent() && u.get().getAdmin();
+    return adminByEmail.get(
+        email, e -> userRepository.findByEmail(e).map(User::getAdmin).orElse(false));
+  }
+
+  /**
+   * Drops the cached admin flag of a user whose admin flag changed.
+   *
+   * @param event the change
+   */
+  @EventListener
+  public void onUserAdminChanged(UserAdminChangedEvent event) {
+    adminByEmail.invalidate(event.email());
+  }
+
+  /** Drops every cached admin flag, e.g. after users were changed directly in the database. */
+  public void invalidateAdminCache() {
+    adminByEmail.invalidateAll();
   }
 
   @Bean
@@ -0,0 +1,31 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * The `SnapshotExecutorConfig` class defines the executor that JSON snapshots of the reference
+ * tables are rebuilt on after a write (see {@code JsonSnapshotService}).
+ *
+ * <p>A single thread is enough: rebuilds of the same table are coalesced, so the queue never holds
+ * more than one rebuild per table, and keeping them off the jobs executor means a burst of writes
+ * can never delay background jobs.
+ */
+@Configuration
+public class SnapshotExecutorConfig {
+
+  /**
+   * The executor used by {@code JsonSnapshotService}.
+   *
+   * @return the executor
+   */
+  @Bean(name = "snapshots")
+  public ThreadPoolTaskExecutor snapshotsExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(1);
+    executor.setMaxPoolSize(1);
+    executor.setThreadNamePrefix("snapshot-");
+    return executor;
+  }
+}
@@ -1,11 +1,19 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidBatchException;
 import edu.ucsb.cs156.example.models.CurrentUser;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.repository.CrudRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -15,6 +23,9 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 public abstract class ApiController {
   @Autowired private CurrentUserService currentUserService;
 
+  @Value("${app.batch.max-size:1000}")
+  private int maxBatchSize;
+
   /**
    * This method returns the current user.
    *
@@ -34,6 +45,71 @@ public abstract class ApiController {
     return Map.of("message", message);
   }
 
+  /**
+   * This method saves the items posted to a {@code /batch} endpoint. The items are saved with a
+   * single {@code saveAll}, i.e. in one transaction, so either all of them are saved or none are.
+   *
+   * <p>The number of items was already limited to {@code app.batch.max-size} while the request body
+   * was read (see {@code BatchHttpMessageConverter}).
+   *
+   * @param <T> the type of the entity
+   * @param <K> the type of its key
+   * @param repository the repository to save the items with
+   * @param items the items to save
+   * @param key function that returns the key of a saved item
+   * @return the keys of the saved items, in the same order as the items
+   * @throws InvalidBatchException if there are no items
+   */
+  protected <T, K> List<K> saveBatch(
+      CrudRepository<T, ?> repository, List<T> items, Function<T, K> key) {
+    if (items.isEmpty()) {
+      throw new InvalidBatchException("Batch is empty");
+    }
+    List<K> keys = new ArrayList<>(items.size());
+    for (T saved : repository.saveAll(items)) {
+      keys.add(key.apply(saved));
+    }
+    return keys;
+  }
+
+  /**
+   * This method checks the keys passed to a {@code /bulk} endpoint.
+   *
+   * @param keys the keys of the rows to update or delete
+   * @throws InvalidBatchException if there are no keys, or more than {@code app.batch.max-size}
+   */
+  protected void requireBulkKeys(List<?> keys) {
+    if (keys == null || keys.isEmpty()) {
+      throw new InvalidBatchException("No ids given");
+    }
+    if (keys.size() > maxBatchSize) {
+      throw new InvalidBatchException(
+          "%d ids given; at most %d are allowed".formatted(keys.size(), maxBatchSize));
+    }
+  }
+
+  /**
+   * This method checks that every item of a batch has a key, and that no two items have the same
+   * key. It is meant for entities whose key is assigned by the client rather than generated.
+   *
+   * @param <T> the type of the entity
+   * @param items the items of the batch
+   * @param key function that returns the key of an item
+   * @throws InvalidBatchException if a key is missing or repeated
+   */
+  protected <T> void requireDistinctKeys(List<T> items, Function<T, String> key) {
+    Set<String> seen = new HashSet<>();
+    for (T item : items) {
+      String k = key.apply(item);
+      if (k == null || k.isBlank()) {
+        throw new InvalidBatchException("Every item in the batch needs a key");
+      }
+      if (!seen.add(k)) {
+        throw new InvalidBatchException("Key %s appears more than once in the batch".formatted(k));
+      }
+    }
+  }
+
   /**
    * This method handles the EntityNotFoundException.
    *
@@ -47,4 +123,18 @@ public abstract class ApiController {
         "type", e.getClass().getSimpleName(),
         "message", e.getMessage());
   }
+
+  /**
+   * This method handles the InvalidBatchException.
+   *
+   * @param e the exception
+   * @return a map with the type and message of the exception
+   */
+  @ExceptionHandler({InvalidBatchException.class})
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleInvalidBatchException(Throwable e) {
+    return Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", e.getMessage());
+  }
 }
@@ -3,18 +3,25 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.Article;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkUpdate;
+import edu.ucsb.cs156.example.models.CursorPage;
 import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import edu.ucsb.cs156.example.services.BulkUpdateService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -31,6 +38,8 @@ public class ArticlesController extends ApiController {
 
   @Autowired ArticleRepository articleRepository;
 
+  @Autowired BulkUpdateService bulkUpdateService;
+
   /**
    * List all Articles
    *
@@ -44,6 +53,27 @@ public class ArticlesController extends ApiController {
     return articles;
   }
 
+  /**
+   * List one page of articles, using keyset pagination on id
+   *
+   * @param after only articles whose id comes after this one are returned (omit for the first page)
+   * @param limit maximum number of articles to return
+   * @return a page of articles and the cursor for the next page
+   */
+  @Operation(summary = "List articles one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public CursorPage<Article> pageArticles(
+      @Parameter(name = "after", description = "id of the last item of the previous page")
+          @RequestParam(defaultValue = "0")
+          Long after,
+      @Parameter(name = "limit") @RequestParam(required = false) Integer limit) {
+    int pageLimit = CursorPage.clampLimit(limit);
+    List<Article> page =
+        articleRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(pageLimit));
+    return CursorPage.of(page, pageLimit, Article::getId);
+  }
+
   /**
    * Create a new article
    *
@@ -152,4 +182,53 @@ public class ArticlesController extends ApiController {
 
     return article;
   }
+
+  /**
+   * Create many articles in one request and one transaction
+   *
+   * <p>Any ids in the request are ignored; new ids are generated.
+   *
+   * @param items the articles to create, as a JSON array or as NDJSON (one per line)
+   * @return the ids of the created articles, in the same order as they were sent
+   */
+  @Operation(summary = "Create many articles at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/batch",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<Long> postArticles(@RequestBody List<Article> items) {
+    items.forEach(item -> item.setId(null));
+    return saveBatch(articleRepository, items, Article::getId);
+  }
+
+  /**
+   * Update many articles at once: the same values are written to every Article in {@code ids}, with
+   * a single UPDATE statement
+   *
+   * @param bulkUpdate the ids of the articles to update, and the new values by field name
+   * @return a message with the number of articles updated
+   */
+  @Operation(summary = "Update many articles at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PatchMapping("/bulk")
+  public Object bulkUpdateArticle(@RequestBody BulkUpdate<Long> bulkUpdate) {
+    requireBulkKeys(bulkUpdate.getIds());
+    int updated = bulkUpdateService.update(Article.class, bulkUpdate.getIds(), bulkUpdate.getSet());
+    return genericMessage("%d Article updated".formatted(updated));
+  }
+
+  /**
+   * Delete many articles at once, with a single DELETE statement
+   *
+   * @param ids the ids of the articles to delete; ids that do not exist are ignored
+   * @return a message with the number of articles deleted
+   */
+  @Operation(summary = "Delete many articles at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public Object bulkDeleteArticle(@Parameter(name = "ids") @RequestParam List<Long> ids) {
+    requireBulkKeys(ids);
+    int deleted = articleRepository.bulkDelete(ids);
+    return genericMessage("%d Article deleted".formatted(deleted));
+  }
 }
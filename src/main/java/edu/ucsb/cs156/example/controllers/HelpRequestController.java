@@ -2,17 +2,33 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkUpdate;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.ExportFormat;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.BulkUpdateService;
+import edu.ucsb.cs156.example.services.ExportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** REST controller for HelpRequest (index + create) */
 @Tag(name = "HelpRequest")
@@ -21,8 +37,22 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 public class HelpRequestController extends ApiController {
 
+  private static final List<ExportService.Column> EXPORT_COLUMNS =
+      List.of(
+          new ExportService.Column("id", "ID", Long.class),
+          new ExportService.Column("requesterEmail", "REQUESTER_EMAIL", String.class),
+          new ExportService.Column("teamId", "TEAM_ID", String.class),
+          new ExportService.Column("tableOrBreakoutRoom", "TABLE_OR_BREAKOUT_ROOM", String.class),
+          new ExportService.Column("requestTime", "REQUEST_TIME", OffsetDateTime.class),
+          new ExportService.Column("explanation", "EXPLANATION", String.class),
+          new ExportService.Column("solved", "SOLVED", Boolean.class));
+
   @Autowired private HelpRequestRepository helpRequestRepository;
 
+  @Autowired BulkUpdateService bulkUpdateService;
+
+  @Autowired ExportService exportService;
+
   @Operation(summary = "List all help requests")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
@@ -30,6 +60,30 @@ public class HelpRequestController extends ApiController {
     return helpRequestRepository.findAll();
   }
 
+  @Operation(summary = "List help requests one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public CursorPage<HelpRequest> pageHelpRequests(
+      @Parameter(name = "after", description = "id of the last item of the previous page")
+          @RequestParam(defaultValue = "0")
+          Long after,
+      @Parameter(name = "limit") @RequestParam(required = false) Integer limit) {
+    int pageLimit = CursorPage.clampLimit(limit);
+    List<HelpRequest> page =
+        helpRequestRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(pageLimit));
+    return CursorPage.of(page, pageLimit, HelpRequest::getId);
+  }
+
+  @Operation(summary = "Export all help requests as NDJSON or CSV")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportHelpRequests(
+      @Parameter(name = "format", description = "ndjson or csv")
+          @RequestParam(defaultValue = "ndjson")
+          ExportFormat format) {
+    return exportService.export(format, "helprequests", "HELPREQUESTS", EXPORT_COLUMNS);
+  }
+
   @Operation(summary = "Create a new help request")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/post")
@@ -98,4 +152,54 @@ public class HelpRequestController extends ApiController {
     helpRequestRepository.delete(existing);
     return genericMessage("HelpRequest with id %s deleted".formatted(id));
   }
+
+  /**
+   * Create many help requests in one request and one transaction
+   *
+   * <p>Any ids in the request are ignored; new ids are generated.
+   *
+   * @param items the help requests to create, as a JSON array or as NDJSON (one per line)
+   * @return the ids of the created help requests, in the same order as they were sent
+   */
+  @Operation(summary = "Create many help requests at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/batch",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<Long> postHelpRequests(@RequestBody List<HelpRequest> items) {
+    items.forEach(item -> item.setId(0));
+    return saveBatch(helpRequestRepository, items, HelpRequest::getId);
+  }
+
+  /**
+   * Update many help requests at once: the same values are written to every HelpRequest in {@code
+   * ids}, with a single UPDATE statement
+   *
+   * @param bulkUpdate the ids of the help requests to update, and the new values by field name
+   * @return a message with the number of help requests updated
+   */
+  @Operation(summary = "Update many help requests at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PatchMapping("/bulk")
+  public Object bulkUpdateHelpRequest(@RequestBody BulkUpdate<Long> bulkUpdate) {
+    requireBulkKeys(bulkUpdate.getIds());
+    int updated =
+        bulkUpdateService.update(HelpRequest.class, bulkUpdate.getIds(), bulkUpdate.getSet());
+    return genericMessage("%d HelpRequest updated".formatted(updated));
+  }
+
+  /**
+   * Delete many help requests at once, with a single DELETE statement
+   *
+   * @param ids the ids of the help requests to delete; ids that do not exist are ignored
+   * @return a message with the number of help requests deleted
+   */
+  @Operation(summary = "Delete many help requests at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public Object bulkDeleteHelpRequest(@Parameter(name = "ids") @RequestParam List<Long> ids) {
+    requireBulkKeys(ids);
+    int deleted = helpRequestRepository.bulkDelete(ids);
+    return genericMessage("%d HelpRequest deleted".formatted(deleted));
+  }
 }
@@ -5,14 +5,29 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.repositories.JobLogLineRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.ExportService;
+import edu.ucsb.cs156.example.services.jobs.JobLogHub;
 import edu.ucsb.cs156.example.services.jobs.JobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,31 +36,78 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Tag(name = "Jobs")
 @RequestMapping("/api/jobs")
 @RestController
 @Slf4j
 public class JobsController extends ApiController {
+  private static final List<ExportService.Column> EXPORT_COLUMNS =
+      List.of(
+          new ExportService.Column("id", "ID", Long.class),
+          new ExportService.Column("createdById", "CREATED_BY_ID", Long.class),
+          new ExportService.Column("jobType", "JOB_TYPE", String.class),
+          new ExportService.Column("status", "STATUS", String.class),
+          new ExportService.Column("createdAt", "CREATED_AT", OffsetDateTime.class),
+          new ExportService.Column("updatedAt", "UPDATED_AT", OffsetDateTime.class));
+
   @Autowired private JobsRepository jobsRepository;
 
+  @Autowired private JobLogLineRepository jobLogLineRepository;
+
   @Autowired private JobService jobService;
 
+  @Autowired private JobLogHub jobLogHub;
+
+  @Autowired private ExportService exportService;
+
   @Autowired ObjectMapper mapper;
 
-  @Operation(summary = "List all jobs")
+  @Value("${app.jobs.stream.timeout-ms:1800000}")
+  private long streamTimeoutMillis;
+
+  @Operation(
+      summary = "List all jobs",
+      description = "Jobs are listed without their logs; use /api/jobs/logs/{id} to get a log")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("/all")
-  public Iterable<Job> allJobs() {
-    Iterable<Job> jobs = jobsRepository.findAll();
+  public Iterable<JobSummary> allJobs() {
+    Iterable<JobSummary> jobs = jobsRepository.findAllSummaries();
     return jobs;
   }
 
+  @Operation(summary = "List jobs one page at a time")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/page")
+  public CursorPage<JobSummary> pageJobs(
+      @Parameter(name = "after", description = "id of the last item of the previous page")
+          @RequestParam(defaultValue = "0")
+          Long after,
+      @Parameter(name = "limit") @RequestParam(required = false) Integer limit) {
+    int pageLimit = CursorPage.clampLimit(limit);
+    List<JobSummary> page = jobsRepository.findSummariesByIdGreaterThan(after, Limit.of(pageLimit));
+    return CursorPage.of(page, pageLimit, JobSummary::getId);
+  }
+
+  @Operation(
+      summary = "Export all jobs as NDJSON or CSV",
+      description = "Jobs are exported without their logs and payloads")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportJobs(
+      @Parameter(name = "format", description = "ndjson or csv")
+          @RequestParam(defaultValue = "ndjson")
+          ExportFormat format) {
+    return exportService.export(format, "jobs", "JOBS", EXPORT_COLUMNS);
+  }
+
   @Operation(summary = "Delete all job records")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("/all")
   public Map<String, String> deleteAllJobs() {
-    jobsRepository.deleteAll();
+    jobService.deleteAllJobs();
     return Map.of("message", "All jobs deleted");
   }
 
@@ -69,7 +131,7 @@ public class JobsController extends ApiController {
     if (!jobsRepository.existsById(id)) {
       return Map.of("message", String.format("Job with id %d not found", id));
     }
-    jobsRepository.deleteById(id);
+    jobService.deleteJob(id);
     return Map.of("message", String.format("Job with id %d deleted", id));
   }
 
@@ -84,11 +146,50 @@ public class JobsController extends ApiController {
     return jobService.runAsJob(testJob);
   }
 
-  @Operation(summary = "Get long job logs")
+  @Operation(
+      summary = "Get long job logs",
+      description =
+          "Returns the whole log, or only the lines from fromLine on (the first line is 0), or only"
+              + " the last tail lines. Byte ranges of the result can be requested with a Range"
+              + " header.")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("/logs/{id}")
-  public String getJobLogs(@Parameter(name = "id", description = "Job ID") @PathVariable Long id) {
+  public ResponseEntity<Resource> getJobLogs(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id,
+      @Parameter(name = "fromLine", description = "index of the first line to return")
+          @RequestParam(defaultValue = "0")
+          long fromLine,
+      @Parameter(name = "tail", description = "number of lines to return from the end of the log")
+          @RequestParam(required = false)
+          Integer tail) {
 
-    return jobService.getJobLogs(id);
+    String log = jobService.getJobLogs(id, fromLine, tail);
+    // returning a Resource lets Spring MVC answer Range requests with 206 Partial Content
+    return ResponseEntity.ok()
+        .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+        .body(new ByteArrayResource(log.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Operation(
+      summary = "Follow a job: its log lines and status changes as server-sent events",
+      description =
+          "Sends the lines logged so far, then each new line as a 'log' event (id is the seq of the"
+              + " line) and each status change as a 'status' event. The stream ends when the job"
+              + " is complete, has failed or was rejected.")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamJob(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id) {
+    SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+    // subscribe before reading the job, so that no line or status change falls in between
+    JobLogHub.Subscription subscription = jobLogHub.subscribe(id, emitter);
+    Job job = jobsRepository.findById(id).orElse(null);
+    if (job == null) {
+      jobLogHub.unsubscribe(subscription);
+      throw new EntityNotFoundException(Job.class, id);
+    }
+    jobService.flushJobLog(id);
+    subscription.replay(jobLogLineRepository.findByJobIdOrderBySeqAsc(id), job.getStatus());
+    return emitter;
   }
 }
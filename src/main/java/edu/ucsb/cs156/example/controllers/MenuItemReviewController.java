@@ -3,24 +3,40 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkUpdate;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.ExportFormat;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.BulkUpdateService;
+import edu.ucsb.cs156.example.services.ExportService;
+import edu.ucsb.cs156.example.services.JsonStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for MenuItemReviews */
 @Tag(name = "MenuItemReview")
@@ -29,19 +45,78 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class MenuItemReviewController extends ApiController {
 
+  private static final List<ExportService.Column> EXPORT_COLUMNS =
+      List.of(
+          new ExportService.Column("id", "ID", Long.class),
+          new ExportService.Column("itemId", "ITEM_ID", Long.class),
+          new ExportService.Column("reviewerEmail", "REVIEWER_EMAIL", String.class),
+          new ExportService.Column("stars", "STARS", Integer.class),
+          new ExportService.Column("dateReviewed", "DATE_REVIEWED", LocalDateTime.class),
+          new ExportService.Column("comments", "COMMENTS", String.class));
+
   @Autowired MenuItemReviewRepository menuItemReviewRepository;
 
+  @Autowired BulkUpdateService bulkUpdateService;
+
+  @Autowired JsonStreamService jsonStreamService;
+
+  @Autowired ExportService exportService;
+
   /**
    * List all Menu Item Reviews
    *
-   * @return an iterable of MenuItemReview
+   * <p>The list is written as it is read from the database (see {@link JsonStreamService}), so it
+   * can be as long as the table is.
+   *
+   * @return a JSON array of MenuItemReview
    */
   @Operation(summary = "List all menu item reviews")
+  @ApiResponse(
+      responseCode = "200",
+      content =
+          @Content(array = @ArraySchema(schema = @Schema(implementation = MenuItemReview.class))))
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/all", produces = MediaType.APPLICATION_JSON_VALUE)
+  public StreamingResponseBody allMenuItemReview() {
+    return jsonStreamService.jsonArray(menuItemReviewRepository::streamAll);
+  }
+
+  /**
+   * List one page of menu item reviews, using keyset pagination on id
+   *
+   * @param after only menu item reviews whose id comes after this one are returned (omit for the
+   *     first page)
+   * @param limit maximum number of menu item reviews to return
+   * @return a page of menu item reviews and the cursor for the next page
+   */
+  @Operation(summary = "List menu item reviews one page at a time")
   @PreAuthorize("hasRole('ROLE_USER')")
-  @GetMapping("/all")
-  public Iterable<MenuItemReview> allMenuItemReview() {
-    Iterable<MenuItemReview> reviews = menuItemReviewRepository.findAll();
-    return reviews;
+  @GetMapping("/page")
+  public CursorPage<MenuItemReview> pageMenuItemReviews(
+      @Parameter(name = "after", description = "id of the last item of the previous page")
+          @RequestParam(defaultValue = "0")
+          Long after,
+      @Parameter(name = "limit") @RequestParam(required = false) Integer limit) {
+    int pageLimit = CursorPage.clampLimit(limit);
+    List<MenuItemReview> page =
+        menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(pageLimit));
+    return CursorPage.of(page, pageLimit, MenuItemReview::getId);
+  }
+
+  /**
+   * Export all menu item reviews, for analytics
+   *
+   * @param format the format of the export
+   * @return the menu item reviews, written as they are read from the database
+   */
+  @Operation(summary = "Export all menu item reviews as NDJSON or CSV")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportMenuItemReviews(
+      @Parameter(name = "format", description = "ndjson or csv")
+          @RequestParam(defaultValue = "ndjson")
+          ExportFormat format) {
+    return exportService.export(format, "menuitemreviews", "MENU_ITEM_REVIEWS", EXPORT_COLUMNS);
   }
 
   /**
@@ -153,4 +228,54 @@ public class MenuItemReviewController extends ApiController {
 
     return menuItemReview;
   }
+
+  /**
+   * Create many menu item reviews in one request and one transaction
+   *
+   * <p>Any ids in the request are ignored; new ids are generated.
+   *
+   * @param items the menu item reviews to create, as a JSON array or as NDJSON (one per line)
+   * @return the ids of the created menu item reviews, in the same order as they were sent
+   */
+  @Operation(summary = "Create many menu item reviews at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/batch",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<Long> postMenuItemReviews(@RequestBody List<MenuItemReview> items) {
+    items.forEach(item -> item.setId(0));
+    return saveBatch(menuItemReviewRepository, items, MenuItemReview::getId);
+  }
+
+  /**
+   * Update many menu item reviews at once: the same values are written to every MenuItemReview in
+   * {@code ids}, with a single UPDATE statement
+   *
+   * @param bulkUpdate the ids of the menu item reviews to update, and the new values by field name
+   * @return a message with the number of menu item reviews updated
+   */
+  @Operation(summary = "Update many menu item reviews at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PatchMapping("/bulk")
+  public Object bulkUpdateMenuItemReview(@RequestBody BulkUpdate<Long> bulkUpdate) {
+    requireBulkKeys(bulkUpdate.getIds());
+    int updated =
+        bulkUpdateService.update(MenuItemReview.class, bulkUpdate.getIds(), bulkUpdate.getSet());
+    return genericMessage("%d MenuItemReview updated".formatted(updated));
+  }
+
+  /**
+   * Delete many menu item reviews at once, with a single DELETE statement
+   *
+   * @param ids the ids of the menu item reviews to delete; ids that do not exist are ignored
+   * @return a message with the number of menu item reviews deleted
+   */
+  @Operation(summary = "Delete many menu item reviews at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public Object bulkDeleteMenuItemReview(@Parameter(name = "ids") @RequestParam List<Long> ids) {
+    requireBulkKeys(ids);
+    int deleted = menuItemReviewRepository.bulkDelete(ids);
+    return genericMessage("%d MenuItemReview deleted".formatted(deleted));
+  }
 }
@@ -3,18 +3,25 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkUpdate;
+import edu.ucsb.cs156.example.models.CursorPage;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.services.BulkUpdateService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -31,6 +38,8 @@ public class RecommendationRequestsController extends ApiController {
 
   @Autowired RecommendationRequestRepository recommendationRequestRepository;
 
+  @Autowired BulkUpdateService bulkUpdateService;
+
   /**
    * List all Recommendation Requests
    *
@@ -45,6 +54,28 @@ public class RecommendationRequestsController extends ApiController {
     return recommendationRequests;
   }
 
+  /**
+   * List one page of recommendation requests, using keyset pagination on id
+   *
+   * @param after only recommendation requests whose id comes after this one are returned (omit for
+   *     the first page)
+   * @param limit maximum number of recommendation requests to return
+   * @return a page of recommendation requests and the cursor for the next page
+   */
+  @Operation(summary = "List recommendation requests one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public CursorPage<RecommendationRequest> pageRecommendationRequests(
+      @Parameter(name = "after", description = "id of the last item of the previous page")
+          @RequestParam(defaultValue = "0")
+          Long after,
+      @Parameter(name = "limit") @RequestParam(required = false) Integer limit) {
+    int pageLimit = CursorPage.clampLimit(limit);
+    List<RecommendationRequest> page =
+        recommendationRequestRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(pageLimit));
+    return CursorPage.of(page, pageLimit, RecommendationRequest::getId);
+  }
+
   /**
    * Create a new recommendation request
    *
@@ -161,4 +192,57 @@ public class RecommendationRequestsController extends ApiController {
     recommendationRequestRepository.delete(recommendationRequest);
     return genericMessage("RecommendationRequest with id %s deleted".formatted(id));
   }
+
+  /**
+   * Create many recommendation requests in one request and one transaction
+   *
+   * <p>Any ids in the request are ignored; new ids are generated.
+   *
+   * @param items the recommendation requests to create, as a JSON array or as NDJSON (one per line)
+   * @return the ids of the created recommendation requests, in the same order as they were sent
+   */
+  @Operation(summary = "Create many recommendation requests at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/batch",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<Long> postRecommendationRequests(@RequestBody List<RecommendationRequest> items) {
+    items.forEach(item -> item.setId(0));
+    return saveBatch(recommendationRequestRepository, items, RecommendationRequest::getId);
+  }
+
+  /**
+   * Update many recommendation requests at once: the same values are written to every
+   * RecommendationRequest in {@code ids}, with a single UPDATE statement
+   *
+   * @param bulkUpdate the ids of the recommendation requests to update, and the new values by field
+   *     name
+   * @return a message with the number of recommendation requests updated
+   */
+  @Operation(summary = "Update many recommendation requests at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PatchMapping("/bulk")
+  public Object bulkUpdateRecommendationRequest(@RequestBody BulkUpdate<Long> bulkUpdate) {
+    requireBulkKeys(bulkUpdate.getIds());
+    int updated =
+        bulkUpdateService.update(
+            RecommendationRequest.class, bulkUpdate.getIds(), bulkUpdate.getSet());
+    return genericMessage("%d RecommendationRequest updated".formatted(updated));
+  }
+
+  /**
+   * Delete many recommendation requests at once, with a single DELETE statement
+   *
+   * @param ids the ids of the recommendation requests to delete; ids that do not exist are ignored
+   * @return a message with the number of recommendation requests deleted
+   */
+  @Operation(summary = "Delete many recommendation requests at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public Object bulkDeleteRecommendationRequest(
+      @Parameter(name = "ids") @RequestParam List<Long> ids) {
+    requireBulkKeys(ids);
+    int deleted = recommendationRequestRepository.bulkDelete(ids);
+    return genericMessage("%d RecommendationRequest deleted".formatted(deleted));
+  }
 }
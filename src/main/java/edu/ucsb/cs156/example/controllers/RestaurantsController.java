@@ -2,15 +2,22 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkUpdate;
+import edu.ucsb.cs156.example.models.CursorPage;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.BulkUpdateService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -26,6 +33,8 @@ public class RestaurantsController extends ApiController {
 
   @Autowired RestaurantRepository restaurantRepository;
 
+  @Autowired BulkUpdateService bulkUpdateService;
+
   /**
    * This method returns a list of all restaurants.
    *
@@ -39,6 +48,28 @@ public class RestaurantsController extends ApiController {
     return restaurants;
   }
 
+  /**
+   * List one page of restaurants, using keyset pagination on id
+   *
+   * @param after only restaurants whose id comes after this one are returned (omit for the first
+   *     page)
+   * @param limit maximum number of restaurants to return
+   * @return a page of restaurants and the cursor for the next page
+   */
+  @Operation(summary = "List restaurants one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public CursorPage<Restaurant> pageRestaurants(
+      @Parameter(name = "after", description = "id of the last item of the previous page")
+          @RequestParam(defaultValue = "0")
+          Long after,
+      @Parameter(name = "limit") @RequestParam(required = false) Integer limit) {
+    int pageLimit = CursorPage.clampLimit(limit);
+    List<Restaurant> page =
+        restaurantRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(pageLimit));
+    return CursorPage.of(page, pageLimit, Restaurant::getId);
+  }
+
   /**
    * This method returns a single restaurant.
    *
@@ -123,4 +154,54 @@ public class RestaurantsController extends ApiController {
 
     return restaurant;
   }
+
+  /**
+   * Create many restaurants in one request and one transaction
+   *
+   * <p>Any ids in the request are ignored; new ids are generated.
+   *
+   * @param items the restaurants to create, as a JSON array or as NDJSON (one per line)
+   * @return the ids of the created restaurants, in the same order as they were sent
+   */
+  @Operation(summary = "Create many restaurants at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/batch",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<Long> postRestaurants(@RequestBody List<Restaurant> items) {
+    items.forEach(item -> item.setId(0));
+    return saveBatch(restaurantRepository, items, Restaurant::getId);
+  }
+
+  /**
+   * Update many restaurants at once: the same values are written to every Restaurant in {@code
+   * ids}, with a single UPDATE statement
+   *
+   * @param bulkUpdate the ids of the restaurants to update, and the new values by field name
+   * @return a message with the number of restaurants updated
+   */
+  @Operation(summary = "Update many restaurants at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PatchMapping("/bulk")
+  public Object bulkUpdateRestaurant(@RequestBody BulkUpdate<Long> bulkUpdate) {
+    requireBulkKeys(bulkUpdate.getIds());
+    int updated =
+        bulkUpdateService.update(Restaurant.class, bulkUpdate.getIds(), bulkUpdate.getSet());
+    return genericMessage("%d Restaurant updated".formatted(updated));
+  }
+
+  /**
+   * Delete many restaurants at once, with a single DELETE statement
+   *
+   * @param ids the ids of the restaurants to delete; ids that do not exist are ignored
+   * @return a message with the number of restaurants deleted
+   */
+  @Operation(summary = "Delete many restaurants at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public Object bulkDeleteRestaurant(@Parameter(name = "ids") @RequestParam List<Long> ids) {
+    requireBulkKeys(ids);
+    int deleted = restaurantRepository.bulkDelete(ids);
+    return genericMessage("%d Restaurant deleted".formatted(deleted));
+  }
 }
@@ -3,24 +3,34 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkUpdate;
+import edu.ucsb.cs156.example.models.CursorPage;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.BulkUpdateService;
+import edu.ucsb.cs156.example.services.TableVersionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /** This is a REST controller for UCSBDates */
 @Tag(name = "UCSBDates")
@@ -31,32 +41,71 @@ public class UCSBDatesController extends ApiController {
 
   @Autowired UCSBDateRepository ucsbDateRepository;
 
+  @Autowired BulkUpdateService bulkUpdateService;
+
+  @Autowired TableVersionService tableVersionService;
+
   /**
    * List all UCSB dates
    *
+   * @param request the request, for its If-None-Match header
    * @return an iterable of UCSBDate
    */
   @Operation(summary = "List all ucsb dates")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDate> allUCSBDates() {
+  public Iterable<UCSBDate> allUCSBDates(WebRequest request) {
+    if (request.checkNotModified(tableVersionService.weakEtag(UCSBDateRepository.CACHE))) {
+      return null;
+    }
     Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
     return dates;
   }
 
+  /**
+   * List one page of ucsb dates, using keyset pagination on id
+   *
+   * @param after only ucsb dates whose id comes after this one are returned (omit for the first
+   *     page)
+   * @param limit maximum number of ucsb dates to return
+   * @param request the request, for its If-None-Match header
+   * @return a page of ucsb dates and the cursor for the next page
+   */
+  @Operation(summary = "List ucsb dates one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public CursorPage<UCSBDate> pageUCSBDates(
+      @Parameter(name = "after", description = "id of the last item of the previous page")
+          @RequestParam(defaultValue = "0")
+          Long after,
+      @Parameter(name = "limit") @RequestParam(required = false) Integer limit,
+      WebRequest request) {
+    if (request.checkNotModified(tableVersionService.weakEtag(UCSBDateRepository.CACHE))) {
+      return null;
+    }
+    int pageLimit = CursorPage.clampLimit(limit);
+    List<UCSBDate> page =
+        ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(pageLimit));
+    return CursorPage.of(page, pageLimit, UCSBDate::getId);
+  }
+
   /**
    * Get a single date by id
    *
    * @param id the id of the date
+   * @param request the request, for its If-None-Match header
    * @return a UCSBDate
    */
   @Operation(summary = "Get a single date")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDate getById(@Parameter(name = "id") @RequestParam Long id) {
+  public UCSBDate getById(@Parameter(name = "id") @RequestParam Long id, WebRequest request) {
+    if (request.checkNotModified(tableVersionService.weakEtag(UCSBDateRepository.CACHE))) {
+      return null;
+    }
     UCSBDate ucsbDate =
         ucsbDateRepository
-            .findById(id)
+            .findCachedById(id)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
     return ucsbDate;
@@ -73,6 +122,7 @@ public class UCSBDatesController extends ApiController {
   @Operation(summary = "Create a new date")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/post")
+  @Transactional
   public UCSBDate postUCSBDate(
       @Parameter(name = "quarterYYYYQ") @RequestParam String quarterYYYYQ,
       @Parameter(name = "name") @RequestParam String name,
@@ -96,6 +146,7 @@ public class UCSBDatesController extends ApiController {
     ucsbDate.setLocalDateTime(localDateTime);
 
     UCSBDate savedUcsbDate = ucsbDateRepository.save(ucsbDate);
+    tableVersionService.bump(UCSBDateRepository.CACHE);
 
     return savedUcsbDate;
   }
@@ -109,6 +160,7 @@ public class UCSBDatesController extends ApiController {
   @Operation(summary = "Delete a UCSBDate")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
+  @Transactional
   public Object deleteUCSBDate(@Parameter(name = "id") @RequestParam Long id) {
     UCSBDate ucsbDate =
         ucsbDateRepository
@@ -116,6 +168,7 @@ public class UCSBDatesController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
     ucsbDateRepository.delete(ucsbDate);
+    tableVersionService.bump(UCSBDateRepository.CACHE);
     return genericMessage("UCSBDate with id %s deleted".formatted(id));
   }
 
@@ -129,6 +182,7 @@ public class UCSBDatesController extends ApiController {
   @Operation(summary = "Update a single date")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
+  @Transactional
   public UCSBDate updateUCSBDate(
       @Parameter(name = "id") @RequestParam Long id, @RequestBody @Valid UCSBDate incoming) {
 
@@ -142,7 +196,65 @@ public class UCSBDatesController extends ApiController {
     ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
 
     ucsbDateRepository.save(ucsbDate);
+    tableVersionService.bump(UCSBDateRepository.CACHE);
 
     return ucsbDate;
   }
+
+  /**
+   * Create many UCSBDates in one request and one transaction
+   *
+   * <p>Any ids in the request are ignored; new ids are generated.
+   *
+   * @param items the UCSBDates to create, as a JSON array or as NDJSON (one per line)
+   * @return the ids of the created UCSBDates, in the same order as they were sent
+   */
+  @Operation(summary = "Create many UCSBDates at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/batch",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  @Transactional
+  public List<Long> postUCSBDates(@RequestBody List<UCSBDate> items) {
+    items.forEach(item -> item.setId(0));
+    List<Long> saved = saveBatch(ucsbDateRepository, items, UCSBDate::getId);
+    tableVersionService.bump(UCSBDateRepository.CACHE);
+    return saved;
+  }
+
+  /**
+   * Update many UCSBDates at once: the same values are written to every UCSBDate in {@code ids},
+   * with a single UPDATE statement
+   *
+   * @param bulkUpdate the ids of the UCSBDates to update, and the new values by field name
+   * @return a message with the number of UCSBDates updated
+   */
+  @Operation(summary = "Update many UCSBDates at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PatchMapping("/bulk")
+  @Transactional
+  public Object bulkUpdateUCSBDate(@RequestBody BulkUpdate<Long> bulkUpdate) {
+    requireBulkKeys(bulkUpdate.getIds());
+    int updated =
+        bulkUpdateService.update(UCSBDate.class, bulkUpdate.getIds(), bulkUpdate.getSet());
+    tableVersionService.bump(UCSBDateRepository.CACHE);
+    return genericMessage("%d UCSBDate updated".formatted(updated));
+  }
+
+  /**
+   * Delete many UCSBDates at once, with a single DELETE statement
+   *
+   * @param ids the ids of the UCSBDates to delete; ids that do not exist are ignored
+   * @return a message with the number of UCSBDates deleted
+   */
+  @Operation(summary = "Delete many UCSBDates at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  @Transactional
+  public Object bulkDeleteUCSBDate(@Parameter(name = "ids") @RequestParam List<Long> ids) {
+    requireBulkKeys(ids);
+    int deleted = ucsbDateRepository.bulkDelete(ids);
+    tableVersionService.bump(UCSBDateRepository.CACHE);
+    return genericMessage("%d UCSBDate deleted".formatted(deleted));
+  }
 }
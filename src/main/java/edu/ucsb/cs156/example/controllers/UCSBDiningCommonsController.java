@@ -2,22 +2,38 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkUpdate;
+import edu.ucsb.cs156.example.models.CursorPage;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.BulkUpdateService;
+import edu.ucsb.cs156.example.services.JsonSnapshotService;
+import edu.ucsb.cs156.example.services.TableVersionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /** This is a REST controller for UCSBDiningCommons */
 @Tag(name = "UCSBDiningCommons")
@@ -28,32 +44,79 @@ public class UCSBDiningCommonsController extends ApiController {
 
   @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+  @Autowired BulkUpdateService bulkUpdateService;
+
+  @Autowired TableVersionService tableVersionService;
+
+  @Autowired JsonSnapshotService jsonSnapshotService;
+
   /**
    * THis method returns a list of all ucsbdiningcommons.
    *
-   * @return a list of all ucsbdiningcommons
+   * <p>The JSON is served from a snapshot that is only rebuilt when the table changes (see {@link
+   * JsonSnapshotService}).
+   *
+   * @param request the request, for its If-None-Match and Accept-Encoding headers
+   * @return a list of all ucsbdiningcommons, as JSON
    */
   @Operation(summary = "List all ucsb dining commons")
+  @ApiResponse(
+      responseCode = "200",
+      content =
+          @Content(
+              array = @ArraySchema(schema = @Schema(implementation = UCSBDiningCommons.class))))
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDiningCommons> allCommonss() {
-    Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
-    return commons;
+  public ResponseEntity<byte[]> allCommonss(WebRequest request) {
+    return jsonSnapshotService.respond(
+        UCSBDiningCommonsRepository.CACHE, ucsbDiningCommonsRepository::findAll, request);
+  }
+
+  /**
+   * List one page of ucsb dining commons, using keyset pagination on code
+   *
+   * @param after only ucsb dining commons whose code comes after this one are returned (omit for
+   *     the first page)
+   * @param limit maximum number of ucsb dining commons to return
+   * @param request the request, for its If-None-Match header
+   * @return a page of ucsb dining commons and the cursor for the next page
+   */
+  @Operation(summary = "List ucsb dining commons one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public CursorPage<UCSBDiningCommons> pageCommons(
+      @Parameter(name = "after", description = "code of the last item of the previous page")
+          @RequestParam(defaultValue = "")
+          String after,
+      @Parameter(name = "limit") @RequestParam(required = false) Integer limit,
+      WebRequest request) {
+    if (request.checkNotModified(tableVersionService.weakEtag(UCSBDiningCommonsRepository.CACHE))) {
+      return null;
+    }
+    int pageLimit = CursorPage.clampLimit(limit);
+    List<UCSBDiningCommons> page =
+        ucsbDiningCommonsRepository.findByCodeGreaterThanOrderByCodeAsc(after, Limit.of(pageLimit));
+    return CursorPage.of(page, pageLimit, UCSBDiningCommons::getCode);
   }
 
   /**
    * This method returns a single diningcommons.
    *
    * @param code code of the diningcommons
+   * @param request the request, for its If-None-Match header
    * @return a single diningcommons
    */
   @Operation(summary = "Get a single commons")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDiningCommons getById(@Parameter(name = "code") @RequestParam String code) {
+  public UCSBDiningCommons getById(
+      @Parameter(name = "code") @RequestParam String code, WebRequest request) {
+    if (request.checkNotModified(tableVersionService.weakEtag(UCSBDiningCommonsRepository.CACHE))) {
+      return null;
+    }
     UCSBDiningCommons commons =
         ucsbDiningCommonsRepository
-            .findById(code)
+            .findCachedByCode(code)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
     return commons;
@@ -74,6 +137,7 @@ public class UCSBDiningCommonsController extends ApiController {
   @Operation(summary = "Create a new commons")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/post")
+  @Transactional
   public UCSBDiningCommons postCommons(
       @Parameter(name = "code") @RequestParam String code,
       @Parameter(name = "name") @RequestParam String name,
@@ -93,6 +157,7 @@ public class UCSBDiningCommonsController extends ApiController {
     commons.setLongitude(longitude);
 
     UCSBDiningCommons savedCommons = ucsbDiningCommonsRepository.save(commons);
+    tableVersionService.bump(UCSBDiningCommonsRepository.CACHE);
 
     return savedCommons;
   }
@@ -106,6 +171,7 @@ public class UCSBDiningCommonsController extends ApiController {
   @Operation(summary = "Delete a UCSBDiningCommons")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
+  @Transactional
   public Object deleteCommons(@Parameter(name = "code") @RequestParam String code) {
     UCSBDiningCommons commons =
         ucsbDiningCommonsRepository
@@ -113,6 +179,7 @@ public class UCSBDiningCommonsController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
     ucsbDiningCommonsRepository.delete(commons);
+    tableVersionService.bump(UCSBDiningCommonsRepository.CACHE);
     return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
   }
 
@@ -126,6 +193,7 @@ public class UCSBDiningCommonsController extends ApiController {
   @Operation(summary = "Update a single commons")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
+  @Transactional
   public UCSBDiningCommons updateCommons(
       @Parameter(name = "code") @RequestParam String code,
       @RequestBody @Valid UCSBDiningCommons incoming) {
@@ -143,7 +211,69 @@ public class UCSBDiningCommonsController extends ApiController {
     commons.setLongitude(incoming.getLongitude());
 
     ucsbDiningCommonsRepository.save(commons);
+    tableVersionService.bump(UCSBDiningCommonsRepository.CACHE);
 
     return commons;
   }
+
+  /**
+   * Create many dining commons in one request and one transaction
+   *
+   * <p>As with {@code /post}, an item whose code already exists silently replaces the existing row:
+   * the response does not say which items were new.
+   *
+   * @param items the dining commons to create, as a JSON array or as NDJSON (one per line)
+   * @return the codes of the saved dining commons, in the same order as they were sent
+   */
+  @Operation(
+      summary = "Create many dining commons at once",
+      description = "An item whose code already exists replaces the existing row, without warning.")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/batch",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  @Transactional
+  public List<String> postCommonsBatch(@RequestBody List<UCSBDiningCommons> items) {
+    requireDistinctKeys(items, UCSBDiningCommons::getCode);
+    List<String> saved = saveBatch(ucsbDiningCommonsRepository, items, UCSBDiningCommons::getCode);
+    tableVersionService.bump(UCSBDiningCommonsRepository.CACHE);
+    return saved;
+  }
+
+  /**
+   * Update many dining commons at once: the same values are written to every UCSBDiningCommons in
+   * {@code ids}, with a single UPDATE statement
+   *
+   * @param bulkUpdate the codes of the dining commons to update, and the new values by field name
+   * @return a message with the number of dining commons updated
+   */
+  @Operation(summary = "Update many dining commons at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PatchMapping("/bulk")
+  @Transactional
+  public Object bulkUpdateUCSBDiningCommons(@RequestBody BulkUpdate<String> bulkUpdate) {
+    requireBulkKeys(bulkUpdate.getIds());
+    int updated =
+        bulkUpdateService.update(UCSBDiningCommons.class, bulkUpdate.getIds(), bulkUpdate.getSet());
+    tableVersionService.bump(UCSBDiningCommonsRepository.CACHE);
+    return genericMessage("%d UCSBDiningCommons updated".formatted(updated));
+  }
+
+  /**
+   * Delete many dining commons at once, with a single DELETE statement
+   *
+   * @param codes the codes of the dining commons to delete; codes that do not exist are ignored
+   * @return a message with the number of dining commons deleted
+   */
+  @Operation(summary = "Delete many dining commons at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  @Transactional
+  public Object bulkDeleteUCSBDiningCommons(
+      @Parameter(name = "codes") @RequestParam List<String> codes) {
+    requireBulkKeys(codes);
+    int deleted = ucsbDiningCommonsRepository.bulkDelete(codes);
+    tableVersionService.bump(UCSBDiningCommonsRepository.CACHE);
+    return genericMessage("%d UCSBDiningCommons deleted".formatted(deleted));
+  }
 }
@@ -1,23 +1,42 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.jobs.ImportUCSBDiningCommonsMenuItemsJob;
+import edu.ucsb.cs156.example.models.BulkUpdate;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.ExportFormat;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.services.BulkUpdateService;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.services.JsonStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for UCSBDiningCommonsMenuItem */
 @Tag(name = "UCSBDiningCommonsMenuItems")
@@ -28,17 +47,54 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
 
   @Autowired UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
+  @Autowired BulkUpdateService bulkUpdateService;
+
+  @Autowired JsonStreamService jsonStreamService;
+
+  @Autowired ImportService importService;
+
   /**
    * List all UCSB Dining Commons Menu Items
    *
-   * @return an interable of UCSBDiningCommonsMenuItem
+   * <p>The list is written as it is read from the database (see {@link JsonStreamService}), so it
+   * can be as long as the table is.
+   *
+   * @return a JSON array of UCSBDiningCommonsMenuItem
    */
   @Operation(summary = "List all ucsb dining commons menu items")
+  @ApiResponse(
+      responseCode = "200",
+      content =
+          @Content(
+              array =
+                  @ArraySchema(schema = @Schema(implementation = UCSBDiningCommonsMenuItem.class))))
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/all", produces = MediaType.APPLICATION_JSON_VALUE)
+  public StreamingResponseBody allUCSBDiningCommonsMenuItems() {
+    return jsonStreamService.jsonArray(ucsbDiningCommonsMenuItemRepository::streamAll);
+  }
+
+  /**
+   * List one page of ucsb dining commons menu items, using keyset pagination on id
+   *
+   * @param after only ucsb dining commons menu items whose id comes after this one are returned
+   *     (omit for the first page)
+   * @param limit maximum number of ucsb dining commons menu items to return
+   * @return a page of ucsb dining commons menu items and the cursor for the next page
+   */
+  @Operation(summary = "List ucsb dining commons menu items one page at a time")
   @PreAuthorize("hasRole('ROLE_USER')")
-  @GetMapping("/all")
-  public Iterable<UCSBDiningCommonsMenuItem> allUCSBDiningCommonsMenuItems() {
-    Iterable<UCSBDiningCommonsMenuItem> items = ucsbDiningCommonsMenuItemRepository.findAll();
-    return items;
+  @GetMapping("/page")
+  public CursorPage<UCSBDiningCommonsMenuItem> pageUCSBDiningCommonsMenuItems(
+      @Parameter(name = "after", description = "id of the last item of the previous page")
+          @RequestParam(defaultValue = "0")
+          Long after,
+      @Parameter(name = "limit") @RequestParam(required = false) Integer limit) {
+    int pageLimit = CursorPage.clampLimit(limit);
+    List<UCSBDiningCommonsMenuItem> page =
+        ucsbDiningCommonsMenuItemRepository.findByIdGreaterThanOrderByIdAsc(
+            after, Limit.of(pageLimit));
+    return CursorPage.of(page, pageLimit, UCSBDiningCommonsMenuItem::getId);
   }
 
   /**
@@ -132,4 +188,81 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
 
     return ucsbDiningCommonsMenuItem;
   }
+
+  /**
+   * Create many menu items in one request and one transaction
+   *
+   * <p>Any ids in the request are ignored; new ids are generated.
+   *
+   * @param items the menu items to create, as a JSON array or as NDJSON (one per line)
+   * @return the ids of the created menu items, in the same order as they were sent
+   */
+  @Operation(summary = "Create many menu items at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/batch",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<Long> postUCSBDiningCommonsMenuItems(
+      @RequestBody List<UCSBDiningCommonsMenuItem> items) {
+    items.forEach(item -> item.setId(null));
+    return saveBatch(ucsbDiningCommonsMenuItemRepository, items, UCSBDiningCommonsMenuItem::getId);
+  }
+
+  /**
+   * Import menu items from an NDJSON or CSV file, in a background job that saves them in batches
+   * and logs its progress (see ImportService)
+   *
+   * <p>Any ids in the file are ignored; new ids are generated.
+   *
+   * @param file the file, one menu item per line (after a header line for CSV)
+   * @param format the format of the file
+   * @return the job that imports the file
+   * @throws IOException if the upload can not be read
+   */
+  @Operation(summary = "Import menu items from an NDJSON or CSV file, as a background job")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  public Job importUCSBDiningCommonsMenuItems(
+      @Parameter(name = "file") @RequestParam MultipartFile file,
+      @Parameter(name = "format", description = "ndjson or csv")
+          @RequestParam(defaultValue = "ndjson")
+          ExportFormat format)
+      throws IOException {
+    return importService.launch(
+        ImportUCSBDiningCommonsMenuItemsJob.builder().format(format).build(), file);
+  }
+
+  /**
+   * Update many menu items at once: the same values are written to every UCSBDiningCommonsMenuItem
+   * in {@code ids}, with a single UPDATE statement
+   *
+   * @param bulkUpdate the ids of the menu items to update, and the new values by field name
+   * @return a message with the number of menu items updated
+   */
+  @Operation(summary = "Update many menu items at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PatchMapping("/bulk")
+  public Object bulkUpdateUCSBDiningCommonsMenuItem(@RequestBody BulkUpdate<Long> bulkUpdate) {
+    requireBulkKeys(bulkUpdate.getIds());
+    int updated =
+        bulkUpdateService.update(
+            UCSBDiningCommonsMenuItem.class, bulkUpdate.getIds(), bulkUpdate.getSet());
+    return genericMessage("%d UCSBDiningCommonsMenuItem updated".formatted(updated));
+  }
+
+  /**
+   * Delete many menu items at once, with a single DELETE statement
+   *
+   * @param ids the ids of the menu items to delete; ids that do not exist are ignored
+   * @return a message with the number of menu items deleted
+   */
+  @Operation(summary = "Delete many menu items at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public Object bulkDeleteUCSBDiningCommonsMenuItem(
+      @Parameter(name = "ids") @RequestParam List<Long> ids) {
+    requireBulkKeys(ids);
+    int deleted = ucsbDiningCommonsMenuItemRepository.bulkDelete(ids);
+    return genericMessage("%d UCSBDiningCommonsMenuItem deleted".formatted(deleted));
+  }
 }
@@ -1,23 +1,45 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.entities.UCSBOrganizations;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.jobs.ImportUCSBOrganizationsJob;
+import edu.ucsb.cs156.example.models.BulkUpdate;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.ExportFormat;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationsRepository;
+import edu.ucsb.cs156.example.services.BulkUpdateService;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.services.JsonSnapshotService;
+import edu.ucsb.cs156.example.services.TableVersionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
 /** This is a REST controller for UCSBOrganizations */
 @Tag(name = "UCSBOrganizations")
@@ -27,17 +49,62 @@ import org.springframework.web.bind.annotation.RestController;
 public class UCSBOrganizationsController extends ApiController {
   @Autowired UCSBOrganizationsRepository ucsbOrganizationsRepository;
 
+  @Autowired BulkUpdateService bulkUpdateService;
+
+  @Autowired TableVersionService tableVersionService;
+
+  @Autowired JsonSnapshotService jsonSnapshotService;
+
+  @Autowired ImportService importService;
+
   /**
    * This method returns a list of all ucsb organizations.
    *
-   * @return a list of all ucsb organizations
+   * <p>The JSON is served from a snapshot that is only rebuilt when the table changes (see {@link
+   * JsonSnapshotService}).
+   *
+   * @param request the request, for its If-None-Match and Accept-Encoding headers
+   * @return a list of all ucsb organizations, as JSON
    */
   @Operation(summary = "List all ucsb organizations")
+  @ApiResponse(
+      responseCode = "200",
+      content =
+          @Content(
+              array = @ArraySchema(schema = @Schema(implementation = UCSBOrganizations.class))))
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBOrganizations> allOrganizations() {
-    Iterable<UCSBOrganizations> organizations = ucsbOrganizationsRepository.findAll();
-    return organizations;
+  public ResponseEntity<byte[]> allOrganizations(WebRequest request) {
+    return jsonSnapshotService.respond(
+        UCSBOrganizationsRepository.CACHE, ucsbOrganizationsRepository::findAll, request);
+  }
+
+  /**
+   * List one page of ucsb organizations, using keyset pagination on orgCode
+   *
+   * @param after only ucsb organizations whose orgCode comes after this one are returned (omit for
+   *     the first page)
+   * @param limit maximum number of ucsb organizations to return
+   * @param request the request, for its If-None-Match header
+   * @return a page of ucsb organizations and the cursor for the next page
+   */
+  @Operation(summary = "List ucsb organizations one page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public CursorPage<UCSBOrganizations> pageOrganizations(
+      @Parameter(name = "after", description = "orgCode of the last item of the previous page")
+          @RequestParam(defaultValue = "")
+          String after,
+      @Parameter(name = "limit") @RequestParam(required = false) Integer limit,
+      WebRequest request) {
+    if (request.checkNotModified(tableVersionService.weakEtag(UCSBOrganizationsRepository.CACHE))) {
+      return null;
+    }
+    int pageLimit = CursorPage.clampLimit(limit);
+    List<UCSBOrganizations> page =
+        ucsbOrganizationsRepository.findByOrgCodeGreaterThanOrderByOrgCodeAsc(
+            after, Limit.of(pageLimit));
+    return CursorPage.of(page, pageLimit, UCSBOrganizations::getOrgCode);
   }
 
   /**
@@ -52,6 +119,7 @@ public class UCSBOrganizationsController extends ApiController {
   @Operation(summary = "Create a new organization")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/post")
+  @Transactional
   public UCSBOrganizations postCommons(
       @Parameter(name = "orgCode") @RequestParam String orgCode,
       @Parameter(name = "orgTranslationShort") @RequestParam String orgTranslationShort,
@@ -64,6 +132,7 @@ public class UCSBOrganizationsController extends ApiController {
     commons.setInactive(inactive);
 
     UCSBOrganizations savedOrganizations = ucsbOrganizationsRepository.save(commons);
+    tableVersionService.bump(UCSBOrganizationsRepository.CACHE);
 
     return savedOrganizations;
   }
@@ -72,15 +141,20 @@ public class UCSBOrganizationsController extends ApiController {
    * This method returns a single organization.
    *
    * @param orgCode code of the organization
+   * @param request the request, for its If-None-Match header
    * @return a single organization
    */
   @Operation(summary = "Get a single organization")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBOrganizations getById(@Parameter(name = "orgCode") @RequestParam String orgCode) {
+  public UCSBOrganizations getById(
+      @Parameter(name = "orgCode") @RequestParam String orgCode, WebRequest request) {
+    if (request.checkNotModified(tableVersionService.weakEtag(UCSBOrganizationsRepository.CACHE))) {
+      return null;
+    }
     UCSBOrganizations org =
         ucsbOrganizationsRepository
-            .findById(orgCode)
+            .findCachedByOrgCode(orgCode)
             .orElseThrow(() -> new EntityNotFoundException(UCSBOrganizations.class, orgCode));
 
     return org;
@@ -96,6 +170,7 @@ public class UCSBOrganizationsController extends ApiController {
   @Operation(summary = "Update a single organization")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
+  @Transactional
   public UCSBOrganizations updateOrganization(
       @Parameter(name = "orgCode") @RequestParam String orgCode,
       @RequestBody @Valid UCSBOrganizations incoming) {
@@ -110,6 +185,7 @@ public class UCSBOrganizationsController extends ApiController {
     org.setInactive(incoming.getInactive());
 
     ucsbOrganizationsRepository.save(org);
+    tableVersionService.bump(UCSBOrganizationsRepository.CACHE);
 
     return org;
   }
@@ -123,6 +199,7 @@ public class UCSBOrganizationsController extends ApiController {
   @Operation(summary = "Delete an organization")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
+  @Transactional
   public Object deleteOrganization(@Parameter(name = "orgCode") @RequestParam String orgCode) {
     UCSBOrganizations organization =
         ucsbOrganizationsRepository
@@ -130,6 +207,94 @@ public class UCSBOrganizationsController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(UCSBOrganizations.class, orgCode));
 
     ucsbOrganizationsRepository.delete(organization);
+    tableVersionService.bump(UCSBOrganizationsRepository.CACHE);
     return genericMessage("UCSBOrganizations with id %s deleted".formatted(orgCode));
   }
+
+  /**
+   * Create many organizations in one request and one transaction
+   *
+   * <p>As with {@code /post}, an item whose orgCode already exists silently replaces the existing
+   * row: the response does not say which items were new.
+   *
+   * @param items the organizations to create, as a JSON array or as NDJSON (one per line)
+   * @return the orgCodes of the saved organizations, in the same order as they were sent
+   */
+  @Operation(
+      summary = "Create many organizations at once",
+      description =
+          "An item whose orgCode already exists replaces the existing row, without warning.")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/batch",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  @Transactional
+  public List<String> postOrganizationsBatch(@RequestBody List<UCSBOrganizations> items) {
+    requireDistinctKeys(items, UCSBOrganizations::getOrgCode);
+    List<String> saved =
+        saveBatch(ucsbOrganizationsRepository, items, UCSBOrganizations::getOrgCode);
+    tableVersionService.bump(UCSBOrganizationsRepository.CACHE);
+    return saved;
+  }
+
+  /**
+   * Import organizations from an NDJSON or CSV file, in a background job that saves them in batches
+   * and logs its progress (see ImportService)
+   *
+   * <p>A row whose orgCode already exists updates that organization.
+   *
+   * @param file the file, one organization per line (after a header line for CSV)
+   * @param format the format of the file
+   * @return the job that imports the file
+   * @throws IOException if the upload can not be read
+   */
+  @Operation(summary = "Import organizations from an NDJSON or CSV file, as a background job")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  public Job importOrganizations(
+      @Parameter(name = "file") @RequestParam MultipartFile file,
+      @Parameter(name = "format", description = "ndjson or csv")
+          @RequestParam(defaultValue = "ndjson")
+          ExportFormat format)
+      throws IOException {
+    return importService.launch(ImportUCSBOrganizationsJob.builder().format(format).build(), file);
+  }
+
+  /**
+   * Update many organizations at once: the same values are written to every UCSBOrganizations in
+   * {@code ids}, with a single UPDATE statement
+   *
+   * @param bulkUpdate the orgCodes of the organizations to update, and the new values by field name
+   * @return a message with the number of organizations updated
+   */
+  @Operation(summary = "Update many organizations at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PatchMapping("/bulk")
+  @Transactional
+  public Object bulkUpdateUCSBOrganizations(@RequestBody BulkUpdate<String> bulkUpdate) {
+    requireBulkKeys(bulkUpdate.getIds());
+    int updated =
+        bulkUpdateService.update(UCSBOrganizations.class, bulkUpdate.getIds(), bulkUpdate.getSet());
+    tableVersionService.bump(UCSBOrganizationsRepository.CACHE);
+    return genericMessage("%d UCSBOrganizations updated".formatted(updated));
+  }
+
+  /**
+   * Delete many organizations at once, with a single DELETE statement
+   *
+   * @param orgCodes the orgCodes of the organizations to delete; orgCodes that do not exist are
+   *     ignored
+   * @return a message with the number of organizations deleted
+   */
+  @Operation(summary = "Delete many organizations at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  @Transactional
+  public Object bulkDeleteUCSBOrganizations(
+      @Parameter(name = "orgCodes") @RequestParam List<String> orgCodes) {
+    requireBulkKeys(orgCodes);
+    int deleted = ucsbOrganizationsRepository.bulkDelete(orgCodes);
+    tableVersionService.bump(UCSBOrganizationsRepository.CACHE);
+    return genericMessage("%d UCSBOrganizations deleted".formatted(deleted));
+  }
 }
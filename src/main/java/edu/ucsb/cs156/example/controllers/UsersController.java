@@ -3,14 +3,19 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.CursorPage;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -40,4 +45,25 @@ public class UsersController extends ApiController {
     String body = mapper.writeValueAsString(users);
     return ResponseEntity.ok().body(body);
   }
+
+  /**
+   * This method returns one page of users, using keyset pagination on id. Accessible only to users
+   * with the role "ROLE_ADMIN".
+   *
+   * @param after only users whose id comes after this one are returned (omit for the first page)
+   * @param limit maximum number of users to return
+   * @return a page of users and the cursor for the next page
+   */
+  @Operation(summary = "Get a list of users one page at a time")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/page")
+  public CursorPage<User> pageUsers(
+      @Parameter(name = "after", description = "id of the last user of the previous page")
+          @RequestParam(defaultValue = "0")
+          Long after,
+      @Parameter(name = "limit") @RequestParam(required = false) Integer limit) {
+    int pageLimit = CursorPage.clampLimit(limit);
+    List<User> page = userRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(pageLimit));
+    return CursorPage.of(page, pageLimit, User::getId);
+  }
 }
@@ -0,0 +1,114 @@
+package edu.ucsb.cs156.example.converters;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import edu.ucsb.cs156.example.errors.InvalidBatchException;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads a request body that is a collection, e.g. a {@code @RequestBody List<Restaurant>}, either
+ * as a JSON array (content type {@code application/json}) or in NDJSON format (one JSON document
+ * per line, content type {@code application/x-ndjson}).
+ *
+ * <p>The items are parsed one at a time, but they all end up in the collection, which is built in
+ * full before the controller runs. Reading stops with an InvalidBatchException as soon as there are
+ * more than {@code app.batch.max-size} of them, so a single request can not fill the heap; larger
+ * loads go through the {@code /import} endpoints instead. This converter only reads; responses are
+ * still written as JSON, and request bodies that are not collections are left to the default JSON
+ * converter.
+ */
+@Component
+public class BatchHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+  private final int maxItems;
+
+  /**
+   * @param objectMapper the application's ObjectMapper, so batches are read with the same settings
+   *     as any other JSON
+   * @param maxItems the largest number of items read from one request
+   */
+  public BatchHttpMessageConverter(
+      ObjectMapper objectMapper, @Value("${app.batch.max-size:1000}") int maxItems) {
+    super(objectMapper, MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON);
+    this.maxItems = maxItems;
+  }
+
+  @Override
+  public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+    return getJavaType(type, contextClass).isCollectionLikeType()
+        && super.canRead(type, contextClass, mediaType);
+  }
+
+  @Override
+  public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+      throws IOException {
+    ObjectReader reader =
+        getObjectMapper().readerFor(getJavaType(type, contextClass).getContentType());
+    boolean ndjson =
+        MediaType.APPLICATION_NDJSON.isCompatibleWith(inputMessage.getHeaders().getContentType());
+    try {
+      return ndjson ? readLines(reader, inputMessage) : readArray(reader, inputMessage);
+    } catch (JsonProcessingException e) {
+      throw new HttpMessageNotReadableException(
+          "Invalid %s: %s".formatted(ndjson ? "NDJSON" : "JSON", e.getOriginalMessage()),
+          e,
+          inputMessage);
+    }
+  }
+
+  private List<Object> readLines(ObjectReader reader, HttpInputMessage inputMessage)
+      throws IOException {
+    try (MappingIterator<Object> values = reader.readValues(inputMessage.getBody())) {
+      List<Object> items = new ArrayList<>();
+      while (values.hasNextValue()) {
+        requireRoomFor(items);
+        items.add(values.nextValue());
+      }
+      return items;
+    }
+  }
+
+  private List<Object> readArray(ObjectReader reader, HttpInputMessage inputMessage)
+      throws IOException {
+    try (JsonParser parser = reader.createParser(inputMessage.getBody())) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new HttpMessageNotReadableException("Expected a JSON array", inputMessage);
+      }
+      List<Object> items = new ArrayList<>();
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        requireRoomFor(items);
+        items.add(reader.readValue(parser));
+      }
+      return items;
+    }
+  }
+
+  private void requireRoomFor(List<Object> items) {
+    if (items.size() == maxItems) {
+      throw new InvalidBatchException("Batch has more than %d items".formatted(maxItems));
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.converters;
+
+import edu.ucsb.cs156.example.models.ExportFormat;
+import java.util.Locale;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts the {@code format} parameter of the {@code /export} endpoints to an ExportFormat,
+ * ignoring case, so that clients can ask for {@code format=csv} rather than {@code format=CSV}. An
+ * unknown format is rejected with 400 Bad Request.
+ */
+@Component
+public class ExportFormatConverter implements Converter<String, ExportFormat> {
+
+  @Override
+  public ExportFormat convert(String source) {
+    return ExportFormat.valueOf(source.trim().toUpperCase(Locale.ROOT));
+  }
+}
@@ -10,6 +10,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import java.time.ZonedDateTime;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
@@ -28,7 +29,8 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 @EntityListeners(AuditingEntityListener.class)
 public class Job {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "jobs_seq")
+  @SequenceGenerator(name = "jobs_seq", sequenceName = "JOBS_SEQ", allocationSize = 50)
   private long id;
 
   @JsonIgnore
@@ -36,15 +38,42 @@ public class Job {
   @JoinColumn(name = "created_by_id")
   private User createdBy;
 
-  @CreatedDate private ZonedDateTime createdAt;
+  @CreatedDate
+  @Column(updatable = false)
+  private ZonedDateTime createdAt;
+
   @LastModifiedDate private ZonedDateTime updatedAt;
 
   private String status;
 
+  /** Instance currently running the job; null unless the job is running */
+  private String leaseOwner;
+
+  /** When the lease runs out; a running job whose lease has expired is picked up again */
+  private ZonedDateTime leaseExpiresAt;
+
+  /** Class name of the JobContextConsumer that runs the job */
+  private String jobType;
+
+  /**
+   * The JobContextConsumer serialized as JSON, so that any instance can run (or re-run) the job;
+   * null when the consumer can not be serialized, e.g. a lambda.
+   */
+  @JsonIgnore
+  @Column(columnDefinition = "TEXT")
+  private String payload;
+
   // 1048576 is 2^20, which is the max size of a mediumtext in MySQL
   @Column(
       columnDefinition = "TEXT",
       length = 1048576) // needed for long strings, i.e. log entries longer than 255
   // characters
   private String log;
+
+  /**
+   * Number of characters in the log lines of the job, counting a newline after each line; added to
+   * by JobContext as the lines are written, and never written from the entity itself
+   */
+  @Column(insertable = false, updatable = false)
+  private long logLength;
 }
@@ -0,0 +1,42 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that represents a single line of the log of a Job.
+ *
+ * <p>Log lines are only ever inserted, never updated, so that logging a line costs one small INSERT
+ * rather than rewriting the whole log. The lines of a job are ordered by {@code seq}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Entity(name = "job_log_lines")
+public class JobLogLine {
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "job_log_lines_seq")
+  @SequenceGenerator(
+      name = "job_log_lines_seq",
+      sequenceName = "JOB_LOG_LINES_SEQ",
+      allocationSize = 50)
+  private long id;
+
+  private long jobId;
+  private long seq;
+  private ZonedDateTime loggedAt;
+
+  @Column(columnDefinition = "TEXT")
+  private String message;
+}
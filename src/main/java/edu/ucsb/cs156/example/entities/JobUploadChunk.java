@@ -0,0 +1,34 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that represents a chunk of a file uploaded for a Job, e.g. the file of an
+ * import.
+ *
+ * <p>The file is kept in the database rather than on the instance it was uploaded to, so that
+ * whichever instance claims the job can read it. It is split into chunks, ordered by {@code seq},
+ * so that it is never held in memory all at once.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Entity(name = "job_upload_chunks")
+public class JobUploadChunk {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+
+  private long jobId;
+  private int seq;
+  private byte[] data;
+}
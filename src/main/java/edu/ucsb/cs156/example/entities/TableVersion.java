@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that represents the version of a cached table
+ *
+ * <p>The version goes up by one with every write to the table (see {@code TableVersionService}), so
+ * that every instance of the application derives the same ETags and cache keys from it.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "table_versions")
+public class TableVersion {
+  /** name of the table's cache, e.g. {@code UCSBDateRepository.CACHE} */
+  @Id private String name;
+
+  private long version;
+}
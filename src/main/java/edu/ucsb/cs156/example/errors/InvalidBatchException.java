@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException in Java that is used to indicate that a
+ * request to a batch or bulk endpoint cannot be carried out as a whole, e.g. because it has too
+ * many items, two items have the same key, or it sets a field that does not exist.
+ */
+public class InvalidBatchException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param message what is wrong with the request
+   */
+  public InvalidBatchException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.jobs;
+
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobContextConsumer;
+import java.io.IOException;
+import java.io.InputStream;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * A job that imports a file uploaded to an {@code /import} endpoint (see ImportService). The file
+ * is deleted when the job ends, whether or not the import succeeded.
+ *
+ * <p>Only the format of the file is saved in the job queue; the file itself is saved in the
+ * database under the job's id, so the job can run on any instance. The beans an import needs are
+ * injected by JobService just before the job runs.
+ */
+public abstract class ImportJob implements JobContextConsumer {
+
+  @Getter private final ExportFormat format;
+
+  @Autowired private ImportService importService;
+
+  protected ImportJob(ExportFormat format) {
+    this.format = format;
+  }
+
+  @Override
+  public void accept(JobContext ctx) throws Exception {
+    try (InputStream in = importService.openUpload(ctx.getJobId())) {
+      importFile(importService, in, ctx);
+    } finally {
+      importService.deleteUpload(ctx.getJobId());
+    }
+  }
+
+  /**
+   * Imports the file.
+   *
+   * @param importService the service that reads and saves the rows
+   * @param in the contents of the file
+   * @param ctx the context of the job, for its log
+   * @throws IOException if the file can not be read
+   */
+  protected abstract void importFile(ImportService importService, InputStream in, JobContext ctx)
+      throws IOException;
+}
@@ -0,0 +1,39 @@
+package edu.ucsb.cs156.example.jobs;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import java.io.IOException;
+import java.io.InputStream;
+import lombok.Builder;
+import lombok.extern.jackson.Jacksonized;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Imports menu items from a file uploaded to {@code POST /api/ucsbdiningcommonsmenuitems/import}.
+ * Any ids in the file are ignored; every row creates a new menu item.
+ */
+public class ImportUCSBDiningCommonsMenuItemsJob extends ImportJob {
+
+  @Autowired private UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Builder
+  @Jacksonized
+  public ImportUCSBDiningCommonsMenuItemsJob(ExportFormat format) {
+    super(format);
+  }
+
+  @Override
+  protected void importFile(ImportService importService, InputStream in, JobContext ctx)
+      throws IOException {
+    importService.importFile(
+        getFormat(),
+        in,
+        UCSBDiningCommonsMenuItem.class,
+        ucsbDiningCommonsMenuItemRepository,
+        item -> item.setId(null),
+        ctx);
+  }
+}
@@ -0,0 +1,51 @@
+package edu.ucsb.cs156.example.jobs;
+
+import edu.ucsb.cs156.example.entities.UCSBOrganizations;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationsRepository;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.services.TableVersionService;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import java.io.IOException;
+import java.io.InputStream;
+import lombok.Builder;
+import lombok.extern.jackson.Jacksonized;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Imports organizations from a file uploaded to {@code POST /api/ucsborganizations/import}. A row
+ * whose orgCode already exists updates that organization.
+ */
+public class ImportUCSBOrganizationsJob extends ImportJob {
+
+  @Autowired private UCSBOrganizationsRepository ucsbOrganizationsRepository;
+
+  @Autowired private TableVersionService tableVersionService;
+
+  @Builder
+  @Jacksonized
+  public ImportUCSBOrganizationsJob(ExportFormat format) {
+    super(format);
+  }
+
+  @Override
+  protected void importFile(ImportService importService, InputStream in, JobContext ctx)
+      throws IOException {
+    try {
+      importService.importFile(
+          getFormat(),
+          in,
+          UCSBOrganizations.class,
+          ucsbOrganizationsRepository,
+          organization -> {
+            if (organization.getOrgCode() == null || organization.getOrgCode().isBlank()) {
+              throw new IllegalArgumentException("orgCode is missing");
+            }
+          },
+          ctx);
+    } finally {
+      // batches saved before a failure are in the table too
+      tableVersionService.bump(UCSBOrganizationsRepository.CACHE);
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package edu.ucsb.cs156.example.logging;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.slf4j.spi.LoggingEventBuilder;
+
+/**
+ * A logger for diagnostic output on hot paths (i.e. code that runs on every request), where
+ * formatting a log line can cost more than the work being logged.
+ *
+ * <p>Each call names an event and supplies its details lazily, as key/value pairs. A call does, in
+ * order of increasing cost:
+ *
+ * <ol>
+ *   <li>nothing at all, if the level is not enabled for the logger;
+ *   <li>nothing but a counter increment, if the call is not sampled (only every {@code
+ *       sampleEvery}th call is logged);
+ *   <li>nothing but a counter increment, if the logger already wrote {@code maxPerSecond} lines in
+ *       the current second; the number of lines dropped is added to the next line that is written;
+ *   <li>otherwise, it evaluates the supplier and logs {@code event key=value ...}, with each pair
+ *       also attached as a key/value of the logging event for structured log output.
+ * </ol>
+ *
+ * <p>Loggers log under the name of the class they are created for, so they are turned on and off
+ * with the usual {@code logging.level.<package>} properties.
+ */
+public class DiagnosticLogger {
+  /** Lines a logger writes per second when no other limit is given */
+  public static final int DEFAULT_MAX_PER_SECOND = 10;
+
+  private final Logger logger;
+  private final int sampleEvery;
+  private final int maxPerSecond;
+
+  private final AtomicLong calls = new AtomicLong();
+  private final AtomicLong suppressed = new AtomicLong();
+  private long windowStartMillis;
+  private int writtenInWindow;
+
+  /**
+   * Creates a diagnostic logger.
+   *
+   * @param logger the logger to write to
+   * @param sampleEvery log only every this many calls (1 logs every call)
+   * @param maxPerSecond write at most this many lines per second
+   */
+  public DiagnosticLogger(Logger logger, int sampleEvery, int maxPerSecond) {
+    this.logger = logger;
+    this.sampleEvery = Math.max(sampleEvery, 1);
+    this.maxPerSecond = Math.max(maxPerSecond, 1);
+  }
+
+  /**
+   * Creates a diagnostic logger for a class that logs every call, up to {@link
+   * #DEFAULT_MAX_PER_SECOND} lines per second.
+   *
+   * @param type the class doing the logging
+   * @return the logger
+   */
+  public static DiagnosticLogger getLogger(Class<?> type) {
+    return new DiagnosticLogger(LoggerFactory.getLogger(type), 1, DEFAULT_MAX_PER_SECOND);
+  }
+
+  /**
+   * Logs an event at DEBUG level.
+   *
+   * @param event short name of what happened
+   * @param details supplies the details of the event; only called if the line is written
+   */
+  public void debug(String event, Supplier<Map<String, ?>> details) {
+    log(Level.DEBUG, event, details);
+  }
+
+  /**
+   * Logs an event at INFO level.
+   *
+   * @param event short name of what happened
+   * @param details supplies the details of the event; only called if the line is written
+   */
+  public void info(String event, Supplier<Map<String, ?>> details) {
+    log(Level.INFO, event, details);
+  }
+
+  private void log(Level level, String event, Supplier<Map<String, ?>> details) {
+    if (!logger.isEnabledForLevel(level)) {
+      return;
+    }
+    if (calls.getAndIncrement() % sampleEvery != 0) {
+      return;
+    }
+    if (!acquire(System.currentTimeMillis())) {
+      suppressed.incrementAndGet();
+      return;
+    }
+
+    Map<String, Object> pairs = new LinkedHashMap<>(details.get());
+    long dropped = suppressed.getAndSet(0);
+    if (dropped > 0) {
+      pairs.put("suppressed", dropped);
+    }
+    LoggingEventBuilder builder = logger.atLevel(level);
+    pairs.forEach(builder::addKeyValue);
+    builder.log(
+        pairs.isEmpty()
+            ? event
+            : event
+                + " "
+                + pairs.entrySet().stream()
+                    .map(e -> e.getKey() + "=" + e.getValue())
+                    .collect(Collectors.joining(" ")));
+  }
+
+  private synchronized boolean acquire(long nowMillis) {
+    if (nowMillis - windowStartMillis >= 1000) {
+      windowStartMillis = nowMillis;
+      writtenInWindow = 0;
+    }
+    if (writtenInWindow >= maxPerSecond) {
+      return false;
+    }
+    writtenInWindow++;
+    return true;
+  }
+}
@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents the body of a {@code PATCH /api/<entity>/bulk} request: the
+ * same field values are written to every row whose key is in {@code ids}.
+ *
+ * <p>For example, {@code {"ids": [1, 2, 3], "set": {"solved": true}}} marks three help requests as
+ * solved with a single UPDATE statement.
+ *
+ * @param <K> the type of the keys of the rows to update
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkUpdate<K> {
+  private List<K> ids;
+  private Map<String, Object> set;
+}
@@ -0,0 +1,59 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+import java.util.function.Function;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents one page of a keyset (cursor) paginated listing.
+ *
+ * <p>To fetch the following page, pass the value of {@code next} as the {@code after} parameter of
+ * the same endpoint. When {@code next} is null, there are no more rows.
+ *
+ * @param <T> the type of the items in the page
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CursorPage<T> {
+  /** Number of items returned when the client does not ask for a specific limit */
+  public static final int DEFAULT_LIMIT = 100;
+
+  /** Largest page a client may ask for */
+  public static final int MAX_LIMIT = 1000;
+
+  private List<T> items;
+  private Object next;
+
+  /**
+   * Builds a page from the rows returned by a keyset query.
+   *
+   * @param <T> the type of the items in the page
+   * @param items the rows returned by the query, in cursor order
+   * @param limit the limit that was passed to the query
+   * @param cursor function that extracts the cursor (i.e. the key) from a row
+   * @return the page; {@code next} is set only when the page is full
+   */
+  public static <T> CursorPage<T> of(List<T> items, int limit, Function<T, ?> cursor) {
+    Object next = items.size() < limit ? null : cursor.apply(items.get(items.size() - 1));
+    return new CursorPage<>(items, next);
+  }
+
+  /**
+   * Clamps a requested page size to the range 1..{@link #MAX_LIMIT}.
+   *
+   * @param limit the requested limit (may be null)
+   * @return the limit to use for the query
+   */
+  public static int clampLimit(Integer limit) {
+    if (limit == null) {
+      return DEFAULT_LIMIT;
+    }
+    return Math.min(Math.max(limit, 1), MAX_LIMIT);
+  }
+}
@@ -0,0 +1,37 @@
+package edu.ucsb.cs156.example.models;
+
+import org.springframework.http.MediaType;
+
+/**
+ * The formats that an {@code /export} endpoint can write a table in (see ExportService), and that
+ * an {@code /import} endpoint can read (see ImportService).
+ */
+public enum ExportFormat {
+  /** One JSON object per row, one row per line */
+  NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+  /** A header line with the column names, then one line of comma separated values per row */
+  CSV(new MediaType("text", "csv"), "csv");
+
+  private final MediaType mediaType;
+
+  private final String extension;
+
+  ExportFormat(MediaType mediaType, String extension) {
+    this.mediaType = mediaType;
+    this.extension = extension;
+  }
+
+  /**
+   * @return the content type of an export in this format
+   */
+  public MediaType getMediaType() {
+    return mediaType;
+  }
+
+  /**
+   * @return the file name extension of an export in this format
+   */
+  public String getExtension() {
+    return extension;
+  }
+}
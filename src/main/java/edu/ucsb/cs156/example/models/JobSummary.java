@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents a Job in a listing of jobs.
+ *
+ * <p>It has the length of the job's log rather than the log itself, which can be very large; the
+ * log is fetched separately with {@code GET /api/jobs/logs/{id}}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobSummary {
+  private long id;
+  private String status;
+  private ZonedDateTime createdAt;
+  private ZonedDateTime updatedAt;
+  private long logLength; // number of characters returned by GET /api/jobs/logs/{id}
+}
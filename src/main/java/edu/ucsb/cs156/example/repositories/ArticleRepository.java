@@ -1,8 +1,36 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Article;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface ArticleRepository extends CrudRepository<Article, Long> {}
+public interface ArticleRepository extends CrudRepository<Article, Long> {
+  /**
+   * This method returns the next page of Article entities in id order, for keyset pagination.
+   *
+   * @param after only entities whose id is greater than this are returned
+   * @param limit maximum number of entities to return
+   * @return up to limit Article entities, ordered by id
+   */
+  List<Article> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+  /**
+   * This method deletes every Article whose id is in the given collection with a single DELETE
+   * statement, without loading the entities first.
+   *
+   * @param ids keys of the rows to delete
+   * @return the number of rows deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM articles x WHERE x.id IN :ids")
+  int bulkDelete(@Param("ids") Collection<Long> ids);
+}
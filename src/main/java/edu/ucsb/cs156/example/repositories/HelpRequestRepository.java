@@ -1,9 +1,37 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /** The HelpRequestRepository is a repository for HelpRequest entities. */
 @Repository
-public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long> {}
+public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long> {
+  /**
+   * This method returns the next page of HelpRequest entities in id order, for keyset pagination.
+   *
+   * @param after only entities whose id is greater than this are returned
+   * @param limit maximum number of entities to return
+   * @return up to limit HelpRequest entities, ordered by id
+   */
+  List<HelpRequest> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+  /**
+   * This method deletes every HelpRequest whose id is in the given collection with a single DELETE
+   * statement, without loading the entities first.
+   *
+   * @param ids keys of the rows to delete
+   * @return the number of rows deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM helprequests x WHERE x.id IN :ids")
+  int bulkDelete(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,86 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/** The JobLogLineRepository is a repository for JobLogLine entities. */
+@Repository
+public interface JobLogLineRepository extends CrudRepository<JobLogLine, Long> {
+  /**
+   * This method returns all of the log lines of a job, in the order they were logged.
+   *
+   * @param jobId id of the job
+   * @return the log lines of the job, ordered by seq
+   */
+  List<JobLogLine> findByJobIdOrderBySeqAsc(long jobId);
+
+  /**
+   * This method returns the log lines of a job from a given line on, in the order they were logged.
+   *
+   * @param jobId id of the job
+   * @param seq seq of the first line to return
+   * @return the log lines of the job whose seq is at least seq, ordered by seq
+   */
+  List<JobLogLine> findByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(long jobId, long seq);
+
+  /**
+   * This method returns the last log lines of a job, from a given line on, newest first.
+   *
+   * @param jobId id of the job
+   * @param seq seq of the first line that may be returned
+   * @param limit maximum number of lines to return
+   * @return up to limit log lines of the job whose seq is at least seq, ordered by seq descending
+   */
+  List<JobLogLine> findByJobIdAndSeqGreaterThanEqualOrderBySeqDesc(
+      long jobId, long seq, Limit limit);
+
+  /**
+   * This method returns the seq the next log line of a job should get, so that a job that is run
+   * again (after the instance running it died) appends to its log instead of clashing with it.
+   *
+   * @param jobId id of the job
+   * @return one more than the highest seq logged so far, or 0 if nothing has been logged
+   */
+  @Query("SELECT COALESCE(MAX(l.seq) + 1, 0) FROM job_log_lines l WHERE l.jobId = :jobId")
+  long nextSeq(@Param("jobId") long jobId);
+
+  /**
+   * This method deletes all of the log lines of a job with a single DELETE statement.
+   *
+   * @param jobId id of the job
+   * @return the number of lines deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM job_log_lines l WHERE l.jobId = :jobId")
+  int deleteByJobId(@Param("jobId") long jobId);
+
+  /**
+   * This method deletes all of the log lines of several jobs with a single DELETE statement.
+   *
+   * @param jobIds ids of the jobs
+   * @return the number of lines deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM job_log_lines l WHERE l.jobId IN :jobIds")
+  int deleteByJobIdIn(@Param("jobIds") Collection<Long> jobIds);
+
+  /**
+   * This method deletes the log lines of every job with a single DELETE statement.
+   *
+   * @return the number of lines deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM job_log_lines")
+  int deleteAllLines();
+}
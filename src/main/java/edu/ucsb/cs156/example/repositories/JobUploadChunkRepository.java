@@ -0,0 +1,73 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.JobUploadChunk;
+import java.util.Collection;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/** The JobUploadChunkRepository is a repository for JobUploadChunk entities. */
+@Repository
+public interface JobUploadChunkRepository extends CrudRepository<JobUploadChunk, Long> {
+  /**
+   * This method adds a chunk of a job's upload with a single INSERT statement. Unlike save, it
+   * leaves no entity in the persistence context, so that storing a large file in one transaction
+   * does not keep all of it in memory until the transaction ends.
+   *
+   * @param jobId id of the job
+   * @param seq position of the chunk in the file, starting at 0
+   * @param data the bytes of the chunk
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      value = "INSERT INTO JOB_UPLOAD_CHUNKS (JOB_ID, SEQ, DATA) VALUES (:jobId, :seq, :data)",
+      nativeQuery = true)
+  void insert(@Param("jobId") long jobId, @Param("seq") int seq, @Param("data") byte[] data);
+
+  /**
+   * This method returns the bytes of one chunk of a job's upload.
+   *
+   * @param jobId id of the job
+   * @param seq position of the chunk in the file
+   * @return the bytes of the chunk, or empty if the upload has no such chunk
+   */
+  @Query("SELECT c.data FROM job_upload_chunks c WHERE c.jobId = :jobId AND c.seq = :seq")
+  Optional<byte[]> findData(@Param("jobId") long jobId, @Param("seq") int seq);
+
+  /**
+   * This method deletes the upload of a job with a single DELETE statement.
+   *
+   * @param jobId id of the job
+   * @return the number of chunks deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM job_upload_chunks c WHERE c.jobId = :jobId")
+  int deleteByJobId(@Param("jobId") long jobId);
+
+  /**
+   * This method deletes the uploads of several jobs with a single DELETE statement.
+   *
+   * @param jobIds ids of the jobs
+   * @return the number of chunks deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM job_upload_chunks c WHERE c.jobId IN :jobIds")
+  int deleteByJobIdIn(@Param("jobIds") Collection<Long> jobIds);
+
+  /**
+   * This method deletes the uploads of every job with a single DELETE statement.
+   *
+   * @return the number of chunks deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM job_upload_chunks")
+  int deleteAllChunks();
+}
@@ -1,8 +1,189 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.JobSummary;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface JobsRepository extends CrudRepository<Job, Long> {}
+public interface JobsRepository extends CrudRepository<Job, Long> {
+  /**
+   * Selects a JobSummary per job. The log length is read from the logLength column, which counts a
+   * newline after every log line, or, for jobs logged before log lines existed, from the log
+   * column.
+   */
+  String SUMMARY_SELECT =
+      "SELECT new edu.ucsb.cs156.example.models.JobSummary(j.id, j.status, j.createdAt,"
+          + " j.updatedAt, CASE WHEN j.logLength > 0 THEN j.logLength - 1"
+          + " ELSE CAST(COALESCE(LENGTH(j.log), 0) AS Long) END) FROM jobs j";
+
+  /**
+   * This method returns a summary of every job, in id order, without reading the job logs.
+   *
+   * @return a JobSummary for each job
+   */
+  @Query(SUMMARY_SELECT + " ORDER BY j.id")
+  List<JobSummary> findAllSummaries();
+
+  /**
+   * This method returns the next page of job summaries in id order, for keyset pagination.
+   *
+   * @param after only jobs whose id is greater than this are returned
+   * @param limit maximum number of summaries to return
+   * @return up to limit JobSummary objects, ordered by id
+   */
+  @Query(SUMMARY_SELECT + " WHERE j.id > :after ORDER BY j.id")
+  List<JobSummary> findSummariesByIdGreaterThan(@Param("after") Long after, Limit limit);
+
+  /**
+   * This method locks and returns the jobs that are waiting to be run: queued jobs, and running
+   * jobs whose lease has expired (i.e. the instance running them died). Rows locked by another
+   * instance are skipped ({@code FOR UPDATE SKIP LOCKED}), so that several instances can poll the
+   * queue without blocking each other or claiming the same job. Must be called inside a
+   * transaction.
+   *
+   * @param now the current time, used to find expired leases
+   * @param limit maximum number of jobs to return
+   * @return up to limit claimable jobs, oldest first
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query(
+      "SELECT j FROM jobs j WHERE j.status = 'queued'"
+          + " OR (j.status = 'running' AND j.leaseExpiresAt < :now) ORDER BY j.id")
+  List<Job> findClaimable(@Param("now") ZonedDateTime now, Limit limit);
+
+  /**
+   * This method claims a queued job for an instance with a single conditional UPDATE; it does
+   * nothing if the job has already been claimed by someone else.
+   *
+   * @param id id of the job
+   * @param owner instance that will run the job
+   * @param expires when the lease runs out
+   * @param now the current time
+   * @return 1 if the job was claimed, 0 otherwise
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE jobs j SET j.status = 'running', j.leaseOwner = :owner,"
+          + " j.leaseExpiresAt = :expires, j.updatedAt = :now"
+          + " WHERE j.id = :id AND j.status = 'queued'")
+  int claim(
+      @Param("id") long id,
+      @Param("owner") String owner,
+      @Param("expires") ZonedDateTime expires,
+      @Param("now") ZonedDateTime now);
+
+  /**
+   * This method extends the leases of the jobs an instance is still running.
+   *
+   * @param ids ids of the jobs
+   * @param owner instance running the jobs; leases held by other instances are not touched
+   * @param expires new expiry of the leases
+   * @return the number of leases extended
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE jobs j SET j.leaseExpiresAt = :expires"
+          + " WHERE j.id IN :ids AND j.leaseOwner = :owner AND j.status = 'running'")
+  int renewLeases(
+      @Param("ids") Collection<Long> ids,
+      @Param("owner") String owner,
+      @Param("expires") ZonedDateTime expires);
+
+  /**
+   * This method puts a claimed job back in the queue, e.g. because the executor had no room for it.
+   *
+   * @param id id of the job
+   * @return the number of jobs released
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE jobs j SET j.status = 'queued', j.leaseOwner = NULL, j.leaseExpiresAt = NULL"
+          + " WHERE j.id = :id")
+  int release(@Param("id") long id);
+
+  /**
+   * This method records the final status of a job and drops its lease, but only if the lease is
+   * still held by the given instance: an instance whose lease expired, and whose job was claimed
+   * again by another instance, must not overwrite that instance's row.
+   *
+   * @param id id of the job
+   * @param status final status of the job, e.g. complete or error
+   * @param owner instance that ran the job
+   * @param now the current time
+   * @return 1 if the job was updated, 0 if its lease is held by someone else
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE jobs j SET j.status = :status, j.leaseOwner = NULL, j.leaseExpiresAt = NULL,"
+          + " j.updatedAt = :now WHERE j.id = :id AND j.leaseOwner = :owner")
+  int finish(
+      @Param("id") long id,
+      @Param("status") String status,
+      @Param("owner") String owner,
+      @Param("now") ZonedDateTime now);
+
+  /**
+   * This method adds to the log length of a job as its log lines are written.
+   *
+   * @param id id of the job
+   * @param chars number of characters written, counting a newline after each line
+   * @return the number of jobs updated
+   */
+  @Modifying
+  @Transactional
+  @Query("UPDATE jobs j SET j.logLength = j.logLength + :chars WHERE j.id = :id")
+  int addToLogLength(@Param("id") long id, @Param("chars") long chars);
+
+  /**
+   * This method deletes every job with a single DELETE statement, without loading the jobs (and
+   * their logs) first.
+   *
+   * @return the number of jobs deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM jobs")
+  int deleteAllJobs();
+
+  /**
+   * This method returns the ids of finished jobs (complete, error or rejected) that have not been
+   * updated since the given time, for purging in chunks.
+   *
+   * @param before only jobs last updated before this time are returned
+   * @param limit maximum number of ids to return
+   * @return up to limit ids, in id order
+   */
+  @Query(
+      "SELECT j.id FROM jobs j WHERE j.status IN ('complete', 'error', 'rejected')"
+          + " AND j.updatedAt < :before ORDER BY j.id")
+  List<Long> findFinishedBefore(@Param("before") ZonedDateTime before, Limit limit);
+
+  /**
+   * This method deletes the jobs with the given ids with a single DELETE statement.
+   *
+   * @param ids ids of the jobs
+   * @return the number of jobs deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM jobs j WHERE j.id IN :ids")
+  int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -1,9 +1,60 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /** The MenuItemReviewRepository is a repository for MenuItemReview entities */
 @Repository
-public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long> {}
+public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long> {
+  /** Number of rows fetched from the database at a time by {@link #streamAll}. */
+  String STREAM_FETCH_SIZE = "500";
+
+  /**
+   * This method returns the next page of MenuItemReview entities in id order, for keyset
+   * pagination.
+   *
+   * @param after only entities whose id is greater than this are returned
+   * @param limit maximum number of entities to return
+   * @return up to limit MenuItemReview entities, ordered by id
+   */
+  List<MenuItemReview> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+  /**
+   * This method returns every MenuItemReview in id order as a stream, which reads the rows through
+   * a forward-only database cursor {@value #STREAM_FETCH_SIZE} at a time instead of loading them
+   * all into a list. The entities are read-only. The stream must be read inside a transaction and
+   * closed afterwards.
+   *
+   * @return all MenuItemReview entities, ordered by id
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("SELECT x FROM MenuItemReviews x ORDER BY x.id")
+  Stream<MenuItemReview> streamAll();
+
+  /**
+   * This method deletes every MenuItemReview whose id is in the given collection with a single
+   * DELETE statement, without loading the entities first.
+   *
+   * @param ids keys of the rows to delete
+   * @return the number of rows deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM MenuItemReviews x WHERE x.id IN :ids")
+  int bulkDelete(@Param("ids") Collection<Long> ids);
+}
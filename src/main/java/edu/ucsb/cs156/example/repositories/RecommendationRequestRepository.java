@@ -1,10 +1,39 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /** The RecommendationRequestRepository is a repository for RecommendationRequest entities. */
 @Repository
 public interface RecommendationRequestRepository
-    extends CrudRepository<RecommendationRequest, Long> {}
+    extends CrudRepository<RecommendationRequest, Long> {
+  /**
+   * This method returns the next page of RecommendationRequest entities in id order, for keyset
+   * pagination.
+   *
+   * @param after only entities whose id is greater than this are returned
+   * @param limit maximum number of entities to return
+   * @return up to limit RecommendationRequest entities, ordered by id
+   */
+  List<RecommendationRequest> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+  /**
+   * This method deletes every RecommendationRequest whose id is in the given collection with a
+   * single DELETE statement, without loading the entities first.
+   *
+   * @param ids keys of the rows to delete
+   * @return the number of rows deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM recommendationRequests x WHERE x.id IN :ids")
+  int bulkDelete(@Param("ids") Collection<Long> ids);
+}
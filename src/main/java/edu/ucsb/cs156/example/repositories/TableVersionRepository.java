@@ -0,0 +1,37 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.TableVersion;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/** The TableVersionRepository is a repository for TableVersion entities. */
+@Repository
+public interface TableVersionRepository extends CrudRepository<TableVersion, String> {
+
+  /**
+   * This method returns the version of a table, without loading the entity.
+   *
+   * @param name name of the table's cache
+   * @return the version, if the table has one
+   */
+  @Query("SELECT t.version FROM table_versions t WHERE t.name = :name")
+  Optional<Long> findVersion(@Param("name") String name);
+
+  /**
+   * This method adds one to the version of a table with a single UPDATE statement. The row stays
+   * locked until the surrounding transaction ends, so concurrent writes to the same table bump it
+   * one after the other.
+   *
+   * @param name name of the table's cache
+   * @return the number of rows updated: 0 if the table has no version yet
+   */
+  @Modifying
+  @Transactional
+  @Query("UPDATE table_versions t SET t.version = t.version + 1 WHERE t.name = :name")
+  int increment(@Param("name") String name);
+}
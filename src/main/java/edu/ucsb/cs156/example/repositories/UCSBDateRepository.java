@@ -1,12 +1,54 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /** The UCSBDateRepository is a repository for UCSBDate entities. */
 @Repository
 public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
+  /**
+   * Name of the cache that holds UCSB dates. Anything that writes to the table must call {@code
+   * TableVersionService.bump}, which changes the version in the keys and empties it.
+   */
+  String CACHE = "ucsbdates";
+
+  /**
+   * SpEL expression for the current version of the table. It is part of every cache key, so that
+   * rows loaded before a write are not served after it, even if they are put in the cache after the
+   * write emptied it.
+   */
+  String VERSION = "@tableVersionService.version('" + CACHE + "')";
+
+  /**
+   * This method returns all UCSBDate entities, from the cache if they are there.
+   *
+   * @return all UCSBDate entities
+   */
+  @Override
+  @Cacheable(cacheNames = CACHE, key = "'all:' + " + VERSION)
+  Iterable<UCSBDate> findAll();
+
+  /**
+   * This method returns a single UCSBDate, from the cache if it is there. The entity may be shared
+   * with other requests, so it must not be modified; use {@link #findById} to load an entity that
+   * is going to be updated.
+   *
+   * @param id the key of the UCSBDate
+   * @return the UCSBDate, if it exists
+   */
+  @Cacheable(cacheNames = CACHE, key = "'id:' + #p0 + ':' + " + VERSION)
+  Optional<UCSBDate> findCachedById(Long id);
+
   /**
    * This method returns all UCSBDate entities with a given quarterYYYYQ.
    *
@@ -15,4 +57,25 @@ public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
    * @return all UCSBDate entities with a given quarterYYYYQ
    */
   Iterable<UCSBDate> findAllByQuarterYYYYQ(String quarterYYYYQ);
+
+  /**
+   * This method returns the next page of UCSBDate entities in id order, for keyset pagination.
+   *
+   * @param after only entities whose id is greater than this are returned
+   * @param limit maximum number of entities to return
+   * @return up to limit UCSBDate entities, ordered by id
+   */
+  List<UCSBDate> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+  /**
+   * This method deletes every UCSBDate whose id is in the given collection with a single DELETE
+   * statement, without loading the entities first.
+   *
+   * @param ids keys of the rows to delete
+   * @return the number of rows deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM ucsbdates x WHERE x.id IN :ids")
+  int bulkDelete(@Param("ids") Collection<Long> ids);
 }
@@ -1,12 +1,63 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * The UCSBDiningCommonsMenuItemRepository is a repository for UCSBDiningCommonsMenuItem entities
  */
 @Repository
 public interface UCSBDiningCommonsMenuItemRepository
-    extends CrudRepository<UCSBDiningCommonsMenuItem, Long> {}
+    extends CrudRepository<UCSBDiningCommonsMenuItem, Long> {
+  /** Number of rows fetched from the database at a time by {@link #streamAll}. */
+  String STREAM_FETCH_SIZE = "500";
+
+  /**
+   * This method returns the next page of UCSBDiningCommonsMenuItem entities in id order, for keyset
+   * pagination.
+   *
+   * @param after only entities whose id is greater than this are returned
+   * @param limit maximum number of entities to return
+   * @return up to limit UCSBDiningCommonsMenuItem entities, ordered by id
+   */
+  List<UCSBDiningCommonsMenuItem> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+  /**
+   * This method returns every UCSBDiningCommonsMenuItem in id order as a stream, which reads the
+   * rows through a forward-only database cursor {@value #STREAM_FETCH_SIZE} at a time instead of
+   * loading them all into a list. The entities are read-only. The stream must be read inside a
+   * transaction and closed afterwards.
+   *
+   * @return all UCSBDiningCommonsMenuItem entities, ordered by id
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("SELECT x FROM ucsbdiningcommonsmenuitems x ORDER BY x.id")
+  Stream<UCSBDiningCommonsMenuItem> streamAll();
+
+  /**
+   * This method deletes every UCSBDiningCommonsMenuItem whose id is in the given collection with a
+   * single DELETE statement, without loading the entities first.
+   *
+   * @param ids keys of the rows to delete
+   * @return the number of rows deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM ucsbdiningcommonsmenuitems x WHERE x.id IN :ids")
+  int bulkDelete(@Param("ids") Collection<Long> ids);
+}
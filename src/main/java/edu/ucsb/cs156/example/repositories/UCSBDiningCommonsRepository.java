@@ -1,9 +1,73 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /** The UCSBDiningCommonsRepository is a repository for UCSBDiningCommons entities */
 @Repository
-public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String> {}
+public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String> {
+  /**
+   * Name of the cache that holds dining commons. Anything that writes to the table must call {@code
+   * TableVersionService.bump}, which changes the version in the keys and empties it.
+   */
+  String CACHE = "ucsbdiningcommons";
+
+  /**
+   * SpEL expression for the current version of the table. It is part of every cache key, so that
+   * rows loaded before a write are not served after it, even if they are put in the cache after the
+   * write emptied it.
+   */
+  String VERSION = "@tableVersionService.version('" + CACHE + "')";
+
+  /**
+   * This method returns all UCSBDiningCommons entities, from the cache if they are there.
+   *
+   * @return all UCSBDiningCommons entities
+   */
+  @Override
+  @Cacheable(cacheNames = CACHE, key = "'all:' + " + VERSION)
+  Iterable<UCSBDiningCommons> findAll();
+
+  /**
+   * This method returns a single UCSBDiningCommons, from the cache if it is there. The entity may
+   * be shared with other requests, so it must not be modified; use {@link #findById} to load an
+   * entity that is going to be updated.
+   *
+   * @param code the code of the UCSBDiningCommons
+   * @return the UCSBDiningCommons, if it exists
+   */
+  @Cacheable(cacheNames = CACHE, key = "'id:' + #p0 + ':' + " + VERSION)
+  Optional<UCSBDiningCommons> findCachedByCode(String code);
+
+  /**
+   * This method returns the next page of UCSBDiningCommons entities in code order, for keyset
+   * pagination.
+   *
+   * @param after only entities whose code is greater than this are returned
+   * @param limit maximum number of entities to return
+   * @return up to limit UCSBDiningCommons entities, ordered by code
+   */
+  List<UCSBDiningCommons> findByCodeGreaterThanOrderByCodeAsc(String after, Limit limit);
+
+  /**
+   * This method deletes every UCSBDiningCommons whose code is in the given collection with a single
+   * DELETE statement, without loading the entities first.
+   *
+   * @param codes keys of the rows to delete
+   * @return the number of rows deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM ucsbdiningcommons x WHERE x.code IN :codes")
+  int bulkDelete(@Param("codes") Collection<String> codes);
+}
@@ -1,8 +1,72 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBOrganizations;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface UCSBOrganizationsRepository extends CrudRepository<UCSBOrganizations, String> {}
+public interface UCSBOrganizationsRepository extends CrudRepository<UCSBOrganizations, String> {
+  /**
+   * Name of the cache that holds organizations. Anything that writes to the table must call {@code
+   * TableVersionService.bump}, which changes the version in the keys and empties it.
+   */
+  String CACHE = "ucsborganizations";
+
+  /**
+   * SpEL expression for the current version of the table. It is part of every cache key, so that
+   * rows loaded before a write are not served after it, even if they are put in the cache after the
+   * write emptied it.
+   */
+  String VERSION = "@tableVersionService.version('" + CACHE + "')";
+
+  /**
+   * This method returns all UCSBOrganizations entities, from the cache if they are there.
+   *
+   * @return all UCSBOrganizations entities
+   */
+  @Override
+  @Cacheable(cacheNames = CACHE, key = "'all:' + " + VERSION)
+  Iterable<UCSBOrganizations> findAll();
+
+  /**
+   * This method returns a single UCSBOrganizations, from the cache if it is there. The entity may
+   * be shared with other requests, so it must not be modified; use {@link #findById} to load an
+   * entity that is going to be updated.
+   *
+   * @param orgCode the orgCode of the UCSBOrganizations
+   * @return the UCSBOrganizations, if it exists
+   */
+  @Cacheable(cacheNames = CACHE, key = "'id:' + #p0 + ':' + " + VERSION)
+  Optional<UCSBOrganizations> findCachedByOrgCode(String orgCode);
+
+  /**
+   * This method returns the next page of UCSBOrganizations entities in orgCode order, for keyset
+   * pagination.
+   *
+   * @param after only entities whose orgCode is greater than this are returned
+   * @param limit maximum number of entities to return
+   * @return up to limit UCSBOrganizations entities, ordered by orgCode
+   */
+  List<UCSBOrganizations> findByOrgCodeGreaterThanOrderByOrgCodeAsc(String after, Limit limit);
+
+  /**
+   * This method deletes every UCSBOrganizations whose orgCode is in the given collection with a
+   * single DELETE statement, without loading the entities first.
+   *
+   * @param orgCodes keys of the rows to delete
+   * @return the number of rows deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM ucsborganizations x WHERE x.orgCode IN :orgCodes")
+  int bulkDelete(@Param("orgCodes") Collection<String> orgCodes);
+}
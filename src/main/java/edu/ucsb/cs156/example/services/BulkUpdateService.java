@@ -0,0 +1,125 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.errors.InvalidBatchException;
+import jakarta.persistence.Column;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Version;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.annotation.CreatedBy;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedBy;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * This is a service that writes the same field values to many rows of a table with a single
+ * set-based {@code UPDATE ... WHERE id IN (...)}, without loading the entities first.
+ *
+ * <p>Which fields may be set is taken from the JPA metamodel: any basic attribute of the entity
+ * except its id, its version, columns mapped with {@code updatable = false}, and the audit fields
+ * that entity listeners set (e.g. {@code @CreatedDate}), since an UPDATE statement bypasses the
+ * listeners.
+ */
+@Service
+public class BulkUpdateService {
+
+  @Autowired private EntityManager entityManager;
+
+  @Autowired private ObjectMapper mapper;
+
+  /** Fields whose values are managed by JPA or by entity listeners, not by clients */
+  private static final List<Class<? extends Annotation>> MANAGED_FIELDS =
+      List.of(
+          Version.class,
+          CreatedDate.class,
+          CreatedBy.class,
+          LastModifiedDate.class,
+          LastModifiedBy.class);
+
+  /**
+   * Updates the rows with the given keys.
+   *
+   * @param <T> the type of the entity
+   * @param entityClass the entity, e.g. {@code HelpRequest.class}
+   * @param ids keys of the rows to update
+   * @param values new values by field name; values are converted to the field's type the same way
+   *     as request bodies are, e.g. ISO strings for dates
+   * @return the number of rows updated
+   * @throws InvalidBatchException if there is nothing to set, a field cannot be set, or a value
+   *     cannot be converted
+   */
+  @Transactional
+  public <T> int update(Class<T> entityClass, Collection<?> ids, Map<String, Object> values) {
+    if (values == null || values.isEmpty()) {
+      throw new InvalidBatchException("Nothing to update");
+    }
+    EntityType<T> type = entityManager.getMetamodel().entity(entityClass);
+    CriteriaUpdate<T> update = entityManager.getCriteriaBuilder().createCriteriaUpdate(entityClass);
+    Root<T> root = update.from(entityClass);
+
+    values.forEach(
+        (field, value) -> {
+          Object converted = convert(type, field, value);
+          update.set(root.<Object>get(field), converted);
+        });
+
+    String idName =
+        type.getSingularAttributes().stream()
+            .filter(SingularAttribute::isId)
+            .findFirst()
+            .orElseThrow()
+            .getName();
+    update.where(root.get(idName).in(ids));
+
+    return entityManager.createQuery(update).executeUpdate();
+  }
+
+  private Object convert(EntityType<?> type, String field, Object value) {
+    Attribute<?, ?> attribute =
+        type.getSingularAttributes().stream()
+            .filter(a -> a.getName().equals(field))
+            .findFirst()
+            .orElseThrow(
+                () ->
+                    new InvalidBatchException(
+                        "%s has no field %s".formatted(type.getJavaType().getSimpleName(), field)));
+    if (((SingularAttribute<?, ?>) attribute).isId()
+        || attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC
+        || !updatable((AnnotatedElement) attribute.getJavaMember())) {
+      throw new InvalidBatchException("Field %s cannot be updated".formatted(field));
+    }
+    Class<?> javaType = attribute.getJavaType();
+    Object converted;
+    if (value == null) {
+      if (javaType.isPrimitive()) {
+        throw new InvalidBatchException("Field %s cannot be null".formatted(field));
+      }
+      converted = null;
+    } else {
+      try {
+        converted = mapper.convertValue(value, javaType);
+      } catch (IllegalArgumentException e) {
+        throw new InvalidBatchException("Invalid value for field %s: %s".formatted(field, value));
+      }
+    }
+    return converted;
+  }
+
+  private static boolean updatable(AnnotatedElement member) {
+    Column column = member.getAnnotation(Column.class);
+    return (column == null || column.updatable())
+        && MANAGED_FIELDS.stream().noneMatch(member::isAnnotationPresent);
+  }
+}
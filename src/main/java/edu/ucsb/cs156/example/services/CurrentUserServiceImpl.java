@@ -1,16 +1,23 @@
 package edu.ucsb.cs156.example.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.logging.DiagnosticLogger;
 import edu.ucsb.cs156.example.models.CurrentUser;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
@@ -18,23 +25,55 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 /**
  * This is a service that provides information about the current user.
  *
  * <p>This is the version of the service used in production.
+ *
+ * <p>Resolving the OAuth2 user to a User costs a database lookup (and sometimes a write), and
+ * getUser() is called several times per request. The resolved User is therefore memoized for the
+ * rest of the request, and cached by Google {@code sub} for {@code app.current-user.cache-ttl-ms}
+ * across requests. The cache entry of a user is dropped when a {@link UserAdminChangedEvent} is
+ * published for them.
  */
-@Slf4j
 @Service("currentUser")
 @Primary
 public class CurrentUserServiceImpl extends CurrentUserService {
+  private static final DiagnosticLogger diagnostics =
+      DiagnosticLogger.getLogger(CurrentUserServiceImpl.class);
+
   @Autowired private UserRepository userRepository;
 
   @Autowired GrantedAuthoritiesService grantedAuthoritiesService;
 
+  @Autowired private ApplicationEventPublisher eventPublisher;
+
   @Value("${app.admin.emails}")
   private final List<String> adminEmails = new ArrayList<String>();
 
+  @Value("${app.current-user.cache-ttl-ms:300000}")
+  private long cacheTtlMillis;
+
+  @Value("${app.current-user.cache-max-size:10000}")
+  private long cacheMaxSize;
+
+  /** Name of the request attribute getUser() memoizes the current user in */
+  static final String REQUEST_ATTRIBUTE = CurrentUserServiceImpl.class.getName() + ".user";
+
+  private Cache<String, User> usersBySub;
+
+  @PostConstruct
+  void buildCache() {
+    usersBySub =
+        Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMillis(cacheTtlMillis))
+            .maximumSize(cacheMaxSize)
+            .build();
+  }
+
   /**
    * This method returns the current user as a User object.
    *
@@ -42,7 +81,7 @@ public class CurrentUserServiceImpl extends CurrentUserService {
    */
   public CurrentUser getCurrentUser() {
     CurrentUser cu = CurrentUser.builder().user(this.getUser()).roles(this.getRoles()).build();
-    log.info("getCurrentUser returns {}", cu);
+    diagnostics.debug("getCurrentUser", () -> Map.of("currentUser", cu));
     return cu;
   }
 
@@ -51,7 +90,7 @@ public class CurrentUserServiceImpl extends CurrentUserService {
    * automatically injected by Spring.
    *
    * <p>This method also has a side effect of storing the user in the database if they are not
-   * already there.
+   * already there. Users are looked up in the cache first; see the class comment.
    *
    * @param securityContext the security context (provided by Spring)
    * @param authentication the authentication token (provided by Spring)
@@ -70,8 +109,42 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     String locale = oAuthUser.getAttribute("locale");
     String hostedDomain = oAuthUser.getAttribute("hd");
 
-    java.util.Map<java.lang.String, java.lang.Object> attrs = oAuthUser.getAttributes();
-    log.info("attrs={}", attrs);
+    if (googleSub != null) {
+      User cached = usersBySub.getIfPresent(googleSub);
+      if (cached != null) {
+        return cached;
+      }
+    }
+
+    diagnostics.debug("resolving OAuth2 user", () -> Map.of("attrs", oAuthUser.getAttributes()));
+
+    User u =
+        findOrCreateUser(
+            email,
+            googleSub,
+            pictureUrl,
+            fullName,
+            givenName,
+            familyName,
+            emailVerified,
+            locale,
+            hostedDomain);
+    if (googleSub != null) {
+      usersBySub.put(googleSub, u);
+    }
+    return u;
+  }
+
+  private User findOrCreateUser(
+      String email,
+      String googleSub,
+      String pictureUrl,
+      String fullName,
+      String givenName,
+      String familyName,
+      boolean emailVerified,
+      String locale,
+      String hostedDomain) {
 
     Optional<User> ou = userRepository.findByEmail(email);
     if (ou.isPresent()) {
@@ -79,6 +152,7 @@ public class CurrentUserServiceImpl extends CurrentUserService {
       if (adminEmails.contains(email) && !u.getAdmin()) {
         u.setAdmin(true);
         userRepository.save(u);
+        eventPublisher.publishEvent(new UserAdminChangedEvent(email));
       }
       return u;
     }
@@ -109,10 +183,36 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     SecurityContext securityContext = SecurityContextHolder.getContext();
     Authentication authentication = securityContext.getAuthentication();
 
-    if (authentication instanceof OAuth2AuthenticationToken) {
-      return getOAuth2AuthenticatedUser(securityContext, authentication);
+    if (!(authentication instanceof OAuth2AuthenticationToken)) {
+      return null;
+    }
+
+    RequestAttributes request = RequestContextHolder.getRequestAttributes();
+    if (request != null
+        && request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+            instanceof User memoized) {
+      return memoized;
+    }
+    User user = getOAuth2AuthenticatedUser(securityContext, authentication);
+    if (request != null) {
+      request.setAttribute(REQUEST_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
     }
-    return null;
+    return user;
+  }
+
+  /**
+   * Drops the cached User of anyone whose admin flag changed.
+   *
+   * @param event the change
+   */
+  @EventListener
+  public void onUserAdminChanged(UserAdminChangedEvent event) {
+    usersBySub.asMap().values().removeIf(u -> event.email().equals(u.getEmail()));
+  }
+
+  /** Drops every cached User, e.g. after users were changed directly in the database. */
+  public void invalidateAll() {
+    usersBySub.invalidateAll();
   }
 
   /**
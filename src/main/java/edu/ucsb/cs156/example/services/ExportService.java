@@ -0,0 +1,209 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * This is a service that exports a whole table as NDJSON or CSV, for analytics.
+ *
+ * <p>Rows are read with plain JDBC through a forward-only, read-only cursor, {@code
+ * app.export.fetch-size} at a time, inside a read-only transaction, and each row is written to the
+ * response as soon as it is read. No entities are created and nothing is kept per row, so an export
+ * uses the same memory whatever the size of the table. The transaction holds a JDBC connection
+ * until the client has received the last row, so each export needs one of the {@link
+ * StreamingPermits}.
+ */
+@Service
+public class ExportService {
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Autowired private StreamingPermits streamingPermits;
+
+  @Autowired private ObjectMapper mapper;
+
+  @Value("${app.export.fetch-size:1000}")
+  private int fetchSize;
+
+  /**
+   * A column of an export.
+   *
+   * @param name the name of the column in the export, e.g. {@code itemId}
+   * @param sql the SQL column (or expression) it is read from, e.g. {@code ITEM_ID}
+   * @param type the Java type the column is read as, e.g. {@code Long.class}; use {@code
+   *     LocalDateTime} for {@code TIMESTAMP} and {@code OffsetDateTime} for {@code TIMESTAMP WITH
+   *     TIME ZONE} columns, so that timestamps are exported the same way whatever the database
+   */
+  public record Column(String name, String sql, Class<?> type) {}
+
+  /**
+   * Returns a response that exports every row of a table, in id order.
+   *
+   * @param format the format to write the rows in
+   * @param name the name of the export, used for the file name of the download
+   * @param table the SQL name of the table
+   * @param columns the columns to export
+   * @return the response
+   * @throws org.springframework.web.server.ResponseStatusException with 503 Service Unavailable if
+   *     too many responses are being streamed already
+   */
+  public ResponseEntity<StreamingResponseBody> export(
+      ExportFormat format, String name, String table, List<Column> columns) {
+    String sql =
+        columns.stream()
+            .map(Column::sql)
+            .collect(Collectors.joining(", ", "SELECT ", " FROM " + table + " ORDER BY ID"));
+    StreamingPermits.Permit permit = streamingPermits.acquire();
+    StreamingResponseBody body =
+        out -> {
+          TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+          transaction.setReadOnly(true);
+          try (permit;
+              RowWriter rows =
+                  format == ExportFormat.NDJSON
+                      ? new NdjsonRowWriter(mapper, out, columns)
+                      : new CsvRowWriter(out, columns)) {
+            transaction.executeWithoutResult(status -> query(sql, columns, rows));
+          } catch (UncheckedIOException e) {
+            throw e.getCause();
+          }
+        };
+    ContentDisposition disposition =
+        ContentDisposition.attachment().filename(name + "." + format.getExtension()).build();
+    return ResponseEntity.ok()
+        .contentType(format.getMediaType())
+        .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+        .body(body);
+  }
+
+  private void query(String sql, List<Column> columns, RowWriter rows) {
+    Object[] values = new Object[columns.size()];
+    jdbcTemplate.query(
+        connection -> {
+          PreparedStatement statement =
+              connection.prepareStatement(
+                  sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+          statement.setFetchSize(fetchSize);
+          return statement;
+        },
+        (RowCallbackHandler)
+            resultSet -> {
+              for (int i = 0; i < values.length; i++) {
+                values[i] = resultSet.getObject(i + 1, columns.get(i).type());
+              }
+              try {
+                rows.write(values);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+  }
+
+  private interface RowWriter extends Closeable {
+    void write(Object[] values) throws IOException;
+  }
+
+  private static class NdjsonRowWriter implements RowWriter {
+    private final JsonGenerator json;
+
+    private final List<Column> columns;
+
+    NdjsonRowWriter(ObjectMapper mapper, OutputStream out, List<Column> columns)
+        throws IOException {
+      this.json = mapper.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      this.json.setRootValueSeparator(null);
+      this.columns = columns;
+    }
+
+    @Override
+    public void write(Object[] values) throws IOException {
+      json.writeStartObject();
+      for (int i = 0; i < values.length; i++) {
+        json.writeFieldName(columns.get(i).name());
+        json.writeObject(values[i]);
+      }
+      json.writeEndObject();
+      json.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+      json.close();
+    }
+  }
+
+  private static class CsvRowWriter implements RowWriter {
+    private static final String FORMULA_STARTS = "=+-@\t\r";
+
+    private final Writer csv;
+
+    CsvRowWriter(OutputStream out, List<Column> columns) throws IOException {
+      this.csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+      write(columns.stream().map(Column::name).toArray());
+    }
+
+    @Override
+    public void write(Object[] values) throws IOException {
+      for (int i = 0; i < values.length; i++) {
+        if (i > 0) {
+          csv.write(',');
+        }
+        if (values[i] instanceof Number) {
+          csv.write(values[i].toString());
+        } else if (values[i] != null) {
+          csv.write(escape(values[i].toString()));
+        }
+      }
+      csv.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+      csv.flush();
+    }
+
+    /**
+     * Quotes a value as RFC 4180 requires, if it contains a comma, a quote or a line break. A value
+     * that a spreadsheet would run as a formula (one starting with {@code =}, {@code +}, {@code -},
+     * {@code @}, a tab or a carriage return) is prefixed with {@code '} and quoted, so that it is
+     * shown as text instead. Numbers never get here, so negative numbers stay numbers.
+     */
+    static String escape(String value) {
+      if (!value.isEmpty() && FORMULA_STARTS.indexOf(value.charAt(0)) >= 0) {
+        return "\"'" + value.replace("\"", "\"\"") + '"';
+      }
+      if (value.indexOf(',') < 0
+          && value.indexOf('"') < 0
+          && value.indexOf('\n') < 0
+          && value.indexOf('\r') < 0) {
+        return value;
+      }
+      return '"' + value.replace("\"", "\"\"") + '"';
+    }
+  }
+}
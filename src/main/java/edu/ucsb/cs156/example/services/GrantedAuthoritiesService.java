@@ -1,7 +1,8 @@
 package edu.ucsb.cs156.example.services;
 
+import edu.ucsb.cs156.example.logging.DiagnosticLogger;
 import java.util.Collection;
-import lombok.extern.slf4j.Slf4j;
+import java.util.Map;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
@@ -12,9 +13,10 @@ import org.springframework.stereotype.Service;
  * The is a service that retrieves and logs the granted authorities for the current user's
  * authentication.
  */
-@Slf4j
 @Service("grantedAuthorities")
 public class GrantedAuthoritiesService {
+  private static final DiagnosticLogger diagnostics =
+      DiagnosticLogger.getLogger(GrantedAuthoritiesService.class);
 
   /**
    * The function retrieves and logs the granted authorities from the current security context in a
@@ -26,7 +28,7 @@ public class GrantedAuthoritiesService {
     SecurityContext securityContext = SecurityContextHolder.getContext();
     Authentication authentication = securityContext.getAuthentication();
     Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
-    log.info("authorities={}", authorities);
+    diagnostics.debug("getGrantedAuthorities", () -> Map.of("authorities", authorities));
     return authorities;
   }
 }
@@ -0,0 +1,349 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.repositories.JobUploadChunkRepository;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobContextConsumer;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * This is a service that imports a file of NDJSON or CSV rows into a table, from a background job.
+ *
+ * <p>The file is read one row at a time and rows are saved {@code app.import.batch-size} at a time,
+ * each batch in its own transaction, so an import uses the same memory whatever the size of the
+ * file. A CSV file starts with a header line naming the fields of the rows, as an {@code /export}
+ * writes them; empty values are read as null.
+ *
+ * <p>A row that can not be read stops the import with the number of that row; the batches saved
+ * before it stay saved.
+ *
+ * <p>The uploaded file is saved in the database, in {@code app.import.chunk-size} byte chunks, in
+ * the transaction that queues the job, so that whichever instance claims the job can read it. It is
+ * deleted when the job ends, or with the job if the job is deleted first.
+ */
+@Service
+public class ImportService {
+  @Autowired private ObjectMapper mapper;
+
+  @Value("${app.import.batch-size:500}")
+  private int batchSize;
+
+  @Value("${app.import.chunk-size:1048576}")
+  private int chunkSize;
+
+  @Autowired private JobUploadChunkRepository jobUploadChunkRepository;
+
+  @Autowired private JobService jobService;
+
+  /**
+   * Queues and runs a job that imports an uploaded file, saving the file for the job to read with
+   * {@link #openUpload}. The upload itself is deleted when the request ends, before the job may
+   * have run.
+   *
+   * @param job the job that imports the file
+   * @param upload the uploaded file
+   * @return the job
+   * @throws IOException if the upload can not be read
+   */
+  public Job launch(JobContextConsumer job, MultipartFile upload) throws IOException {
+    try {
+      return jobService.runAsJob(job, queued -> store(queued.getId(), upload));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private void store(long jobId, MultipartFile upload) {
+    try (InputStream in = upload.getInputStream()) {
+      int seq = 0;
+      byte[] chunk;
+      // an empty file is saved as one empty chunk, so that it can be told apart from a missing one
+      do {
+        chunk = in.readNBytes(chunkSize);
+        jobUploadChunkRepository.insert(jobId, seq++, chunk);
+      } while (chunk.length == chunkSize);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Opens the file uploaded for a job. The file is read from the database one chunk at a time.
+   *
+   * @param jobId id of the job
+   * @return the contents of the file
+   * @throws IOException if the job has no uploaded file, e.g. because it was deleted
+   */
+  public InputStream openUpload(long jobId) throws IOException {
+    byte[] first =
+        jobUploadChunkRepository
+            .findData(jobId, 0)
+            .orElseThrow(() -> new IOException("The uploaded file of the job is gone"));
+    return new UploadInputStream(jobUploadChunkRepository, jobId, first);
+  }
+
+  /**
+   * Deletes the file uploaded for a job.
+   *
+   * @param jobId id of the job
+   */
+  public void deleteUpload(long jobId) {
+    jobUploadChunkRepository.deleteByJobId(jobId);
+  }
+
+  /**
+   * Imports every row of a file into a table, logging progress after each batch.
+   *
+   * @param format the format of the file
+   * @param in the contents of the file
+   * @param type the entity class each row is read as
+   * @param repository the repository the rows are saved with
+   * @param prepare called for each row before it is saved, e.g. to clear a generated id; throws
+   *     IllegalArgumentException to reject the row
+   * @param ctx the context of the job, for its log
+   * @return the number of rows imported
+   * @throws IOException if the file can not be read
+   * @throws IllegalArgumentException if a row can not be imported
+   */
+  public <T> long importFile(
+      ExportFormat format,
+      InputStream in,
+      Class<T> type,
+      CrudRepository<T, ?> repository,
+      Consumer<T> prepare,
+      JobContext ctx)
+      throws IOException {
+    long imported = 0;
+    List<T> batch = new ArrayList<>(batchSize);
+    try (RowReader<T> rows =
+        format == ExportFormat.NDJSON
+            ? new NdjsonRowReader<>(mapper, in, type)
+            : new CsvRowReader<>(mapper, in, type)) {
+      for (long row = 1; ; row++) {
+        T item;
+        try {
+          item = rows.read();
+          if (item == null) {
+            break;
+          }
+          prepare.accept(item);
+        } catch (IOException | IllegalArgumentException e) {
+          throw new IllegalArgumentException("Row %d: %s".formatted(row, message(e)), e);
+        }
+        batch.add(item);
+        if (batch.size() == batchSize) {
+          imported += save(repository, batch, imported, ctx);
+        }
+      }
+    }
+    if (!batch.isEmpty()) {
+      imported += save(repository, batch, imported, ctx);
+    }
+    ctx.log("Imported %d %s".formatted(imported, type.getSimpleName()));
+    return imported;
+  }
+
+  private <T> int save(
+      CrudRepository<T, ?> repository, List<T> batch, long before, JobContext ctx) {
+    repository.saveAll(batch);
+    int saved = batch.size();
+    batch.clear();
+    ctx.log("Saved rows %d to %d".formatted(before + 1, before + saved));
+    return saved;
+  }
+
+  /** Returns the message of a Jackson error without the location, which means nothing to users. */
+  private static String message(Exception e) {
+    Throwable cause = e.getCause() instanceof JsonProcessingException ? e.getCause() : e;
+    return cause instanceof JsonProcessingException json
+        ? json.getOriginalMessage()
+        : cause.getMessage();
+  }
+
+  /** Reads the chunks of an uploaded file in order, fetching each one when it is reached. */
+  private static class UploadInputStream extends InputStream {
+    private final JobUploadChunkRepository repository;
+
+    private final long jobId;
+
+    private byte[] chunk;
+
+    private int seq = 0;
+
+    private int pos = 0;
+
+    UploadInputStream(JobUploadChunkRepository repository, long jobId, byte[] first) {
+      this.repository = repository;
+      this.jobId = jobId;
+      this.chunk = first;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return nextChunk() ? chunk[pos++] & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (!nextChunk()) {
+        return -1;
+      }
+      int n = Math.min(len, chunk.length - pos);
+      System.arraycopy(chunk, pos, b, off, n);
+      pos += n;
+      return n;
+    }
+
+    /** Moves on to the next chunk once this one is used up; returns false at the end. */
+    private boolean nextChunk() {
+      while (chunk != null && pos == chunk.length) {
+        chunk = repository.findData(jobId, ++seq).orElse(null);
+        pos = 0;
+      }
+      return chunk != null;
+    }
+  }
+
+  private interface RowReader<T> extends Closeable {
+    /** Returns the next row, or null at the end of the file. */
+    T read() throws IOException;
+  }
+
+  private static class NdjsonRowReader<T> implements RowReader<T> {
+    private final MappingIterator<T> rows;
+
+    NdjsonRowReader(ObjectMapper mapper, InputStream in, Class<T> type) throws IOException {
+      this.rows = mapper.readerFor(type).readValues(in);
+    }
+
+    @Override
+    public T read() throws IOException {
+      return rows.hasNextValue() ? rows.nextValue() : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+      rows.close();
+    }
+  }
+
+  private static class CsvRowReader<T> implements RowReader<T> {
+    private final ObjectMapper mapper;
+
+    private final Class<T> type;
+
+    private final Reader csv;
+
+    private final String[] header;
+
+    CsvRowReader(ObjectMapper mapper, InputStream in, Class<T> type) throws IOException {
+      this.mapper = mapper;
+      this.type = type;
+      this.csv = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+      // skip the byte order mark that spreadsheets write at the start of a UTF-8 file
+      csv.mark(1);
+      if (csv.read() != '\uFEFF') {
+        csv.reset();
+      }
+      String[] names = readRecord(csv);
+      this.header = names != null ? names : new String[0];
+    }
+
+    @Override
+    public T read() throws IOException {
+      String[] values = readRecord(csv);
+      if (values == null) {
+        return null;
+      }
+      if (values.length != header.length) {
+        throw new IllegalArgumentException(
+            "%d values for %d columns".formatted(values.length, header.length));
+      }
+      Map<String, String> fields = new LinkedHashMap<>();
+      for (int i = 0; i < values.length; i++) {
+        if (!values[i].isEmpty()) {
+          fields.put(header[i], values[i]);
+        }
+      }
+      return mapper.convertValue(fields, type);
+    }
+
+    @Override
+    public void close() throws IOException {
+      csv.close();
+    }
+
+    /**
+     * Reads one RFC 4180 record, skipping blank lines; quoted values may contain commas, line
+     * breaks and doubled quotes. Lines may end with CRLF or LF.
+     *
+     * @return the values of the record, or null at the end of the file
+     */
+    static String[] readRecord(Reader in) throws IOException {
+      List<String> values = new ArrayList<>();
+      StringBuilder value = new StringBuilder();
+      boolean quoted = false;
+      boolean blank = true;
+      int c = in.read();
+      while (true) {
+        if (quoted) {
+          if (c == -1) {
+            throw new IllegalArgumentException("quoted value is not closed");
+          }
+          if (c == '"') {
+            c = in.read();
+            if (c != '"') {
+              quoted = false;
+              continue;
+            }
+          }
+          value.append((char) c);
+        } else if (c == '"' && value.isEmpty()) {
+          quoted = true;
+          blank = false;
+        } else if (c == ',') {
+          values.add(value.toString());
+          value.setLength(0);
+          blank = false;
+        } else if (c == '\n' || c == -1) {
+          if (!blank) {
+            values.add(value.toString());
+            return values.toArray(String[]::new);
+          }
+          if (c == -1) {
+            return null;
+          }
+        } else if (c != '\r') {
+          value.append((char) c);
+          blank = false;
+        }
+        c = in.read();
+      }
+    }
+  }
+}
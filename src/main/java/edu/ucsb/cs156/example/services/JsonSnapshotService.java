@@ -0,0 +1,180 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * This is a service that keeps the JSON of the most polled {@code /all} endpoints already
+ * serialized, both as plain UTF-8 bytes and gzipped, so that answering them costs neither Jackson
+ * nor gzip.
+ *
+ * <p>Each snapshot is labelled with the table's ETag from {@link TableVersionService}, read before
+ * the rows are loaded, and is only served while that is still the table's ETag. The ETag is read
+ * from the database on every request, so a write through any instance makes the snapshots of every
+ * instance stale. After a write through this instance (see {@link TableChangedEvent}) the snapshot
+ * is rebuilt on the {@code snapshots} executor, so that the next poll finds it ready; a request
+ * that arrives before the rebuild has finished, or on another instance, builds it itself, as the
+ * endpoint did before it had a snapshot.
+ *
+ * <p>The gzipped and plain JSON are different representations, so they have different strong ETags:
+ * clients that accept gzip get the table's ETag with {@code -gzip} added inside the quotes. They
+ * get that ETag even for a table too small to be worth gzipping, whose plain JSON is then sent,
+ * which is always the same bytes for a given version of the table.
+ */
+@Service
+@Slf4j
+public class JsonSnapshotService {
+  @Autowired private ObjectMapper mapper;
+
+  @Autowired private TableVersionService tableVersionService;
+
+  @Autowired
+  @Qualifier("snapshots")
+  private TaskExecutor executor;
+
+  /**
+   * The serialized JSON of a table.
+   *
+   * @param etag the table's ETag when its rows were read
+   * @param json the JSON as UTF-8
+   * @param gzip the JSON gzipped, or null when gzip would not make it smaller
+   */
+  public record Snapshot(String etag, byte[] json, byte[] gzip) {}
+
+  private final Map<String, Supplier<?>> sources = new ConcurrentHashMap<>();
+
+  private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+  private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Answers a GET of a whole table from its snapshot: 304 if the request's If-None-Match matches
+   * the table's ETag for the encoding the client accepts, otherwise the JSON, gzipped if the client
+   * accepts gzip.
+   *
+   * @param table name of the table's cache, e.g. {@code UCSBDiningCommonsRepository.CACHE}
+   * @param source loads the rows of the table, e.g. {@code repository::findAll}
+   * @param request the request, for its If-None-Match and Accept-Encoding headers
+   * @return the response, or null if the client's copy is up to date
+   */
+  public ResponseEntity<byte[]> respond(String table, Supplier<?> source, WebRequest request) {
+    boolean acceptsGzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    String etag = tableVersionService.etag(table);
+    if (request.checkNotModified(acceptsGzip ? gzipEtag(etag) : etag)) {
+      return null;
+    }
+    Snapshot snapshot = get(table, source);
+    ResponseEntity.BodyBuilder response =
+        ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (snapshot.gzip() != null && acceptsGzip) {
+      return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzip());
+    }
+    return response.body(snapshot.json());
+  }
+
+  /**
+   * Returns the current snapshot of a table, building it first if there is none or it is stale.
+   *
+   * @param table name of the table's cache
+   * @param source loads the rows of the table
+   * @return the snapshot
+   */
+  public Snapshot get(String table, Supplier<?> source) {
+    sources.putIfAbsent(table, source);
+    Snapshot snapshot = snapshots.get(table);
+    if (snapshot != null && snapshot.etag().equals(tableVersionService.etag(table))) {
+      return snapshot;
+    }
+    return build(table, source);
+  }
+
+  /**
+   * Rebuilds the snapshot of a table that has changed, if anything has asked for one. Rebuilds that
+   * are already waiting are not queued again.
+   *
+   * @param event the change
+   */
+  @EventListener
+  public void onTableChanged(TableChangedEvent event) {
+    String table = event.table();
+    Supplier<?> source = sources.get(table);
+    if (source != null && pending.add(table)) {
+      executor.execute(
+          () -> {
+            pending.remove(table);
+            try {
+              build(table, source);
+            } catch (RuntimeException e) {
+              log.warn("Could not rebuild the JSON snapshot of {}", table, e);
+            }
+          });
+    }
+  }
+
+  /** Drops every snapshot, e.g. after tables were changed directly in the database. */
+  public void invalidateAll() {
+    snapshots.clear();
+  }
+
+  private Snapshot build(String table, Supplier<?> source) {
+    String etag = tableVersionService.etag(table);
+    byte[] json;
+    byte[] gzip;
+    try {
+      json = mapper.writeValueAsBytes(source.get());
+      gzip = gzip(json);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    Snapshot snapshot = new Snapshot(etag, json, gzip.length < json.length ? gzip : null);
+    snapshots.put(table, snapshot);
+    return snapshot;
+  }
+
+  private static byte[] gzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 32);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(bytes);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Returns the ETag of the gzipped variant, e.g. {@code "commons-1-gzip"} for {@code "commons-1"}.
+   */
+  static String gzipEtag(String etag) {
+    return etag.substring(0, etag.length() - 1) + "-gzip\"";
+  }
+
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      if (parts[0].trim().equalsIgnoreCase("gzip")) {
+        return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * This is a service that writes the rows of a repository {@code Stream} to a response as a JSON
+ * array, one row at a time, so that listing a large table uses the same memory whatever its size.
+ *
+ * <p>The stream is read inside a read-only transaction (a database cursor only lives as long as its
+ * transaction), and each entity is detached from the persistence context as soon as it has been
+ * written, so that Hibernate does not keep every row it has seen. Since that transaction holds a
+ * JDBC connection until the client has received the whole array, each response needs one of the
+ * {@link StreamingPermits}.
+ */
+@Service
+public class JsonStreamService {
+  @Autowired private ObjectMapper mapper;
+
+  @Autowired private EntityManager entityManager;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Autowired private StreamingPermits streamingPermits;
+
+  /**
+   * Returns a response body that writes the rows of a stream as a JSON array.
+   *
+   * @param <T> the type of the rows
+   * @param rows opens the stream, e.g. {@code repository::streamAll}; it is only called when the
+   *     response is written
+   * @return the response body
+   * @throws org.springframework.web.server.ResponseStatusException with 503 Service Unavailable if
+   *     too many responses are being streamed already
+   */
+  public <T> StreamingResponseBody jsonArray(Supplier<Stream<T>> rows) {
+    StreamingPermits.Permit permit = streamingPermits.acquire();
+    return out -> {
+      TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+      transaction.setReadOnly(true);
+      try (permit;
+          JsonGenerator json = mapper.createGenerator(out)) {
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        transaction.executeWithoutResult(status -> write(rows, json));
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    };
+  }
+
+  private <T> void write(Supplier<Stream<T>> rows, JsonGenerator json) {
+    try (Stream<T> stream = rows.get()) {
+      json.writeStartArray();
+      for (Iterator<T> it = stream.iterator(); it.hasNext(); ) {
+        T row = it.next();
+        json.writeObject(row);
+        entityManager.detach(row);
+      }
+      json.writeEndArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
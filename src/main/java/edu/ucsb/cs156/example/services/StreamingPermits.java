@@ -0,0 +1,66 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * This is a service that limits how many streamed responses (see {@link JsonStreamService} and
+ * {@link ExportService}) read from the database at once.
+ *
+ * <p>A streamed response keeps its read-only transaction, and so a JDBC connection from the pool,
+ * open until the client has received the last row, which for a slow client can take up to {@code
+ * spring.mvc.async.request-timeout}. Without a limit, a handful of slow downloads could take every
+ * connection and stall all other requests; with it, the request after the last permit is refused
+ * with 503 Service Unavailable before it touches the database.
+ */
+@Service
+public class StreamingPermits {
+
+  /** A permit to stream one response; closing it more than once is harmless. */
+  public interface Permit extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  private final Semaphore permits;
+
+  /**
+   * @param maxConcurrent the largest number of responses streamed at once
+   */
+  public StreamingPermits(@Value("${app.streaming.max-concurrent:4}") int maxConcurrent) {
+    this.permits = new Semaphore(maxConcurrent);
+  }
+
+  /**
+   * Takes a permit to stream a response. Call this while handling the request, so that the client
+   * gets a proper error status, and close the permit once the response has been written.
+   *
+   * @return the permit
+   * @throws ResponseStatusException with 503 Service Unavailable if all permits are taken
+   */
+  public Permit acquire() {
+    if (!permits.tryAcquire()) {
+      throw new ResponseStatusException(
+          HttpStatus.SERVICE_UNAVAILABLE, "Too many downloads in progress; try again later");
+    }
+    AtomicBoolean released = new AtomicBoolean();
+    return () -> {
+      if (released.compareAndSet(false, true)) {
+        permits.release();
+      }
+    };
+  }
+
+  /**
+   * Returns the number of responses that may still start streaming.
+   *
+   * @return the number of free permits
+   */
+  public int available() {
+    return permits.availablePermits();
+  }
+}
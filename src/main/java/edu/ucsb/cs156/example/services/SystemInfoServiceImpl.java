@@ -1,7 +1,8 @@
 package edu.ucsb.cs156.example.services;
 
+import edu.ucsb.cs156.example.logging.DiagnosticLogger;
 import edu.ucsb.cs156.example.models.SystemInfo;
-import lombok.extern.slf4j.Slf4j;
+import java.util.Map;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Service;
@@ -12,10 +13,11 @@ import org.springframework.stereotype.Service;
  * <p>This class relies on property values. For hints on testing, see: <a href=
  * "https://www.baeldung.com/spring-boot-testing-configurationproperties">https://www.baeldung.com/spring-boot-testing-configurationproperties</a>
  */
-@Slf4j
 @Service("systemInfo")
 @ConfigurationProperties
 public class SystemInfoServiceImpl extends SystemInfoService {
+  private static final DiagnosticLogger diagnostics =
+      DiagnosticLogger.getLogger(SystemInfoServiceImpl.class);
 
   @Value("${spring.h2.console.enabled:false}")
   private boolean springH2ConsoleEnabled;
@@ -56,7 +58,7 @@ public class SystemInfoServiceImpl extends SystemInfoService {
             .commitId(this.commitId)
             .githubUrl(githubUrl(this.sourceRepo, this.commitId))
             .build();
-    log.info("getSystemInfo returns {}", si);
+    diagnostics.debug("getSystemInfo", () -> Map.of("systemInfo", si));
     return si;
   }
 }
@@ -0,0 +1,9 @@
+package edu.ucsb.cs156.example.services;
+
+/**
+ * Application event published by {@link TableVersionService#bump} whenever a table has changed, so
+ * that anything derived from the table (e.g. JsonSnapshotService) can be rebuilt.
+ *
+ * @param table name of the table's cache, e.g. {@code UCSBDateRepository.CACHE}
+ */
+public record TableChangedEvent(String table) {}
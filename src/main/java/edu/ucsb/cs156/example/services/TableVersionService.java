@@ -0,0 +1,109 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.TableVersion;
+import edu.ucsb.cs156.example.repositories.TableVersionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * This is a service that keeps a version number for each cached table, and hands out ETags based on
+ * it. Anything that creates, updates or deletes rows calls {@link #bump}, which changes the table's
+ * version and empties its cache, so the ETag of a GET response changes exactly when the data behind
+ * it may have changed.
+ *
+ * <p>The versions are rows of the {@code table_versions} table, read on every call, so that all
+ * instances of the application agree on them: a write through one instance changes the ETags and
+ * cache keys of every other one too. Reading a version is a single primary key lookup, which is
+ * what a cached or 304 response costs instead of loading the whole table.
+ *
+ * <p>The cached repository methods put the version in their cache keys, which is looked up before
+ * the rows are loaded. A request that loads rows while another one writes can only put them under
+ * the version it started with, so once the write is bumped those rows are never served again, even
+ * if they are put in the cache after the bump has emptied it.
+ *
+ * <p>Writes made directly in the database (e.g. SQL run by hand) must add one to the table's row in
+ * {@code table_versions} too; otherwise clients keep their copy of the table, and instances serve
+ * their cached rows until they expire.
+ */
+@Service("tableVersionService") // named, since the cache keys refer to it by name
+public class TableVersionService {
+  @Autowired private TableVersionRepository tableVersionRepository;
+
+  @Autowired private CacheManager cacheManager;
+
+  @Autowired private ApplicationEventPublisher eventPublisher;
+
+  /**
+   * Returns the current version of a table, which the cached repository methods put in their cache
+   * keys.
+   *
+   * @param table name of the table's cache, e.g. {@code UCSBDateRepository.CACHE}
+   * @return the version, which starts at 0 and goes up by one on every bump
+   */
+  public long version(String table) {
+    return tableVersionRepository.findVersion(table).orElse(0L);
+  }
+
+  /**
+   * Returns the current strong ETag of a table.
+   *
+   * @param table name of the table's cache, e.g. {@code UCSBDateRepository.CACHE}
+   * @return the ETag, including its double quotes
+   */
+  public String etag(String table) {
+    return "\"%s-%d\"".formatted(table, version(table));
+  }
+
+  /**
+   * Returns the current weak ETag of a table, for responses whose body is serialized on each
+   * request. Tomcat does not compress a response that has a strong ETag, since the compressed bytes
+   * differ from the ones the ETag was computed for; a weak ETag only promises the same data, so
+   * those responses are still compressed.
+   *
+   * @param table name of the table's cache, e.g. {@code UCSBDateRepository.CACHE}
+   * @return the ETag, including its {@code W/} prefix and double quotes
+   */
+  public String weakEtag(String table) {
+    return "W/" + etag(table);
+  }
+
+  /**
+   * Records that a table has changed: adds one to its version (and so changes its ETag and cache
+   * keys), empties this instance's cache of the entries under the old version, and publishes a
+   * {@link TableChangedEvent}.
+   *
+   * <p>Call it in the transaction that writes the rows, so that the new version is committed with
+   * them and no instance can serve the old data under the new ETag. The event is only published
+   * once that transaction has committed, since listeners read the new rows.
+   *
+   * @param table name of the table's cache, e.g. {@code UCSBDateRepository.CACHE}
+   */
+  @Transactional
+  public void bump(String table) {
+    if (tableVersionRepository.increment(table) == 0) {
+      tableVersionRepository.save(TableVersion.builder().name(table).version(1).build());
+    }
+    Cache cache = cacheManager.getCache(table);
+    if (cache != null) {
+      cache.clear();
+    }
+    TableChangedEvent event = new TableChangedEvent(table);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              eventPublisher.publishEvent(event);
+            }
+          });
+    } else {
+      eventPublisher.publishEvent(event);
+    }
+  }
+}
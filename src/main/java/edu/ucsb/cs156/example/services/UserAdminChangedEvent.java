@@ -0,0 +1,9 @@
+package edu.ucsb.cs156.example.services;
+
+/**
+ * Application event published whenever a user's admin flag changes, so that anything that caches
+ * who is an admin (e.g. CurrentUserServiceImpl) can drop its stale entries.
+ *
+ * @param email email address of the user whose admin flag changed
+ */
+public record UserAdminChangedEvent(String email) {}
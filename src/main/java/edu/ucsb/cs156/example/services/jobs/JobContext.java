@@ -1,20 +1,102 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLineRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
-import lombok.AllArgsConstructor;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 
-@AllArgsConstructor
+/**
+ * The context handed to a running job. Jobs use it to write to their log.
+ *
+ * <p>Log lines are buffered in memory and written to the database in batches, so that a chatty job
+ * does not wait for a database round trip on every line. The buffer is flushed when it holds {@code
+ * flushLines} lines, when the oldest buffered line is {@code flushMillis} old, or when {@link
+ * #flush()} is called (JobService does this when the job finishes, and periodically while it runs).
+ * Each flush also adds the length of the lines it wrote to the job's {@code logLength}, which is
+ * what job listings show.
+ */
 @Slf4j
 public class JobContext {
-  private JobsRepository jobsRepository;
-  private Job job;
+  private final JobsRepository jobsRepository;
+  private final JobLogLineRepository jobLogLineRepository;
+  private final JobLogHub jobLogHub;
+  private final Job job;
+  private final int flushLines;
+  private final long flushMillis;
 
-  public void log(String message) {
+  private final List<JobLogLine> buffer = new ArrayList<>();
+  private long oldestBufferedMillis;
+  private long nextSeq;
+
+  /**
+   * Create a context for a job.
+   *
+   * @param jobsRepository repository the log length of the job is updated with
+   * @param jobLogLineRepository repository the log lines are written to
+   * @param jobLogHub hub that each line is published to as it is logged
+   * @param job the job being run
+   * @param firstSeq seq of the first line logged; non-zero when a job is run again and appends to
+   *     the log of its earlier attempt
+   * @param flushLines flush once this many lines are buffered
+   * @param flushMillis flush once the oldest buffered line is this many milliseconds old
+   */
+  public JobContext(
+      JobsRepository jobsRepository,
+      JobLogLineRepository jobLogLineRepository,
+      JobLogHub jobLogHub,
+      Job job,
+      long firstSeq,
+      int flushLines,
+      long flushMillis) {
+    this.jobsRepository = jobsRepository;
+    this.jobLogLineRepository = jobLogLineRepository;
+    this.jobLogHub = jobLogHub;
+    this.job = job;
+    this.nextSeq = firstSeq;
+    this.flushLines = flushLines;
+    this.flushMillis = flushMillis;
+  }
+
+  /** Returns the id of the job being run, e.g. to read the data saved for it when it was queued. */
+  public long getJobId() {
+    return job.getId();
+  }
+
+  public synchronized void log(String message) {
     log.info("Job %s: %s".formatted(job.getId(), message));
-    String previousLog = job.getLog() == null ? "" : (job.getLog() + "\n");
-    job.setLog(previousLog + message);
-    if (jobsRepository != null) jobsRepository.save(job);
+    long now = System.currentTimeMillis();
+    if (buffer.isEmpty()) {
+      oldestBufferedMillis = now;
+    }
+    JobLogLine line =
+        JobLogLine.builder()
+            .jobId(job.getId())
+            .seq(nextSeq++)
+            .loggedAt(ZonedDateTime.now())
+            .message(message)
+            .build();
+    buffer.add(line);
+    jobLogHub.publishLine(line);
+    if (buffer.size() >= flushLines || now - oldestBufferedMillis >= flushMillis) {
+      flush();
+    }
+  }
+
+  /** Write any buffered log lines to the database. */
+  public synchronized void flush() {
+    if (buffer.isEmpty()) {
+      return;
+    }
+    jobLogLineRepository.saveAll(new ArrayList<>(buffer));
+    long chars = 0;
+    for (JobLogLine line : buffer) {
+      chars += (line.getMessage() != null ? line.getMessage().length() : 0) + 1;
+    }
+    jobsRepository.addToLogLength(job.getId(), chars);
+    buffer.clear();
   }
 }
@@ -0,0 +1,228 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * In-process publish/subscribe hub for the log lines and status changes of jobs, used to stream
+ * jobs to clients as server-sent events (see {@code GET /api/jobs/{id}/stream}).
+ *
+ * <p>JobContext publishes every line as it is logged and JobService publishes every status change.
+ * Each subscriber gets a {@code log} event (with the seq of the line as event id) per line and a
+ * {@code status} event per status change; the stream is completed once the job is complete, has
+ * failed or was rejected.
+ *
+ * <p>Publishing never writes to a client: events are put on a bounded queue per subscriber, which
+ * is drained on the {@code jobStreams} executor, so a slow client can not hold up the job that
+ * logs. A subscriber that falls more than {@code app.jobs.stream.queue-size} events behind is
+ * dropped and its stream completed; the client can reconnect to get the stored lines again.
+ *
+ * <p>Only events of jobs running on this instance are published here; a client following a job that
+ * another instance picked up from the queue gets the lines stored so far, but no live events.
+ */
+@Service
+@Slf4j
+public class JobLogHub {
+  private static final Set<String> FINAL_STATUSES = Set.of("complete", "error", "rejected");
+
+  private final Map<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+  @Autowired
+  @Qualifier("jobStreams")
+  private TaskExecutor executor;
+
+  @Value("${app.jobs.stream.queue-size:1000}")
+  private int queueSize;
+
+  /**
+   * Subscribes an emitter to the events of a job. Events published from now on are held back until
+   * {@link Subscription#replay} has sent what happened before, so that nothing is lost or sent out
+   * of order.
+   *
+   * @param jobId id of the job
+   * @param emitter the emitter the events are sent to
+   * @return the subscription
+   */
+  public Subscription subscribe(long jobId, SseEmitter emitter) {
+    Subscription subscription = new Subscription(jobId, emitter);
+    subscriptions.computeIfAbsent(jobId, id -> ConcurrentHashMap.newKeySet()).add(subscription);
+    emitter.onCompletion(() -> unsubscribe(subscription));
+    emitter.onTimeout(() -> unsubscribe(subscription));
+    emitter.onError(e -> unsubscribe(subscription));
+    return subscription;
+  }
+
+  /**
+   * Removes a subscription; it gets no further events.
+   *
+   * @param subscription the subscription
+   */
+  public void unsubscribe(Subscription subscription) {
+    subscriptions.computeIfPresent(
+        subscription.jobId,
+        (id, subs) -> {
+          subs.remove(subscription);
+          return subs.isEmpty() ? null : subs;
+        });
+  }
+
+  /**
+   * Returns the number of clients following a job.
+   *
+   * @param jobId id of the job
+   * @return the number of subscriptions
+   */
+  public int subscriberCount(long jobId) {
+    return subscriptions.getOrDefault(jobId, Set.of()).size();
+  }
+
+  /**
+   * Sends a log line to everyone following its job.
+   *
+   * @param line the line that was logged
+   */
+  public void publishLine(JobLogLine line) {
+    publish(line.getJobId(), new Event("log", line.getSeq(), line.getMessage()));
+  }
+
+  /**
+   * Sends a status change to everyone following the job.
+   *
+   * @param jobId id of the job
+   * @param status the new status
+   */
+  public void publishStatus(long jobId, String status) {
+    publish(jobId, new Event("status", -1, status));
+  }
+
+  private void publish(long jobId, Event event) {
+    subscriptions.getOrDefault(jobId, Set.of()).forEach(s -> s.accept(event));
+  }
+
+  private record Event(String name, long seq, String data) {}
+
+  /** One client following one job. */
+  public class Subscription {
+    private final long jobId;
+    private final SseEmitter emitter;
+    private final Deque<Event> queue = new ArrayDeque<>();
+    private boolean replaying = true;
+    private boolean draining = false;
+    private boolean closed = false;
+    private boolean overflowed = false;
+    // only used by the thread that is sending: the request thread, then the drain task
+    private long lastSeq = -1;
+
+    private Subscription(long jobId, SseEmitter emitter) {
+      this.jobId = jobId;
+      this.emitter = emitter;
+    }
+
+    /**
+     * Sends what happened before the client subscribed, then any events that were published in the
+     * meantime. Lines that were both stored and published are only sent once.
+     *
+     * @param lines the log lines stored so far, in seq order
+     * @param status the status of the job, as read after subscribing
+     */
+    public void replay(List<JobLogLine> lines, String status) {
+      lines.forEach(line -> send(new Event("log", line.getSeq(), line.getMessage())));
+      send(new Event("status", -1, status));
+      synchronized (this) {
+        replaying = false;
+        startDraining();
+      }
+    }
+
+    private void accept(Event event) {
+      synchronized (this) {
+        if (closed) {
+          return;
+        }
+        queue.add(event);
+        if (queue.size() <= queueSize) {
+          startDraining();
+          return;
+        }
+        log.warn("Job {}: client fell {} events behind; closing its stream", jobId, queueSize);
+        closed = true;
+        overflowed = true;
+        queue.clear();
+        startDraining();
+      }
+      unsubscribe(this);
+    }
+
+    private synchronized void startDraining() {
+      if (!replaying && !draining) {
+        draining = true;
+        executor.execute(this::drain);
+      }
+    }
+
+    private void drain() {
+      boolean complete;
+      while (true) {
+        Event event;
+        synchronized (this) {
+          event = queue.poll();
+          if (event == null) {
+            draining = false;
+            complete = overflowed;
+            overflowed = false;
+            break;
+          }
+        }
+        send(event);
+      }
+      if (complete) {
+        emitter.complete();
+      }
+    }
+
+    private void send(Event event) {
+      synchronized (this) {
+        if (closed || (event.name().equals("log") && event.seq() <= lastSeq)) {
+          return;
+        }
+      }
+      SseEmitter.SseEventBuilder builder = SseEmitter.event().name(event.name());
+      if (event.name().equals("log")) {
+        lastSeq = event.seq();
+        builder.id(Long.toString(event.seq()));
+      }
+      try {
+        emitter.send(builder.data(event.data()));
+        if (event.name().equals("status") && FINAL_STATUSES.contains(event.data())) {
+          close();
+          emitter.complete();
+        }
+      } catch (IOException e) {
+        log.debug("Job {}: client went away: {}", jobId, e.getMessage());
+        close();
+        emitter.completeWithError(e);
+      }
+    }
+
+    private void close() {
+      synchronized (this) {
+        closed = true;
+        queue.clear();
+      }
+      unsubscribe(this);
+    }
+  }
+}
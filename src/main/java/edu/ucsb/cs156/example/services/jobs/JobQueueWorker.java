@@ -0,0 +1,103 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Picks up jobs from the queue in the {@code jobs} table (see {@link JobService}).
+ *
+ * <p>Every {@code app.jobs.queue.poll-ms} the worker claims queued jobs, and running jobs whose
+ * lease has expired, for as long as the jobs executor has an idle thread. Jobs are claimed with
+ * {@code SELECT ... FOR UPDATE SKIP LOCKED}, so any number of instances can poll the same table.
+ * Every {@code app.jobs.queue.heartbeat-ms} the worker renews the leases of the jobs this instance
+ * has claimed, running or waiting in the executor's queue, so that they are only picked up again if
+ * this instance dies.
+ */
+@Component
+@Slf4j
+public class JobQueueWorker {
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobService jobService;
+
+  @Autowired private JobLogHub jobLogHub;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  @Qualifier("jobs")
+  private ThreadPoolTaskExecutor jobsExecutor;
+
+  /** Claims and submits queued jobs while the jobs executor has idle threads. */
+  @Scheduled(
+      initialDelayString = "${app.jobs.queue.poll-ms:5000}",
+      fixedDelayString = "${app.jobs.queue.poll-ms:5000}")
+  public void pollQueue() {
+    while (jobsExecutor.getActiveCount() + jobsExecutor.getQueueSize()
+        < jobsExecutor.getCorePoolSize()) {
+      Job job = transactionTemplate.execute(status -> claimNext());
+      if (job == null) {
+        return;
+      }
+      run(job);
+    }
+  }
+
+  private Job claimNext() {
+    ZonedDateTime now = ZonedDateTime.now();
+    List<Job> jobs = jobsRepository.findClaimable(now, Limit.of(1));
+    if (jobs.isEmpty()) {
+      return null;
+    }
+    Job job = jobs.get(0);
+    job.setStatus("running");
+    job.setLeaseOwner(jobService.getInstanceId());
+    job.setLeaseExpiresAt(now.plus(jobService.getLeaseMillis(), ChronoUnit.MILLIS));
+    return jobsRepository.save(job);
+  }
+
+  private void run(Job job) {
+    if (job.getPayload() == null) {
+      jobService.fail(job, "Job can not be resumed: it was not saved in the queue");
+      return;
+    }
+    JobContextConsumer jobFunction;
+    try {
+      jobFunction = jobService.restore(job.getJobType(), job.getPayload());
+    } catch (Exception e) {
+      log.warn("Job {} can not be resumed: {}", job.getId(), e.getMessage());
+      jobService.fail(job, "Job can not be resumed: " + e.getMessage());
+      return;
+    }
+    log.info("Running job {} ({}) from the queue", job.getId(), job.getJobType());
+    jobLogHub.publishStatus(job.getId(), "running");
+    jobService.submit(job, jobFunction);
+  }
+
+  /**
+   * Extends the leases of the jobs this instance has claimed, whether they are running or still
+   * waiting for a thread of the jobs executor.
+   */
+  @Scheduled(fixedDelayString = "${app.jobs.queue.heartbeat-ms:20000}")
+  public void renewLeases() {
+    Set<Long> ids = jobService.getClaimedJobIds();
+    if (ids.isEmpty()) {
+      return;
+    }
+    ZonedDateTime expires =
+        ZonedDateTime.now().plus(jobService.getLeaseMillis(), ChronoUnit.MILLIS);
+    jobsRepository.renewLeases(ids, jobService.getInstanceId(), expires);
+  }
+}
@@ -0,0 +1,70 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.repositories.JobLogLineRepository;
+import edu.ucsb.cs156.example.repositories.JobUploadChunkRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Deletes finished jobs, and their log lines and uploads, once they are older than {@code
+ * app.jobs.retention.max-age-days}, so that the jobs table stays small.
+ *
+ * <p>Jobs are deleted {@code app.jobs.retention.chunk-size} at a time, each chunk in its own
+ * transaction with set-based DELETEs, so that a large backlog never locks many rows at once.
+ */
+@Component
+@Slf4j
+public class JobRetentionPurger {
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobLogLineRepository jobLogLineRepository;
+
+  @Autowired private JobUploadChunkRepository jobUploadChunkRepository;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  @Value("${app.jobs.retention.max-age-days:30}")
+  private int maxAgeDays;
+
+  @Value("${app.jobs.retention.chunk-size:500}")
+  private int chunkSize;
+
+  /** Deletes the finished jobs that are older than the retention period. */
+  @Scheduled(
+      initialDelayString = "${app.jobs.retention.purge-ms:3600000}",
+      fixedDelayString = "${app.jobs.retention.purge-ms:3600000}")
+  public void purge() {
+    if (maxAgeDays <= 0) {
+      return;
+    }
+    ZonedDateTime before = ZonedDateTime.now().minusDays(maxAgeDays);
+    int purged = 0;
+    int deleted;
+    do {
+      deleted = transactionTemplate.execute(status -> purgeChunk(before));
+      purged += deleted;
+    } while (deleted == chunkSize);
+    if (purged > 0) {
+      log.info("Purged {} jobs last updated before {}", purged, before);
+    }
+  }
+
+  private int purgeChunk(ZonedDateTime before) {
+    List<Long> ids = jobsRepository.findFinishedBefore(before, Limit.of(chunkSize));
+    if (ids.isEmpty()) {
+      return 0;
+    }
+    jobLogLineRepository.deleteByJobIdIn(ids);
+    jobUploadChunkRepository.deleteByJobIdIn(ids);
+    jobsRepository.deleteByIdIn(ids);
+    return ids.size();
+  }
+}
@@ -1,53 +1,402 @@
 package edu.ucsb.cs156.example.services.jobs;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLineRepository;
+import edu.ucsb.cs156.example.repositories.JobUploadChunkRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.lang.management.ManagementFactory;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+/**
+ * Runs background jobs.
+ *
+ * <p>The {@code jobs} table is the job queue: a job is saved as {@code queued} (together with its
+ * JobContextConsumer serialized as JSON), claimed by an instance, which sets it to {@code running}
+ * and takes a lease on it, and finally set to {@code complete} or {@code error}. The instance that
+ * launches a job normally claims and runs it straight away; queued jobs that it has no room for,
+ * and running jobs whose lease expired because the instance running them died, are picked up by the
+ * {@link JobQueueWorker} of any instance.
+ *
+ * <p>Only the serializable fields of a consumer are saved, so a consumer that needs beans declares
+ * them as {@code @Autowired} fields; they are injected just before it runs, both when it was
+ * launched on this instance and when it was restored from the queue.
+ */
 @Service
+@Slf4j
 public class JobService {
   @Autowired private JobsRepository jobsRepository;
 
+  @Autowired private JobLogLineRepository jobLogLineRepository;
+
+  @Autowired private JobUploadChunkRepository jobUploadChunkRepository;
+
   @Autowired private CurrentUserService currentUserService;
 
+  @Autowired private ObjectMapper mapper;
+
+  @Autowired private JobLogHub jobLogHub;
+
+  @Autowired private AutowireCapableBeanFactory beanFactory;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
   @Lazy @Autowired private JobService self;
 
+  @Value("${app.jobs.log.flush-lines:100}")
+  private int logFlushLines;
+
+  @Value("${app.jobs.log.flush-ms:1000}")
+  private long logFlushMillis;
+
+  @Value("${app.jobs.queue.lease-ms:60000}")
+  private long leaseMillis;
+
+  /** Identifies this instance as the owner of the leases it takes */
+  private final String instanceId =
+      ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID();
+
+  private final Map<Long, JobContext> runningContexts = new ConcurrentHashMap<>();
+
+  /**
+   * Jobs this instance has claimed and not finished, including those still waiting in the jobs
+   * executor's queue, whose leases must be renewed as well
+   */
+  private final Set<Long> claimedJobIds = ConcurrentHashMap.newKeySet();
+
   public Job runAsJob(JobContextConsumer jobFunction) {
-    Job job = Job.builder().createdBy(currentUserService.getUser()).status("running").build();
+    return runAsJob(jobFunction, job -> {});
+  }
+
+  /**
+   * Queues a job and runs it, after saving data that the job reads by its id.
+   *
+   * <p>{@code prepare} is called in the transaction that adds the job to the queue, so no instance
+   * can claim the job before that data is saved, and the job is not queued if saving it fails. It
+   * should therefore not be called from within another transaction, which would only commit after
+   * the job may have started.
+   *
+   * @param jobFunction the consumer that runs the job
+   * @param prepare saves the data of the job, given the job once it has its id
+   * @return the job
+   */
+  public Job runAsJob(JobContextConsumer jobFunction, Consumer<Job> prepare) {
+    Job job =
+        Job.builder()
+            .createdBy(currentUserService.getUser())
+            .status("queued")
+            .jobType(jobFunction.getClass().getName())
+            .payload(serialize(jobFunction))
+            .build();
 
-    jobsRepository.save(job);
-    self.runJobAsync(job, jobFunction);
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          jobsRepository.save(job);
+          prepare.accept(job);
+        });
+    ZonedDateTime now = ZonedDateTime.now();
+    ZonedDateTime expires = now.plus(leaseMillis, ChronoUnit.MILLIS);
+    if (jobsRepository.claim(job.getId(), instanceId, expires, now) == 1) {
+      job.setStatus("running");
+      job.setLeaseOwner(instanceId);
+      job.setLeaseExpiresAt(expires);
+      jobLogHub.publishStatus(job.getId(), "running");
+      submit(job, jobFunction);
+    }
 
     return job;
   }
 
-  @Async
+  private String serialize(JobContextConsumer jobFunction) {
+    try {
+      String payload = mapper.writeValueAsString(jobFunction);
+      // reading it back weeds out consumers (e.g. lambdas) that serialize but can't be rebuilt
+      restore(jobFunction.getClass().getName(), payload);
+      return payload;
+    } catch (JsonProcessingException | ClassNotFoundException e) {
+      log.warn(
+          "{} can not be serialized; the job will not be resumed if this instance dies: {}",
+          jobFunction.getClass().getName(),
+          e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Rebuilds the JobContextConsumer of a job from the queue.
+   *
+   * @param jobType class name of the consumer
+   * @param payload the consumer serialized as JSON
+   * @return the consumer
+   * @throws ClassNotFoundException if there is no such class (any more)
+   * @throws JsonProcessingException if the payload can not be read back
+   * @throws IllegalArgumentException if the class is not a JobContextConsumer
+   */
+  public JobContextConsumer restore(String jobType, String payload)
+      throws ClassNotFoundException, JsonProcessingException {
+    // the class name comes from the database: check it before running any of its code
+    Class<?> type = Class.forName(jobType, false, JobService.class.getClassLoader());
+    if (!JobContextConsumer.class.isAssignableFrom(type)) {
+      throw new IllegalArgumentException(jobType + " is not a JobContextConsumer");
+    }
+    return mapper.readValue(payload, type.asSubclass(JobContextConsumer.class));
+  }
+
+  /**
+   * Hands a job that this instance has claimed to the jobs executor. When the executor has no room
+   * for it, the job goes back to the queue, or, if it can not be run from the queue because its
+   * consumer could not be serialized, is marked as rejected.
+   *
+   * @param job the claimed job
+   * @param jobFunction the consumer that runs the job
+   */
+  public void submit(Job job, JobContextConsumer jobFunction) {
+    claimedJobIds.add(job.getId());
+    try {
+      self.runJobAsync(job, jobFunction);
+    } catch (TaskRejectedException e) {
+      claimedJobIds.remove(job.getId());
+      log.warn("Job {} rejected: {}", job.getId(), e.getMessage());
+      job.setLeaseOwner(null);
+      job.setLeaseExpiresAt(null);
+      if (job.getPayload() != null) {
+        job.setStatus("queued");
+        jobsRepository.release(job.getId());
+      } else {
+        job.setStatus("rejected");
+        jobsRepository.save(job);
+      }
+      jobLogHub.publishStatus(job.getId(), job.getStatus());
+    }
+  }
+
+  /**
+   * Marks a claimed job as failed without running it.
+   *
+   * @param job the claimed job
+   * @param message why the job failed; written to its log
+   */
+  public void fail(Job job, String message) {
+    JobContext context = newContext(job);
+    job.setStatus("error");
+    context.log(message);
+    finish(context, job);
+  }
+
+  @Async("jobs")
   public void runJobAsync(Job job, JobContextConsumer jobFunction) {
-    JobContext context = new JobContext(jobsRepository, job);
+    JobContext context = newContext(job);
+    claimedJobIds.add(job.getId());
+    runningContexts.put(job.getId(), context);
 
     try {
+      beanFactory.autowireBean(jobFunction);
       jobFunction.accept(context);
     } catch (Exception e) {
       job.setStatus("error");
       context.log(e.getMessage());
+      finish(context, job);
       return;
     }
 
     job.setStatus("complete");
-    jobsRepository.save(job);
+    finish(context, job);
+  }
+
+  private JobContext newContext(Job job) {
+    long firstSeq = jobLogLineRepository.nextSeq(job.getId());
+    return new JobContext(
+        jobsRepository,
+        jobLogLineRepository,
+        jobLogHub,
+        job,
+        firstSeq,
+        logFlushLines,
+        logFlushMillis);
   }
 
+  /**
+   * Writes the rest of the log of a job and saves its final status. The status is saved even if the
+   * log can not be written, so that the job is not left running (and run again once its lease
+   * expires). It is only saved while this instance still holds the job's lease; if the lease ran
+   * out and another instance claimed the job, that instance's row is left alone.
+   */
+  private void finish(JobContext context, Job job) {
+    runningContexts.remove(job.getId());
+    claimedJobIds.remove(job.getId());
+    try {
+      context.flush();
+    } finally {
+      if (jobsRepository.finish(job.getId(), job.getStatus(), instanceId, ZonedDateTime.now())
+          == 1) {
+        job.setLeaseOwner(null);
+        job.setLeaseExpiresAt(null);
+        jobLogHub.publishStatus(job.getId(), job.getStatus());
+      } else {
+        log.warn(
+            "Job {} ended as {}, but its lease was lost to another instance; not saving it",
+            job.getId(),
+            job.getStatus());
+      }
+    }
+  }
+
+  /**
+   * Deletes every job, with its log and uploads, in one transaction, so that no log lines are left
+   * without their job. The log lines and uploads are deleted first.
+   *
+   * @return the number of jobs deleted
+   */
+  @Transactional
+  public int deleteAllJobs() {
+    jobLogLineRepository.deleteAllLines();
+    jobUploadChunkRepository.deleteAllChunks();
+    return jobsRepository.deleteAllJobs();
+  }
+
+  /**
+   * Deletes a job, with its log and uploads, in one transaction. The log lines and uploads are
+   * deleted first.
+   *
+   * @param jobId id of the job
+   */
+  @Transactional
+  public void deleteJob(long jobId) {
+    jobLogLineRepository.deleteByJobId(jobId);
+    jobUploadChunkRepository.deleteByJobId(jobId);
+    jobsRepository.deleteById(jobId);
+  }
+
+  /**
+   * Writes the buffered log lines of a job to the database, if the job is running on this instance.
+   *
+   * @param jobId id of the job
+   */
+  public void flushJobLog(long jobId) {
+    JobContext context = runningContexts.get(jobId);
+    if (context != null) {
+      context.flush();
+    }
+  }
+
+  /** Returns the id of this instance, as recorded in the leases it takes. */
+  public String getInstanceId() {
+    return instanceId;
+  }
+
+  /** Returns how long a lease lasts before it has to be renewed, in milliseconds. */
+  public long getLeaseMillis() {
+    return leaseMillis;
+  }
+
+  /**
+   * Returns the ids of the jobs this instance has claimed and not yet finished: the jobs it is
+   * running, and those waiting for a thread of the jobs executor.
+   */
+  public Set<Long> getClaimedJobIds() {
+    return Set.copyOf(claimedJobIds);
+  }
+
+  /**
+   * Periodically writes the buffered log lines of running jobs to the database, so that a job that
+   * logs a line and then works quietly for a while still has that line show up in its log.
+   */
+  @Scheduled(fixedDelayString = "${app.jobs.log.flush-ms:1000}")
+  public void flushRunningJobLogs() {
+    runningContexts.values().forEach(JobContext::flush);
+  }
+
+  /**
+   * Returns the full log of a job, one line per log entry.
+   *
+   * <p>Jobs that were run before log lines were stored separately still have their log in the
+   * {@code log} column of the job itself; that is returned when the job has no log lines.
+   *
+   * @param jobId id of the job
+   * @return the log of the job (empty if nothing has been logged)
+   */
   public String getJobLogs(Long jobId) {
     Job job =
         jobsRepository
             .findById(jobId)
             .orElseThrow(() -> new IllegalArgumentException("Job not found"));
 
-    String log = job.getLog();
-    return log != null ? log : "";
+    List<JobLogLine> lines = jobLogLineRepository.findByJobIdOrderBySeqAsc(jobId);
+    if (lines.isEmpty()) {
+      String log = job.getLog();
+      return log != null ? log : "";
+    }
+    return lines.stream().map(JobLogLine::getMessage).collect(Collectors.joining("\n"));
+  }
+
+  /**
+   * Returns part of the log of a job: the lines from {@code fromLine} on, or only the last {@code
+   * tail} of them. Only the requested lines are read from the database, so that a client following
+   * a long log can fetch just the lines it has not seen yet.
+   *
+   * @param jobId id of the job
+   * @param fromLine index of the first line to return (the first line of the log is 0)
+   * @param tail if not null, at most this many lines are returned, from the end of the log
+   * @return the requested lines of the log, joined with newlines
+   */
+  public String getJobLogs(Long jobId, long fromLine, Integer tail) {
+    if (fromLine <= 0 && tail == null) {
+      return getJobLogs(jobId);
+    }
+    Job job =
+        jobsRepository
+            .findById(jobId)
+            .orElseThrow(() -> new IllegalArgumentException("Job not found"));
+    if (tail != null && tail <= 0) {
+      return "";
+    }
+    long from = Math.max(fromLine, 0);
+
+    List<String> lines;
+    if (tail == null) {
+      lines =
+          jobLogLineRepository.findByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(jobId, from).stream()
+              .map(JobLogLine::getMessage)
+              .toList();
+    } else {
+      lines =
+          jobLogLineRepository
+              .findByJobIdAndSeqGreaterThanEqualOrderBySeqDesc(jobId, from, Limit.of(tail))
+              .stream()
+              .map(JobLogLine::getMessage)
+              .toList()
+              .reversed();
+    }
+    if (lines.isEmpty() && job.getLog() != null) {
+      List<String> all = job.getLog().lines().toList();
+      lines = all.subList((int) Math.min(from, all.size()), all.size());
+      if (tail != null) {
+        lines = lines.subList(Math.max(lines.size() - tail, 0), lines.size());
+      }
+    }
+    return String.join("\n", lines);
   }
 }
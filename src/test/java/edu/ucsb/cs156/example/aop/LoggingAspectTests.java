@@ -0,0 +1,132 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicReference;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class LoggingAspectTests {
+
+  private MeterRegistry registry;
+  private LoggingAspect aspect;
+
+  /** Stands in for a controller method */
+  public String getThings() {
+    return "things";
+  }
+
+  @BeforeEach
+  public void setup() {
+    registry = new SimpleMeterRegistry();
+    aspect = new LoggingAspect();
+    ReflectionTestUtils.setField(aspect, "meterRegistry", registry);
+    ReflectionTestUtils.setField(aspect, "requestLogEnabled", true);
+    ReflectionTestUtils.setField(aspect, "requestLogSampleEvery", 1);
+    ReflectionTestUtils.setField(aspect, "requestLogMaxPerSecond", 10);
+    aspect.buildRequestLog();
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest("GET", "/api/things")));
+  }
+
+  @AfterEach
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private ProceedingJoinPoint joinPoint(String declaringTypeName) throws Exception {
+    Method method = LoggingAspectTests.class.getMethod("getThings");
+    MethodSignature signature = mock(MethodSignature.class);
+    when(signature.getDeclaringTypeName()).thenReturn(declaringTypeName);
+    when(signature.getName()).thenReturn("getThings");
+    when(signature.getMethod()).thenReturn(method);
+    ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+    when(joinPoint.getSignature()).thenReturn(signature);
+    return joinPoint;
+  }
+
+  @Test
+  public void successful_calls_are_timed() throws Throwable {
+    ProceedingJoinPoint joinPoint = joinPoint(LoggingAspectTests.class.getName());
+    AtomicReference<Double> activeDuringCall = new AtomicReference<>();
+    when(joinPoint.proceed())
+        .thenAnswer(
+            inv -> {
+              activeDuringCall.set(registry.get("controller.requests.active").gauge().value());
+              return "things";
+            });
+
+    assertEquals("things", aspect.timeControllers(joinPoint));
+    ReflectionTestUtils.setField(aspect, "requestLogEnabled", false);
+    assertEquals("things", aspect.timeControllers(joinPoint));
+
+    assertEquals(
+        2,
+        registry
+            .get("controller.requests")
+            .tags("controller", "LoggingAspectTests", "method", "getThings")
+            .timer()
+            .count());
+    assertEquals(1.0, activeDuringCall.get());
+    assertEquals(0.0, registry.get("controller.requests.active").gauge().value());
+    assertNull(registry.find("controller.errors").counter());
+  }
+
+  @Test
+  public void calls_outside_a_request_are_timed() throws Throwable {
+    RequestContextHolder.resetRequestAttributes();
+    ProceedingJoinPoint joinPoint = joinPoint(LoggingAspectTests.class.getName());
+    when(joinPoint.proceed()).thenReturn("things");
+
+    aspect.timeControllers(joinPoint);
+
+    assertEquals(1, registry.get("controller.requests").timer().count());
+  }
+
+  @Test
+  public void failed_calls_are_timed_and_counted() throws Throwable {
+    ProceedingJoinPoint joinPoint = joinPoint(LoggingAspectTests.class.getName());
+    IllegalStateException failure = new IllegalStateException("boom");
+    when(joinPoint.proceed()).thenThrow(failure);
+
+    assertSame(
+        failure,
+        assertThrows(IllegalStateException.class, () -> aspect.timeControllers(joinPoint)));
+
+    assertEquals(1, registry.get("controller.requests").timer().count());
+    assertEquals(
+        1.0,
+        registry
+            .get("controller.errors")
+            .tags("method", "getThings", "exception", "IllegalStateException")
+            .counter()
+            .count());
+    assertEquals(0.0, registry.get("controller.requests.active").gauge().value());
+  }
+
+  @Test
+  public void stoplisted_controllers_are_not_timed() throws Throwable {
+    ProceedingJoinPoint joinPoint =
+        joinPoint("edu.ucsb.cs156.example.controllers.FrontendProxyController");
+    when(joinPoint.proceed()).thenReturn("page");
+
+    assertEquals("page", aspect.timeControllers(joinPoint));
+
+    assertNull(registry.find("controller.requests").timer());
+  }
+}
@@ -0,0 +1,84 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.UserAdminChangedEvent;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class SecurityConfigTests {
+
+  @Mock private UserRepository userRepository;
+
+  @InjectMocks private SecurityConfig securityConfig;
+
+  @BeforeEach
+  void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(securityConfig, "adminEmails", List.of("admin@ucsb.edu"));
+    ReflectionTestUtils.setField(securityConfig, "adminCacheTtlMillis", 60_000L);
+    ReflectionTestUtils.setField(securityConfig, "adminCacheMaxSize", 100L);
+    securityConfig.buildAdminLookup();
+  }
+
+  @Test
+  void configured_admin_is_admin_without_a_query() {
+    assertTrue(securityConfig.getAdmin("admin@ucsb.edu"));
+    verify(userRepository, never()).findByEmail(any());
+  }
+
+  @Test
+  void admin_flag_from_database_is_cached() {
+    when(userRepository.findByEmail("cgaucho@ucsb.edu"))
+        .thenReturn(Optional.of(User.builder().email("cgaucho@ucsb.edu").admin(true).build()));
+
+    assertTrue(securityConfig.getAdmin("cgaucho@ucsb.edu"));
+    assertTrue(securityConfig.getAdmin("cgaucho@ucsb.edu"));
+
+    verify(userRepository, times(1)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  void unknown_user_is_not_admin() {
+    when(userRepository.findByEmail("new@ucsb.edu")).thenReturn(Optional.empty());
+
+    assertFalse(securityConfig.getAdmin("new@ucsb.edu"));
+  }
+
+  @Test
+  void admin_change_evicts_cached_flag() {
+    when(userRepository.findByEmail("cgaucho@ucsb.edu"))
+        .thenReturn(Optional.of(User.builder().email("cgaucho@ucsb.edu").admin(false).build()))
+        .thenReturn(Optional.of(User.builder().email("cgaucho@ucsb.edu").admin(true).build()));
+
+    assertFalse(securityConfig.getAdmin("cgaucho@ucsb.edu"));
+    securityConfig.onUserAdminChanged(new UserAdminChangedEvent("cgaucho@ucsb.edu"));
+    assertTrue(securityConfig.getAdmin("cgaucho@ucsb.edu"));
+  }
+
+  @Test
+  void invalidateAdminCache_forces_new_queries() {
+    when(userRepository.findByEmail("cgaucho@ucsb.edu"))
+        .thenReturn(Optional.of(User.builder().email("cgaucho@ucsb.edu").admin(false).build()));
+
+    securityConfig.getAdmin("cgaucho@ucsb.edu");
+    securityConfig.invalidateAdminCache();
+    securityConfig.getAdmin("cgaucho@ucsb.edu");
+
+    verify(userRepository, times(2)).findByEmail("cgaucho@ucsb.edu");
+  }
+}
@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -8,23 +9,31 @@ import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.errors.InvalidBatchException;
+import edu.ucsb.cs156.example.models.CursorPage;
 import edu.ucsb.cs156.example.repositories.ArticleRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkUpdateService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -37,6 +46,8 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
   @MockBean UserRepository userRepository;
 
+  @MockBean BulkUpdateService bulkUpdateService;
+
   // Authorization tests for /api/ucsbdates/admin/all
 
   @Test
@@ -333,4 +344,412 @@ public class ArticlesControllerTests extends ControllerTestCase {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
+
+  // Tests for GET /api/articles/page
+
+  @Test
+  public void logged_out_users_cannot_get_page() throws Exception {
+    mockMvc.perform(get("/api/articles/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void first_page_has_a_next_cursor_when_it_is_full() throws Exception {
+
+    // arrange
+
+    Article article1 = Article.builder().id(1L).title("Title 1").build();
+    Article article2 = Article.builder().id(2L).title("Title 2").build();
+    List<Article> page = List.of(article1, article2);
+
+    when(articleRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(2))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/articles/page?limit=2")).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(articleRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(2)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, 2L));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void last_page_has_no_next_cursor() throws Exception {
+
+    // arrange
+
+    Article article3 = Article.builder().id(3L).title("Title 3").build();
+    List<Article> page = List.of(article3);
+
+    when(articleRepository.findByIdGreaterThanOrderByIdAsc(
+            eq(2L), eq(Limit.of(CursorPage.DEFAULT_LIMIT))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/articles/page?after=2")).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(articleRepository, times(1))
+        .findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(CursorPage.DEFAULT_LIMIT)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void page_limit_is_clamped_to_the_maximum() throws Exception {
+
+    // arrange
+
+    when(articleRepository.findByIdGreaterThanOrderByIdAsc(
+            eq(0L), eq(Limit.of(CursorPage.MAX_LIMIT))))
+        .thenReturn(List.of());
+
+    // act
+    mockMvc.perform(get("/api/articles/page?limit=5000")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/articles/page?limit=0")).andExpect(status().isOk());
+
+    // assert
+
+    verify(articleRepository, times(1))
+        .findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(CursorPage.MAX_LIMIT)));
+    verify(articleRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(1)));
+  }
+
+  // Tests for POST /api/articles/batch
+
+  @Test
+  public void logged_out_users_cannot_post_batch() throws Exception {
+    mockMvc.perform(post("/api/articles/batch")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_batch() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/articles/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403)); // only admins can post
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_a_batch_of_articles() throws Exception {
+    // arrange
+
+    Article sent1 =
+        Article.builder()
+            .id(99L)
+            .title("Article 1")
+            .url("https://example.org/1")
+            .explanation("Explanation 1")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .build();
+    Article sent2 =
+        Article.builder()
+            .id(99L)
+            .title("Article 2")
+            .url("https://example.org/2")
+            .explanation("Explanation 2")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .build();
+    Article unsaved1 =
+        Article.builder()
+            .title("Article 1")
+            .url("https://example.org/1")
+            .explanation("Explanation 1")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .build();
+    Article unsaved2 =
+        Article.builder()
+            .title("Article 2")
+            .url("https://example.org/2")
+            .explanation("Explanation 2")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .build();
+    Article saved1 =
+        Article.builder()
+            .id(1L)
+            .title("Article 1")
+            .url("https://example.org/1")
+            .explanation("Explanation 1")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .build();
+    Article saved2 =
+        Article.builder()
+            .id(2L)
+            .title("Article 2")
+            .url("https://example.org/2")
+            .explanation("Explanation 2")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .build();
+
+    when(articleRepository.saveAll(eq(List.of(unsaved1, unsaved2))))
+        .thenReturn(List.of(saved1, saved2));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/articles/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(sent1, sent2)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(articleRepository, times(1)).saveAll(List.of(unsaved1, unsaved2));
+    assertEquals("[1,2]", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_cannot_post_an_empty_batch() throws Exception {
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/articles/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("[]")
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    verify(articleRepository, times(0)).saveAll(any());
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("InvalidBatchException", json.get("type"));
+    assertEquals("Batch is empty", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_cannot_post_a_batch_larger_than_the_maximum() throws Exception {
+    // arrange
+
+    List<Article> articles =
+        IntStream.range(0, 1001)
+            .mapToObj(
+                i ->
+                    Article.builder()
+                        .title("Article " + i + "")
+                        .url("https://example.org/" + i + "")
+                        .explanation("Explanation " + i + "")
+                        .email("cgaucho@ucsb.edu")
+                        .dateAdded(LocalDateTime.parse("2025-01-15T12:00:00"))
+                        .build())
+            .toList();
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/articles/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(articles))
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    verify(articleRepository, times(0)).saveAll(any());
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("InvalidBatchException", json.get("type"));
+    assertEquals("Batch has more than 1000 items", json.get("message"));
+  }
+
+  // Tests for PATCH /api/articles/bulk
+
+  @Test
+  public void logged_out_users_cannot_bulk_update() throws Exception {
+    mockMvc.perform(patch("/api/articles/bulk")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_update() throws Exception {
+    mockMvc
+        .perform(
+            patch("/api/articles/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}")
+                .with(csrf()))
+        .andExpect(status().is(403)); // only admins can bulk update
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_article() throws Exception {
+    // arrange
+
+    when(bulkUpdateService.update(
+            eq(Article.class), eq(List.of(1L, 2L)), eq(Map.of("explanation", "Outdated"))))
+        .thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                patch("/api/articles/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("{\"ids\":[1,2],\"set\":{\"explanation\":\"Outdated\"}}")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkUpdateService, times(1))
+        .update(Article.class, List.of(1L, 2L), Map.of("explanation", "Outdated"));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2 Article updated", json.get("message"));
+  }
+
+  // Tests for DELETE /api/articles/bulk
+
+  @Test
+  public void logged_out_users_cannot_bulk_delete() throws Exception {
+    mockMvc.perform(delete("/api/articles/bulk?ids=1&ids=2")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+    mockMvc
+        .perform(delete("/api/articles/bulk?ids=1&ids=2").with(csrf()))
+        .andExpect(status().is(403)); // only admins can bulk delete
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_article() throws Exception {
+    // arrange
+
+    when(articleRepository.bulkDelete(eq(List.of(1L, 2L)))).thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/articles/bulk?ids=1&ids=2").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(articleRepository, times(1)).bulkDelete(List.of(1L, 2L));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2 Article deleted", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_cannot_bulk_update_without_ids() throws Exception {
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                patch("/api/articles/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("{\"set\":{\"explanation\":\"Outdated\"}}")
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    verify(bulkUpdateService, times(0)).update(any(), any(), any());
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("InvalidBatchException", json.get("type"));
+    assertEquals("No ids given", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_cannot_bulk_update_an_empty_list_of_ids() throws Exception {
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                patch("/api/articles/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("{\"ids\":[],\"set\":{\"explanation\":\"Outdated\"}}")
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    verify(bulkUpdateService, times(0)).update(any(), any(), any());
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("No ids given", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_gets_a_bad_request_when_the_bulk_update_is_invalid() throws Exception {
+    // arrange
+
+    when(bulkUpdateService.update(eq(Article.class), eq(List.of(1L)), eq(Map.of("color", "red"))))
+        .thenThrow(new InvalidBatchException("Article has no field color"));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                patch("/api/articles/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("{\"ids\":[1],\"set\":{\"color\":\"red\"}}")
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("InvalidBatchException", json.get("type"));
+    assertEquals("Article has no field color", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_cannot_bulk_delete_more_ids_than_the_maximum() throws Exception {
+    // arrange
+
+    String ids =
+        IntStream.rangeClosed(1, 1001).mapToObj(i -> "ids=" + i).collect(Collectors.joining("&"));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/articles/bulk?" + ids).with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    verify(articleRepository, times(0)).bulkDelete(any());
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("InvalidBatchException", json.get("type"));
+    assertEquals("1001 ids given; at most 1000 are allowed", json.get("message"));
+  }
 }
@@ -1,31 +1,47 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.ExportFormat;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkUpdateService;
+import edu.ucsb.cs156.example.services.ExportService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @WebMvcTest(controllers = HelpRequestController.class)
 @Import(TestConfig.class)
@@ -35,6 +51,10 @@ public class HelpRequestControllerTests extends ControllerTestCase {
 
   @MockBean private UserRepository userRepository;
 
+  @MockBean private BulkUpdateService bulkUpdateService;
+
+  @MockBean private ExportService exportService;
+
   // --- GET /api/helprequest/all ---
 
   @Test
@@ -328,4 +348,311 @@ public class HelpRequestControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("HelpRequest with id 15 not found", json.get("message"));
   }
+
+  // Tests for GET /api/helprequest/page
+
+  @Test
+  public void logged_out_users_cannot_get_page() throws Exception {
+    mockMvc.perform(get("/api/helprequest/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void first_page_has_a_next_cursor_when_it_is_full() throws Exception {
+
+    // arrange
+
+    HelpRequest helpRequest1 = HelpRequest.builder().id(1L).teamId("team1").build();
+    HelpRequest helpRequest2 = HelpRequest.builder().id(2L).teamId("team2").build();
+    List<HelpRequest> page = List.of(helpRequest1, helpRequest2);
+
+    when(helpRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(2))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequest/page?limit=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(helpRequestRepository, times(1))
+        .findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(2)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, 2L));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void last_page_has_no_next_cursor() throws Exception {
+
+    // arrange
+
+    HelpRequest helpRequest3 = HelpRequest.builder().id(3L).teamId("team3").build();
+    List<HelpRequest> page = List.of(helpRequest3);
+
+    when(helpRequestRepository.findByIdGreaterThanOrderByIdAsc(
+            eq(2L), eq(Limit.of(CursorPage.DEFAULT_LIMIT))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequest/page?after=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(helpRequestRepository, times(1))
+        .findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(CursorPage.DEFAULT_LIMIT)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  // Tests for POST /api/helprequest/batch
+
+  @Test
+  public void logged_out_users_cannot_post_batch() throws Exception {
+    mockMvc.perform(post("/api/helprequest/batch")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_batch() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/helprequest/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403)); // only admins can post
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_a_batch_of_help_requests() throws Exception {
+    // arrange
+
+    HelpRequest sent1 =
+        HelpRequest.builder()
+            .id(99L)
+            .requesterEmail("student1@ucsb.edu")
+            .teamId("f25-1")
+            .tableOrBreakoutRoom("1")
+            .explanation("Explanation 1")
+            .solved(false)
+            .requestTime(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .build();
+    HelpRequest sent2 =
+        HelpRequest.builder()
+            .id(99L)
+            .requesterEmail("student2@ucsb.edu")
+            .teamId("f25-2")
+            .tableOrBreakoutRoom("2")
+            .explanation("Explanation 2")
+            .solved(false)
+            .requestTime(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .build();
+    HelpRequest unsaved1 =
+        HelpRequest.builder()
+            .requesterEmail("student1@ucsb.edu")
+            .teamId("f25-1")
+            .tableOrBreakoutRoom("1")
+            .explanation("Explanation 1")
+            .solved(false)
+            .requestTime(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .build();
+    HelpRequest unsaved2 =
+        HelpRequest.builder()
+            .requesterEmail("student2@ucsb.edu")
+            .teamId("f25-2")
+            .tableOrBreakoutRoom("2")
+            .explanation("Explanation 2")
+            .solved(false)
+            .requestTime(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .build();
+    HelpRequest saved1 =
+        HelpRequest.builder()
+            .id(1L)
+            .requesterEmail("student1@ucsb.edu")
+            .teamId("f25-1")
+            .tableOrBreakoutRoom("1")
+            .explanation("Explanation 1")
+            .solved(false)
+            .requestTime(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .build();
+    HelpRequest saved2 =
+        HelpRequest.builder()
+            .id(2L)
+            .requesterEmail("student2@ucsb.edu")
+            .teamId("f25-2")
+            .tableOrBreakoutRoom("2")
+            .explanation("Explanation 2")
+            .solved(false)
+            .requestTime(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .build();
+
+    when(helpRequestRepository.saveAll(eq(List.of(unsaved1, unsaved2))))
+        .thenReturn(List.of(saved1, saved2));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/helprequest/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(sent1, sent2)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).saveAll(List.of(unsaved1, unsaved2));
+    assertEquals("[1,2]", response.getResponse().getContentAsString());
+  }
+
+  // Tests for PATCH /api/helprequest/bulk
+
+  @Test
+  public void logged_out_users_cannot_bulk_update() throws Exception {
+    mockMvc.perform(patch("/api/helprequest/bulk")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_update() throws Exception {
+    mockMvc
+        .perform(
+            patch("/api/helprequest/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}")
+                .with(csrf()))
+        .andExpect(status().is(403)); // only admins can bulk update
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_helprequest() throws Exception {
+    // arrange
+
+    when(bulkUpdateService.update(
+            eq(HelpRequest.class), eq(List.of(1L, 2L)), eq(Map.of("solved", true))))
+        .thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                patch("/api/helprequest/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("{\"ids\":[1,2],\"set\":{\"solved\":true}}")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkUpdateService, times(1))
+        .update(HelpRequest.class, List.of(1L, 2L), Map.of("solved", true));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2 HelpRequest updated", json.get("message"));
+  }
+
+  // Tests for DELETE /api/helprequest/bulk
+
+  @Test
+  public void logged_out_users_cannot_bulk_delete() throws Exception {
+    mockMvc.perform(delete("/api/helprequest/bulk?ids=1&ids=2")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+    mockMvc
+        .perform(delete("/api/helprequest/bulk?ids=1&ids=2").with(csrf()))
+        .andExpect(status().is(403)); // only admins can bulk delete
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_helprequest() throws Exception {
+    // arrange
+
+    when(helpRequestRepository.bulkDelete(eq(List.of(1L, 2L)))).thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/helprequest/bulk?ids=1&ids=2").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).bulkDelete(List.of(1L, 2L));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2 HelpRequest deleted", json.get("message"));
+  }
+
+  @Test
+  public void logged_out_users_cannot_export() throws Exception {
+    mockMvc.perform(get("/api/helprequest/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void help_requests_are_exported_as_ndjson_by_default() throws Exception {
+    // arrange
+    when(exportService.export(
+            eq(ExportFormat.NDJSON), eq("helprequests"), eq("HELPREQUESTS"), any()))
+        .thenReturn(
+            ResponseEntity.ok()
+                .body((StreamingResponseBody) out -> out.write("{\"id\":1}\n".getBytes())));
+
+    // act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/helprequest/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("{\"id\":1}\n", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void help_requests_can_be_exported_as_csv() throws Exception {
+    // arrange
+    when(exportService.export(eq(ExportFormat.CSV), eq("helprequests"), eq("HELPREQUESTS"), any()))
+        .thenReturn(
+            ResponseEntity.ok()
+                .body((StreamingResponseBody) out -> out.write("id\r\n".getBytes())));
+
+    // act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/helprequest/export?format=csv"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("id\r\n", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void help_requests_cannot_be_exported_in_an_unknown_format() throws Exception {
+    mockMvc.perform(get("/api/helprequest/export?format=xml")).andExpect(status().isBadRequest());
+    verify(exportService, never()).export(any(), any(), any(), any());
+  }
 }
@@ -7,64 +7,90 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.JobsExecutorConfig;
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.repositories.JobLogLineRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.ExportService;
+import edu.ucsb.cs156.example.services.jobs.JobLogHub;
 import edu.ucsb.cs156.example.services.jobs.JobService;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Slf4j
 @WebMvcTest(controllers = JobsController.class)
-@Import(JobService.class)
+@Import({JobService.class, JobLogHub.class, JobsExecutorConfig.class})
 @AutoConfigureDataJpa
 public class JobsControllerTests extends ControllerTestCase {
 
   @MockitoBean JobsRepository jobsRepository;
 
+  @MockitoBean JobLogLineRepository jobLogLineRepository;
+
   @MockitoBean UserRepository userRepository;
 
+  @MockitoBean ExportService exportService;
+
   @Autowired JobService jobService;
 
   @Autowired ObjectMapper objectMapper;
 
+  @Autowired JobLogHub jobLogHub;
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void admin_can_get_all_jobs() throws Exception {
 
     // arrange
 
-    Job job1 = Job.builder().log("this is job 1").build();
-    Job job2 = Job.builder().log("this is job 2").build();
+    JobSummary job1 = JobSummary.builder().id(1L).status("complete").logLength(13).build();
+    JobSummary job2 = JobSummary.builder().id(2L).status("running").logLength(0).build();
 
-    ArrayList<Job> expectedJobs = new ArrayList<>();
+    ArrayList<JobSummary> expectedJobs = new ArrayList<>();
     expectedJobs.addAll(Arrays.asList(job1, job2));
 
-    when(jobsRepository.findAll()).thenReturn(expectedJobs);
+    when(jobsRepository.findAllSummaries()).thenReturn(expectedJobs);
 
     // act
     MvcResult response =
@@ -72,7 +98,7 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(jobsRepository, atLeastOnce()).findAll();
+    verify(jobsRepository, atLeastOnce()).findAllSummaries();
     String expectedJson = mapper.writeValueAsString(expectedJobs);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -127,7 +153,7 @@ public class JobsControllerTests extends ControllerTestCase {
   @Test
   public void admin_can_delete_all_jobs() throws Exception {
 
-    doNothing().when(jobsRepository).deleteAll();
+    when(jobsRepository.deleteAllJobs()).thenReturn(3);
 
     // act
     MvcResult response =
@@ -138,7 +164,9 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(jobsRepository, times(1)).deleteAll();
+    InOrder inOrder = inOrder(jobLogLineRepository, jobsRepository);
+    inOrder.verify(jobLogLineRepository, times(1)).deleteAllLines();
+    inOrder.verify(jobsRepository, times(1)).deleteAllJobs();
     String expectedJson = mapper.writeValueAsString(Map.of("message", "All jobs deleted"));
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -195,7 +223,9 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(jobsRepository, times(1)).deleteById(eq(1L));
+    InOrder inOrder = inOrder(jobLogLineRepository, jobsRepository);
+    inOrder.verify(jobLogLineRepository, times(1)).deleteByJobId(eq(1L));
+    inOrder.verify(jobsRepository, times(1)).deleteById(eq(1L));
     String expectedJson = mapper.writeValueAsString(Map.of("message", "Job with id 1 deleted"));
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -239,20 +269,11 @@ public class JobsControllerTests extends ControllerTestCase {
             .createdAt(null)
             .updatedAt(null)
             .status("running")
-            .log("Hello World! from test job!")
-            .build();
-
-    Job jobCompleted =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("complete")
-            .log("Hello World! from test job!\nGoodbye from test job!")
             .build();
 
-    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobCompleted);
+    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted);
+    when(jobsRepository.claim(eq(0L), any(), any(), any())).thenReturn(1);
+    when(jobsRepository.finish(eq(0L), any(), any(), any())).thenReturn(1);
 
     // act
     MvcResult response =
@@ -267,12 +288,14 @@ public class JobsControllerTests extends ControllerTestCase {
 
     assertEquals("running", jobReturned.getStatus());
 
-    await()
-        .atMost(1, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
     await()
         .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(4)).save(eq(jobCompleted)));
+        .untilAsserted(
+            () ->
+                verify(jobsRepository)
+                    .finish(eq(0L), eq("complete"), eq(jobService.getInstanceId()), any()));
+    assertEquals(
+        List.of("0: Hello World! from test job!", "1: Goodbye from test job!"), loggedLines());
   }
 
   @WithMockUser(roles = {"ADMIN"})
@@ -290,20 +313,11 @@ public class JobsControllerTests extends ControllerTestCase {
             .createdAt(null)
             .updatedAt(null)
             .status("running")
-            .log("Hello World! from test job!")
-            .build();
-
-    Job jobFailed =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("error")
-            .log("Hello World! from test job!\nFail!")
             .build();
 
-    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobFailed);
+    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted);
+    when(jobsRepository.claim(eq(0L), any(), any(), any())).thenReturn(1);
+    when(jobsRepository.finish(eq(0L), any(), any(), any())).thenReturn(1);
 
     // act
     MvcResult response =
@@ -317,12 +331,322 @@ public class JobsControllerTests extends ControllerTestCase {
 
     assertEquals("running", jobReturned.getStatus());
 
-    await()
-        .atMost(1, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
-
     await()
         .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(3)).save(eq(jobFailed)));
+        .untilAsserted(
+            () ->
+                verify(jobsRepository)
+                    .finish(eq(0L), eq("error"), eq(jobService.getInstanceId()), any()));
+    assertEquals(List.of("0: Hello World! from test job!", "1: Fail!"), loggedLines());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void launched_job_stays_queued_when_another_instance_claims_it() throws Exception {
+
+    // arrange
+
+    when(jobsRepository.claim(eq(0L), any(), any(), any())).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=0").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    Job jobReturned =
+        objectMapper.readValue(response.getResponse().getContentAsString(), Job.class);
+    assertEquals("queued", jobReturned.getStatus());
+    assertEquals(TestJob.class.getName(), jobReturned.getJobType());
+    verify(jobsRepository, times(1)).save(any(Job.class));
+    verify(jobLogLineRepository, never()).saveAll(any());
+  }
+
+  /** All of the log lines written so far, over however many batches, as "seq: message". */
+  @SuppressWarnings("unchecked")
+  private List<String> loggedLines() {
+    ArgumentCaptor<Iterable<JobLogLine>> captor = ArgumentCaptor.forClass(Iterable.class);
+    verify(jobLogLineRepository, atLeastOnce()).saveAll(captor.capture());
+    List<String> lines = new ArrayList<>();
+    captor
+        .getAllValues()
+        .forEach(batch -> batch.forEach(l -> lines.add(l.getSeq() + ": " + l.getMessage())));
+    return lines;
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void test_getJobLogs_admin_gets_log_lines_in_order() throws Exception {
+    // Arrange
+    Long jobId = 3L;
+    Job job = Job.builder().id(jobId).build();
+    when(jobsRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLineRepository.findByJobIdOrderBySeqAsc(jobId))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(jobId).seq(0).message("first").build(),
+                JobLogLine.builder().jobId(jobId).seq(1).message("second").build()));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", jobId))
+        .andExpect(status().isOk())
+        .andExpect(content().string("first\nsecond"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void test_getJobLogs_admin_gets_lines_from_a_given_line() throws Exception {
+    // Arrange
+    Long jobId = 3L;
+    Job job = Job.builder().id(jobId).build();
+    when(jobsRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLineRepository.findByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(jobId, 1L))
+        .thenReturn(List.of(JobLogLine.builder().jobId(jobId).seq(1).message("second").build()));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}?fromLine=1", jobId))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("text/plain;charset=UTF-8"))
+        .andExpect(content().string("second"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void test_getJobLogs_admin_gets_the_tail_of_the_log() throws Exception {
+    // Arrange
+    Long jobId = 3L;
+    Job job = Job.builder().id(jobId).build();
+    when(jobsRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLineRepository.findByJobIdAndSeqGreaterThanEqualOrderBySeqDesc(
+            jobId, 0L, Limit.of(1)))
+        .thenReturn(List.of(JobLogLine.builder().jobId(jobId).seq(1).message("second").build()));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}?tail=1", jobId))
+        .andExpect(status().isOk())
+        .andExpect(content().string("second"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void test_getJobLogs_admin_gets_a_byte_range_of_the_log() throws Exception {
+    // Arrange
+    Long jobId = 3L;
+    Job job = Job.builder().id(jobId).build();
+    when(jobsRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLineRepository.findByJobIdOrderBySeqAsc(jobId))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(jobId).seq(0).message("first").build(),
+                JobLogLine.builder().jobId(jobId).seq(1).message("second").build()));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", jobId).header("Range", "bytes=6-"))
+        .andExpect(status().isPartialContent())
+        .andExpect(header().string("Content-Range", "bytes 6-11/12"))
+        .andExpect(content().string("second"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void test_getJobLogs_unsatisfiable_range_is_rejected() throws Exception {
+    // Arrange
+    Long jobId = 3L;
+    Job job = Job.builder().id(jobId).log("short").build();
+    when(jobsRepository.findById(jobId)).thenReturn(Optional.of(job));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", jobId).header("Range", "bytes=100-"))
+        .andExpect(status().isRequestedRangeNotSatisfiable());
+  }
+
+  // Tests for GET /api/jobs/page
+
+  @Test
+  public void logged_out_users_cannot_get_page() throws Exception {
+    mockMvc.perform(get("/api/jobs/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void first_page_has_a_next_cursor_when_it_is_full() throws Exception {
+
+    // arrange
+
+    JobSummary job1 = JobSummary.builder().id(1L).status("complete").build();
+    JobSummary job2 = JobSummary.builder().id(2L).status("complete").build();
+    List<JobSummary> page = List.of(job1, job2);
+
+    when(jobsRepository.findSummariesByIdGreaterThan(eq(0L), eq(Limit.of(2)))).thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/page?limit=2")).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(jobsRepository, times(1)).findSummariesByIdGreaterThan(eq(0L), eq(Limit.of(2)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, 2L));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void last_page_has_no_next_cursor() throws Exception {
+
+    // arrange
+
+    JobSummary job3 = JobSummary.builder().id(3L).status("complete").build();
+    List<JobSummary> page = List.of(job3);
+
+    when(jobsRepository.findSummariesByIdGreaterThan(
+            eq(2L), eq(Limit.of(CursorPage.DEFAULT_LIMIT))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/page?after=2")).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(jobsRepository, times(1))
+        .findSummariesByIdGreaterThan(eq(2L), eq(Limit.of(CursorPage.DEFAULT_LIMIT)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @Test
+  public void logged_out_users_cannot_stream_jobs() throws Exception {
+    mockMvc.perform(get("/api/jobs/1/stream")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_stream_finished_job() throws Exception {
+    // arrange
+    Job job = Job.builder().id(1L).status("complete").build();
+    when(jobsRepository.findById(1L)).thenReturn(Optional.of(job));
+    when(jobLogLineRepository.findByJobIdOrderBySeqAsc(1L))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(1L).seq(0).message("Hello").build(),
+                JobLogLine.builder().jobId(1L).seq(1).message("Goodbye").build()));
+
+    // act
+    MvcResult started =
+        mockMvc.perform(get("/api/jobs/1/stream")).andExpect(request().asyncStarted()).andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(
+        "event:log\nid:0\ndata:Hello\n\n"
+            + "event:log\nid:1\ndata:Goodbye\n\n"
+            + "event:status\ndata:complete\n\n",
+        response.getResponse().getContentAsString());
+    assertEquals(0, jobLogHub.subscriberCount(1L));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_follow_running_job() throws Exception {
+    // arrange
+    Job job = Job.builder().id(2L).status("running").build();
+    when(jobsRepository.findById(2L)).thenReturn(Optional.of(job));
+    when(jobLogLineRepository.findByJobIdOrderBySeqAsc(2L)).thenReturn(List.of());
+
+    // act
+    MvcResult started =
+        mockMvc.perform(get("/api/jobs/2/stream")).andExpect(request().asyncStarted()).andReturn();
+    assertEquals(1, jobLogHub.subscriberCount(2L));
+    jobLogHub.publishLine(JobLogLine.builder().jobId(2L).seq(0).message("working").build());
+    jobLogHub.publishStatus(2L, "complete");
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(
+        "event:status\ndata:running\n\n"
+            + "event:log\nid:0\ndata:working\n\n"
+            + "event:status\ndata:complete\n\n",
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void streaming_missing_job_returns_not_found() throws Exception {
+    // arrange
+    when(jobsRepository.findById(3L)).thenReturn(Optional.empty());
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/3/stream")).andExpect(status().isNotFound()).andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Job with id 3 not found", json.get("message"));
+    assertEquals(0, jobLogHub.subscriberCount(3L));
+  }
+
+  @Test
+  public void logged_out_users_cannot_export() throws Exception {
+    mockMvc.perform(get("/api/jobs/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void jobs_are_exported_as_ndjson_by_default() throws Exception {
+    // arrange
+    when(exportService.export(eq(ExportFormat.NDJSON), eq("jobs"), eq("JOBS"), any()))
+        .thenReturn(
+            ResponseEntity.ok()
+                .body((StreamingResponseBody) out -> out.write("{\"id\":1}\n".getBytes())));
+
+    // act
+    MvcResult started =
+        mockMvc.perform(get("/api/jobs/export")).andExpect(request().asyncStarted()).andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("{\"id\":1}\n", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void jobs_can_be_exported_as_csv() throws Exception {
+    // arrange
+    when(exportService.export(eq(ExportFormat.CSV), eq("jobs"), eq("JOBS"), any()))
+        .thenReturn(
+            ResponseEntity.ok()
+                .body((StreamingResponseBody) out -> out.write("id\r\n".getBytes())));
+
+    // act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/jobs/export?format=csv"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("id\r\n", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void jobs_cannot_be_exported_in_an_unknown_format() throws Exception {
+    mockMvc.perform(get("/api/jobs/export?format=xml")).andExpect(status().isBadRequest());
+    verify(exportService, never()).export(any(), any(), any(), any());
   }
 }
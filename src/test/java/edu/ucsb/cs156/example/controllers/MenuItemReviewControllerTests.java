@@ -3,41 +3,65 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.ExportFormat;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkUpdateService;
+import edu.ucsb.cs156.example.services.ExportService;
+import edu.ucsb.cs156.example.services.JsonStreamService;
+import edu.ucsb.cs156.example.services.StreamingPermits;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @WebMvcTest(controllers = MenuItemReviewController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, JsonStreamService.class, StreamingPermits.class})
 public class MenuItemReviewControllerTests extends ControllerTestCase {
   @MockBean MenuItemReviewRepository menuItemReviewRepository;
 
   @MockBean UserRepository userRepository;
 
+  @MockBean EntityManager entityManager;
+
+  @MockBean PlatformTransactionManager transactionManager;
+
+  @MockBean BulkUpdateService bulkUpdateService;
+
+  @MockBean ExportService exportService;
+
   @Test
   public void logged_out_users_cannot_get_all() throws Exception {
     mockMvc
@@ -152,15 +176,21 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
     ArrayList<MenuItemReview> expectedMenuItemReviews = new ArrayList<>();
     expectedMenuItemReviews.addAll(Arrays.asList(menuItemReview1, menuItemReview2));
 
-    when(menuItemReviewRepository.findAll()).thenReturn(expectedMenuItemReviews);
+    when(menuItemReviewRepository.streamAll()).thenReturn(expectedMenuItemReviews.stream());
 
     // act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/menuitemreview/all"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
     MvcResult response =
-        mockMvc.perform(get("/api/menuitemreview/all")).andExpect(status().isOk()).andReturn();
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
 
     // assert
 
-    verify(menuItemReviewRepository, times(1)).findAll();
+    verify(menuItemReviewRepository, times(1)).streamAll();
+    verify(entityManager, times(expectedMenuItemReviews.size())).detach(any());
     String expectedJson = mapper.writeValueAsString(expectedMenuItemReviews);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -341,4 +371,308 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("MenuItemReview with id 67 not found", json.get("message"));
   }
+
+  // Tests for GET /api/menuitemreview/page
+
+  @Test
+  public void logged_out_users_cannot_get_page() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void first_page_has_a_next_cursor_when_it_is_full() throws Exception {
+
+    // arrange
+
+    MenuItemReview menuItemReview1 = MenuItemReview.builder().id(1L).stars(1).build();
+    MenuItemReview menuItemReview2 = MenuItemReview.builder().id(2L).stars(2).build();
+    List<MenuItemReview> page = List.of(menuItemReview1, menuItemReview2);
+
+    when(menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(2))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/page?limit=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(menuItemReviewRepository, times(1))
+        .findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(2)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, 2L));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void last_page_has_no_next_cursor() throws Exception {
+
+    // arrange
+
+    MenuItemReview menuItemReview3 = MenuItemReview.builder().id(3L).stars(3).build();
+    List<MenuItemReview> page = List.of(menuItemReview3);
+
+    when(menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(
+            eq(2L), eq(Limit.of(CursorPage.DEFAULT_LIMIT))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/page?after=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(menuItemReviewRepository, times(1))
+        .findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(CursorPage.DEFAULT_LIMIT)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  // Tests for POST /api/menuitemreview/batch
+
+  @Test
+  public void logged_out_users_cannot_post_batch() throws Exception {
+    mockMvc.perform(post("/api/menuitemreview/batch")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_batch() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/menuitemreview/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403)); // only admins can post
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_a_batch_of_menu_item_reviews() throws Exception {
+    // arrange
+
+    MenuItemReview sent1 =
+        MenuItemReview.builder()
+            .id(99L)
+            .itemId(1)
+            .reviewerEmail("reviewer1@ucsb.edu")
+            .stars(1)
+            .dateReviewed(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .comments("Comments 1")
+            .build();
+    MenuItemReview sent2 =
+        MenuItemReview.builder()
+            .id(99L)
+            .itemId(2)
+            .reviewerEmail("reviewer2@ucsb.edu")
+            .stars(2)
+            .dateReviewed(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .comments("Comments 2")
+            .build();
+    MenuItemReview unsaved1 =
+        MenuItemReview.builder()
+            .itemId(1)
+            .reviewerEmail("reviewer1@ucsb.edu")
+            .stars(1)
+            .dateReviewed(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .comments("Comments 1")
+            .build();
+    MenuItemReview unsaved2 =
+        MenuItemReview.builder()
+            .itemId(2)
+            .reviewerEmail("reviewer2@ucsb.edu")
+            .stars(2)
+            .dateReviewed(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .comments("Comments 2")
+            .build();
+    MenuItemReview saved1 =
+        MenuItemReview.builder()
+            .id(1L)
+            .itemId(1)
+            .reviewerEmail("reviewer1@ucsb.edu")
+            .stars(1)
+            .dateReviewed(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .comments("Comments 1")
+            .build();
+    MenuItemReview saved2 =
+        MenuItemReview.builder()
+            .id(2L)
+            .itemId(2)
+            .reviewerEmail("reviewer2@ucsb.edu")
+            .stars(2)
+            .dateReviewed(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .comments("Comments 2")
+            .build();
+
+    when(menuItemReviewRepository.saveAll(eq(List.of(unsaved1, unsaved2))))
+        .thenReturn(List.of(saved1, saved2));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/menuitemreview/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(sent1, sent2)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(1)).saveAll(List.of(unsaved1, unsaved2));
+    assertEquals("[1,2]", response.getResponse().getContentAsString());
+  }
+
+  // Tests for PATCH /api/menuitemreview/bulk
+
+  @Test
+  public void logged_out_users_cannot_bulk_update() throws Exception {
+    mockMvc.perform(patch("/api/menuitemreview/bulk")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_update() throws Exception {
+    mockMvc
+        .perform(
+            patch("/api/menuitemreview/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}")
+                .with(csrf()))
+        .andExpect(status().is(403)); // only admins can bulk update
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_menuitemreview() throws Exception {
+    // arrange
+
+    when(bulkUpdateService.update(
+            eq(MenuItemReview.class), eq(List.of(1L, 2L)), eq(Map.of("comments", "Hidden"))))
+        .thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                patch("/api/menuitemreview/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("{\"ids\":[1,2],\"set\":{\"comments\":\"Hidden\"}}")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkUpdateService, times(1))
+        .update(MenuItemReview.class, List.of(1L, 2L), Map.of("comments", "Hidden"));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2 MenuItemReview updated", json.get("message"));
+  }
+
+  // Tests for DELETE /api/menuitemreview/bulk
+
+  @Test
+  public void logged_out_users_cannot_bulk_delete() throws Exception {
+    mockMvc.perform(delete("/api/menuitemreview/bulk?ids=1&ids=2")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+    mockMvc
+        .perform(delete("/api/menuitemreview/bulk?ids=1&ids=2").with(csrf()))
+        .andExpect(status().is(403)); // only admins can bulk delete
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_menuitemreview() throws Exception {
+    // arrange
+
+    when(menuItemReviewRepository.bulkDelete(eq(List.of(1L, 2L)))).thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/menuitemreview/bulk?ids=1&ids=2").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(1)).bulkDelete(List.of(1L, 2L));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2 MenuItemReview deleted", json.get("message"));
+  }
+
+  @Test
+  public void logged_out_users_cannot_export() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void menu_item_reviews_are_exported_as_ndjson_by_default() throws Exception {
+    // arrange
+    when(exportService.export(
+            eq(ExportFormat.NDJSON), eq("menuitemreviews"), eq("MENU_ITEM_REVIEWS"), any()))
+        .thenReturn(
+            ResponseEntity.ok()
+                .body((StreamingResponseBody) out -> out.write("{\"id\":1}\n".getBytes())));
+
+    // act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/menuitemreview/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("{\"id\":1}\n", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void menu_item_reviews_can_be_exported_as_csv() throws Exception {
+    // arrange
+    when(exportService.export(
+            eq(ExportFormat.CSV), eq("menuitemreviews"), eq("MENU_ITEM_REVIEWS"), any()))
+        .thenReturn(
+            ResponseEntity.ok()
+                .body((StreamingResponseBody) out -> out.write("id\r\n".getBytes())));
+
+    // act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/menuitemreview/export?format=csv"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("id\r\n", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void menu_item_reviews_cannot_be_exported_in_an_unknown_format() throws Exception {
+    mockMvc
+        .perform(get("/api/menuitemreview/export?format=xml"))
+        .andExpect(status().isBadRequest());
+    verify(exportService, never()).export(any(), any(), any(), any());
+  }
 }
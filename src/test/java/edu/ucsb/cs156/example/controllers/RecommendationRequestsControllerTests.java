@@ -8,23 +8,28 @@ import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.CursorPage;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkUpdateService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -37,6 +42,8 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
 
   @MockBean UserRepository userRepository;
 
+  @MockBean BulkUpdateService bulkUpdateService;
+
   @Test
   public void logged_out_users_cannot_get_all() throws Exception {
     mockMvc
@@ -352,4 +359,259 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("RecommendationRequest with id 15 not found", json.get("message"));
   }
+
+  // Tests for GET /api/recommendationrequests/page
+
+  @Test
+  public void logged_out_users_cannot_get_page() throws Exception {
+    mockMvc.perform(get("/api/recommendationrequests/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void first_page_has_a_next_cursor_when_it_is_full() throws Exception {
+
+    // arrange
+
+    RecommendationRequest recommendationRequest1 =
+        RecommendationRequest.builder().id(1L).explanation("request 1").build();
+    RecommendationRequest recommendationRequest2 =
+        RecommendationRequest.builder().id(2L).explanation("request 2").build();
+    List<RecommendationRequest> page = List.of(recommendationRequest1, recommendationRequest2);
+
+    when(recommendationRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(2))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/recommendationrequests/page?limit=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(recommendationRequestRepository, times(1))
+        .findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(2)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, 2L));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void last_page_has_no_next_cursor() throws Exception {
+
+    // arrange
+
+    RecommendationRequest recommendationRequest3 =
+        RecommendationRequest.builder().id(3L).explanation("request 3").build();
+    List<RecommendationRequest> page = List.of(recommendationRequest3);
+
+    when(recommendationRequestRepository.findByIdGreaterThanOrderByIdAsc(
+            eq(2L), eq(Limit.of(CursorPage.DEFAULT_LIMIT))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/recommendationrequests/page?after=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(recommendationRequestRepository, times(1))
+        .findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(CursorPage.DEFAULT_LIMIT)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  // Tests for POST /api/recommendationrequests/batch
+
+  @Test
+  public void logged_out_users_cannot_post_batch() throws Exception {
+    mockMvc.perform(post("/api/recommendationrequests/batch")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_batch() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/recommendationrequests/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403)); // only admins can post
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_a_batch_of_recommendation_requests() throws Exception {
+    // arrange
+
+    RecommendationRequest sent1 =
+        RecommendationRequest.builder()
+            .id(99L)
+            .requesterEmail("student1@ucsb.edu")
+            .professorEmail("prof1@ucsb.edu")
+            .explanation("Explanation 1")
+            .dateRequested(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .dateNeeded(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .done(false)
+            .build();
+    RecommendationRequest sent2 =
+        RecommendationRequest.builder()
+            .id(99L)
+            .requesterEmail("student2@ucsb.edu")
+            .professorEmail("prof2@ucsb.edu")
+            .explanation("Explanation 2")
+            .dateRequested(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .dateNeeded(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .done(false)
+            .build();
+    RecommendationRequest unsaved1 =
+        RecommendationRequest.builder()
+            .requesterEmail("student1@ucsb.edu")
+            .professorEmail("prof1@ucsb.edu")
+            .explanation("Explanation 1")
+            .dateRequested(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .dateNeeded(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .done(false)
+            .build();
+    RecommendationRequest unsaved2 =
+        RecommendationRequest.builder()
+            .requesterEmail("student2@ucsb.edu")
+            .professorEmail("prof2@ucsb.edu")
+            .explanation("Explanation 2")
+            .dateRequested(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .dateNeeded(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .done(false)
+            .build();
+    RecommendationRequest saved1 =
+        RecommendationRequest.builder()
+            .id(1L)
+            .requesterEmail("student1@ucsb.edu")
+            .professorEmail("prof1@ucsb.edu")
+            .explanation("Explanation 1")
+            .dateRequested(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .dateNeeded(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .done(false)
+            .build();
+    RecommendationRequest saved2 =
+        RecommendationRequest.builder()
+            .id(2L)
+            .requesterEmail("student2@ucsb.edu")
+            .professorEmail("prof2@ucsb.edu")
+            .explanation("Explanation 2")
+            .dateRequested(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .dateNeeded(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .done(false)
+            .build();
+
+    when(recommendationRequestRepository.saveAll(eq(List.of(unsaved1, unsaved2))))
+        .thenReturn(List.of(saved1, saved2));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/recommendationrequests/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(sent1, sent2)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(recommendationRequestRepository, times(1)).saveAll(List.of(unsaved1, unsaved2));
+    assertEquals("[1,2]", response.getResponse().getContentAsString());
+  }
+
+  // Tests for PATCH /api/recommendationrequests/bulk
+
+  @Test
+  public void logged_out_users_cannot_bulk_update() throws Exception {
+    mockMvc.perform(patch("/api/recommendationrequests/bulk")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_update() throws Exception {
+    mockMvc
+        .perform(
+            patch("/api/recommendationrequests/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}")
+                .with(csrf()))
+        .andExpect(status().is(403)); // only admins can bulk update
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_recommendationrequest() throws Exception {
+    // arrange
+
+    when(bulkUpdateService.update(
+            eq(RecommendationRequest.class), eq(List.of(1L, 2L)), eq(Map.of("done", true))))
+        .thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                patch("/api/recommendationrequests/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("{\"ids\":[1,2],\"set\":{\"done\":true}}")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkUpdateService, times(1))
+        .update(RecommendationRequest.class, List.of(1L, 2L), Map.of("done", true));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2 RecommendationRequest updated", json.get("message"));
+  }
+
+  // Tests for DELETE /api/recommendationrequests/bulk
+
+  @Test
+  public void logged_out_users_cannot_bulk_delete() throws Exception {
+    mockMvc
+        .perform(delete("/api/recommendationrequests/bulk?ids=1&ids=2"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+    mockMvc
+        .perform(delete("/api/recommendationrequests/bulk?ids=1&ids=2").with(csrf()))
+        .andExpect(status().is(403)); // only admins can bulk delete
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_recommendationrequest() throws Exception {
+    // arrange
+
+    when(recommendationRequestRepository.bulkDelete(eq(List.of(1L, 2L)))).thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/recommendationrequests/bulk?ids=1&ids=2").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(recommendationRequestRepository, times(1)).bulkDelete(List.of(1L, 2L));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2 RecommendationRequest deleted", json.get("message"));
+  }
 }
@@ -9,23 +9,28 @@ import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.models.CursorPage;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkUpdateService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -38,6 +43,8 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
   @MockBean UserRepository userRepository;
 
+  @MockBean BulkUpdateService bulkUpdateService;
+
   // Authorization tests for /api/phones/admin/all
 
   @Test
@@ -280,4 +287,262 @@ public class RestaurantsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("Restaurant with id 67 not found", json.get("message"));
   }
+
+  // Tests for GET /api/restaurants/page
+
+  @Test
+  public void logged_out_users_cannot_get_page() throws Exception {
+    mockMvc.perform(get("/api/restaurants/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void first_page_has_a_next_cursor_when_it_is_full() throws Exception {
+
+    // arrange
+
+    Restaurant restaurant1 = Restaurant.builder().id(1L).name("Restaurant 1").build();
+    Restaurant restaurant2 = Restaurant.builder().id(2L).name("Restaurant 2").build();
+    List<Restaurant> page = List.of(restaurant1, restaurant2);
+
+    when(restaurantRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(2))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/restaurants/page?limit=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(restaurantRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(2)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, 2L));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void last_page_has_no_next_cursor() throws Exception {
+
+    // arrange
+
+    Restaurant restaurant3 = Restaurant.builder().id(3L).name("Restaurant 3").build();
+    List<Restaurant> page = List.of(restaurant3);
+
+    when(restaurantRepository.findByIdGreaterThanOrderByIdAsc(
+            eq(2L), eq(Limit.of(CursorPage.DEFAULT_LIMIT))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/restaurants/page?after=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(restaurantRepository, times(1))
+        .findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(CursorPage.DEFAULT_LIMIT)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  // Tests for POST /api/restaurants/batch
+
+  @Test
+  public void logged_out_users_cannot_post_batch() throws Exception {
+    mockMvc.perform(post("/api/restaurants/batch")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_batch() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/restaurants/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403)); // only admins can post
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_a_batch_of_restaurants() throws Exception {
+    // arrange
+
+    Restaurant sent1 =
+        Restaurant.builder().id(99L).name("Restaurant 1").description("Description 1").build();
+    Restaurant sent2 =
+        Restaurant.builder().id(99L).name("Restaurant 2").description("Description 2").build();
+    Restaurant unsaved1 =
+        Restaurant.builder().name("Restaurant 1").description("Description 1").build();
+    Restaurant unsaved2 =
+        Restaurant.builder().name("Restaurant 2").description("Description 2").build();
+    Restaurant saved1 =
+        Restaurant.builder().id(1L).name("Restaurant 1").description("Description 1").build();
+    Restaurant saved2 =
+        Restaurant.builder().id(2L).name("Restaurant 2").description("Description 2").build();
+
+    when(restaurantRepository.saveAll(eq(List.of(unsaved1, unsaved2))))
+        .thenReturn(List.of(saved1, saved2));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/restaurants/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(sent1, sent2)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(restaurantRepository, times(1)).saveAll(List.of(unsaved1, unsaved2));
+    assertEquals("[1,2]", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_a_batch_of_restaurants_as_ndjson() throws Exception {
+    // arrange
+
+    Restaurant unsaved1 =
+        Restaurant.builder().name("Restaurant 1").description("Description 1").build();
+    Restaurant unsaved2 =
+        Restaurant.builder().name("Restaurant 2").description("Description 2").build();
+    Restaurant saved1 =
+        Restaurant.builder().id(1L).name("Restaurant 1").description("Description 1").build();
+    Restaurant saved2 =
+        Restaurant.builder().id(2L).name("Restaurant 2").description("Description 2").build();
+
+    when(restaurantRepository.saveAll(eq(List.of(unsaved1, unsaved2))))
+        .thenReturn(List.of(saved1, saved2));
+
+    String ndjson =
+        """
+        {"name":"Restaurant 1","description":"Description 1"}
+        {"name":"Restaurant 2","description":"Description 2"}
+        """;
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/restaurants/batch")
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .characterEncoding("utf-8")
+                    .content(ndjson)
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(restaurantRepository, times(1)).saveAll(List.of(unsaved1, unsaved2));
+    assertEquals("[1,2]", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_cannot_post_invalid_ndjson() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/restaurants/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .characterEncoding("utf-8")
+                .content("{\"name\":\"Restaurant 1\"}\nnot json\n")
+                .with(csrf()))
+        .andExpect(status().isBadRequest());
+
+    verify(restaurantRepository, times(0)).saveAll(any());
+  }
+
+  // Tests for PATCH /api/restaurants/bulk
+
+  @Test
+  public void logged_out_users_cannot_bulk_update() throws Exception {
+    mockMvc.perform(patch("/api/restaurants/bulk")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_update() throws Exception {
+    mockMvc
+        .perform(
+            patch("/api/restaurants/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}")
+                .with(csrf()))
+        .andExpect(status().is(403)); // only admins can bulk update
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_restaurant() throws Exception {
+    // arrange
+
+    when(bulkUpdateService.update(
+            eq(Restaurant.class), eq(List.of(1L, 2L)), eq(Map.of("description", "Closed"))))
+        .thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                patch("/api/restaurants/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("{\"ids\":[1,2],\"set\":{\"description\":\"Closed\"}}")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkUpdateService, times(1))
+        .update(Restaurant.class, List.of(1L, 2L), Map.of("description", "Closed"));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2 Restaurant updated", json.get("message"));
+  }
+
+  // Tests for DELETE /api/restaurants/bulk
+
+  @Test
+  public void logged_out_users_cannot_bulk_delete() throws Exception {
+    mockMvc.perform(delete("/api/restaurants/bulk?ids=1&ids=2")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+    mockMvc
+        .perform(delete("/api/restaurants/bulk?ids=1&ids=2").with(csrf()))
+        .andExpect(status().is(403)); // only admins can bulk delete
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_restaurant() throws Exception {
+    // arrange
+
+    when(restaurantRepository.bulkDelete(eq(List.of(1L, 2L)))).thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/restaurants/bulk?ids=1&ids=2").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(restaurantRepository, times(1)).bulkDelete(List.of(1L, 2L));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2 Restaurant deleted", json.get("message"));
+  }
 }
@@ -1,6 +1,8 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
@@ -9,36 +11,44 @@ import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.CursorPage;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkUpdateService;
+import edu.ucsb.cs156.example.testconfig.TableVersionTestConfig;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = UCSBDatesController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, TableVersionTestConfig.class})
 public class UCSBDatesControllerTests extends ControllerTestCase {
 
   @MockBean UCSBDateRepository ucsbDateRepository;
 
   @MockBean UserRepository userRepository;
 
+  @MockBean BulkUpdateService bulkUpdateService;
+
   // Authorization tests for /api/ucsbdates/admin/all
 
   @Test
@@ -93,7 +103,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
             .localDateTime(ldt)
             .build();
 
-    when(ucsbDateRepository.findById(eq(7L))).thenReturn(Optional.of(ucsbDate));
+    when(ucsbDateRepository.findCachedById(eq(7L))).thenReturn(Optional.of(ucsbDate));
 
     // act
     MvcResult response =
@@ -101,7 +111,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(ucsbDateRepository, times(1)).findById(eq(7L));
+    verify(ucsbDateRepository, times(1)).findCachedById(eq(7L));
     String expectedJson = mapper.writeValueAsString(ucsbDate);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -113,7 +123,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
     // arrange
 
-    when(ucsbDateRepository.findById(eq(7L))).thenReturn(Optional.empty());
+    when(ucsbDateRepository.findCachedById(eq(7L))).thenReturn(Optional.empty());
 
     // act
     MvcResult response =
@@ -121,7 +131,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(ucsbDateRepository, times(1)).findById(eq(7L));
+    verify(ucsbDateRepository, times(1)).findCachedById(eq(7L));
     Map<String, Object> json = responseToJson(response);
     assertEquals("EntityNotFoundException", json.get("type"));
     assertEquals("UCSBDate with id 7 not found", json.get("message"));
@@ -331,4 +341,298 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDate with id 67 not found", json.get("message"));
   }
+
+  // Tests for GET /api/ucsbdates/page
+
+  @Test
+  public void logged_out_users_cannot_get_page() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void first_page_has_a_next_cursor_when_it_is_full() throws Exception {
+
+    // arrange
+
+    UCSBDate uCSBDate1 = UCSBDate.builder().id(1L).name("date 1").build();
+    UCSBDate uCSBDate2 = UCSBDate.builder().id(2L).name("date 2").build();
+    List<UCSBDate> page = List.of(uCSBDate1, uCSBDate2);
+
+    when(ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(2))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/ucsbdates/page?limit=2")).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(ucsbDateRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(2)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, 2L));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void last_page_has_no_next_cursor() throws Exception {
+
+    // arrange
+
+    UCSBDate uCSBDate3 = UCSBDate.builder().id(3L).name("date 3").build();
+    List<UCSBDate> page = List.of(uCSBDate3);
+
+    when(ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(
+            eq(2L), eq(Limit.of(CursorPage.DEFAULT_LIMIT))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/ucsbdates/page?after=2")).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(ucsbDateRepository, times(1))
+        .findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(CursorPage.DEFAULT_LIMIT)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  // Tests for POST /api/ucsbdates/batch
+
+  @Test
+  public void logged_out_users_cannot_post_batch() throws Exception {
+    mockMvc.perform(post("/api/ucsbdates/batch")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_batch() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403)); // only admins can post
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_a_batch_of_ucsbdates() throws Exception {
+    // arrange
+
+    UCSBDate sent1 =
+        UCSBDate.builder()
+            .id(99L)
+            .quarterYYYYQ("20251")
+            .name("Date 1")
+            .localDateTime(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .build();
+    UCSBDate sent2 =
+        UCSBDate.builder()
+            .id(99L)
+            .quarterYYYYQ("20252")
+            .name("Date 2")
+            .localDateTime(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .build();
+    UCSBDate unsaved1 =
+        UCSBDate.builder()
+            .quarterYYYYQ("20251")
+            .name("Date 1")
+            .localDateTime(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .build();
+    UCSBDate unsaved2 =
+        UCSBDate.builder()
+            .quarterYYYYQ("20252")
+            .name("Date 2")
+            .localDateTime(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .build();
+    UCSBDate saved1 =
+        UCSBDate.builder()
+            .id(1L)
+            .quarterYYYYQ("20251")
+            .name("Date 1")
+            .localDateTime(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .build();
+    UCSBDate saved2 =
+        UCSBDate.builder()
+            .id(2L)
+            .quarterYYYYQ("20252")
+            .name("Date 2")
+            .localDateTime(LocalDateTime.parse("2025-01-15T12:00:00"))
+            .build();
+
+    when(ucsbDateRepository.saveAll(eq(List.of(unsaved1, unsaved2))))
+        .thenReturn(List.of(saved1, saved2));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdates/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(sent1, sent2)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDateRepository, times(1)).saveAll(List.of(unsaved1, unsaved2));
+    assertEquals("[1,2]", response.getResponse().getContentAsString());
+  }
+
+  // Tests for PATCH /api/ucsbdates/bulk
+
+  @Test
+  public void logged_out_users_cannot_bulk_update() throws Exception {
+    mockMvc.perform(patch("/api/ucsbdates/bulk")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_update() throws Exception {
+    mockMvc
+        .perform(
+            patch("/api/ucsbdates/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}")
+                .with(csrf()))
+        .andExpect(status().is(403)); // only admins can bulk update
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_ucsbdate() throws Exception {
+    // arrange
+
+    when(bulkUpdateService.update(
+            eq(UCSBDate.class), eq(List.of(1L, 2L)), eq(Map.of("quarterYYYYQ", "20224"))))
+        .thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                patch("/api/ucsbdates/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("{\"ids\":[1,2],\"set\":{\"quarterYYYYQ\":\"20224\"}}")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkUpdateService, times(1))
+        .update(UCSBDate.class, List.of(1L, 2L), Map.of("quarterYYYYQ", "20224"));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2 UCSBDate updated", json.get("message"));
+  }
+
+  // Tests for DELETE /api/ucsbdates/bulk
+
+  @Test
+  public void logged_out_users_cannot_bulk_delete() throws Exception {
+    mockMvc.perform(delete("/api/ucsbdates/bulk?ids=1&ids=2")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+    mockMvc
+        .perform(delete("/api/ucsbdates/bulk?ids=1&ids=2").with(csrf()))
+        .andExpect(status().is(403)); // only admins can bulk delete
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_ucsbdate() throws Exception {
+    // arrange
+
+    when(ucsbDateRepository.bulkDelete(eq(List.of(1L, 2L)))).thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/ucsbdates/bulk?ids=1&ids=2").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDateRepository, times(1)).bulkDelete(List.of(1L, 2L));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2 UCSBDate deleted", json.get("message"));
+  }
+
+  // Tests for ETags and If-None-Match
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void get_all_is_not_modified_when_the_etag_matches() throws Exception {
+    // arrange
+    String etag =
+        mockMvc
+            .perform(get("/api/ucsbdates/all"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/all").header("If-None-Match", etag))
+            .andExpect(status().isNotModified())
+            .andReturn();
+
+    // assert
+    verify(ucsbDateRepository, times(1)).findAll();
+    assertTrue(etag.startsWith("W/\""), etag); // a strong ETag would stop Tomcat compressing
+    assertEquals(etag, response.getResponse().getHeader("ETag"));
+    assertEquals("", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void get_page_and_get_by_id_are_not_modified_when_the_etag_matches() throws Exception {
+    // arrange
+    String etag =
+        mockMvc.perform(get("/api/ucsbdates/all")).andReturn().getResponse().getHeader("ETag");
+
+    // act
+    mockMvc
+        .perform(get("/api/ucsbdates/page").header("If-None-Match", etag))
+        .andExpect(status().isNotModified());
+    mockMvc
+        .perform(get("/api/ucsbdates?id=7").header("If-None-Match", etag))
+        .andExpect(status().isNotModified());
+
+    // assert
+    verify(ucsbDateRepository, times(0)).findByIdGreaterThanOrderByIdAsc(any(), any());
+    verify(ucsbDateRepository, times(0)).findCachedById(7L);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void etag_changes_after_a_write() throws Exception {
+    // arrange
+    String etag =
+        mockMvc.perform(get("/api/ucsbdates/all")).andReturn().getResponse().getHeader("ETag");
+    when(ucsbDateRepository.bulkDelete(eq(List.of(7L)))).thenReturn(1);
+    mockMvc.perform(delete("/api/ucsbdates/bulk?ids=7").with(csrf())).andExpect(status().isOk());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/all").header("If-None-Match", etag))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDateRepository, times(2)).findAll(); // once for each GET that was not 304
+    assertNotEquals(etag, response.getResponse().getHeader("ETag"));
+  }
 }
@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
@@ -9,35 +10,56 @@ import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.CursorPage;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkUpdateService;
+import edu.ucsb.cs156.example.services.JsonSnapshotService;
+import edu.ucsb.cs156.example.testconfig.SnapshotTestConfig;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = UCSBDiningCommonsController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, SnapshotTestConfig.class})
 public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
   @MockBean UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
   @MockBean UserRepository userRepository;
 
+  @Autowired JsonSnapshotService jsonSnapshotService;
+
+  @BeforeEach
+  public void dropSnapshots() {
+    jsonSnapshotService.invalidateAll();
+  }
+
+  @MockBean BulkUpdateService bulkUpdateService;
+
   // Authorization tests for /api/ucsbdiningcommons/admin/all
 
   @Test
@@ -95,7 +117,8 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
             .longitude(-119.85277)
             .build();
 
-    when(ucsbDiningCommonsRepository.findById(eq("carrillo"))).thenReturn(Optional.of(commons));
+    when(ucsbDiningCommonsRepository.findCachedByCode(eq("carrillo")))
+        .thenReturn(Optional.of(commons));
 
     // act
     MvcResult response =
@@ -106,7 +129,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(ucsbDiningCommonsRepository, times(1)).findById(eq("carrillo"));
+    verify(ucsbDiningCommonsRepository, times(1)).findCachedByCode(eq("carrillo"));
     String expectedJson = mapper.writeValueAsString(commons);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -118,7 +141,8 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
     // arrange
 
-    when(ucsbDiningCommonsRepository.findById(eq("munger-hall"))).thenReturn(Optional.empty());
+    when(ucsbDiningCommonsRepository.findCachedByCode(eq("munger-hall")))
+        .thenReturn(Optional.empty());
 
     // act
     MvcResult response =
@@ -129,7 +153,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(ucsbDiningCommonsRepository, times(1)).findById(eq("munger-hall"));
+    verify(ucsbDiningCommonsRepository, times(1)).findCachedByCode(eq("munger-hall"));
     Map<String, Object> json = responseToJson(response);
     assertEquals("EntityNotFoundException", json.get("type"));
     assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
@@ -357,4 +381,467 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
   }
+
+  // Tests for GET /api/ucsbdiningcommons/page
+
+  @Test
+  public void logged_out_users_cannot_get_page() throws Exception {
+    mockMvc.perform(get("/api/ucsbdiningcommons/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void first_page_has_a_next_cursor_when_it_is_full() throws Exception {
+
+    // arrange
+
+    UCSBDiningCommons uCSBDiningCommons1 =
+        UCSBDiningCommons.builder().code("a").name("Commons 1").build();
+    UCSBDiningCommons uCSBDiningCommons2 =
+        UCSBDiningCommons.builder().code("b").name("Commons 2").build();
+    List<UCSBDiningCommons> page = List.of(uCSBDiningCommons1, uCSBDiningCommons2);
+
+    when(ucsbDiningCommonsRepository.findByCodeGreaterThanOrderByCodeAsc(eq(""), eq(Limit.of(2))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/page?limit=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(ucsbDiningCommonsRepository, times(1))
+        .findByCodeGreaterThanOrderByCodeAsc(eq(""), eq(Limit.of(2)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, "b"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void last_page_has_no_next_cursor() throws Exception {
+
+    // arrange
+
+    UCSBDiningCommons uCSBDiningCommons3 =
+        UCSBDiningCommons.builder().code("c").name("Commons 3").build();
+    List<UCSBDiningCommons> page = List.of(uCSBDiningCommons3);
+
+    when(ucsbDiningCommonsRepository.findByCodeGreaterThanOrderByCodeAsc(
+            eq("b"), eq(Limit.of(CursorPage.DEFAULT_LIMIT))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/page?after=b"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(ucsbDiningCommonsRepository, times(1))
+        .findByCodeGreaterThanOrderByCodeAsc(eq("b"), eq(Limit.of(CursorPage.DEFAULT_LIMIT)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  // Tests for POST /api/ucsbdiningcommons/batch
+
+  @Test
+  public void logged_out_users_cannot_post_batch() throws Exception {
+    mockMvc.perform(post("/api/ucsbdiningcommons/batch")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_batch() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdiningcommons/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403)); // only admins can post
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_a_batch_of_commons() throws Exception {
+    // arrange
+
+    UCSBDiningCommons item1 =
+        UCSBDiningCommons.builder()
+            .code("dc1")
+            .name("Commons 1")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(false)
+            .hasDiningCam(true)
+            .latitude(34.41)
+            .longitude(-119.85)
+            .build();
+    UCSBDiningCommons item2 =
+        UCSBDiningCommons.builder()
+            .code("dc2")
+            .name("Commons 2")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(false)
+            .hasDiningCam(true)
+            .latitude(34.41)
+            .longitude(-119.85)
+            .build();
+
+    when(ucsbDiningCommonsRepository.saveAll(eq(List.of(item1, item2))))
+        .thenReturn(List.of(item1, item2));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdiningcommons/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(item1, item2)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(1)).saveAll(List.of(item1, item2));
+    assertEquals("[\"dc1\",\"dc2\"]", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_cannot_post_a_batch_with_a_repeated_code() throws Exception {
+    // arrange
+
+    UCSBDiningCommons item1 =
+        UCSBDiningCommons.builder()
+            .code("dc1")
+            .name("Commons 1")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(false)
+            .hasDiningCam(true)
+            .latitude(34.41)
+            .longitude(-119.85)
+            .build();
+    UCSBDiningCommons item2 =
+        UCSBDiningCommons.builder()
+            .code("dc1")
+            .name("Commons 1")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(false)
+            .hasDiningCam(true)
+            .latitude(34.41)
+            .longitude(-119.85)
+            .build();
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdiningcommons/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(item1, item2)))
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(0)).saveAll(any());
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("InvalidBatchException", json.get("type"));
+    assertEquals("Key dc1 appears more than once in the batch", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_cannot_post_a_batch_with_a_missing_code() throws Exception {
+    // arrange
+
+    UCSBDiningCommons item =
+        UCSBDiningCommons.builder()
+            .code("dc1")
+            .name("Commons 1")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(false)
+            .hasDiningCam(true)
+            .latitude(34.41)
+            .longitude(-119.85)
+            .build();
+    item.setCode(null);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdiningcommons/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(item)))
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(0)).saveAll(any());
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("InvalidBatchException", json.get("type"));
+    assertEquals("Every item in the batch needs a key", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_cannot_post_a_batch_with_a_blank_code() throws Exception {
+    // arrange
+
+    UCSBDiningCommons item =
+        UCSBDiningCommons.builder()
+            .code("dc1")
+            .name("Commons 1")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(false)
+            .hasDiningCam(true)
+            .latitude(34.41)
+            .longitude(-119.85)
+            .build();
+    item.setCode("  ");
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdiningcommons/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(item)))
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(0)).saveAll(any());
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("InvalidBatchException", json.get("type"));
+    assertEquals("Every item in the batch needs a key", json.get("message"));
+  }
+
+  // Tests for PATCH /api/ucsbdiningcommons/bulk
+
+  @Test
+  public void logged_out_users_cannot_bulk_update() throws Exception {
+    mockMvc.perform(patch("/api/ucsbdiningcommons/bulk")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_update() throws Exception {
+    mockMvc
+        .perform(
+            patch("/api/ucsbdiningcommons/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}")
+                .with(csrf()))
+        .andExpect(status().is(403)); // only admins can bulk update
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_ucsbdiningcommons() throws Exception {
+    // arrange
+
+    when(bulkUpdateService.update(
+            eq(UCSBDiningCommons.class),
+            eq(List.of("ortega", "carrillo")),
+            eq(Map.of("hasSackMeal", true))))
+        .thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                patch("/api/ucsbdiningcommons/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("{\"ids\":[\"ortega\",\"carrillo\"],\"set\":{\"hasSackMeal\":true}}")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkUpdateService, times(1))
+        .update(
+            UCSBDiningCommons.class, List.of("ortega", "carrillo"), Map.of("hasSackMeal", true));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2 UCSBDiningCommons updated", json.get("message"));
+  }
+
+  // Tests for DELETE /api/ucsbdiningcommons/bulk
+
+  @Test
+  public void logged_out_users_cannot_bulk_delete() throws Exception {
+    mockMvc
+        .perform(delete("/api/ucsbdiningcommons/bulk?codes=ortega&codes=carrillo"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+    mockMvc
+        .perform(delete("/api/ucsbdiningcommons/bulk?codes=ortega&codes=carrillo").with(csrf()))
+        .andExpect(status().is(403)); // only admins can bulk delete
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_ucsbdiningcommons() throws Exception {
+    // arrange
+
+    when(ucsbDiningCommonsRepository.bulkDelete(eq(List.of("ortega", "carrillo")))).thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/ucsbdiningcommons/bulk?codes=ortega&codes=carrillo").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(1)).bulkDelete(List.of("ortega", "carrillo"));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2 UCSBDiningCommons deleted", json.get("message"));
+  }
+
+  // Tests for ETags and If-None-Match
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void get_all_is_not_modified_when_the_etag_matches() throws Exception {
+    // arrange
+    String etag =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/all"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", etag))
+            .andExpect(status().isNotModified())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(1)).findAll();
+    assertEquals(etag, response.getResponse().getHeader("ETag"));
+    assertEquals("", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void get_page_and_get_by_id_are_not_modified_when_the_etag_matches() throws Exception {
+    // arrange
+    String etag =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/all"))
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    // act
+    MvcResult page =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/page").header("If-None-Match", etag))
+            .andExpect(status().isNotModified())
+            .andReturn();
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons?code=ortega").header("If-None-Match", etag))
+        .andExpect(status().isNotModified());
+
+    // assert
+    assertEquals("W/" + etag, page.getResponse().getHeader("ETag"));
+    verify(ucsbDiningCommonsRepository, times(0)).findByCodeGreaterThanOrderByCodeAsc(any(), any());
+    verify(ucsbDiningCommonsRepository, times(0)).findCachedByCode("ortega");
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void etag_changes_after_a_write() throws Exception {
+    // arrange
+    String etag =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/all"))
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+    when(ucsbDiningCommonsRepository.bulkDelete(eq(List.of("ortega")))).thenReturn(1);
+    mockMvc
+        .perform(delete("/api/ucsbdiningcommons/bulk?codes=ortega").with(csrf()))
+        .andExpect(status().isOk());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", etag))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(2))
+        .findAll(); // for the first GET, and to rebuild the snapshot after the write
+    assertNotEquals(etag, response.getResponse().getHeader("ETag"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void get_all_is_served_gzipped_from_the_snapshot() throws Exception {
+    // arrange
+    UCSBDiningCommons ortega =
+        UCSBDiningCommons.builder()
+            .name("Ortega")
+            .code("ortega")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(true)
+            .latitude(34.410987)
+            .longitude(-119.84709)
+            .build();
+    List<UCSBDiningCommons> expectedCommons = List.of(ortega, ortega, ortega);
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(expectedCommons);
+    String etag =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/all"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/all").header("Accept-Encoding", "gzip"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(1)).findAll();
+    assertEquals("gzip", response.getResponse().getHeader("Content-Encoding"));
+    assertEquals("Accept-Encoding", response.getResponse().getHeader("Vary"));
+    assertNotEquals(etag, response.getResponse().getHeader("ETag"));
+    byte[] body = response.getResponse().getContentAsByteArray();
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+      assertEquals(
+          mapper.writeValueAsString(expectedCommons),
+          new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+  }
 }
@@ -1,5 +1,6 @@
 package edu.ucsb.cs156.example.controllers;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -7,37 +8,64 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.jobs.ImportUCSBDiningCommonsMenuItemsJob;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.ExportFormat;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkUpdateService;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.services.JsonStreamService;
+import edu.ucsb.cs156.example.services.StreamingPermits;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.EntityManager;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.multipart.MultipartFile;
 
 @WebMvcTest(controllers = UCSBDiningCommonsMenuItemController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, JsonStreamService.class, StreamingPermits.class})
 public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase {
 
   @MockBean UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
   @MockBean UserRepository userRepository;
 
+  @MockBean EntityManager entityManager;
+
+  @MockBean PlatformTransactionManager transactionManager;
+
+  @MockBean BulkUpdateService bulkUpdateService;
+
+  @MockBean ImportService importService;
+
   @Test
   public void logged_out_users_cannot_get_all() throws Exception {
     mockMvc
@@ -149,17 +177,20 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
     ArrayList<UCSBDiningCommonsMenuItem> expectedItems =
         new ArrayList<>(Arrays.asList(item1, item2));
 
-    when(ucsbDiningCommonsMenuItemRepository.findAll()).thenReturn(expectedItems);
+    when(ucsbDiningCommonsMenuItemRepository.streamAll()).thenReturn(expectedItems.stream());
 
     // act
-    MvcResult response =
+    MvcResult started =
         mockMvc
             .perform(get("/api/ucsbdiningcommonsmenuitems/all"))
-            .andExpect(status().isOk())
+            .andExpect(request().asyncStarted())
             .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
 
     // assert
-    verify(ucsbDiningCommonsMenuItemRepository, times(1)).findAll();
+    verify(ucsbDiningCommonsMenuItemRepository, times(1)).streamAll();
+    verify(entityManager, times(expectedItems.size())).detach(any());
     String expectedJson = mapper.writeValueAsString(expectedItems);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -327,4 +358,314 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommonsMenuItem with id 67 not found", json.get("message"));
   }
+
+  // Tests for GET /api/ucsbdiningcommonsmenuitems/page
+
+  @Test
+  public void logged_out_users_cannot_get_page() throws Exception {
+    mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void first_page_has_a_next_cursor_when_it_is_full() throws Exception {
+
+    // arrange
+
+    UCSBDiningCommonsMenuItem uCSBDiningCommonsMenuItem1 =
+        UCSBDiningCommonsMenuItem.builder().id(1L).name("item 1").build();
+    UCSBDiningCommonsMenuItem uCSBDiningCommonsMenuItem2 =
+        UCSBDiningCommonsMenuItem.builder().id(2L).name("item 2").build();
+    List<UCSBDiningCommonsMenuItem> page =
+        List.of(uCSBDiningCommonsMenuItem1, uCSBDiningCommonsMenuItem2);
+
+    when(ucsbDiningCommonsMenuItemRepository.findByIdGreaterThanOrderByIdAsc(
+            eq(0L), eq(Limit.of(2))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommonsmenuitems/page?limit=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(ucsbDiningCommonsMenuItemRepository, times(1))
+        .findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(2)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, 2L));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void last_page_has_no_next_cursor() throws Exception {
+
+    // arrange
+
+    UCSBDiningCommonsMenuItem uCSBDiningCommonsMenuItem3 =
+        UCSBDiningCommonsMenuItem.builder().id(3L).name("item 3").build();
+    List<UCSBDiningCommonsMenuItem> page = List.of(uCSBDiningCommonsMenuItem3);
+
+    when(ucsbDiningCommonsMenuItemRepository.findByIdGreaterThanOrderByIdAsc(
+            eq(2L), eq(Limit.of(CursorPage.DEFAULT_LIMIT))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommonsmenuitems/page?after=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(ucsbDiningCommonsMenuItemRepository, times(1))
+        .findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(CursorPage.DEFAULT_LIMIT)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  // Tests for POST /api/ucsbdiningcommonsmenuitems/batch
+
+  @Test
+  public void logged_out_users_cannot_post_batch() throws Exception {
+    mockMvc.perform(post("/api/ucsbdiningcommonsmenuitems/batch")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_batch() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdiningcommonsmenuitems/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403)); // only admins can post
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_a_batch_of_menu_items() throws Exception {
+    // arrange
+
+    UCSBDiningCommonsMenuItem sent1 =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(99L)
+            .diningCommonsCode("dc1")
+            .name("Item 1")
+            .station("Station 1")
+            .build();
+    UCSBDiningCommonsMenuItem sent2 =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(99L)
+            .diningCommonsCode("dc2")
+            .name("Item 2")
+            .station("Station 2")
+            .build();
+    UCSBDiningCommonsMenuItem unsaved1 =
+        UCSBDiningCommonsMenuItem.builder()
+            .diningCommonsCode("dc1")
+            .name("Item 1")
+            .station("Station 1")
+            .build();
+    UCSBDiningCommonsMenuItem unsaved2 =
+        UCSBDiningCommonsMenuItem.builder()
+            .diningCommonsCode("dc2")
+            .name("Item 2")
+            .station("Station 2")
+            .build();
+    UCSBDiningCommonsMenuItem saved1 =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(1L)
+            .diningCommonsCode("dc1")
+            .name("Item 1")
+            .station("Station 1")
+            .build();
+    UCSBDiningCommonsMenuItem saved2 =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(2L)
+            .diningCommonsCode("dc2")
+            .name("Item 2")
+            .station("Station 2")
+            .build();
+
+    when(ucsbDiningCommonsMenuItemRepository.saveAll(eq(List.of(unsaved1, unsaved2))))
+        .thenReturn(List.of(saved1, saved2));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdiningcommonsmenuitems/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(sent1, sent2)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsMenuItemRepository, times(1)).saveAll(List.of(unsaved1, unsaved2));
+    assertEquals("[1,2]", response.getResponse().getContentAsString());
+  }
+
+  private MockMultipartFile upload() {
+    return new MockMultipartFile("file", "import.csv", "text/csv", "name\nPasta\n".getBytes());
+  }
+
+  // Tests for POST /api/ucsbdiningcommonsmenuitems/import
+
+  @Test
+  public void logged_out_users_cannot_import_menu_items() throws Exception {
+    mockMvc
+        .perform(multipart("/api/ucsbdiningcommonsmenuitems/import").file(upload()).with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_import_menu_items() throws Exception {
+    mockMvc
+        .perform(multipart("/api/ucsbdiningcommonsmenuitems/import").file(upload()).with(csrf()))
+        .andExpect(status().is(403)); // only admins can import
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_import_menu_items_as_a_job() throws Exception {
+    // arrange
+
+    Job job = Job.builder().id(1L).status("running").build();
+    when(importService.launch(any(), any())).thenReturn(job);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                multipart("/api/ucsbdiningcommonsmenuitems/import")
+                    .file(upload())
+                    .param("format", "csv")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    ArgumentCaptor<ImportUCSBDiningCommonsMenuItemsJob> captor =
+        ArgumentCaptor.forClass(ImportUCSBDiningCommonsMenuItemsJob.class);
+    ArgumentCaptor<MultipartFile> file = ArgumentCaptor.forClass(MultipartFile.class);
+    verify(importService, times(1)).launch(captor.capture(), file.capture());
+    assertEquals(ExportFormat.CSV, captor.getValue().getFormat());
+    assertArrayEquals(upload().getBytes(), file.getValue().getBytes());
+    assertEquals(mapper.writeValueAsString(job), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_import_is_ndjson_by_default() throws Exception {
+    // arrange
+
+    when(importService.launch(any(), any())).thenReturn(Job.builder().build());
+
+    // act
+    mockMvc
+        .perform(multipart("/api/ucsbdiningcommonsmenuitems/import").file(upload()).with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    ArgumentCaptor<ImportUCSBDiningCommonsMenuItemsJob> captor =
+        ArgumentCaptor.forClass(ImportUCSBDiningCommonsMenuItemsJob.class);
+    verify(importService, times(1)).launch(captor.capture(), any());
+    assertEquals(ExportFormat.NDJSON, captor.getValue().getFormat());
+  }
+
+  // Tests for PATCH /api/ucsbdiningcommonsmenuitems/bulk
+
+  @Test
+  public void logged_out_users_cannot_bulk_update() throws Exception {
+    mockMvc.perform(patch("/api/ucsbdiningcommonsmenuitems/bulk")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_update() throws Exception {
+    mockMvc
+        .perform(
+            patch("/api/ucsbdiningcommonsmenuitems/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}")
+                .with(csrf()))
+        .andExpect(status().is(403)); // only admins can bulk update
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_ucsbdiningcommonsmenuitem() throws Exception {
+    // arrange
+
+    when(bulkUpdateService.update(
+            eq(UCSBDiningCommonsMenuItem.class),
+            eq(List.of(1L, 2L)),
+            eq(Map.of("station", "Closed"))))
+        .thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                patch("/api/ucsbdiningcommonsmenuitems/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("{\"ids\":[1,2],\"set\":{\"station\":\"Closed\"}}")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkUpdateService, times(1))
+        .update(UCSBDiningCommonsMenuItem.class, List.of(1L, 2L), Map.of("station", "Closed"));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2 UCSBDiningCommonsMenuItem updated", json.get("message"));
+  }
+
+  // Tests for DELETE /api/ucsbdiningcommonsmenuitems/bulk
+
+  @Test
+  public void logged_out_users_cannot_bulk_delete() throws Exception {
+    mockMvc
+        .perform(delete("/api/ucsbdiningcommonsmenuitems/bulk?ids=1&ids=2"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+    mockMvc
+        .perform(delete("/api/ucsbdiningcommonsmenuitems/bulk?ids=1&ids=2").with(csrf()))
+        .andExpect(status().is(403)); // only admins can bulk delete
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_ucsbdiningcommonsmenuitem() throws Exception {
+    // arrange
+
+    when(ucsbDiningCommonsMenuItemRepository.bulkDelete(eq(List.of(1L, 2L)))).thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/ucsbdiningcommonsmenuitems/bulk?ids=1&ids=2").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsMenuItemRepository, times(1)).bulkDelete(List.of(1L, 2L));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2 UCSBDiningCommonsMenuItem deleted", json.get("message"));
+  }
 }
@@ -1,6 +1,8 @@
 package edu.ucsb.cs156.example.controllers;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
@@ -9,34 +11,62 @@ import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.entities.UCSBOrganizations;
+import edu.ucsb.cs156.example.jobs.ImportUCSBOrganizationsJob;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.ExportFormat;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkUpdateService;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.services.JsonSnapshotService;
+import edu.ucsb.cs156.example.testconfig.SnapshotTestConfig;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.multipart.MultipartFile;
 
 @WebMvcTest(controllers = UCSBOrganizationsController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, SnapshotTestConfig.class})
 public class UCSBOrganizationsControllerTests extends ControllerTestCase {
   @MockBean UCSBOrganizationsRepository ucsbOrganizationsRepository;
 
   @MockBean UserRepository userRepository;
 
+  @Autowired JsonSnapshotService jsonSnapshotService;
+
+  @BeforeEach
+  public void dropSnapshots() {
+    jsonSnapshotService.invalidateAll();
+  }
+
+  @MockBean BulkUpdateService bulkUpdateService;
+
+  @MockBean ImportService importService;
+
   // Authorization tests for /api/ucsborganizations/all
 
   @Test
@@ -91,7 +121,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
             .inactive(true)
             .build();
 
-    when(ucsbOrganizationsRepository.findById(eq("org1"))).thenReturn(Optional.of(org1));
+    when(ucsbOrganizationsRepository.findCachedByOrgCode(eq("org1"))).thenReturn(Optional.of(org1));
 
     // act
     MvcResult response =
@@ -102,7 +132,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(ucsbOrganizationsRepository, times(1)).findById(eq("org1"));
+    verify(ucsbOrganizationsRepository, times(1)).findCachedByOrgCode(eq("org1"));
     String expectedJson = mapper.writeValueAsString(org1);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -114,7 +144,8 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
 
     // arrange
 
-    when(ucsbOrganizationsRepository.findById(eq("noorgg"))).thenReturn(Optional.empty());
+    when(ucsbOrganizationsRepository.findCachedByOrgCode(eq("noorgg")))
+        .thenReturn(Optional.empty());
 
     // act
     MvcResult response =
@@ -125,7 +156,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(ucsbOrganizationsRepository, times(1)).findById(eq("noorgg"));
+    verify(ucsbOrganizationsRepository, times(1)).findCachedByOrgCode(eq("noorgg"));
     Map<String, Object> json = responseToJson(response);
     assertEquals("EntityNotFoundException", json.get("type"));
     assertEquals("UCSBOrganizations with id noorgg not found", json.get("message"));
@@ -329,4 +360,407 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBOrganizations with id noorg not found", json.get("message"));
   }
+
+  // Tests for GET /api/ucsborganizations/page
+
+  @Test
+  public void logged_out_users_cannot_get_page() throws Exception {
+    mockMvc.perform(get("/api/ucsborganizations/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void first_page_has_a_next_cursor_when_it_is_full() throws Exception {
+
+    // arrange
+
+    UCSBOrganizations uCSBOrganizations1 =
+        UCSBOrganizations.builder().orgCode("a").orgTranslation("Org 1").build();
+    UCSBOrganizations uCSBOrganizations2 =
+        UCSBOrganizations.builder().orgCode("b").orgTranslation("Org 2").build();
+    List<UCSBOrganizations> page = List.of(uCSBOrganizations1, uCSBOrganizations2);
+
+    when(ucsbOrganizationsRepository.findByOrgCodeGreaterThanOrderByOrgCodeAsc(
+            eq(""), eq(Limit.of(2))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsborganizations/page?limit=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(ucsbOrganizationsRepository, times(1))
+        .findByOrgCodeGreaterThanOrderByOrgCodeAsc(eq(""), eq(Limit.of(2)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, "b"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void last_page_has_no_next_cursor() throws Exception {
+
+    // arrange
+
+    UCSBOrganizations uCSBOrganizations3 =
+        UCSBOrganizations.builder().orgCode("c").orgTranslation("Org 3").build();
+    List<UCSBOrganizations> page = List.of(uCSBOrganizations3);
+
+    when(ucsbOrganizationsRepository.findByOrgCodeGreaterThanOrderByOrgCodeAsc(
+            eq("b"), eq(Limit.of(CursorPage.DEFAULT_LIMIT))))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsborganizations/page?after=b"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(ucsbOrganizationsRepository, times(1))
+        .findByOrgCodeGreaterThanOrderByOrgCodeAsc(eq("b"), eq(Limit.of(CursorPage.DEFAULT_LIMIT)));
+    String expectedJson = mapper.writeValueAsString(new CursorPage<>(page, null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  // Tests for POST /api/ucsborganizations/batch
+
+  @Test
+  public void logged_out_users_cannot_post_batch() throws Exception {
+    mockMvc.perform(post("/api/ucsborganizations/batch")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_batch() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsborganizations/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403)); // only admins can post
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_a_batch_of_organizations() throws Exception {
+    // arrange
+
+    UCSBOrganizations item1 =
+        UCSBOrganizations.builder()
+            .orgCode("ORG1")
+            .orgTranslationShort("Org 1")
+            .orgTranslation("Organization 1")
+            .inactive(false)
+            .build();
+    UCSBOrganizations item2 =
+        UCSBOrganizations.builder()
+            .orgCode("ORG2")
+            .orgTranslationShort("Org 2")
+            .orgTranslation("Organization 2")
+            .inactive(false)
+            .build();
+
+    when(ucsbOrganizationsRepository.saveAll(eq(List.of(item1, item2))))
+        .thenReturn(List.of(item1, item2));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsborganizations/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(item1, item2)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbOrganizationsRepository, times(1)).saveAll(List.of(item1, item2));
+    assertEquals("[\"ORG1\",\"ORG2\"]", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_cannot_post_a_batch_with_a_repeated_orgCode() throws Exception {
+    // arrange
+
+    UCSBOrganizations item1 =
+        UCSBOrganizations.builder()
+            .orgCode("ORG1")
+            .orgTranslationShort("Org 1")
+            .orgTranslation("Organization 1")
+            .inactive(false)
+            .build();
+    UCSBOrganizations item2 =
+        UCSBOrganizations.builder()
+            .orgCode("ORG1")
+            .orgTranslationShort("Org 1")
+            .orgTranslation("Organization 1")
+            .inactive(false)
+            .build();
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsborganizations/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(item1, item2)))
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    verify(ucsbOrganizationsRepository, times(0)).saveAll(any());
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("InvalidBatchException", json.get("type"));
+    assertEquals("Key ORG1 appears more than once in the batch", json.get("message"));
+  }
+
+  private MockMultipartFile upload() {
+    return new MockMultipartFile("file", "import.csv", "text/csv", "orgCode\nZPR\n".getBytes());
+  }
+
+  // Tests for POST /api/ucsborganizations/import
+
+  @Test
+  public void logged_out_users_cannot_import_organizations() throws Exception {
+    mockMvc
+        .perform(multipart("/api/ucsborganizations/import").file(upload()).with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_import_organizations() throws Exception {
+    mockMvc
+        .perform(multipart("/api/ucsborganizations/import").file(upload()).with(csrf()))
+        .andExpect(status().is(403)); // only admins can import
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_import_organizations_as_a_job() throws Exception {
+    // arrange
+
+    Job job = Job.builder().id(1L).status("running").build();
+    when(importService.launch(any(), any())).thenReturn(job);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                multipart("/api/ucsborganizations/import")
+                    .file(upload())
+                    .param("format", "csv")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    ArgumentCaptor<ImportUCSBOrganizationsJob> captor =
+        ArgumentCaptor.forClass(ImportUCSBOrganizationsJob.class);
+    ArgumentCaptor<MultipartFile> file = ArgumentCaptor.forClass(MultipartFile.class);
+    verify(importService, times(1)).launch(captor.capture(), file.capture());
+    assertEquals(ExportFormat.CSV, captor.getValue().getFormat());
+    assertArrayEquals(upload().getBytes(), file.getValue().getBytes());
+    assertEquals(mapper.writeValueAsString(job), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_import_is_ndjson_by_default() throws Exception {
+    // arrange
+
+    when(importService.launch(any(), any())).thenReturn(Job.builder().build());
+
+    // act
+    mockMvc
+        .perform(multipart("/api/ucsborganizations/import").file(upload()).with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    ArgumentCaptor<ImportUCSBOrganizationsJob> captor =
+        ArgumentCaptor.forClass(ImportUCSBOrganizationsJob.class);
+    verify(importService, times(1)).launch(captor.capture(), any());
+    assertEquals(ExportFormat.NDJSON, captor.getValue().getFormat());
+  }
+
+  // Tests for PATCH /api/ucsborganizations/bulk
+
+  @Test
+  public void logged_out_users_cannot_bulk_update() throws Exception {
+    mockMvc.perform(patch("/api/ucsborganizations/bulk")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_update() throws Exception {
+    mockMvc
+        .perform(
+            patch("/api/ucsborganizations/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}")
+                .with(csrf()))
+        .andExpect(status().is(403)); // only admins can bulk update
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_ucsborganizations() throws Exception {
+    // arrange
+
+    when(bulkUpdateService.update(
+            eq(UCSBOrganizations.class), eq(List.of("ZPR", "SKY")), eq(Map.of("inactive", true))))
+        .thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                patch("/api/ucsborganizations/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("{\"ids\":[\"ZPR\",\"SKY\"],\"set\":{\"inactive\":true}}")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkUpdateService, times(1))
+        .update(UCSBOrganizations.class, List.of("ZPR", "SKY"), Map.of("inactive", true));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2 UCSBOrganizations updated", json.get("message"));
+  }
+
+  // Tests for DELETE /api/ucsborganizations/bulk
+
+  @Test
+  public void logged_out_users_cannot_bulk_delete() throws Exception {
+    mockMvc
+        .perform(delete("/api/ucsborganizations/bulk?orgCodes=ZPR&orgCodes=SKY"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+    mockMvc
+        .perform(delete("/api/ucsborganizations/bulk?orgCodes=ZPR&orgCodes=SKY").with(csrf()))
+        .andExpect(status().is(403)); // only admins can bulk delete
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_ucsborganizations() throws Exception {
+    // arrange
+
+    when(ucsbOrganizationsRepository.bulkDelete(eq(List.of("ZPR", "SKY")))).thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/ucsborganizations/bulk?orgCodes=ZPR&orgCodes=SKY").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbOrganizationsRepository, times(1)).bulkDelete(List.of("ZPR", "SKY"));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2 UCSBOrganizations deleted", json.get("message"));
+  }
+
+  // Tests for ETags and If-None-Match
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void get_all_is_not_modified_when_the_etag_matches() throws Exception {
+    // arrange
+    String etag =
+        mockMvc
+            .perform(get("/api/ucsborganizations/all"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsborganizations/all").header("If-None-Match", etag))
+            .andExpect(status().isNotModified())
+            .andReturn();
+
+    // assert
+    verify(ucsbOrganizationsRepository, times(1)).findAll();
+    assertEquals(etag, response.getResponse().getHeader("ETag"));
+    assertEquals("", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void get_page_and_get_by_id_are_not_modified_when_the_etag_matches() throws Exception {
+    // arrange
+    String etag =
+        mockMvc
+            .perform(get("/api/ucsborganizations/all"))
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    // act
+    MvcResult page =
+        mockMvc
+            .perform(get("/api/ucsborganizations/page").header("If-None-Match", etag))
+            .andExpect(status().isNotModified())
+            .andReturn();
+    mockMvc
+        .perform(get("/api/ucsborganizations?orgCode=ZPR").header("If-None-Match", etag))
+        .andExpect(status().isNotModified());
+
+    // assert
+    assertEquals("W/" + etag, page.getResponse().getHeader("ETag"));
+    verify(ucsbOrganizationsRepository, times(0))
+        .findByOrgCodeGreaterThanOrderByOrgCodeAsc(any(), any());
+    verify(ucsbOrganizationsRepository, times(0)).findCachedByOrgCode("ZPR");
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void etag_changes_after_a_write() throws Exception {
+    // arrange
+    String etag =
+        mockMvc
+            .perform(get("/api/ucsborganizations/all"))
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+    when(ucsbOrganizationsRepository.bulkDelete(eq(List.of("ZPR")))).thenReturn(1);
+    mockMvc
+        .perform(delete("/api/ucsborganizations/bulk?orgCodes=ZPR").with(csrf()))
+        .andExpect(status().isOk());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsborganizations/all").header("If-None-Match", etag))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbOrganizationsRepository, times(2))
+        .findAll(); // for the first GET, and to rebuild the snapshot after the write
+    assertNotEquals(etag, response.getResponse().getHeader("ETag"));
+  }
 }
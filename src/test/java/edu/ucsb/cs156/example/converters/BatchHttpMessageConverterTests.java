@@ -0,0 +1,146 @@
+package edu.ucsb.cs156.example.converters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.errors.InvalidBatchException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+
+public class BatchHttpMessageConverterTests {
+
+  private final BatchHttpMessageConverter converter =
+      new BatchHttpMessageConverter(new ObjectMapper(), 2);
+
+  private final Type listOfRestaurants =
+      new ParameterizedTypeReference<List<Restaurant>>() {}.getType();
+
+  private static MockHttpInputMessage input(String body, MediaType contentType) {
+    MockHttpInputMessage input = new MockHttpInputMessage(body.getBytes(StandardCharsets.UTF_8));
+    input.getHeaders().setContentType(contentType);
+    return input;
+  }
+
+  private static MockHttpInputMessage ndjson(String body) {
+    return input(body, MediaType.APPLICATION_NDJSON);
+  }
+
+  private static MockHttpInputMessage json(String body) {
+    return input(body, MediaType.APPLICATION_JSON);
+  }
+
+  @Test
+  public void reads_collections_of_json_or_ndjson_only() {
+    assertTrue(converter.canRead(listOfRestaurants, null, MediaType.APPLICATION_NDJSON));
+    assertFalse(converter.canRead(Restaurant.class, null, MediaType.APPLICATION_NDJSON));
+    assertTrue(converter.canRead(listOfRestaurants, null, MediaType.APPLICATION_JSON));
+    assertFalse(converter.canRead(Restaurant.class, null, MediaType.APPLICATION_JSON));
+    assertFalse(converter.canRead(listOfRestaurants, null, MediaType.TEXT_PLAIN));
+  }
+
+  @Test
+  public void never_writes() {
+    assertFalse(converter.canWrite(List.class, MediaType.APPLICATION_NDJSON));
+    assertFalse(converter.canWrite(listOfRestaurants, List.class, MediaType.APPLICATION_NDJSON));
+  }
+
+  @Test
+  public void reads_one_item_per_line() throws Exception {
+    MockHttpInputMessage input =
+        ndjson(
+            """
+            {"id":1,"name":"Chipotle","description":"Mexican"}
+
+            {"id":2,"name":"Freebirds","description":"Burritos"}
+            """);
+
+    Object result = converter.read(listOfRestaurants, null, input);
+
+    assertEquals(
+        List.of(
+            Restaurant.builder().id(1L).name("Chipotle").description("Mexican").build(),
+            Restaurant.builder().id(2L).name("Freebirds").description("Burritos").build()),
+        result);
+  }
+
+  @Test
+  public void rejects_a_line_that_is_not_json() {
+    MockHttpInputMessage input = ndjson("{\"name\":\"Chipotle\"}\n{oops\n");
+
+    HttpMessageNotReadableException e =
+        assertThrows(
+            HttpMessageNotReadableException.class,
+            () -> converter.read(listOfRestaurants, null, input));
+    assertTrue(e.getMessage().startsWith("Invalid NDJSON: "));
+  }
+
+  @Test
+  public void stops_reading_after_the_maximum_number_of_items() {
+    MockHttpInputMessage input = ndjson("{\"name\":\"A\"}\n{\"name\":\"B\"}\n{\"name\":\"C\"}\n");
+
+    InvalidBatchException e =
+        assertThrows(
+            InvalidBatchException.class, () -> converter.read(listOfRestaurants, null, input));
+    assertEquals("Batch has more than 2 items", e.getMessage());
+  }
+
+  @Test
+  public void reads_a_json_array_one_item_at_a_time() throws Exception {
+    MockHttpInputMessage input =
+        json(
+            """
+            [{"id":1,"name":"Chipotle","description":"Mexican"},
+             {"id":2,"name":"Freebirds","description":"Burritos"}]
+            """);
+
+    Object result = converter.read(listOfRestaurants, null, input);
+
+    assertEquals(
+        List.of(
+            Restaurant.builder().id(1L).name("Chipotle").description("Mexican").build(),
+            Restaurant.builder().id(2L).name("Freebirds").description("Burritos").build()),
+        result);
+  }
+
+  @Test
+  public void stops_reading_a_json_array_after_the_maximum_number_of_items() {
+    MockHttpInputMessage input = json("[{\"name\":\"A\"},{\"name\":\"B\"},{\"name\":\"C\"},{oops");
+
+    InvalidBatchException e =
+        assertThrows(
+            InvalidBatchException.class, () -> converter.read(listOfRestaurants, null, input));
+    assertEquals("Batch has more than 2 items", e.getMessage());
+  }
+
+  @Test
+  public void rejects_json_that_is_not_an_array() {
+    MockHttpInputMessage input = json("{\"name\":\"Chipotle\"}");
+
+    HttpMessageNotReadableException e =
+        assertThrows(
+            HttpMessageNotReadableException.class,
+            () -> converter.read(listOfRestaurants, null, input));
+    assertEquals("Expected a JSON array", e.getMessage());
+  }
+
+  @Test
+  public void rejects_a_json_array_that_is_cut_short() {
+    MockHttpInputMessage input = json("[{\"name\":\"Chipotle\"},");
+
+    HttpMessageNotReadableException e =
+        assertThrows(
+            HttpMessageNotReadableException.class,
+            () -> converter.read(listOfRestaurants, null, input));
+    assertTrue(e.getMessage().startsWith("Invalid JSON: "));
+  }
+}
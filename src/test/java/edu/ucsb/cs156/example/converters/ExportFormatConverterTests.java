@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.converters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.ucsb.cs156.example.models.ExportFormat;
+import org.junit.jupiter.api.Test;
+
+public class ExportFormatConverterTests {
+
+  private final ExportFormatConverter converter = new ExportFormatConverter();
+
+  @Test
+  void formats_are_converted_ignoring_case() {
+    assertEquals(ExportFormat.NDJSON, converter.convert("ndjson"));
+    assertEquals(ExportFormat.CSV, converter.convert(" CSV "));
+    assertEquals(ExportFormat.CSV, converter.convert("Csv"));
+  }
+
+  @Test
+  void unknown_formats_are_rejected() {
+    assertThrows(IllegalArgumentException.class, () -> converter.convert("xml"));
+  }
+}
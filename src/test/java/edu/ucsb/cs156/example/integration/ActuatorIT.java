@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@TestPropertySource(properties = "app.metrics.scrape-token=scrape-secret")
+public class ActuatorIT {
+  @Autowired public MockMvc mockMvc;
+
+  @MockBean UserRepository userRepository;
+
+  @Test
+  public void logged_out_users_cannot_get_actuator_endpoints() throws Exception {
+    mockMvc.perform(get("/actuator/mappings")).andExpect(status().is(403));
+    mockMvc.perform(get("/actuator/prometheus")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_get_actuator_endpoints() throws Exception {
+    mockMvc.perform(get("/actuator/metrics")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admins_can_get_actuator_endpoints() throws Exception {
+    mockMvc.perform(get("/actuator/mappings")).andExpect(status().isOk());
+    mockMvc.perform(get("/actuator/metrics")).andExpect(status().isOk());
+  }
+
+  @Test
+  public void prometheus_can_scrape_with_the_scrape_token() throws Exception {
+    mockMvc
+        .perform(get("/actuator/prometheus").header("Authorization", "Bearer scrape-secret"))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  public void scrape_token_only_opens_the_prometheus_endpoint() throws Exception {
+    mockMvc
+        .perform(get("/actuator/prometheus").header("Authorization", "Bearer wrong"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(get("/actuator/metrics").header("Authorization", "Bearer scrape-secret"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admins_can_still_read_prometheus() throws Exception {
+    mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isOk());
+  }
+}
@@ -0,0 +1,173 @@
+package edu.ucsb.cs156.example.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganizations;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationsRepository;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.services.TableVersionService;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ImportJobTests {
+
+  private final ImportService importService = mock(ImportService.class);
+
+  private final UCSBOrganizationsRepository ucsbOrganizationsRepository =
+      mock(UCSBOrganizationsRepository.class);
+
+  private final UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository =
+      mock(UCSBDiningCommonsMenuItemRepository.class);
+
+  private final TableVersionService tableVersionService = mock(TableVersionService.class);
+
+  private final JobContext ctx = mock(JobContext.class);
+
+  private final InputStream upload = new ByteArrayInputStream("{}".getBytes());
+
+  @BeforeEach
+  public void setup() throws Exception {
+    when(ctx.getJobId()).thenReturn(5L);
+    when(importService.openUpload(5)).thenReturn(upload);
+  }
+
+  private ImportUCSBOrganizationsJob organizationsJob() {
+    ImportUCSBOrganizationsJob job =
+        ImportUCSBOrganizationsJob.builder().format(ExportFormat.CSV).build();
+    ReflectionTestUtils.setField(job, "importService", importService);
+    ReflectionTestUtils.setField(job, "ucsbOrganizationsRepository", ucsbOrganizationsRepository);
+    ReflectionTestUtils.setField(job, "tableVersionService", tableVersionService);
+    return job;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Consumer<UCSBOrganizations> organizationsPrepare() throws Exception {
+    ArgumentCaptor<Consumer<UCSBOrganizations>> prepare = ArgumentCaptor.forClass(Consumer.class);
+    verify(importService)
+        .importFile(
+            eq(ExportFormat.CSV),
+            eq(upload),
+            eq(UCSBOrganizations.class),
+            eq(ucsbOrganizationsRepository),
+            prepare.capture(),
+            eq(ctx));
+    return prepare.getValue();
+  }
+
+  @Test
+  public void organizations_are_imported_and_the_upload_is_deleted() throws Exception {
+    // act
+    organizationsJob().accept(ctx);
+
+    // assert
+    Consumer<UCSBOrganizations> prepare = organizationsPrepare();
+    prepare.accept(UCSBOrganizations.builder().orgCode("ZPR").build());
+    IllegalArgumentException missing =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> prepare.accept(UCSBOrganizations.builder().build()));
+    assertEquals("orgCode is missing", missing.getMessage());
+    IllegalArgumentException blank =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> prepare.accept(UCSBOrganizations.builder().orgCode(" ").build()));
+    assertEquals("orgCode is missing", blank.getMessage());
+    verify(tableVersionService).bump(UCSBOrganizationsRepository.CACHE);
+    verify(importService).deleteUpload(5);
+  }
+
+  @Test
+  public void a_failed_organizations_import_still_bumps_the_table_and_deletes_the_upload()
+      throws Exception {
+    // arrange
+    when(importService.importFile(any(), any(), any(), any(), any(), any()))
+        .thenThrow(new IllegalArgumentException("Row 3: orgCode is missing"));
+
+    // act
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> organizationsJob().accept(ctx));
+
+    // assert
+    assertEquals("Row 3: orgCode is missing", e.getMessage());
+    verify(tableVersionService).bump(UCSBOrganizationsRepository.CACHE);
+    verify(importService).deleteUpload(5);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void menu_items_are_imported_with_new_ids() throws Exception {
+    // arrange
+    ImportUCSBDiningCommonsMenuItemsJob job =
+        ImportUCSBDiningCommonsMenuItemsJob.builder().format(ExportFormat.NDJSON).build();
+    ReflectionTestUtils.setField(job, "importService", importService);
+    ReflectionTestUtils.setField(
+        job, "ucsbDiningCommonsMenuItemRepository", ucsbDiningCommonsMenuItemRepository);
+
+    // act
+    job.accept(ctx);
+
+    // assert
+    ArgumentCaptor<Consumer<UCSBDiningCommonsMenuItem>> prepare =
+        ArgumentCaptor.forClass(Consumer.class);
+    verify(importService)
+        .importFile(
+            eq(ExportFormat.NDJSON),
+            eq(upload),
+            eq(UCSBDiningCommonsMenuItem.class),
+            eq(ucsbDiningCommonsMenuItemRepository),
+            prepare.capture(),
+            eq(ctx));
+    UCSBDiningCommonsMenuItem item = UCSBDiningCommonsMenuItem.builder().id(17L).build();
+    prepare.getValue().accept(item);
+    assertNull(item.getId());
+    verify(importService).deleteUpload(5);
+  }
+
+  @Test
+  public void an_upload_that_is_gone_fails_the_job_without_importing() throws Exception {
+    // arrange
+    when(importService.openUpload(5)).thenThrow(new IOException("gone"));
+
+    // act
+    IOException e = assertThrows(IOException.class, () -> organizationsJob().accept(ctx));
+
+    // assert
+    assertEquals("gone", e.getMessage());
+    verify(importService, never()).importFile(any(), any(), any(), any(), any(), any());
+    verify(importService).deleteUpload(5);
+  }
+
+  @Test
+  public void only_the_format_is_serialized() throws Exception {
+    // arrange
+    ObjectMapper mapper = new ObjectMapper();
+
+    // act
+    String payload = mapper.writeValueAsString(organizationsJob());
+    ImportUCSBOrganizationsJob restored =
+        mapper.readValue(payload, ImportUCSBOrganizationsJob.class);
+
+    // assert
+    assertEquals("{\"format\":\"CSV\"}", payload);
+    assertEquals(ExportFormat.CSV, restored.getFormat());
+  }
+}
@@ -0,0 +1,350 @@
+package edu.ucsb.cs156.example.load;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.temporaryRedirect;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static java.util.stream.Collectors.joining;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import edu.ucsb.cs156.example.services.wiremock.WiremockServiceImpl;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Load test that drives mixed read/write traffic across the {@code /api/*} controllers.
+ *
+ * <p>The application runs with the {@code integration} profile (in-memory H2), and Wiremock stands
+ * in for the OAuth provider, as in the Playwright tests, except that every synthetic user logs in
+ * as a different person: the username typed on the fake login page is passed through the code and
+ * the access token, and comes back as the {@code sub} and {@code email} of the userinfo response.
+ *
+ * <p>This class name deliberately does not end in {@code Test}/{@code Tests}, so {@code mvn test}
+ * does not run it. Run it with {@code mvn test -Dtest=ApiLoadSimulation}; see the README for the
+ * {@code load.*} system properties that size the run. The summary is logged and written to {@code
+ * target/load-test/ApiLoadSimulation.csv}.
+ */
+@Slf4j
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      "spring.security.oauth2.client.registration.my-oauth-provider.redirect-uri={baseUrl}/login/oauth2/code/{registrationId}",
+      "logging.level.sql=WARN",
+      "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+    })
+@ActiveProfiles("integration")
+public class ApiLoadSimulation {
+  static final int USERS = Integer.getInteger("load.users", 50);
+  static final int ADMINS = Integer.getInteger("load.admins", 10);
+  static final int SEED_ROWS = Integer.getInteger("load.seedRows", 100);
+  static final Duration WARMUP = Duration.ofSeconds(Long.getLong("load.warmupSeconds", 10));
+  static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.durationSeconds", 30));
+  static final double MAX_ERROR_RATE =
+      Double.parseDouble(System.getProperty("load.maxErrorRate", "0.01"));
+
+  private static final String WHEN = "2025-01-15T12:00:00";
+
+  @LocalServerPort private int port;
+
+  private static WireMockServer wireMockServer;
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final AtomicLong sequence = new AtomicLong();
+
+  /** Keys (ids or codes) of the rows created so far, by resource path */
+  private final Map<String, List<String>> keys = new ConcurrentHashMap<>();
+
+  /** The first {@link #ADMINS} synthetic users are admins; the rest are regular users */
+  @DynamicPropertySource
+  static void adminEmails(DynamicPropertyRegistry registry) {
+    registry.add(
+        "app.admin.emails",
+        () ->
+            IntStream.range(0, ADMINS)
+                .mapToObj(i -> SyntheticUser.email(userName(i)))
+                .collect(joining(",")));
+  }
+
+  @BeforeAll
+  public static void setupWireMock() {
+    wireMockServer = new WireMockServer(options().port(8090).globalTemplating(true));
+    WiremockServiceImpl.setupOauthMocks(wireMockServer, false);
+
+    // Later stubs take precedence: carry the username through code -> token -> userinfo
+    wireMockServer.stubFor(
+        post(urlPathEqualTo("/login"))
+            .willReturn(
+                temporaryRedirect(
+                    "{{formData request.body 'form' urlDecode=true}}{{{form.redirectUri}}}?code={{{form.username}}}&state={{{form.state}}}")));
+    wireMockServer.stubFor(
+        post(urlPathEqualTo("/oauth/token"))
+            .willReturn(
+                okJson(
+                    "{{formData request.body 'form' urlDecode=true}}{\"access_token\":\"{{form.code}}\",\"token_type\": \"Bearer\",\"expires_in\":\"3600\",\"scope\":\"https://www.googleapis.com/auth/userinfo.profile https://www.googleapis.com/auth/userinfo.email openid\"}")));
+    wireMockServer.stubFor(
+        get(urlPathEqualTo("/userinfo"))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withHeader("Content-Type", "application/json")
+                    .withBody(
+                        """
+                        {{regexExtract request.headers.Authorization 'Bearer (.+)' 'parts'}}{
+                          "sub": "{{parts.0}}",
+                          "name": "Load {{parts.0}}",
+                          "given_name": "Load",
+                          "family_name": "{{parts.0}}",
+                          "picture": "https://example.org/{{parts.0}}.png",
+                          "email": "{{parts.0}}@ucsb.edu",
+                          "email_verified": true,
+                          "locale": "en",
+                          "hd": "ucsb.edu"
+                        }
+                        """)));
+
+    wireMockServer.start();
+  }
+
+  @AfterAll
+  public static void teardownWiremock() {
+    wireMockServer.stop();
+  }
+
+  static String userName(int i) {
+    return "loaduser" + i;
+  }
+
+  /** One kind of request, picked with probability proportional to its weight. */
+  record Operation(String name, int weight, boolean adminOnly, Call call) {}
+
+  @FunctionalInterface
+  interface Call {
+    HttpResponse<String> send(SyntheticUser user) throws IOException, InterruptedException;
+  }
+
+  /**
+   * A CRUD controller, described by its path, the request parameter and JSON field that hold its
+   * key, and how to build the query string of its {@code /post} endpoint from a unique number.
+   */
+  record Resource(String path, String keyParam, LongFunction<String> postQuery) {}
+
+  List<Resource> resources() {
+    return List.of(
+        new Resource(
+            "/api/articles",
+            "id",
+            n ->
+                "title=Article-%d&url=https://example.org/%d&explanation=load&email=%s&dateAdded=%s"
+                    .formatted(n, n, "cgaucho@ucsb.edu", WHEN)),
+        new Resource(
+            "/api/helprequest",
+            "id",
+            n ->
+                "requesterEmail=s%d@ucsb.edu&teamId=f25-%d&tableOrBreakoutRoom=%d&explanation=load&solved=%b&requestTime=%s"
+                    .formatted(n, n % 20, n % 12, n % 2 == 0, WHEN)),
+        new Resource(
+            "/api/menuitemreview",
+            "id",
+            n ->
+                "itemId=%d&reviewerEmail=r%d@ucsb.edu&stars=%d&dateReviewed=%s&comments=load"
+                    .formatted(n % 50, n, n % 5 + 1, WHEN)),
+        new Resource(
+            "/api/recommendationrequests",
+            "id",
+            n ->
+                "requesterEmail=s%d@ucsb.edu&professorEmail=p%d@ucsb.edu&explanation=load&dateRequested=%s&dateNeeded=%s&done=%b"
+                    .formatted(n, n % 30, WHEN, WHEN, n % 3 == 0)),
+        new Resource(
+            "/api/restaurants", "id", n -> "name=Restaurant-%d&description=load".formatted(n)),
+        new Resource(
+            "/api/ucsbdates",
+            "id",
+            n -> "quarterYYYYQ=2025%d&name=Date-%d&localDateTime=%s".formatted(n % 4 + 1, n, WHEN)),
+        new Resource(
+            "/api/ucsbdiningcommons",
+            "code",
+            n ->
+                "code=dc%d&name=Commons-%d&hasSackMeal=true&hasTakeOutMeal=false&hasDiningCam=true&latitude=34.41&longitude=-119.85"
+                    .formatted(n, n)),
+        new Resource(
+            "/api/ucsbdiningcommonsmenuitems",
+            "id",
+            n ->
+                "diningCommonsCode=dc%d&name=Item-%d&station=Station-%d"
+                    .formatted(n % 4, n, n % 8)),
+        new Resource(
+            "/api/ucsborganizations",
+            "orgCode",
+            n ->
+                "orgCode=ORG%d&orgTranslationShort=Org-%d&orgTranslation=Organization-%d&inactive=false"
+                    .formatted(n, n, n)));
+  }
+
+  /** The traffic mix: mostly reads, with writes from admins. */
+  List<Operation> operations() {
+    List<Operation> operations = new ArrayList<>();
+    for (Resource r : resources()) {
+      operations.add(
+          new Operation("GET " + r.path() + "/all", 2, false, u -> u.get(r.path() + "/all")));
+      operations.add(
+          new Operation(
+              "GET " + r.path() + "/page", 4, false, u -> u.get(r.path() + "/page?limit=50")));
+      operations.add(
+          new Operation(
+              "GET " + r.path() + "?" + r.keyParam(),
+              6,
+              false,
+              u -> u.get("%s?%s=%s".formatted(r.path(), r.keyParam(), randomKey(r)))));
+      operations.add(new Operation("POST " + r.path() + "/post", 2, true, u -> create(u, r)));
+    }
+    operations.add(new Operation("GET /api/currentUser", 4, false, u -> u.get("/api/currentUser")));
+    operations.add(new Operation("GET /api/systemInfo", 1, false, u -> u.get("/api/systemInfo")));
+    operations.add(new Operation("GET /api/admin/users", 1, true, u -> u.get("/api/admin/users")));
+    operations.add(new Operation("GET /api/jobs/all", 1, true, u -> u.get("/api/jobs/all")));
+    return operations;
+  }
+
+  private HttpResponse<String> create(SyntheticUser user, Resource r)
+      throws IOException, InterruptedException {
+    HttpResponse<String> response =
+        user.post(r.path() + "/post?" + r.postQuery().apply(sequence.incrementAndGet()));
+    if (response.statusCode() == 200) {
+      String key = mapper.readTree(response.body()).get(r.keyParam()).asText();
+      keys.computeIfAbsent(r.path(), k -> Collections.synchronizedList(new ArrayList<>())).add(key);
+    }
+    return response;
+  }
+
+  private String randomKey(Resource r) {
+    List<String> created = keys.get(r.path());
+    synchronized (created) {
+      return created.get(ThreadLocalRandom.current().nextInt(created.size()));
+    }
+  }
+
+  @Test
+  public void drive_mixed_traffic_across_the_api() throws Exception {
+    String baseUrl = "http://localhost:" + port;
+    List<SyntheticUser> users =
+        IntStream.range(0, USERS).mapToObj(i -> new SyntheticUser(baseUrl, userName(i))).toList();
+    List<Operation> operations = operations();
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<?>> logins = new ArrayList<>();
+      for (SyntheticUser user : users) {
+        logins.add(
+            executor.submit(
+                () -> {
+                  user.login();
+                  return null;
+                }));
+      }
+      for (Future<?> login : logins) {
+        login.get();
+      }
+    }
+    log.info("Logged in {} synthetic users ({} admins)", USERS, ADMINS);
+
+    SyntheticUser admin = users.get(0);
+    for (Resource r : resources()) {
+      for (int i = 0; i < SEED_ROWS; i++) {
+        create(admin, r);
+      }
+    }
+    log.info("Seeded {} rows per resource", SEED_ROWS);
+
+    LatencyReport report = new LatencyReport();
+    long measureFrom = System.nanoTime() + WARMUP.toNanos();
+    long end = measureFrom + DURATION.toNanos();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < users.size(); i++) {
+        SyntheticUser user = users.get(i);
+        boolean isAdmin = i < ADMINS;
+        List<Operation> allowed =
+            operations.stream().filter(o -> isAdmin || !o.adminOnly()).toList();
+        executor.submit(() -> drive(user, allowed, measureFrom, end, report));
+      }
+    }
+
+    log.info(
+        "Load test: {} users for {} after {} warmup\n{}",
+        USERS,
+        DURATION,
+        WARMUP,
+        report.format(DURATION));
+    report.writeCsv(Path.of("target", "load-test", "ApiLoadSimulation.csv"), DURATION);
+
+    assertTrue(report.count() > 0, "no requests completed during the measurement window");
+    assertTrue(
+        report.errorRate() <= MAX_ERROR_RATE,
+        "error rate %.4f is above %.4f".formatted(report.errorRate(), MAX_ERROR_RATE));
+  }
+
+  /** Sends requests back to back until {@code end}, recording those that start after warmup. */
+  private void drive(
+      SyntheticUser user,
+      List<Operation> operations,
+      long measureFrom,
+      long end,
+      LatencyReport report) {
+    int totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+    long start;
+    while ((start = System.nanoTime()) < end) {
+      Operation operation = pick(operations, totalWeight);
+      boolean ok = false;
+      try {
+        ok = operation.call().send(user).statusCode() / 100 == 2;
+      } catch (IOException e) {
+        log.debug("{} failed for {}", operation.name(), user.getName(), e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      if (start >= measureFrom) {
+        report.record(operation.name(), System.nanoTime() - start, ok);
+      }
+    }
+  }
+
+  private static Operation pick(List<Operation> operations, int totalWeight) {
+    int r = ThreadLocalRandom.current().nextInt(totalWeight);
+    for (Operation operation : operations) {
+      r -= operation.weight();
+      if (r < 0) {
+        return operation;
+      }
+    }
+    throw new IllegalStateException("weights do not add up");
+  }
+}
@@ -0,0 +1,140 @@
+package edu.ucsb.cs156.example.load;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/** Collects request latencies per operation and summarizes them as p50/p99 and throughput. */
+class LatencyReport {
+  private final Map<String, Samples> byOperation = new ConcurrentSkipListMap<>();
+
+  void record(String operation, long nanos, boolean ok) {
+    byOperation.computeIfAbsent(operation, k -> new Samples()).add(nanos, ok);
+  }
+
+  long count() {
+    return byOperation.values().stream().mapToLong(Samples::count).sum();
+  }
+
+  long errors() {
+    return byOperation.values().stream().mapToLong(Samples::errors).sum();
+  }
+
+  double errorRate() {
+    long count = count();
+    return count == 0 ? 0 : (double) errors() / count;
+  }
+
+  /**
+   * @param window how long the measurement ran, to compute throughput
+   * @return one row per operation plus a total row, as fixed-width text
+   */
+  String format(Duration window) {
+    StringBuilder sb = new StringBuilder();
+    String header = "%-45s %8s %7s %10s %10s %10s %10s%n";
+    String row = "%-45s %8d %7d %10.1f %10.2f %10.2f %10.2f%n";
+    sb.append(
+        header.formatted("operation", "count", "errors", "req/s", "p50 ms", "p99 ms", "max ms"));
+    List<Long> all = new ArrayList<>();
+    byOperation.forEach(
+        (name, samples) -> {
+          long[] sorted = samples.sorted();
+          Arrays.stream(sorted).forEach(all::add);
+          sb.append(
+              row.formatted(
+                  name,
+                  sorted.length,
+                  samples.errors(),
+                  sorted.length / seconds(window),
+                  millis(percentile(sorted, 50)),
+                  millis(percentile(sorted, 99)),
+                  millis(percentile(sorted, 100))));
+        });
+    long[] sorted = all.stream().mapToLong(Long::longValue).sorted().toArray();
+    sb.append(
+        row.formatted(
+            "TOTAL",
+            sorted.length,
+            errors(),
+            sorted.length / seconds(window),
+            millis(percentile(sorted, 50)),
+            millis(percentile(sorted, 99)),
+            millis(percentile(sorted, 100))));
+    return sb.toString();
+  }
+
+  /** Writes the same summary as {@link #format} as CSV, e.g. for plotting runs over time. */
+  void writeCsv(Path path, Duration window) throws IOException {
+    List<String> lines = new ArrayList<>();
+    lines.add("operation,count,errors,requests_per_second,p50_ms,p99_ms,max_ms");
+    byOperation.forEach(
+        (name, samples) -> {
+          long[] sorted = samples.sorted();
+          lines.add(
+              "%s,%d,%d,%.1f,%.2f,%.2f,%.2f"
+                  .formatted(
+                      name,
+                      sorted.length,
+                      samples.errors(),
+                      sorted.length / seconds(window),
+                      millis(percentile(sorted, 50)),
+                      millis(percentile(sorted, 99)),
+                      millis(percentile(sorted, 100))));
+        });
+    Files.createDirectories(path.getParent());
+    Files.write(path, lines);
+  }
+
+  /** Nearest-rank percentile of an already sorted array; 0 when there are no samples. */
+  static long percentile(long[] sorted, int percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+    return sorted[Math.max(rank, 1) - 1];
+  }
+
+  private static double seconds(Duration window) {
+    return window.toMillis() / 1000.0;
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+
+  private static final class Samples {
+    private long[] nanos = new long[1024];
+    private int count;
+    private long errors;
+
+    synchronized void add(long value, boolean ok) {
+      if (count == nanos.length) {
+        nanos = Arrays.copyOf(nanos, count * 2);
+      }
+      nanos[count++] = value;
+      if (!ok) {
+        errors++;
+      }
+    }
+
+    synchronized long count() {
+      return count;
+    }
+
+    synchronized long errors() {
+      return errors;
+    }
+
+    synchronized long[] sorted() {
+      long[] copy = Arrays.copyOf(nanos, count);
+      Arrays.sort(copy);
+      return copy;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package edu.ucsb.cs156.example.load;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * One simulated browser session. It logs in through the OAuth2 flow of the running application
+ * (whose provider is the Wiremock stand-in set up by {@link ApiLoadSimulation}), keeps its session
+ * and CSRF cookies, and sends API requests the way the frontend does.
+ */
+class SyntheticUser {
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  private final String baseUrl;
+  private final String name;
+  private final CookieManager cookies = new CookieManager();
+  private final HttpClient client;
+
+  /**
+   * @param baseUrl e.g. {@code http://localhost:12345}
+   * @param name the username typed on the fake login page; the email is derived from it
+   */
+  SyntheticUser(String baseUrl, String name) {
+    this.baseUrl = baseUrl;
+    this.name = name;
+    this.client =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .cookieHandler(cookies)
+            .connectTimeout(TIMEOUT)
+            .build();
+  }
+
+  static String email(String name) {
+    return name + "@ucsb.edu";
+  }
+
+  String getName() {
+    return name;
+  }
+
+  /**
+   * Follows the OAuth2 authorization code flow: the app redirects to the provider, the fake login
+   * form posts back the username, and the app exchanges the code and loads the userinfo.
+   */
+  void login() throws IOException, InterruptedException {
+    URI authorize =
+        location(
+            send(
+                HttpRequest.newBuilder(
+                    URI.create(baseUrl + "/oauth2/authorization/my-oauth-provider"))));
+    var query = UriComponentsBuilder.fromUri(authorize).build().getQueryParams();
+    String form =
+        "state=%s&redirectUri=%s&username=%s&password=password"
+            .formatted(
+                encode(decode(query.getFirst("state"))),
+                encode(decode(query.getFirst("redirect_uri"))),
+                encode(name));
+    URI callback =
+        location(
+            send(
+                HttpRequest.newBuilder(authorize.resolve("/login"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form))));
+    URI afterLogin = location(send(HttpRequest.newBuilder(callback)));
+    if (afterLogin.toString().contains("error")) {
+      throw new IllegalStateException("Login failed for %s: %s".formatted(name, afterLogin));
+    }
+    HttpResponse<String> currentUser = get("/api/currentUser");
+    if (currentUser.statusCode() != 200) {
+      throw new IllegalStateException(
+          "Login failed for %s: /api/currentUser returned %d"
+              .formatted(name, currentUser.statusCode()));
+    }
+  }
+
+  HttpResponse<String> get(String path) throws IOException, InterruptedException {
+    return client.send(
+        HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT).GET().build(),
+        HttpResponse.BodyHandlers.ofString());
+  }
+
+  /** Sends a POST with no body, carrying the CSRF token like the frontend's axios config does. */
+  HttpResponse<String> post(String path) throws IOException, InterruptedException {
+    return client.send(
+        HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(TIMEOUT)
+            .header("X-XSRF-TOKEN", csrfToken())
+            .POST(HttpRequest.BodyPublishers.noBody())
+            .build(),
+        HttpResponse.BodyHandlers.ofString());
+  }
+
+  private String csrfToken() {
+    return cookies.getCookieStore().get(URI.create(baseUrl)).stream()
+        .filter(c -> c.getName().equals("XSRF-TOKEN"))
+        .map(HttpCookie::getValue)
+        .findFirst()
+        .orElse("");
+  }
+
+  private HttpResponse<Void> send(HttpRequest.Builder request)
+      throws IOException, InterruptedException {
+    return client.send(request.timeout(TIMEOUT).build(), HttpResponse.BodyHandlers.discarding());
+  }
+
+  private static URI location(HttpResponse<?> response) {
+    String location =
+        response
+            .headers()
+            .firstValue("Location")
+            .orElseThrow(
+                () ->
+                    new IllegalStateException(
+                        "Expected a redirect from %s but got %d"
+                            .formatted(response.uri(), response.statusCode())));
+    return response.uri().resolve(location);
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+
+  private static String decode(String value) {
+    return URLDecoder.decode(value, StandardCharsets.UTF_8);
+  }
+}
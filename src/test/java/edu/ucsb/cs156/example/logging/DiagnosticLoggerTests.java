@@ -0,0 +1,109 @@
+package edu.ucsb.cs156.example.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+public class DiagnosticLoggerTests {
+
+  private Logger logger;
+  private ListAppender<ILoggingEvent> appender;
+
+  @BeforeEach
+  public void setup() {
+    LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+    logger = context.getLogger("diagnostics-test-" + System.nanoTime());
+    logger.setAdditive(false);
+    appender = new ListAppender<>();
+    appender.start();
+    logger.addAppender(appender);
+  }
+
+  private List<String> messages() {
+    return appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+  }
+
+  @Test
+  public void disabled_level_does_not_evaluate_details() {
+    logger.setLevel(Level.INFO);
+    DiagnosticLogger diagnostics = new DiagnosticLogger(logger, 1, 10);
+    AtomicInteger evaluated = new AtomicInteger();
+
+    diagnostics.debug(
+        "event",
+        () -> {
+          evaluated.incrementAndGet();
+          return Map.of();
+        });
+
+    assertEquals(0, evaluated.get());
+    assertEquals(List.of(), messages());
+  }
+
+  @Test
+  public void enabled_level_writes_event_with_key_values() {
+    logger.setLevel(Level.DEBUG);
+    DiagnosticLogger diagnostics = new DiagnosticLogger(logger, 1, 10);
+
+    diagnostics.debug("getCurrentUser", () -> Map.of("user", "cgaucho"));
+    diagnostics.info("started", () -> Map.of());
+
+    assertEquals(List.of("getCurrentUser user=cgaucho", "started"), messages());
+    assertEquals("user", appender.list.get(0).getKeyValuePairs().get(0).key);
+    assertEquals("cgaucho", appender.list.get(0).getKeyValuePairs().get(0).value);
+    assertEquals(Level.INFO, appender.list.get(1).getLevel());
+  }
+
+  @Test
+  public void only_every_nth_call_is_sampled() {
+    logger.setLevel(Level.DEBUG);
+    DiagnosticLogger diagnostics = new DiagnosticLogger(logger, 3, 100);
+
+    for (int i = 0; i < 7; i++) {
+      int n = i;
+      diagnostics.debug("call", () -> Map.of("n", n));
+    }
+
+    assertEquals(List.of("call n=0", "call n=3", "call n=6"), messages());
+  }
+
+  @Test
+  public void lines_over_the_rate_limit_are_dropped_and_counted() throws Exception {
+    logger.setLevel(Level.DEBUG);
+    DiagnosticLogger diagnostics = new DiagnosticLogger(logger, 1, 2);
+
+    for (int i = 0; i < 5; i++) {
+      int n = i;
+      diagnostics.debug("call", () -> Map.of("n", n));
+    }
+    Thread.sleep(1100);
+    diagnostics.debug("call", () -> Map.of("n", 5));
+
+    assertEquals(List.of("call n=0", "call n=1", "call n=5 suppressed=3"), messages());
+  }
+
+  @Test
+  public void getLogger_uses_class_name_and_defaults() {
+    DiagnosticLogger diagnostics = DiagnosticLogger.getLogger(DiagnosticLoggerTests.class);
+    Logger classLogger = (Logger) LoggerFactory.getLogger(DiagnosticLoggerTests.class);
+    classLogger.setLevel(Level.DEBUG);
+    classLogger.addAppender(appender);
+
+    for (int i = 0; i < DiagnosticLogger.DEFAULT_MAX_PER_SECOND + 1; i++) {
+      diagnostics.debug("call", () -> Map.of());
+    }
+
+    assertEquals(DiagnosticLogger.DEFAULT_MAX_PER_SECOND, messages().size());
+    classLogger.detachAppender(appender);
+  }
+}
@@ -0,0 +1,95 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
+
+@DataJpaTest
+public class JobsRepositoryTests {
+
+  @Autowired JobsRepository jobsRepository;
+
+  @Autowired JobLogLineRepository jobLogLineRepository;
+
+  @MockBean WiremockService mockWiremockService;
+
+  private Job job(String status, String log) {
+    return jobsRepository.save(Job.builder().status(status).log(log).build());
+  }
+
+  private void line(Job job, long seq, String message) {
+    jobLogLineRepository.save(
+        JobLogLine.builder().jobId(job.getId()).seq(seq).message(message).build());
+    jobsRepository.addToLogLength(job.getId(), message.length() + 1);
+  }
+
+  @Test
+  public void summaries_have_the_length_of_the_log_returned_for_the_job() {
+    Job withLines = job("complete", null);
+    line(withLines, 0, "Hello");
+    line(withLines, 1, "Goodbye");
+    Job withLegacyLog = job("error", "Hello\nGoodbye!");
+    Job withoutLog = job("queued", null);
+
+    List<JobSummary> summaries = jobsRepository.findAllSummaries();
+
+    assertEquals(3, summaries.size());
+    assertEquals(withLines.getId(), summaries.get(0).getId());
+    assertEquals("complete", summaries.get(0).getStatus());
+    assertEquals(withLines.getCreatedAt(), summaries.get(0).getCreatedAt());
+    assertEquals(withLines.getUpdatedAt(), summaries.get(0).getUpdatedAt());
+    assertEquals("Hello\nGoodbye".length(), summaries.get(0).getLogLength());
+    assertEquals(withLegacyLog.getId(), summaries.get(1).getId());
+    assertEquals("Hello\nGoodbye!".length(), summaries.get(1).getLogLength());
+    assertEquals(withoutLog.getId(), summaries.get(2).getId());
+    assertEquals(0, summaries.get(2).getLogLength());
+  }
+
+  @Test
+  public void summaries_can_be_paged_by_id() {
+    Job first = job("complete", null);
+    Job second = job("complete", null);
+    Job third = job("complete", null);
+
+    List<JobSummary> page = jobsRepository.findSummariesByIdGreaterThan(first.getId(), Limit.of(1));
+
+    assertEquals(1, page.size());
+    assertEquals(second.getId(), page.get(0).getId());
+    assertEquals(
+        List.of(third.getId()),
+        jobsRepository.findSummariesByIdGreaterThan(second.getId(), Limit.of(5)).stream()
+            .map(JobSummary::getId)
+            .toList());
+  }
+
+  @Test
+  public void saving_a_job_does_not_overwrite_its_log_length() {
+    Job job = job("running", null);
+    line(job, 0, "Hello");
+
+    job.setStatus("complete");
+    jobsRepository.save(job);
+
+    assertEquals("Hello".length(), jobsRepository.findAllSummaries().get(0).getLogLength());
+  }
+
+  @Test
+  public void finish_only_updates_a_job_whose_lease_is_held_by_the_owner() {
+    Job job = jobsRepository.save(Job.builder().status("running").leaseOwner("b").build());
+
+    assertEquals(0, jobsRepository.finish(job.getId(), "complete", "a", ZonedDateTime.now()));
+    assertEquals(1, jobsRepository.finish(job.getId(), "error", "b", ZonedDateTime.now()));
+
+    assertEquals("error", jobsRepository.findAllSummaries().get(0).getStatus());
+  }
+}
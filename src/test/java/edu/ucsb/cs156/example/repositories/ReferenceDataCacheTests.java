@@ -0,0 +1,115 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.services.TableVersionService;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.concurrent.atomic.AtomicReference;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.cache.CacheType;
+import org.springframework.boot.test.autoconfigure.core.AutoConfigureCache;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest
+@AutoConfigureCache(cacheProvider = CacheType.CAFFEINE)
+@Import(TableVersionService.class)
+public class ReferenceDataCacheTests {
+
+  @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired TableVersionService tableVersionService;
+
+  @Autowired TestEntityManager entityManager;
+
+  @Autowired EntityManagerFactory entityManagerFactory;
+
+  @MockBean WiremockService mockWiremockService;
+
+  /** Run once, the next time an entity is loaded, i.e. after its row was read */
+  private static final AtomicReference<Runnable> afterNextLoad = new AtomicReference<>();
+
+  private static boolean listening;
+
+  @BeforeEach
+  public void setup() {
+    if (!listening) {
+      entityManagerFactory
+          .unwrap(SessionFactoryImplementor.class)
+          .getServiceRegistry()
+          .getService(EventListenerRegistry.class)
+          .appendListeners(
+              EventType.POST_LOAD,
+              event -> {
+                Runnable action = afterNextLoad.getAndSet(null);
+                if (action != null) {
+                  action.run();
+                }
+              });
+      listening = true;
+    }
+    // the cache outlives the rows each test rolls back
+    tableVersionService.bump(UCSBDiningCommonsRepository.CACHE);
+  }
+
+  private UCSBDiningCommons commons(String code) {
+    return ucsbDiningCommonsRepository.save(
+        UCSBDiningCommons.builder().code(code).name(code).build());
+  }
+
+  @Test
+  public void find_all_is_served_from_the_cache_until_the_table_changes() {
+    commons("ortega");
+    assertEquals(1, ucsbDiningCommonsRepository.findAll().spliterator().getExactSizeIfKnown());
+
+    commons("carrillo");
+    assertEquals(1, ucsbDiningCommonsRepository.findAll().spliterator().getExactSizeIfKnown());
+
+    String etag = tableVersionService.etag(UCSBDiningCommonsRepository.CACHE);
+    tableVersionService.bump(UCSBDiningCommonsRepository.CACHE);
+    assertNotEquals(etag, tableVersionService.etag(UCSBDiningCommonsRepository.CACHE));
+    assertEquals(2, ucsbDiningCommonsRepository.findAll().spliterator().getExactSizeIfKnown());
+  }
+
+  @Test
+  public void find_cached_by_id_caches_missing_rows_too() {
+    assertTrue(ucsbDiningCommonsRepository.findCachedByCode("portola").isEmpty());
+
+    commons("portola");
+    assertTrue(ucsbDiningCommonsRepository.findCachedByCode("portola").isEmpty());
+    assertTrue(ucsbDiningCommonsRepository.findById("portola").isPresent());
+
+    tableVersionService.bump(UCSBDiningCommonsRepository.CACHE);
+    assertEquals(
+        "portola", ucsbDiningCommonsRepository.findCachedByCode("portola").get().getName());
+  }
+
+  @Test
+  public void rows_loaded_before_a_write_are_not_served_after_it() {
+    commons("ortega");
+    entityManager.flush();
+    entityManager.clear(); // so that findAll loads ortega from its row
+    // another request writes, and bumps the table, after findAll has read the rows but before it
+    // has put them in the cache
+    afterNextLoad.set(
+        () -> {
+          entityManager.persist(UCSBDiningCommons.builder().code("carrillo").name("c").build());
+          tableVersionService.bump(UCSBDiningCommonsRepository.CACHE);
+        });
+
+    assertEquals(1, ucsbDiningCommonsRepository.findAll().spliterator().getExactSizeIfKnown());
+
+    assertEquals(2, ucsbDiningCommonsRepository.findAll().spliterator().getExactSizeIfKnown());
+  }
+}
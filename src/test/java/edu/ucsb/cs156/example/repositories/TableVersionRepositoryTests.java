@@ -0,0 +1,38 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+@DataJpaTest
+public class TableVersionRepositoryTests {
+
+  @Autowired TableVersionRepository tableVersionRepository;
+
+  @MockBean WiremockService mockWiremockService;
+
+  @Test
+  public void the_cached_tables_start_at_version_0_and_increment_adds_one() {
+    // Arrange
+    assertEquals(0L, tableVersionRepository.findVersion("ucsbdates").orElseThrow());
+
+    // Act
+    int updated = tableVersionRepository.increment("ucsbdates");
+
+    // Assert
+    assertEquals(1, updated);
+    assertEquals(1L, tableVersionRepository.findVersion("ucsbdates").orElseThrow());
+    assertEquals(0L, tableVersionRepository.findVersion("ucsborganizations").orElseThrow());
+  }
+
+  @Test
+  public void increment_of_a_table_without_a_row_updates_nothing() {
+    assertEquals(0, tableVersionRepository.increment("jobs"));
+    assertTrue(tableVersionRepository.findVersion("jobs").isEmpty());
+  }
+}
@@ -0,0 +1,196 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.errors.InvalidBatchException;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest
+@Import({BulkUpdateService.class, JacksonAutoConfiguration.class})
+public class BulkUpdateServiceTests {
+
+  @Autowired BulkUpdateService bulkUpdateService;
+
+  @Autowired UCSBDateRepository ucsbDateRepository;
+
+  @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired EntityManager entityManager;
+
+  @MockBean WiremockService mockWiremockService;
+
+  private UCSBDate date(String name) {
+    return ucsbDateRepository.save(
+        UCSBDate.builder()
+            .name(name)
+            .quarterYYYYQ("20221")
+            .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+            .build());
+  }
+
+  private UCSBDiningCommons commons(String code) {
+    return ucsbDiningCommonsRepository.save(
+        UCSBDiningCommons.builder().code(code).name(code).hasSackMeal(false).build());
+  }
+
+  @Test
+  public void update_writes_converted_values_to_the_given_rows_only() {
+    UCSBDate first = date("first");
+    UCSBDate second = date("second");
+    UCSBDate third = date("third");
+
+    int updated =
+        bulkUpdateService.update(
+            UCSBDate.class,
+            List.of(first.getId(), second.getId()),
+            Map.of("quarterYYYYQ", "20224", "localDateTime", "2022-12-01T10:00:00"));
+    entityManager.clear();
+
+    assertEquals(2, updated);
+    for (UCSBDate date : List.of(first, second)) {
+      UCSBDate reloaded = ucsbDateRepository.findById(date.getId()).get();
+      assertEquals("20224", reloaded.getQuarterYYYYQ());
+      assertEquals(LocalDateTime.parse("2022-12-01T10:00:00"), reloaded.getLocalDateTime());
+      assertEquals(date.getName(), reloaded.getName());
+    }
+    assertEquals("20221", ucsbDateRepository.findById(third.getId()).get().getQuarterYYYYQ());
+  }
+
+  @Test
+  public void update_uses_the_entity_id_whatever_its_name() {
+    commons("ortega");
+    commons("carrillo");
+
+    int updated =
+        bulkUpdateService.update(
+            UCSBDiningCommons.class, List.of("ortega", "dlg"), Map.of("hasSackMeal", true));
+    entityManager.clear();
+
+    assertEquals(1, updated);
+    assertTrue(ucsbDiningCommonsRepository.findById("ortega").get().getHasSackMeal());
+    assertFalse(ucsbDiningCommonsRepository.findById("carrillo").get().getHasSackMeal());
+  }
+
+  @Test
+  public void update_can_set_nullable_fields_to_null() {
+    UCSBDate date = date("first");
+    Map<String, Object> values = new HashMap<>();
+    values.put("localDateTime", null);
+
+    bulkUpdateService.update(UCSBDate.class, List.of(date.getId()), values);
+    entityManager.clear();
+
+    assertNull(ucsbDateRepository.findById(date.getId()).get().getLocalDateTime());
+  }
+
+  @Test
+  public void update_rejects_empty_values() {
+    InvalidBatchException e =
+        assertThrows(
+            InvalidBatchException.class,
+            () -> bulkUpdateService.update(UCSBDate.class, List.of(1L), Collections.emptyMap()));
+    assertEquals("Nothing to update", e.getMessage());
+
+    e =
+        assertThrows(
+            InvalidBatchException.class,
+            () -> bulkUpdateService.update(UCSBDate.class, List.of(1L), null));
+    assertEquals("Nothing to update", e.getMessage());
+  }
+
+  @Test
+  public void update_rejects_unknown_fields() {
+    InvalidBatchException e =
+        assertThrows(
+            InvalidBatchException.class,
+            () -> bulkUpdateService.update(UCSBDate.class, List.of(1L), Map.of("color", "red")));
+    assertEquals("UCSBDate has no field color", e.getMessage());
+  }
+
+  @Test
+  public void update_rejects_the_id_field() {
+    InvalidBatchException e =
+        assertThrows(
+            InvalidBatchException.class,
+            () -> bulkUpdateService.update(UCSBDate.class, List.of(1L), Map.of("id", 7)));
+    assertEquals("Field id cannot be updated", e.getMessage());
+  }
+
+  @Test
+  public void update_rejects_associations() {
+    InvalidBatchException e =
+        assertThrows(
+            InvalidBatchException.class,
+            () -> bulkUpdateService.update(Job.class, List.of(1L), Map.of("createdBy", 1)));
+    assertEquals("Field createdBy cannot be updated", e.getMessage());
+  }
+
+  @Test
+  public void update_rejects_null_for_primitive_fields() {
+    Map<String, Object> values = new HashMap<>();
+    values.put("hasSackMeal", null);
+
+    InvalidBatchException e =
+        assertThrows(
+            InvalidBatchException.class,
+            () -> bulkUpdateService.update(UCSBDiningCommons.class, List.of("ortega"), values));
+    assertEquals("Field hasSackMeal cannot be null", e.getMessage());
+  }
+
+  @Test
+  public void update_rejects_values_of_the_wrong_type() {
+    InvalidBatchException e =
+        assertThrows(
+            InvalidBatchException.class,
+            () ->
+                bulkUpdateService.update(
+                    UCSBDate.class, List.of(1L), Map.of("localDateTime", "yesterday")));
+    assertEquals("Invalid value for field localDateTime: yesterday", e.getMessage());
+  }
+
+  @Test
+  public void update_rejects_fields_managed_by_jpa_or_entity_listeners() {
+    for (String field : List.of("createdAt", "updatedAt")) {
+      InvalidBatchException e =
+          assertThrows(
+              InvalidBatchException.class,
+              () ->
+                  bulkUpdateService.update(
+                      Job.class, List.of(1L), Map.of(field, "2022-01-03T00:00:00Z")));
+      assertEquals("Field %s cannot be updated".formatted(field), e.getMessage());
+    }
+  }
+
+  @Test
+  public void update_can_set_fields_with_an_updatable_column() {
+    Job job = Job.builder().status("complete").build();
+    entityManager.persist(job);
+
+    int updated = bulkUpdateService.update(Job.class, List.of(job.getId()), Map.of("log", "done"));
+    entityManager.clear();
+
+    assertEquals(1, updated);
+    assertEquals("done", entityManager.find(Job.class, job.getId()).getLog());
+  }
+}
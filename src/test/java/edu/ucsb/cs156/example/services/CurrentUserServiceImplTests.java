@@ -0,0 +1,169 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class CurrentUserServiceImplTests {
+
+  @Mock private UserRepository userRepository;
+
+  @Mock private ApplicationEventPublisher eventPublisher;
+
+  @InjectMocks private CurrentUserServiceImpl currentUserService;
+
+  private final User existing =
+      User.builder().id(1L).email("cgaucho@ucsb.edu").googleSub("sub-1").build();
+
+  @BeforeEach
+  void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(currentUserService, "cacheTtlMillis", 60_000L);
+    ReflectionTestUtils.setField(currentUserService, "cacheMaxSize", 100L);
+    ReflectionTestUtils.setField(currentUserService, "adminEmails", List.of("admin@ucsb.edu"));
+    currentUserService.buildCache();
+    newRequest();
+  }
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private void newRequest() {
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest()));
+  }
+
+  private void login(String sub, String email) {
+    DefaultOAuth2User principal =
+        new DefaultOAuth2User(
+            List.of(new SimpleGrantedAuthority("ROLE_USER")),
+            Map.of("sub", sub, "email", email, "email_verified", true),
+            "sub");
+    SecurityContextHolder.getContext()
+        .setAuthentication(
+            new OAuth2AuthenticationToken(principal, principal.getAuthorities(), "google"));
+  }
+
+  @Test
+  void getUser_returns_null_when_not_logged_in_with_oauth2() {
+    assertNull(currentUserService.getUser());
+    verify(userRepository, never()).findByEmail(any());
+  }
+
+  @Test
+  void getUser_is_memoized_for_the_request() {
+    login("sub-1", "cgaucho@ucsb.edu");
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(existing));
+
+    assertSame(existing, currentUserService.getUser());
+    currentUserService.invalidateAll();
+    assertSame(existing, currentUserService.getUser());
+
+    verify(userRepository, times(1)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  void getUser_is_cached_across_requests_by_sub() {
+    login("sub-1", "cgaucho@ucsb.edu");
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(existing));
+
+    currentUserService.getUser();
+    newRequest();
+    currentUserService.getUser();
+    RequestContextHolder.resetRequestAttributes();
+    assertSame(existing, currentUserService.getUser());
+
+    verify(userRepository, times(1)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  void invalidateAll_forces_a_new_lookup() {
+    login("sub-1", "cgaucho@ucsb.edu");
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(existing));
+
+    currentUserService.getUser();
+    currentUserService.invalidateAll();
+    newRequest();
+    currentUserService.getUser();
+
+    verify(userRepository, times(2)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  void admin_change_evicts_only_that_user() {
+    User other = User.builder().id(2L).email("other@ucsb.edu").googleSub("sub-2").build();
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(existing));
+    when(userRepository.findByEmail("other@ucsb.edu")).thenReturn(Optional.of(other));
+    login("sub-1", "cgaucho@ucsb.edu");
+    currentUserService.getUser();
+    newRequest();
+    login("sub-2", "other@ucsb.edu");
+    currentUserService.getUser();
+
+    currentUserService.onUserAdminChanged(new UserAdminChangedEvent("cgaucho@ucsb.edu"));
+    newRequest();
+    currentUserService.getUser();
+    newRequest();
+    login("sub-1", "cgaucho@ucsb.edu");
+    currentUserService.getUser();
+
+    verify(userRepository, times(2)).findByEmail("cgaucho@ucsb.edu");
+    verify(userRepository, times(1)).findByEmail("other@ucsb.edu");
+  }
+
+  @Test
+  void new_user_is_saved_once_and_cached() {
+    login("sub-3", "new@ucsb.edu");
+    when(userRepository.findByEmail("new@ucsb.edu")).thenReturn(Optional.empty());
+
+    User u = currentUserService.getUser();
+    newRequest();
+    assertSame(u, currentUserService.getUser());
+
+    assertEquals("sub-3", u.getGoogleSub());
+    verify(userRepository, times(1)).save(u);
+  }
+
+  @Test
+  void promoting_an_admin_publishes_event() {
+    User admin = User.builder().id(4L).email("admin@ucsb.edu").googleSub("sub-4").build();
+    login("sub-4", "admin@ucsb.edu");
+    when(userRepository.findByEmail("admin@ucsb.edu")).thenReturn(Optional.of(admin));
+
+    currentUserService.getUser();
+
+    assertTrue(admin.getAdmin());
+    verify(userRepository, times(1)).save(admin);
+    verify(eventPublisher, times(1)).publishEvent(new UserAdminChangedEvent("admin@ucsb.edu"));
+  }
+}
@@ -0,0 +1,238 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@DataJpaTest
+@Import({ExportService.class, StreamingPermits.class, JacksonAutoConfiguration.class})
+public class ExportServiceTests {
+
+  private static final List<ExportService.Column> REVIEW_COLUMNS =
+      List.of(
+          new ExportService.Column("id", "ID", Long.class),
+          new ExportService.Column("itemId", "ITEM_ID", Long.class),
+          new ExportService.Column("stars", "STARS", Integer.class),
+          new ExportService.Column("dateReviewed", "DATE_REVIEWED", LocalDateTime.class),
+          new ExportService.Column("comments", "COMMENTS", String.class));
+
+  private static final List<ExportService.Column> HELP_REQUEST_COLUMNS =
+      List.of(
+          new ExportService.Column("id", "ID", Long.class),
+          new ExportService.Column("teamId", "TEAM_ID", String.class),
+          new ExportService.Column("requestTime", "REQUEST_TIME", OffsetDateTime.class),
+          new ExportService.Column("explanation", "EXPLANATION", String.class),
+          new ExportService.Column("solved", "SOLVED", Boolean.class));
+
+  @Autowired ExportService exportService;
+
+  @Autowired MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired HelpRequestRepository helpRequestRepository;
+
+  @Autowired EntityManager entityManager;
+
+  @Autowired ObjectMapper mapper;
+
+  @Autowired StreamingPermits streamingPermits;
+
+  @MockBean WiremockService mockWiremockService;
+
+  private MenuItemReview review(long itemId, String comments) {
+    return menuItemReviewRepository.save(
+        MenuItemReview.builder()
+            .itemId(itemId)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(4)
+            .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+            .comments(comments)
+            .build());
+  }
+
+  private HelpRequest helpRequest(String teamId, String explanation) {
+    return helpRequestRepository.save(
+        HelpRequest.builder()
+            .requesterEmail("cgaucho@ucsb.edu")
+            .teamId(teamId)
+            .tableOrBreakoutRoom("7")
+            .requestTime(LocalDateTime.parse("2022-04-20T17:35:00"))
+            .explanation(explanation)
+            .solved(true)
+            .build());
+  }
+
+  private String write(ResponseEntity<StreamingResponseBody> response) throws IOException {
+    entityManager.flush();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    response.getBody().writeTo(out);
+    assertEquals(4, streamingPermits.available());
+    return out.toString();
+  }
+
+  @Test
+  public void rows_are_exported_as_ndjson() throws Exception {
+    MenuItemReview first = review(7, "I love it!");
+    MenuItemReview second = review(3, null);
+
+    ResponseEntity<StreamingResponseBody> response =
+        exportService.export(
+            ExportFormat.NDJSON, "menuitemreviews", "MENU_ITEM_REVIEWS", REVIEW_COLUMNS);
+    String[] lines = write(response).split("\n", -1);
+
+    assertEquals("application/x-ndjson", response.getHeaders().getContentType().toString());
+    assertEquals(
+        "attachment; filename=\"menuitemreviews.ndjson\"",
+        response.getHeaders().getFirst("Content-Disposition"));
+    assertEquals(3, lines.length);
+    assertEquals("", lines[2]);
+    Map<String, Object> expected = new LinkedHashMap<>();
+    expected.put("id", (int) first.getId());
+    expected.put("itemId", 7);
+    expected.put("stars", 4);
+    expected.put("dateReviewed", "2022-01-03T00:00:00");
+    expected.put("comments", "I love it!");
+    assertEquals(expected, mapper.readValue(lines[0], new TypeReference<Map<String, Object>>() {}));
+    expected.put("id", (int) second.getId());
+    expected.put("itemId", 3);
+    expected.put("comments", null);
+    assertEquals(expected, mapper.readValue(lines[1], new TypeReference<Map<String, Object>>() {}));
+  }
+
+  @Test
+  public void rows_are_exported_as_csv() throws Exception {
+    HelpRequest plain = helpRequest("s22-5pm-3", "Dokku problems");
+    HelpRequest quoted = helpRequest(null, "Says \"no\", then\r\nfails");
+
+    ResponseEntity<StreamingResponseBody> response =
+        exportService.export(
+            ExportFormat.CSV, "helprequests", "HELPREQUESTS", HELP_REQUEST_COLUMNS);
+    String csv = write(response);
+
+    assertEquals("text/csv", response.getHeaders().getContentType().toString());
+    assertEquals(
+        "attachment; filename=\"helprequests.csv\"",
+        response.getHeaders().getFirst("Content-Disposition"));
+    String requestTime =
+        csv.substring(csv.indexOf("s22-5pm-3,") + 10, csv.indexOf(",Dokku problems"));
+    assertEquals(
+        plain.getRequestTime().atZone(ZoneId.systemDefault()).toInstant(),
+        OffsetDateTime.parse(requestTime).toInstant());
+    assertEquals(
+        "id,teamId,requestTime,explanation,solved\r\n"
+            + "%d,s22-5pm-3,%s,Dokku problems,true\r\n".formatted(plain.getId(), requestTime)
+            + "%d,,%s,\"Says \"\"no\"\", then\r\nfails\",true\r\n"
+                .formatted(quoted.getId(), requestTime),
+        csv);
+  }
+
+  @Test
+  public void values_are_quoted_when_csv_needs_it() throws Exception {
+    for (String comments : List.of("a,b", "a\"b", "a\nb", "a\rb")) {
+      review(1, comments);
+    }
+
+    String csv =
+        write(
+            exportService.export(
+                ExportFormat.CSV,
+                "menuitemreviews",
+                "MENU_ITEM_REVIEWS",
+                List.of(new ExportService.Column("comments", "COMMENTS", String.class))));
+
+    assertEquals("comments\r\n\"a,b\"\r\n\"a\"\"b\"\r\n\"a\nb\"\r\n\"a\rb\"\r\n", csv);
+  }
+
+  @Test
+  public void values_that_look_like_formulas_are_exported_as_text() throws Exception {
+    for (String comments :
+        List.of("=HYPERLINK(\"http://x\")", "+1", "-1", "@SUM(A1)", "\tx", "\rx", "", "a=b")) {
+      review(1, comments);
+    }
+    review(-2, "fine");
+
+    String csv =
+        write(
+            exportService.export(
+                ExportFormat.CSV,
+                "menuitemreviews",
+                "MENU_ITEM_REVIEWS",
+                List.of(
+                    new ExportService.Column("itemId", "ITEM_ID", Long.class),
+                    new ExportService.Column("comments", "COMMENTS", String.class))));
+
+    assertEquals(
+        "itemId,comments\r\n"
+            + "1,\"'=HYPERLINK(\"\"http://x\"\")\"\r\n"
+            + "1,\"'+1\"\r\n"
+            + "1,\"'-1\"\r\n"
+            + "1,\"'@SUM(A1)\"\r\n"
+            + "1,\"'\tx\"\r\n"
+            + "1,\"'\rx\"\r\n"
+            + "1,\r\n"
+            + "1,a=b\r\n"
+            + "-2,fine\r\n",
+        csv);
+  }
+
+  @Test
+  public void an_empty_table_is_just_a_header_in_csv() throws Exception {
+    String csv =
+        write(
+            exportService.export(
+                ExportFormat.CSV, "menuitemreviews", "MENU_ITEM_REVIEWS", REVIEW_COLUMNS));
+
+    assertEquals("id,itemId,stars,dateReviewed,comments\r\n", csv);
+  }
+
+  @Test
+  public void errors_writing_the_response_are_rethrown() {
+    for (int i = 0; i < 100; i++) {
+      review(i, "x".repeat(200));
+    }
+    entityManager.flush();
+    OutputStream broken =
+        new OutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            throw new IOException("Broken pipe");
+          }
+        };
+
+    IOException e =
+        assertThrows(
+            IOException.class,
+            () ->
+                exportService
+                    .export(
+                        ExportFormat.NDJSON, "menuitemreviews", "MENU_ITEM_REVIEWS", REVIEW_COLUMNS)
+                    .getBody()
+                    .writeTo(broken));
+    assertEquals("Broken pipe", e.getMessage());
+  }
+}
@@ -0,0 +1,298 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganizations;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationsRepository;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@DataJpaTest
+@Import({ImportService.class, TableVersionService.class, JacksonAutoConfiguration.class})
+public class ImportServiceTests {
+
+  @Autowired ImportService importService;
+
+  @Autowired UCSBOrganizationsRepository ucsbOrganizationsRepository;
+
+  @Autowired UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @MockBean WiremockService mockWiremockService;
+
+  @MockBean JobService jobService;
+
+  JobContext ctx = mock(JobContext.class);
+
+  @BeforeEach
+  public void setup() {
+    ReflectionTestUtils.setField(importService, "batchSize", 2);
+  }
+
+  private InputStream file(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private long importOrganizations(ExportFormat format, String content) throws IOException {
+    return importService.importFile(
+        format,
+        file(content),
+        UCSBOrganizations.class,
+        ucsbOrganizationsRepository,
+        organization -> {},
+        ctx);
+  }
+
+  private long importMenuItems(String csv) throws IOException {
+    return importService.importFile(
+        ExportFormat.CSV,
+        file(csv),
+        UCSBDiningCommonsMenuItem.class,
+        ucsbDiningCommonsMenuItemRepository,
+        item -> item.setId(null),
+        ctx);
+  }
+
+  private List<String> orgCodes() {
+    List<String> orgCodes = new ArrayList<>();
+    ucsbOrganizationsRepository.findAll().forEach(org -> orgCodes.add(org.getOrgCode()));
+    return orgCodes.stream().sorted().toList();
+  }
+
+  @Test
+  public void imports_ndjson_in_batches_and_logs_progress() throws Exception {
+    // act
+    long imported =
+        importOrganizations(
+            ExportFormat.NDJSON,
+            """
+            {"orgCode":"ZPR","orgTranslationShort":"ZETA PHI RHO","orgTranslation":"ZETA PHI RHO","inactive":false}
+            {"orgCode":"SKY","orgTranslationShort":"SKYDIVING CLUB","orgTranslation":"SKYDIVING CLUB AT UCSB","inactive":false}
+
+            {"orgCode":"OSLI","orgTranslationShort":"STUDENT LIFE","orgTranslation":"OFFICE OF STUDENT LIFE","inactive":true}
+            """);
+
+    // assert
+    assertEquals(3, imported);
+    assertEquals(List.of("OSLI", "SKY", "ZPR"), orgCodes());
+    assertEquals(true, ucsbOrganizationsRepository.findById("OSLI").get().getInactive());
+    InOrder inOrder = inOrder(ctx);
+    inOrder.verify(ctx).log("Saved rows 1 to 2");
+    inOrder.verify(ctx).log("Saved rows 3 to 3");
+    inOrder.verify(ctx).log("Imported 3 UCSBOrganizations");
+  }
+
+  @Test
+  public void imports_csv_with_the_columns_named_in_the_header() throws Exception {
+    // act
+    long imported =
+        importOrganizations(
+            ExportFormat.CSV,
+            "\uFEFFinactive,orgCode,orgTranslationShort,orgTranslation\r\n"
+                + "true,ZPR,ZETA \"PHI\" RHO,\"ZETA PHI RHO, \"\"ZPR\"\"\"\r\n"
+                + "\r\n"
+                + "false,SKY,,\"SKYDIVING CLUB\n"
+                + "AT UCSB\"");
+
+    // assert
+    assertEquals(2, imported);
+    UCSBOrganizations zpr = ucsbOrganizationsRepository.findById("ZPR").get();
+    assertEquals(true, zpr.getInactive());
+    assertEquals("ZETA \"PHI\" RHO", zpr.getOrgTranslationShort());
+    assertEquals("ZETA PHI RHO, \"ZPR\"", zpr.getOrgTranslation());
+    UCSBOrganizations sky = ucsbOrganizationsRepository.findById("SKY").get();
+    assertEquals(false, sky.getInactive());
+    assertEquals(null, sky.getOrgTranslationShort());
+    assertEquals("SKYDIVING CLUB\nAT UCSB", sky.getOrgTranslation());
+  }
+
+  @Test
+  public void prepare_is_called_before_each_row_is_saved() throws Exception {
+    // act
+    long imported =
+        importMenuItems(
+            """
+            id,diningCommonsCode,name,station
+            17,ortega,Baked Pesto Pasta with Chicken,Entree Specials
+            17,portola,Tofu Banh Mi Sandwich (v),Entree Specials
+            """);
+
+    // assert
+    assertEquals(2, imported);
+    List<String> codes = new ArrayList<>();
+    ucsbDiningCommonsMenuItemRepository
+        .findAll()
+        .forEach(item -> codes.add(item.getDiningCommonsCode()));
+    assertEquals(List.of("ortega", "portola"), codes.stream().sorted().toList());
+  }
+
+  @Test
+  public void an_empty_file_imports_nothing() throws Exception {
+    assertEquals(0, importOrganizations(ExportFormat.CSV, ""));
+    assertEquals(0, importOrganizations(ExportFormat.NDJSON, "\n"));
+    assertEquals(List.of(), orgCodes());
+  }
+
+  @Test
+  public void a_row_with_the_wrong_number_of_values_stops_the_import() throws Exception {
+    // act
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () ->
+                importOrganizations(
+                    ExportFormat.CSV, "orgCode,orgTranslationShort\nA,a\nB,b\nC,c\nD\nE,e\n"));
+
+    // assert
+    assertEquals("Row 4: 1 values for 2 columns", e.getMessage());
+    assertEquals(List.of("A", "B"), orgCodes());
+  }
+
+  @Test
+  public void a_row_with_an_unclosed_quote_stops_the_import() {
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> importOrganizations(ExportFormat.CSV, "orgCode,orgTranslation\nA,\"a"));
+    assertEquals("Row 1: quoted value is not closed", e.getMessage());
+  }
+
+  @Test
+  public void a_csv_value_of_the_wrong_type_stops_the_import() {
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> importOrganizations(ExportFormat.CSV, "orgCode,inactive\nA,maybe\n"));
+    assertEquals(
+        "Row 1: Cannot deserialize value of type `boolean` from String \"maybe\": only"
+            + " \"true\"/\"True\"/\"TRUE\" or \"false\"/\"False\"/\"FALSE\" recognized",
+        e.getMessage());
+  }
+
+  @Test
+  public void invalid_json_stops_the_import() {
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () ->
+                importOrganizations(
+                    ExportFormat.NDJSON, "{\"orgCode\":\"A\"}\n{\"orgCode\":\"B\",}\n"));
+    assertEquals(
+        "Row 2: Unexpected character ('}' (code 125)): was expecting double-quote to start field"
+            + " name",
+        e.getMessage());
+  }
+
+  @Test
+  public void a_row_rejected_by_prepare_stops_the_import() {
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () ->
+                importService.importFile(
+                    ExportFormat.NDJSON,
+                    file("{\"orgCode\":\"A\"}\n"),
+                    UCSBOrganizations.class,
+                    ucsbOrganizationsRepository,
+                    organization -> {
+                      throw new IllegalArgumentException("no");
+                    },
+                    ctx));
+    assertEquals("Row 1: no", e.getMessage());
+    assertEquals(List.of(), orgCodes());
+  }
+
+  private Job launch(MockMultipartFile upload) throws IOException {
+    when(jobService.runAsJob(any(), any()))
+        .thenAnswer(
+            invocation -> {
+              Job job = Job.builder().id(5).build();
+              invocation.<Consumer<Job>>getArgument(1).accept(job);
+              return job;
+            });
+    return importService.launch(context -> {}, upload);
+  }
+
+  @Test
+  public void launch_saves_the_upload_in_chunks_that_the_job_reads_back() throws Exception {
+    // arrange
+    ReflectionTestUtils.setField(importService, "chunkSize", 4);
+
+    // act
+    Job job =
+        launch(new MockMultipartFile("file", "orgs.csv", "text/csv", "orgCode\nA\n".getBytes()));
+
+    // assert
+    assertEquals(5, job.getId());
+    try (InputStream in = importService.openUpload(5)) {
+      assertEquals('o', in.read());
+      assertEquals(0, in.read(new byte[4], 0, 0));
+      assertEquals("rgCode\nA\n", new String(in.readAllBytes()));
+      assertEquals(-1, in.read());
+      assertEquals(-1, in.read(new byte[4], 0, 4));
+    }
+  }
+
+  @Test
+  public void an_empty_upload_is_read_back_as_an_empty_file() throws Exception {
+    // act
+    launch(new MockMultipartFile("file", new byte[0]));
+
+    // assert
+    try (InputStream in = importService.openUpload(5)) {
+      assertEquals(-1, in.read());
+    }
+  }
+
+  @Test
+  public void launch_fails_when_the_upload_can_not_be_read() throws Exception {
+    // arrange
+    MockMultipartFile upload = mock(MockMultipartFile.class);
+    when(upload.getInputStream()).thenThrow(new IOException("connection reset"));
+
+    // act
+    IOException e = assertThrows(IOException.class, () -> launch(upload));
+
+    // assert
+    assertEquals("connection reset", e.getMessage());
+  }
+
+  @Test
+  public void a_deleted_upload_can_not_be_opened() throws Exception {
+    // arrange
+    launch(new MockMultipartFile("file", "{}".getBytes()));
+
+    // act
+    importService.deleteUpload(5);
+
+    // assert
+    IOException e = assertThrows(IOException.class, () -> importService.openUpload(5));
+    assertEquals("The uploaded file of the job is gone", e.getMessage());
+  }
+}
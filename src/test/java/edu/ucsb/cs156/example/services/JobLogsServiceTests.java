@@ -2,22 +2,31 @@ package edu.ucsb.cs156.example.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLineRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.services.jobs.JobService;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
 
 public class JobLogsServiceTests {
 
   @Mock private JobsRepository jobRepository;
 
+  @Mock private JobLogLineRepository jobLogLineRepository;
+
   @InjectMocks private JobService jobService;
 
   @BeforeEach
@@ -55,6 +64,26 @@ public class JobLogsServiceTests {
     assertEquals("", result);
   }
 
+  @Test
+  void test_getJobLogs_joins_log_lines_in_order() {
+    // Arrange
+    Long jobId = 4L;
+    Job job = Job.builder().build();
+    job.setLog("legacy log is ignored when there are log lines");
+    when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLineRepository.findByJobIdOrderBySeqAsc(jobId))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(jobId).seq(0).message("line one").build(),
+                JobLogLine.builder().jobId(jobId).seq(1).message("line two").build()));
+
+    // Act
+    String result = jobService.getJobLogs(jobId);
+
+    // Assert
+    assertEquals("line one\nline two", result);
+  }
+
   @Test
   void test_getJobLogs_job_not_found() {
     // Arrange
@@ -64,4 +93,93 @@ public class JobLogsServiceTests {
     // Act & Assert
     assertThrows(IllegalArgumentException.class, () -> jobService.getJobLogs(jobId));
   }
+
+  @Test
+  void test_getJobLogs_from_line_returns_the_following_lines() {
+    // Arrange
+    Long jobId = 5L;
+    when(jobRepository.findById(jobId)).thenReturn(Optional.of(Job.builder().build()));
+    when(jobLogLineRepository.findByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(jobId, 1L))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(jobId).seq(1).message("line two").build(),
+                JobLogLine.builder().jobId(jobId).seq(2).message("line three").build()));
+
+    // Act
+    String result = jobService.getJobLogs(jobId, 1L, null);
+
+    // Assert
+    assertEquals("line two\nline three", result);
+    verify(jobLogLineRepository, never()).findByJobIdOrderBySeqAsc(jobId);
+  }
+
+  @Test
+  void test_getJobLogs_tail_returns_the_last_lines_in_order() {
+    // Arrange
+    Long jobId = 6L;
+    when(jobRepository.findById(jobId)).thenReturn(Optional.of(Job.builder().build()));
+    when(jobLogLineRepository.findByJobIdAndSeqGreaterThanEqualOrderBySeqDesc(
+            jobId, 0L, Limit.of(2)))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(jobId).seq(9).message("line ten").build(),
+                JobLogLine.builder().jobId(jobId).seq(8).message("line nine").build()));
+
+    // Act
+    String result = jobService.getJobLogs(jobId, -3L, 2);
+
+    // Assert
+    assertEquals("line nine\nline ten", result);
+  }
+
+  @Test
+  void test_getJobLogs_returns_nothing_past_the_end_of_the_log() {
+    // Arrange
+    Long jobId = 7L;
+    when(jobRepository.findById(jobId)).thenReturn(Optional.of(Job.builder().build()));
+
+    // Act & Assert
+    assertEquals("", jobService.getJobLogs(jobId, 10L, null));
+    assertEquals("", jobService.getJobLogs(jobId, 10L, 5));
+  }
+
+  @Test
+  void test_getJobLogs_empty_tail_does_not_read_log_lines() {
+    // Arrange
+    Long jobId = 8L;
+    when(jobRepository.findById(jobId)).thenReturn(Optional.of(Job.builder().build()));
+
+    // Act
+    String result = jobService.getJobLogs(jobId, 0L, 0);
+
+    // Assert
+    assertEquals("", result);
+    verifyNoInteractions(jobLogLineRepository);
+  }
+
+  @Test
+  void test_getJobLogs_slices_legacy_log() {
+    // Arrange
+    Long jobId = 9L;
+    Job job = Job.builder().build();
+    job.setLog("one\ntwo\nthree\nfour");
+    when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+
+    // Act & Assert
+    assertEquals("two\nthree\nfour", jobService.getJobLogs(jobId, 1L, null));
+    assertEquals("three\nfour", jobService.getJobLogs(jobId, 0L, 2));
+    assertEquals("four", jobService.getJobLogs(jobId, 1L, 1));
+    assertEquals("two\nthree\nfour", jobService.getJobLogs(jobId, 1L, 10));
+    assertEquals("", jobService.getJobLogs(jobId, 10L, null));
+  }
+
+  @Test
+  void test_getJobLogs_partial_job_not_found() {
+    // Arrange
+    Long jobId = 3L;
+    when(jobRepository.findById(jobId)).thenReturn(Optional.empty());
+
+    // Act & Assert
+    assertThrows(IllegalArgumentException.class, () -> jobService.getJobLogs(jobId, 0L, 10));
+  }
 }
@@ -0,0 +1,223 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+public class JsonSnapshotServiceTests {
+
+  @Spy private ObjectMapper mapper = new ObjectMapper();
+
+  @Mock private TableVersionService tableVersionService;
+
+  @Mock private TaskExecutor executor;
+
+  @InjectMocks private JsonSnapshotService jsonSnapshotService;
+
+  private final List<Runnable> queued = new ArrayList<>();
+
+  private final AtomicInteger loads = new AtomicInteger();
+
+  private final Supplier<List<String>> rows =
+      () -> {
+        loads.incrementAndGet();
+        return Collections.nCopies(100, "Carrillo Dining Commons");
+      };
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    when(tableVersionService.etag(any())).thenReturn("\"v1\"");
+    when(tableVersionService.etag("commons")).thenReturn("\"commons-1\"");
+    doAnswer(inv -> queued.add(inv.getArgument(0))).when(executor).execute(any());
+  }
+
+  private ResponseEntity<byte[]> get(String acceptEncoding) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/commons/all");
+    if (acceptEncoding != null) {
+      request.addHeader("Accept-Encoding", acceptEncoding);
+    }
+    return jsonSnapshotService.respond(
+        "commons", rows, new ServletWebRequest(request, new MockHttpServletResponse()));
+  }
+
+  private static byte[] gunzip(byte[] bytes) throws IOException {
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      return in.readAllBytes();
+    }
+  }
+
+  @Test
+  void respond_serves_gzip_only_to_clients_that_accept_it() throws Exception {
+    byte[] json = mapper.writeValueAsBytes(rows.get());
+
+    ResponseEntity<byte[]> plain = get(null);
+    ResponseEntity<byte[]> gzipped = get("deflate, gzip;q=0.5");
+    ResponseEntity<byte[]> refused = get("gzip;q=0, deflate");
+    ResponseEntity<byte[]> other = get("br");
+
+    assertArrayEquals(json, plain.getBody());
+    assertEquals("Accept-Encoding", plain.getHeaders().getFirst("Vary"));
+    assertEquals("application/json", plain.getHeaders().getContentType().toString());
+    assertNull(plain.getHeaders().getFirst("Content-Encoding"));
+    assertEquals("gzip", gzipped.getHeaders().getFirst("Content-Encoding"));
+    assertTrue(gzipped.getBody().length < json.length);
+    assertArrayEquals(json, gunzip(gzipped.getBody()));
+    assertArrayEquals(json, refused.getBody());
+    assertArrayEquals(json, other.getBody());
+  }
+
+  @Test
+  void respond_returns_null_when_the_etag_matches() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/commons/all");
+    request.addHeader("If-None-Match", "\"commons-1\"");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    assertNull(
+        jsonSnapshotService.respond("commons", rows, new ServletWebRequest(request, response)));
+    assertEquals(304, response.getStatus());
+    assertEquals(0, loads.get());
+  }
+
+  @Test
+  void gzip_and_plain_json_have_different_etags() {
+    MockHttpServletResponse plain = new MockHttpServletResponse();
+    MockHttpServletResponse gzipped = new MockHttpServletResponse();
+    MockHttpServletRequest plainRequest = new MockHttpServletRequest("GET", "/api/commons/all");
+    MockHttpServletRequest gzipRequest = new MockHttpServletRequest("GET", "/api/commons/all");
+    gzipRequest.addHeader("Accept-Encoding", "gzip");
+    // a client that got the plain JSON, and now accepts gzip
+    gzipRequest.addHeader("If-None-Match", "\"commons-1\"");
+
+    jsonSnapshotService.respond("commons", rows, new ServletWebRequest(plainRequest, plain));
+    jsonSnapshotService.respond("commons", rows, new ServletWebRequest(gzipRequest, gzipped));
+
+    assertEquals("\"commons-1\"", plain.getHeader("ETag"));
+    assertEquals(200, gzipped.getStatus());
+    assertEquals("\"commons-1-gzip\"", gzipped.getHeader("ETag"));
+  }
+
+  @Test
+  void respond_returns_null_when_the_gzip_etag_matches() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/commons/all");
+    request.addHeader("Accept-Encoding", "gzip");
+    request.addHeader("If-None-Match", "\"commons-1-gzip\"");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    assertNull(
+        jsonSnapshotService.respond("commons", rows, new ServletWebRequest(request, response)));
+    assertEquals(304, response.getStatus());
+    assertEquals(0, loads.get());
+  }
+
+  @Test
+  void snapshots_are_reused_until_the_etag_changes() {
+    JsonSnapshotService.Snapshot first = jsonSnapshotService.get("commons", rows);
+    assertSame(first, jsonSnapshotService.get("commons", rows));
+    assertEquals(1, loads.get());
+
+    when(tableVersionService.etag("commons")).thenReturn("\"commons-2\"");
+    JsonSnapshotService.Snapshot second = jsonSnapshotService.get("commons", rows);
+
+    assertEquals("\"commons-2\"", second.etag());
+    assertEquals(2, loads.get());
+
+    jsonSnapshotService.invalidateAll();
+    jsonSnapshotService.get("commons", rows);
+    assertEquals(3, loads.get());
+  }
+
+  @Test
+  void small_snapshots_are_not_gzipped() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/empty/all");
+    request.addHeader("Accept-Encoding", "gzip");
+
+    ResponseEntity<byte[]> response =
+        jsonSnapshotService.respond(
+            "empty",
+            () -> List.of(),
+            new ServletWebRequest(request, new MockHttpServletResponse()));
+
+    assertNull(jsonSnapshotService.get("empty", () -> List.of()).gzip());
+    assertArrayEquals("[]".getBytes(), response.getBody());
+    assertNull(response.getHeaders().getFirst("Content-Encoding"));
+  }
+
+  @Test
+  void rows_that_cannot_be_serialized_are_an_error() {
+    assertThrows(UncheckedIOException.class, () -> jsonSnapshotService.get("bad", Object::new));
+  }
+
+  @Test
+  void changes_rebuild_the_snapshot_in_the_background_once() {
+    jsonSnapshotService.get("commons", rows);
+    when(tableVersionService.etag("commons")).thenReturn("\"commons-2\"");
+
+    jsonSnapshotService.onTableChanged(new TableChangedEvent("commons"));
+    jsonSnapshotService.onTableChanged(new TableChangedEvent("commons"));
+    assertEquals(1, queued.size());
+    queued.get(0).run();
+
+    assertEquals(2, loads.get());
+    assertEquals("\"commons-2\"", jsonSnapshotService.get("commons", rows).etag());
+    assertEquals(2, loads.get());
+
+    jsonSnapshotService.onTableChanged(new TableChangedEvent("commons"));
+    assertEquals(2, queued.size());
+  }
+
+  @Test
+  void changes_to_tables_without_a_snapshot_are_ignored() {
+    jsonSnapshotService.onTableChanged(new TableChangedEvent("commons"));
+
+    verify(executor, never()).execute(any());
+  }
+
+  @Test
+  void failed_rebuilds_are_logged_and_retried_on_the_next_request() {
+    AtomicInteger calls = new AtomicInteger();
+    Supplier<Object> flaky = () -> calls.incrementAndGet() == 2 ? new Object() : List.of("Ortega");
+    jsonSnapshotService.get("flaky", flaky);
+    when(tableVersionService.etag("flaky")).thenReturn("\"flaky-2\"");
+
+    jsonSnapshotService.onTableChanged(new TableChangedEvent("flaky"));
+    queued.get(0).run();
+
+    assertEquals("\"flaky-2\"", jsonSnapshotService.get("flaky", flaky).etag());
+    assertEquals(3, calls.get());
+    verify(executor, times(1)).execute(any());
+    assertFalse(queued.isEmpty());
+  }
+}
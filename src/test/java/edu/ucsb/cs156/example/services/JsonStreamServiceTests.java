@@ -0,0 +1,126 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@DataJpaTest
+@Import({JsonStreamService.class, StreamingPermits.class, JacksonAutoConfiguration.class})
+public class JsonStreamServiceTests {
+
+  @Autowired JsonStreamService jsonStreamService;
+
+  @Autowired MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired EntityManager entityManager;
+
+  @Autowired ObjectMapper mapper;
+
+  @Autowired StreamingPermits streamingPermits;
+
+  @MockBean WiremockService mockWiremockService;
+
+  private List<MenuItemReview> reviews(int count, String comments) {
+    List<MenuItemReview> reviews = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      reviews.add(
+          menuItemReviewRepository.save(
+              MenuItemReview.builder()
+                  .itemId(i)
+                  .reviewerEmail("reviewer%d@ucsb.edu".formatted(i))
+                  .stars(i % 5 + 1)
+                  .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                  .comments(comments)
+                  .build()));
+    }
+    entityManager.flush();
+    return reviews;
+  }
+
+  @Test
+  public void rows_are_written_as_a_json_array_and_detached() throws Exception {
+    List<MenuItemReview> reviews = reviews(3, "I love it!");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    jsonStreamService.jsonArray(menuItemReviewRepository::streamAll).writeTo(out);
+
+    assertEquals(mapper.writeValueAsString(reviews), out.toString());
+    for (MenuItemReview review : reviews) {
+      assertFalse(entityManager.contains(review));
+    }
+  }
+
+  @Test
+  public void an_empty_stream_is_an_empty_array() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    jsonStreamService.jsonArray(Stream::empty).writeTo(out);
+
+    assertEquals("[]", out.toString());
+  }
+
+  @Test
+  public void errors_writing_the_response_are_rethrown() {
+    reviews(100, "x".repeat(200));
+    OutputStream broken =
+        new OutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            throw new IOException("Broken pipe");
+          }
+        };
+
+    IOException e =
+        assertThrows(
+            IOException.class,
+            () -> jsonStreamService.jsonArray(menuItemReviewRepository::streamAll).writeTo(broken));
+    assertEquals("Broken pipe", e.getMessage());
+    assertEquals(4, streamingPermits.available());
+  }
+
+  @Test
+  public void a_stream_holds_a_permit_until_it_is_written() throws Exception {
+    StreamingResponseBody body = jsonStreamService.jsonArray(Stream::empty);
+    assertEquals(3, streamingPermits.available());
+
+    body.writeTo(new ByteArrayOutputStream());
+
+    assertEquals(4, streamingPermits.available());
+  }
+
+  @Test
+  public void no_stream_is_started_without_a_permit() {
+    List<StreamingPermits.Permit> taken = new ArrayList<>();
+    while (streamingPermits.available() > 0) {
+      taken.add(streamingPermits.acquire());
+    }
+    try {
+      assertThrows(
+          ResponseStatusException.class,
+          () -> jsonStreamService.jsonArray(menuItemReviewRepository::streamAll));
+    } finally {
+      taken.forEach(StreamingPermits.Permit::close);
+    }
+  }
+}
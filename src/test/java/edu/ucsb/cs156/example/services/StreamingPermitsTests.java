@@ -0,0 +1,38 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class StreamingPermitsTests {
+
+  private final StreamingPermits streamingPermits = new StreamingPermits(2);
+
+  @Test
+  public void permits_run_out_until_one_is_closed() {
+    StreamingPermits.Permit first = streamingPermits.acquire();
+    streamingPermits.acquire();
+    assertEquals(0, streamingPermits.available());
+
+    ResponseStatusException e =
+        assertThrows(ResponseStatusException.class, streamingPermits::acquire);
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+
+    first.close();
+    assertEquals(1, streamingPermits.available());
+    streamingPermits.acquire();
+  }
+
+  @Test
+  public void closing_a_permit_twice_releases_it_once() {
+    StreamingPermits.Permit permit = streamingPermits.acquire();
+
+    permit.close();
+    permit.close();
+
+    assertEquals(2, streamingPermits.available());
+  }
+}
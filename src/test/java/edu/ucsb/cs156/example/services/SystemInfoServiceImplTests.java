@@ -4,9 +4,14 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
 import edu.ucsb.cs156.example.models.SystemInfo;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.test.context.TestPropertySource;
@@ -32,6 +37,22 @@ class SystemInfoServiceImplTests {
     assertTrue(si.getGithubUrl().contains("/commit/"));
   }
 
+  @Test
+  void test_getSystemInfo_logs_result_at_debug() {
+    Logger logger = (Logger) LoggerFactory.getLogger(SystemInfoServiceImpl.class);
+    ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    appender.start();
+    logger.addAppender(appender);
+    logger.setLevel(Level.DEBUG);
+    try {
+      SystemInfo si = systemInfoService.getSystemInfo();
+      assertEquals("getSystemInfo systemInfo=" + si, appender.list.get(0).getFormattedMessage());
+    } finally {
+      logger.setLevel(null);
+      logger.detachAppender(appender);
+    }
+  }
+
   @Test
   void test_githubUrl() {
     assertEquals(
@@ -0,0 +1,111 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.TableVersion;
+import edu.ucsb.cs156.example.repositories.TableVersionRepository;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class TableVersionServiceTests {
+
+  @Mock private TableVersionRepository tableVersionRepository;
+
+  @Mock private CacheManager cacheManager;
+
+  @Mock private Cache cache;
+
+  @Mock private ApplicationEventPublisher eventPublisher;
+
+  @InjectMocks private TableVersionService tableVersionService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  void version_and_etags_come_from_the_table_versions_row() {
+    // Arrange
+    when(tableVersionRepository.findVersion("ucsbdates")).thenReturn(Optional.of(7L));
+
+    // Act and Assert
+    assertEquals(7L, tableVersionService.version("ucsbdates"));
+    assertEquals("\"ucsbdates-7\"", tableVersionService.etag("ucsbdates"));
+    assertEquals("W/\"ucsbdates-7\"", tableVersionService.weakEtag("ucsbdates"));
+  }
+
+  @Test
+  void version_of_a_table_without_a_row_is_0() {
+    // Arrange
+    when(tableVersionRepository.findVersion("jobs")).thenReturn(Optional.empty());
+
+    // Act and Assert
+    assertEquals(0L, tableVersionService.version("jobs"));
+  }
+
+  @Test
+  void bump_increments_the_version_and_empties_the_cache_of_the_table() {
+    // Arrange
+    when(tableVersionRepository.increment("ucsbdates")).thenReturn(1);
+    when(cacheManager.getCache("ucsbdates")).thenReturn(cache);
+
+    // Act
+    tableVersionService.bump("ucsbdates");
+
+    // Assert
+    InOrder order = inOrder(tableVersionRepository, cache, eventPublisher);
+    order.verify(tableVersionRepository).increment("ucsbdates");
+    order.verify(cache).clear();
+    order.verify(eventPublisher).publishEvent(new TableChangedEvent("ucsbdates"));
+    verify(tableVersionRepository, never()).save(any());
+  }
+
+  @Test
+  void bump_adds_the_row_of_a_table_that_has_none() {
+    // Arrange
+    when(tableVersionRepository.increment("jobs")).thenReturn(0);
+
+    // Act
+    tableVersionService.bump("jobs");
+
+    // Assert
+    verify(tableVersionRepository).save(TableVersion.builder().name("jobs").version(1).build());
+    verify(eventPublisher).publishEvent(new TableChangedEvent("jobs"));
+  }
+
+  @Test
+  void bump_in_a_transaction_publishes_the_event_after_commit() {
+    // Arrange
+    when(tableVersionRepository.increment("ucsbdates")).thenReturn(1);
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      // Act
+      tableVersionService.bump("ucsbdates");
+
+      // Assert
+      verifyNoInteractions(eventPublisher);
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+      verify(eventPublisher).publishEvent(new TableChangedEvent("ucsbdates"));
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+}
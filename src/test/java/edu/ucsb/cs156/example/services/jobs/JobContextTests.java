@@ -1,23 +1,161 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLineRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.util.List;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 public class JobContextTests {
+
+  private final JobsRepository jobsRepository = mock(JobsRepository.class);
+
+  @SuppressWarnings("unchecked")
+  private List<JobLogLine> savedBatch(JobLogLineRepository jobLogLineRepository) {
+    ArgumentCaptor<List<JobLogLine>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLineRepository, times(1)).saveAll(captor.capture());
+    return captor.getValue();
+  }
+
+  @Test
+  public void job_id_is_the_id_of_the_job_being_run() {
+    JobContext ctx =
+        new JobContext(
+            jobsRepository,
+            mock(JobLogLineRepository.class),
+            mock(JobLogHub.class),
+            Job.builder().id(17L).build(),
+            0,
+            2,
+            60_000);
+    assertEquals(17L, ctx.getJobId());
+  }
+
   @Test
-  public void when_jobs_repository_is_null_does_not_save() throws Exception {
+  public void log_buffers_lines_until_flush_lines_are_reached() throws Exception {
 
     // arrange
 
-    Job job1 = Job.builder().build();
-    JobContext ctx = new JobContext(null, job1);
+    JobLogLineRepository jobLogLineRepository = mock(JobLogLineRepository.class);
+    Job job1 = Job.builder().id(17L).build();
+    JobContext ctx =
+        new JobContext(
+            jobsRepository, jobLogLineRepository, mock(JobLogHub.class), job1, 0, 2, 60_000);
 
     // act
     ctx.log("This is a log message");
+    verify(jobLogLineRepository, never()).saveAll(any());
+    ctx.log("This is another log message");
+
+    // assert
+    List<JobLogLine> lines = savedBatch(jobLogLineRepository);
+    assertEquals(2, lines.size());
+
+    assertEquals(17L, lines.get(0).getJobId());
+    assertEquals(0L, lines.get(0).getSeq());
+    assertEquals("This is a log message", lines.get(0).getMessage());
+    assertNotNull(lines.get(0).getLoggedAt());
+
+    assertEquals(17L, lines.get(1).getJobId());
+    assertEquals(1L, lines.get(1).getSeq());
+    assertEquals("This is another log message", lines.get(1).getMessage());
+
+    assertNull(job1.getLog());
+    verify(jobsRepository, times(1))
+        .addToLogLength(17L, "This is a log message\nThis is another log message\n".length());
+  }
+
+  @Test
+  public void log_flushes_when_oldest_buffered_line_is_old_enough() throws Exception {
+
+    // arrange
+
+    JobLogLineRepository jobLogLineRepository = mock(JobLogLineRepository.class);
+    Job job1 = Job.builder().id(17L).build();
+    JobContext ctx =
+        new JobContext(
+            jobsRepository, jobLogLineRepository, mock(JobLogHub.class), job1, 0, 100, 0);
+
+    // act
+    ctx.log("This is a log message");
+
+    // assert
+    List<JobLogLine> lines = savedBatch(jobLogLineRepository);
+    assertEquals(1, lines.size());
+    assertEquals("This is a log message", lines.get(0).getMessage());
+  }
+
+  @Test
+  public void flush_writes_buffered_lines_once() throws Exception {
+
+    // arrange
+
+    JobLogLineRepository jobLogLineRepository = mock(JobLogLineRepository.class);
+    Job job1 = Job.builder().id(17L).build();
+    JobContext ctx =
+        new JobContext(
+            jobsRepository, jobLogLineRepository, mock(JobLogHub.class), job1, 0, 100, 60_000);
+
+    // act
+    ctx.flush();
+    ctx.log("This is a log message");
+    ctx.flush();
+    ctx.flush();
+
+    // assert
+    List<JobLogLine> lines = savedBatch(jobLogLineRepository);
+    assertEquals(1, lines.size());
+    assertEquals(0L, lines.get(0).getSeq());
+  }
+
+  @Test
+  public void log_continues_from_first_seq() throws Exception {
+
+    // arrange
+
+    JobLogLineRepository jobLogLineRepository = mock(JobLogLineRepository.class);
+    Job job1 = Job.builder().id(17L).build();
+    JobContext ctx =
+        new JobContext(
+            jobsRepository, jobLogLineRepository, mock(JobLogHub.class), job1, 5, 100, 60_000);
+
+    // act
+    ctx.log("This is a log message");
+    ctx.flush();
+
+    // assert
+    List<JobLogLine> lines = savedBatch(jobLogLineRepository);
+    assertEquals(5L, lines.get(0).getSeq());
+  }
+
+  @Test
+  public void a_line_without_a_message_adds_only_its_newline_to_the_log_length() throws Exception {
+
+    // arrange
+
+    JobLogLineRepository jobLogLineRepository = mock(JobLogLineRepository.class);
+    Job job1 = Job.builder().id(17L).build();
+    JobContext ctx =
+        new JobContext(
+            jobsRepository, jobLogLineRepository, mock(JobLogHub.class), job1, 0, 100, 60_000);
+
+    // act
+    ctx.log(null);
+    ctx.flush();
 
     // assert
-    assertEquals("This is a log message", job1.getLog());
+    assertNull(savedBatch(jobLogLineRepository).get(0).getMessage());
+    verify(jobsRepository, times(1)).addToLogLength(17L, 1);
   }
 }
@@ -0,0 +1,243 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public class JobLogHubTests {
+
+  private JobLogHub hub;
+  private SseEmitter emitter;
+
+  /** Drain tasks handed to the executor, run only when a test says so. */
+  private final List<Runnable> tasks = new ArrayList<>();
+
+  @BeforeEach
+  public void setup() {
+    hub = new JobLogHub();
+    ReflectionTestUtils.setField(hub, "executor", new SyncTaskExecutor());
+    ReflectionTestUtils.setField(hub, "queueSize", 1000);
+    emitter = mock(SseEmitter.class);
+  }
+
+  private void deferDrainTasks(int queueSize) {
+    ReflectionTestUtils.setField(hub, "executor", (TaskExecutor) tasks::add);
+    ReflectionTestUtils.setField(hub, "queueSize", queueSize);
+  }
+
+  private void runDrainTasks() {
+    while (!tasks.isEmpty()) {
+      tasks.remove(0).run();
+    }
+  }
+
+  private static JobLogLine line(long seq, String message) {
+    return JobLogLine.builder().jobId(7L).seq(seq).message(message).build();
+  }
+
+  /** The events sent to the emitter so far, in wire format. */
+  private List<String> sent() throws IOException {
+    ArgumentCaptor<SseEmitter.SseEventBuilder> captor =
+        ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+    verify(emitter, atLeastOnce()).send(captor.capture());
+    return captor.getAllValues().stream()
+        .map(b -> b.build().stream().map(d -> d.getData().toString()).collect(Collectors.joining()))
+        .toList();
+  }
+
+  @Test
+  public void replay_sends_stored_lines_then_events_published_meanwhile() throws Exception {
+    // arrange
+    JobLogHub.Subscription subscription = hub.subscribe(7L, emitter);
+
+    // act
+    hub.publishLine(line(1, "second"));
+    hub.publishLine(line(2, "third"));
+    hub.publishLine(JobLogLine.builder().jobId(8L).seq(2).message("other job").build());
+    subscription.replay(List.of(line(0, "first"), line(1, "second")), "running");
+    hub.publishLine(line(3, "fourth"));
+
+    // assert
+    assertEquals(
+        List.of(
+            "event:log\nid:0\ndata:first\n\n",
+            "event:log\nid:1\ndata:second\n\n",
+            "event:status\ndata:running\n\n",
+            "event:log\nid:2\ndata:third\n\n",
+            "event:log\nid:3\ndata:fourth\n\n"),
+        sent());
+    assertEquals(1, hub.subscriberCount(7L));
+  }
+
+  @Test
+  public void final_status_completes_the_stream() throws Exception {
+    // arrange
+    JobLogHub.Subscription subscription = hub.subscribe(7L, emitter);
+    subscription.replay(List.of(), "running");
+
+    // act
+    hub.publishStatus(7L, "complete");
+    hub.publishLine(line(0, "too late"));
+
+    // assert
+    assertEquals(
+        List.of("event:status\ndata:running\n\n", "event:status\ndata:complete\n\n"), sent());
+    verify(emitter, times(1)).complete();
+    assertEquals(0, hub.subscriberCount(7L));
+  }
+
+  @Test
+  public void replay_of_finished_job_completes_the_stream() throws Exception {
+    // arrange
+    JobLogHub.Subscription subscription = hub.subscribe(7L, emitter);
+
+    // act
+    subscription.replay(List.of(line(0, "done")), "error");
+
+    // assert
+    verify(emitter, times(1)).complete();
+    assertEquals(0, hub.subscriberCount(7L));
+  }
+
+  @Test
+  public void client_that_went_away_is_unsubscribed() throws Exception {
+    // arrange
+    IOException broken = new IOException("broken pipe");
+    doThrow(broken).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+    JobLogHub.Subscription subscription = hub.subscribe(7L, emitter);
+
+    // act
+    subscription.replay(List.of(line(0, "first")), "running");
+    hub.publishLine(line(1, "second"));
+
+    // assert
+    verify(emitter, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+    verify(emitter, times(1)).completeWithError(broken);
+    verify(emitter, never()).complete();
+    assertEquals(0, hub.subscriberCount(7L));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void emitter_callbacks_unsubscribe() {
+    // arrange
+    ArgumentCaptor<Runnable> onCompletion = ArgumentCaptor.forClass(Runnable.class);
+    ArgumentCaptor<Runnable> onTimeout = ArgumentCaptor.forClass(Runnable.class);
+    ArgumentCaptor<Consumer<Throwable>> onError = ArgumentCaptor.forClass(Consumer.class);
+    SseEmitter other = mock(SseEmitter.class);
+    SseEmitter third = mock(SseEmitter.class);
+    hub.subscribe(7L, emitter);
+    hub.subscribe(7L, other);
+    hub.subscribe(7L, third);
+    verify(emitter).onCompletion(onCompletion.capture());
+    verify(other).onTimeout(onTimeout.capture());
+    verify(third).onError(onError.capture());
+    assertEquals(3, hub.subscriberCount(7L));
+
+    // act and assert
+    onCompletion.getValue().run();
+    assertEquals(2, hub.subscriberCount(7L));
+    onTimeout.getValue().run();
+    assertEquals(1, hub.subscriberCount(7L));
+    onError.getValue().accept(new IOException("gone"));
+    assertEquals(0, hub.subscriberCount(7L));
+  }
+
+  @Test
+  public void publishing_never_writes_to_the_client() throws Exception {
+    // arrange
+    deferDrainTasks(1000);
+    JobLogHub.Subscription subscription = hub.subscribe(7L, emitter);
+    subscription.replay(List.of(), "running");
+
+    // act
+    hub.publishLine(line(0, "first"));
+    hub.publishLine(line(1, "second"));
+
+    // assert
+    verify(emitter, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+    assertEquals(1, tasks.size());
+    runDrainTasks();
+    assertEquals(
+        List.of(
+            "event:status\ndata:running\n\n",
+            "event:log\nid:0\ndata:first\n\n",
+            "event:log\nid:1\ndata:second\n\n"),
+        sent());
+  }
+
+  @Test
+  public void client_that_falls_behind_is_dropped() throws Exception {
+    // arrange
+    deferDrainTasks(2);
+    JobLogHub.Subscription subscription = hub.subscribe(7L, emitter);
+    subscription.replay(List.of(), "running");
+    runDrainTasks();
+
+    // act
+    hub.publishLine(line(0, "first"));
+    hub.publishLine(line(1, "second"));
+    hub.publishLine(line(2, "third"));
+    hub.publishLine(line(3, "fourth"));
+    runDrainTasks();
+
+    // assert
+    assertEquals(List.of("event:status\ndata:running\n\n"), sent());
+    verify(emitter, times(1)).complete();
+    assertEquals(0, hub.subscriberCount(7L));
+  }
+
+  @Test
+  public void client_that_falls_behind_during_replay_is_dropped() throws Exception {
+    // arrange
+    deferDrainTasks(1);
+    JobLogHub.Subscription subscription = hub.subscribe(7L, emitter);
+
+    // act
+    hub.publishLine(line(0, "first"));
+    hub.publishLine(line(1, "second"));
+    subscription.replay(List.of(), "running");
+    runDrainTasks();
+
+    // assert
+    verify(emitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+    verify(emitter, times(1)).complete();
+    assertEquals(0, hub.subscriberCount(7L));
+  }
+
+  @Test
+  public void events_for_a_stream_that_is_being_closed_are_ignored() throws Exception {
+    // arrange: another thread has closed the subscription, but not unsubscribed it yet
+    deferDrainTasks(1000);
+    JobLogHub.Subscription subscription = hub.subscribe(7L, emitter);
+    subscription.replay(List.of(), "running");
+    runDrainTasks();
+    ReflectionTestUtils.setField(subscription, "closed", true);
+
+    // act
+    hub.publishLine(line(0, "first"));
+
+    // assert
+    assertEquals(0, tasks.size());
+    verify(emitter, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+  }
+}
@@ -0,0 +1,144 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class JobQueueWorkerTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobLogHub jobLogHub;
+
+  @Mock private JobService jobService;
+
+  @Mock private TransactionTemplate transactionTemplate;
+
+  @Mock private ThreadPoolTaskExecutor jobsExecutor;
+
+  @InjectMocks private JobQueueWorker worker;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    when(transactionTemplate.execute(any()))
+        .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    when(jobsExecutor.getCorePoolSize()).thenReturn(1);
+    when(jobService.getInstanceId()).thenReturn("instance-1");
+    when(jobService.getLeaseMillis()).thenReturn(60_000L);
+    when(jobsRepository.save(any(Job.class))).thenAnswer(inv -> inv.getArgument(0));
+  }
+
+  @Test
+  void pollQueue_claims_and_submits_queued_job() throws Exception {
+    // Arrange
+    TestJob testJob = TestJob.builder().fail(true).sleepMs(3).build();
+    when(jobService.restore(TestJob.class.getName(), "{\"fail\":true,\"sleepMs\":3}"))
+        .thenReturn(testJob);
+    Job job =
+        Job.builder()
+            .id(5L)
+            .status("queued")
+            .jobType(TestJob.class.getName())
+            .payload("{\"fail\":true,\"sleepMs\":3}")
+            .build();
+    when(jobsRepository.findClaimable(any(), eq(Limit.of(1))))
+        .thenReturn(List.of(job))
+        .thenReturn(List.of());
+
+    // Act
+    worker.pollQueue();
+
+    // Assert
+    assertEquals("running", job.getStatus());
+    assertEquals("instance-1", job.getLeaseOwner());
+    assertNotNull(job.getLeaseExpiresAt());
+    verify(jobService).submit(job, testJob);
+  }
+
+  @Test
+  void pollQueue_fails_job_that_was_not_saved_in_the_queue() {
+    // Arrange
+    Job job = Job.builder().id(5L).status("running").jobType("SomeLambda").build();
+    when(jobsRepository.findClaimable(any(), any())).thenReturn(List.of(job)).thenReturn(List.of());
+
+    // Act
+    worker.pollQueue();
+
+    // Assert
+    verify(jobService).fail(job, "Job can not be resumed: it was not saved in the queue");
+    verify(jobService, never()).submit(any(), any());
+  }
+
+  @Test
+  void pollQueue_fails_job_whose_type_no_longer_exists() throws Exception {
+    // Arrange
+    when(jobService.restore("no.such.Job", "{}"))
+        .thenThrow(new ClassNotFoundException("no.such.Job"));
+    Job job = Job.builder().id(5L).status("queued").jobType("no.such.Job").payload("{}").build();
+    when(jobsRepository.findClaimable(any(), any())).thenReturn(List.of(job)).thenReturn(List.of());
+
+    // Act
+    worker.pollQueue();
+
+    // Assert
+    verify(jobService).fail(job, "Job can not be resumed: no.such.Job");
+    verify(jobService, never()).submit(any(), any());
+  }
+
+  @Test
+  void pollQueue_does_not_claim_when_executor_is_busy() {
+    // Arrange
+    when(jobsExecutor.getActiveCount()).thenReturn(1);
+
+    // Act
+    worker.pollQueue();
+
+    // Assert
+    verify(jobsRepository, never()).findClaimable(any(), any());
+  }
+
+  @Test
+  void renewLeases_extends_leases_of_running_jobs() {
+    // Arrange
+    when(jobService.getClaimedJobIds()).thenReturn(Set.of(1L, 2L));
+
+    // Act
+    worker.renewLeases();
+
+    // Assert
+    verify(jobsRepository, times(1)).renewLeases(eq(Set.of(1L, 2L)), eq("instance-1"), any());
+  }
+
+  @Test
+  void renewLeases_does_nothing_when_no_jobs_are_running() {
+    // Arrange
+    when(jobService.getClaimedJobIds()).thenReturn(Set.of());
+
+    // Act
+    worker.renewLeases();
+
+    // Assert
+    verify(jobsRepository, never()).renewLeases(any(), any(), any());
+  }
+}
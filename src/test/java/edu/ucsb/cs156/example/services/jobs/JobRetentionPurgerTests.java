@@ -0,0 +1,115 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.repositories.JobLogLineRepository;
+import edu.ucsb.cs156.example.repositories.JobUploadChunkRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class JobRetentionPurgerTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobLogLineRepository jobLogLineRepository;
+
+  @Mock private JobUploadChunkRepository jobUploadChunkRepository;
+
+  @Mock private TransactionTemplate transactionTemplate;
+
+  @InjectMocks private JobRetentionPurger purger;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    when(transactionTemplate.execute(any()))
+        .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    ReflectionTestUtils.setField(purger, "maxAgeDays", 30);
+    ReflectionTestUtils.setField(purger, "chunkSize", 2);
+  }
+
+  @Test
+  void purge_deletes_old_finished_jobs_in_chunks() {
+    // Arrange
+    when(jobsRepository.findFinishedBefore(any(), eq(Limit.of(2))))
+        .thenReturn(List.of(1L, 2L))
+        .thenReturn(List.of(3L));
+
+    // Act
+    ZonedDateTime start = ZonedDateTime.now();
+    purger.purge();
+
+    // Assert
+    ArgumentCaptor<ZonedDateTime> before = ArgumentCaptor.forClass(ZonedDateTime.class);
+    verify(jobsRepository, times(2)).findFinishedBefore(before.capture(), eq(Limit.of(2)));
+    assertTrue(!before.getValue().isBefore(start.minusDays(30)));
+    assertTrue(!before.getValue().isAfter(ZonedDateTime.now().minusDays(30)));
+    verify(jobLogLineRepository).deleteByJobIdIn(List.of(1L, 2L));
+    verify(jobUploadChunkRepository).deleteByJobIdIn(List.of(1L, 2L));
+    verify(jobsRepository).deleteByIdIn(List.of(1L, 2L));
+    verify(jobLogLineRepository).deleteByJobIdIn(List.of(3L));
+    verify(jobUploadChunkRepository).deleteByJobIdIn(List.of(3L));
+    verify(jobsRepository).deleteByIdIn(List.of(3L));
+    verify(transactionTemplate, times(2)).execute(any());
+  }
+
+  @Test
+  void purge_stops_after_an_empty_chunk() {
+    // Arrange
+    when(jobsRepository.findFinishedBefore(any(), eq(Limit.of(2))))
+        .thenReturn(List.of(1L, 2L))
+        .thenReturn(List.of());
+
+    // Act
+    purger.purge();
+
+    // Assert
+    verify(jobsRepository, times(2)).findFinishedBefore(any(), eq(Limit.of(2)));
+    verify(jobsRepository, times(1)).deleteByIdIn(any());
+    verify(jobLogLineRepository, times(1)).deleteByJobIdIn(any());
+  }
+
+  @Test
+  void purge_does_nothing_when_there_is_nothing_to_purge() {
+    // Arrange
+    when(jobsRepository.findFinishedBefore(any(), eq(Limit.of(2)))).thenReturn(List.of());
+
+    // Act
+    purger.purge();
+
+    // Assert
+    verify(jobsRepository, never()).deleteByIdIn(any());
+    verify(jobLogLineRepository, never()).deleteByJobIdIn(any());
+  }
+
+  @Test
+  void purge_is_disabled_when_max_age_is_zero() {
+    // Arrange
+    ReflectionTestUtils.setField(purger, "maxAgeDays", 0);
+
+    // Act
+    purger.purge();
+
+    // Assert
+    verifyNoInteractions(
+        jobsRepository, jobLogLineRepository, jobUploadChunkRepository, transactionTemplate);
+  }
+}
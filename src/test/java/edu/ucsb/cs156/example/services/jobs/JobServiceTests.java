@@ -0,0 +1,386 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.repositories.JobLogLineRepository;
+import edu.ucsb.cs156.example.repositories.JobUploadChunkRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class JobServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobLogHub jobLogHub;
+
+  @Mock private JobLogLineRepository jobLogLineRepository;
+
+  @Mock private JobUploadChunkRepository jobUploadChunkRepository;
+
+  @Mock private CurrentUserService currentUserService;
+
+  @Spy private ObjectMapper mapper = new ObjectMapper();
+
+  @Mock private AutowireCapableBeanFactory beanFactory;
+
+  @Mock private TransactionTemplate transactionTemplate;
+
+  @Mock private JobService self;
+
+  @InjectMocks private JobService jobService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobService, "self", self);
+    ReflectionTestUtils.setField(jobService, "leaseMillis", 60_000L);
+    ReflectionTestUtils.setField(jobService, "logFlushLines", 100);
+    ReflectionTestUtils.setField(jobService, "logFlushMillis", 60_000L);
+    when(jobsRepository.claim(anyLong(), any(), any(), any())).thenReturn(1);
+    when(jobsRepository.finish(anyLong(), any(), any(), any())).thenReturn(1);
+    doAnswer(
+            inv -> {
+              inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+              return null;
+            })
+        .when(transactionTemplate)
+        .executeWithoutResult(any());
+  }
+
+  @Test
+  void test_runAsJob_saves_job_in_queue_and_runs_it() {
+    // Act
+    Job job = jobService.runAsJob(TestJob.builder().fail(false).sleepMs(10).build());
+
+    // Assert
+    assertEquals("running", job.getStatus());
+    assertEquals(TestJob.class.getName(), job.getJobType());
+    assertEquals("{\"fail\":false,\"sleepMs\":10}", job.getPayload());
+    assertEquals(jobService.getInstanceId(), job.getLeaseOwner());
+    assertNotNull(job.getLeaseExpiresAt());
+    verify(jobsRepository, times(1)).save(job);
+    verify(self, times(1)).runJobAsync(eq(job), any(TestJob.class));
+    // still waiting for a thread of the executor, but its lease is renewed already
+    assertEquals(Set.of(job.getId()), jobService.getClaimedJobIds());
+  }
+
+  @Test
+  void test_runAsJob_leaves_job_queued_when_it_can_not_be_claimed() {
+    // Arrange
+    when(jobsRepository.claim(anyLong(), any(), any(), any())).thenReturn(0);
+
+    // Act
+    Job job = jobService.runAsJob(TestJob.builder().build());
+
+    // Assert
+    assertEquals("queued", job.getStatus());
+    assertNull(job.getLeaseOwner());
+    verify(self, never()).runJobAsync(any(Job.class), any(JobContextConsumer.class));
+  }
+
+  @Test
+  void test_runAsJob_marks_job_rejected_when_executor_is_full() {
+    // Arrange
+    doThrow(new TaskRejectedException("queue is full"))
+        .when(self)
+        .runJobAsync(any(Job.class), any(JobContextConsumer.class));
+
+    // Act
+    Job job = jobService.runAsJob(ctx -> ctx.log("never runs"));
+
+    // Assert
+    assertNull(job.getPayload());
+    assertEquals("rejected", job.getStatus());
+    assertNull(job.getLeaseOwner());
+    verify(jobsRepository, times(2)).save(job);
+    verify(jobLogHub).publishStatus(0L, "rejected");
+  }
+
+  @Test
+  void test_runAsJob_puts_serializable_job_back_in_queue_when_executor_is_full() {
+    // Arrange
+    doThrow(new TaskRejectedException("queue is full"))
+        .when(self)
+        .runJobAsync(any(Job.class), any(JobContextConsumer.class));
+
+    // Act
+    Job job = jobService.runAsJob(TestJob.builder().build());
+
+    // Assert
+    assertEquals("queued", job.getStatus());
+    assertNull(job.getLeaseOwner());
+    assertNull(job.getLeaseExpiresAt());
+    verify(jobsRepository, times(1)).release(job.getId());
+    assertEquals(Set.of(), jobService.getClaimedJobIds());
+    verify(jobsRepository, times(1)).save(job);
+    verify(jobLogHub).publishStatus(0L, "running");
+    verify(jobLogHub).publishStatus(0L, "queued");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void test_runJobAsync_appends_to_log_of_earlier_attempt() {
+    // Arrange
+    Job job = Job.builder().id(7L).status("running").leaseOwner("someone").build();
+    when(jobLogLineRepository.nextSeq(7L)).thenReturn(3L);
+
+    // Act
+    jobService.runJobAsync(job, ctx -> ctx.log("again"));
+
+    // Assert
+    ArgumentCaptor<Iterable<JobLogLine>> captor = ArgumentCaptor.forClass(Iterable.class);
+    verify(jobLogLineRepository).saveAll(captor.capture());
+    JobLogLine line = captor.getValue().iterator().next();
+    assertEquals(3L, line.getSeq());
+    assertEquals("complete", job.getStatus());
+    assertNull(job.getLeaseOwner());
+    assertEquals(Set.of(), jobService.getClaimedJobIds());
+    verify(jobLogHub).publishLine(line);
+    verify(jobLogHub).publishStatus(7L, "complete");
+  }
+
+  @Test
+  void test_runAsJob_prepares_the_job_in_the_transaction_that_queues_it() {
+    // Arrange
+    List<String> steps = new ArrayList<>();
+    doAnswer(
+            inv -> {
+              steps.add("begin");
+              inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+              steps.add("commit");
+              return null;
+            })
+        .when(transactionTemplate)
+        .executeWithoutResult(any());
+    when(jobsRepository.save(any()))
+        .thenAnswer(
+            inv -> {
+              steps.add("save");
+              return inv.getArgument(0);
+            });
+
+    // Act
+    Job job =
+        jobService.runAsJob(
+            TestJob.builder().build(), queued -> steps.add("prepare " + queued.getStatus()));
+
+    // Assert
+    assertEquals(List.of("begin", "save", "prepare queued", "commit"), steps);
+    assertEquals("running", job.getStatus());
+    verify(self, times(1)).runJobAsync(eq(job), any(TestJob.class));
+  }
+
+  @Test
+  void test_runAsJob_does_not_run_a_job_whose_preparation_failed() {
+    // Act
+    IllegalStateException e =
+        assertThrows(
+            IllegalStateException.class,
+            () ->
+                jobService.runAsJob(
+                    TestJob.builder().build(),
+                    queued -> {
+                      throw new IllegalStateException("disk full");
+                    }));
+
+    // Assert
+    assertEquals("disk full", e.getMessage());
+    verify(jobsRepository, never()).claim(anyLong(), any(), any(), any());
+    verify(self, never()).runJobAsync(any(Job.class), any(JobContextConsumer.class));
+  }
+
+  @Test
+  void test_deleteAllJobs_deletes_log_lines_and_uploads_before_jobs() {
+    // Arrange
+    when(jobsRepository.deleteAllJobs()).thenReturn(3);
+
+    // Act
+    int deleted = jobService.deleteAllJobs();
+
+    // Assert
+    assertEquals(3, deleted);
+    InOrder inOrder = inOrder(jobLogLineRepository, jobUploadChunkRepository, jobsRepository);
+    inOrder.verify(jobLogLineRepository).deleteAllLines();
+    inOrder.verify(jobUploadChunkRepository).deleteAllChunks();
+    inOrder.verify(jobsRepository).deleteAllJobs();
+  }
+
+  @Test
+  void test_deleteJob_deletes_log_lines_and_uploads_before_the_job() {
+    // Act
+    jobService.deleteJob(7L);
+
+    // Assert
+    InOrder inOrder = inOrder(jobLogLineRepository, jobUploadChunkRepository, jobsRepository);
+    inOrder.verify(jobLogLineRepository).deleteByJobId(7L);
+    inOrder.verify(jobUploadChunkRepository).deleteByJobId(7L);
+    inOrder.verify(jobsRepository).deleteById(7L);
+  }
+
+  @Test
+  void test_runJobAsync_injects_beans_into_consumer_before_running_it() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(7L).status("running").build();
+    JobContextConsumer consumer = mock(JobContextConsumer.class);
+
+    // Act
+    jobService.runJobAsync(job, consumer);
+
+    // Assert
+    InOrder inOrder = inOrder(beanFactory, consumer);
+    inOrder.verify(beanFactory).autowireBean(consumer);
+    inOrder.verify(consumer).accept(any(JobContext.class));
+    assertEquals("complete", job.getStatus());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void test_fail_marks_job_as_error_and_logs_reason() {
+    // Arrange
+    Job job = Job.builder().id(7L).status("running").leaseOwner("someone").build();
+
+    // Act
+    jobService.fail(job, "can not run");
+
+    // Assert
+    ArgumentCaptor<Iterable<JobLogLine>> captor = ArgumentCaptor.forClass(Iterable.class);
+    verify(jobLogLineRepository).saveAll(captor.capture());
+    assertEquals(List.of("can not run"), List.of(captor.getValue().iterator().next().getMessage()));
+    assertEquals("error", job.getStatus());
+    assertNull(job.getLeaseOwner());
+    verify(jobsRepository, times(1))
+        .finish(eq(7L), eq("error"), eq(jobService.getInstanceId()), any());
+  }
+
+  @Test
+  void test_fail_saves_the_status_even_if_the_log_can_not_be_written() {
+    // Arrange
+    Job job = Job.builder().id(7L).status("running").leaseOwner("someone").build();
+    when(jobLogLineRepository.saveAll(any())).thenThrow(new IllegalStateException("db is down"));
+
+    // Act
+    IllegalStateException e =
+        assertThrows(IllegalStateException.class, () -> jobService.fail(job, "can not run"));
+
+    // Assert
+    assertEquals("db is down", e.getMessage());
+    assertEquals("error", job.getStatus());
+    assertNull(job.getLeaseOwner());
+    verify(jobsRepository, times(1))
+        .finish(eq(7L), eq("error"), eq(jobService.getInstanceId()), any());
+    verify(jobLogHub).publishStatus(7L, "error");
+  }
+
+  @Test
+  void test_a_job_whose_lease_was_lost_does_not_overwrite_the_new_owner() {
+    // Arrange
+    Job job = Job.builder().id(7L).status("running").leaseOwner("me").build();
+    when(jobsRepository.finish(eq(7L), any(), any(), any())).thenReturn(0);
+
+    // Act
+    jobService.runJobAsync(job, ctx -> ctx.log("ran too long"));
+
+    // Assert
+    verify(jobsRepository).finish(eq(7L), eq("complete"), eq(jobService.getInstanceId()), any());
+    verify(jobsRepository, never()).save(any());
+    assertEquals("me", job.getLeaseOwner());
+    verify(jobLogHub, never()).publishStatus(7L, "complete");
+    assertEquals(Set.of(), jobService.getClaimedJobIds());
+  }
+
+  @Test
+  void test_restore_rebuilds_consumer_from_payload() throws Exception {
+    // Act
+    TestJob testJob =
+        (TestJob) jobService.restore(TestJob.class.getName(), "{\"fail\":true,\"sleepMs\":3}");
+
+    // Assert
+    assertEquals(true, testJob.getFail());
+    assertEquals(3, testJob.getSleepMs());
+  }
+
+  @Test
+  void test_restore_refuses_classes_that_are_not_job_consumers() {
+    // Act
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> jobService.restore(java.io.File.class.getName(), "\"/tmp\""));
+
+    // Assert
+    assertEquals("java.io.File is not a JobContextConsumer", e.getMessage());
+    verifyNoInteractions(mapper);
+  }
+
+  @Test
+  void test_flushJobLog_flushes_buffered_lines_of_running_job() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(7L).status("running").build();
+    CountDownLatch logged = new CountDownLatch(1);
+    CountDownLatch flushed = new CountDownLatch(1);
+    Thread runner =
+        new Thread(
+            () ->
+                jobService.runJobAsync(
+                    job,
+                    ctx -> {
+                      ctx.log("buffered");
+                      logged.countDown();
+                      flushed.await();
+                    }));
+    runner.start();
+    logged.await();
+
+    // Act
+    jobService.flushJobLog(7L);
+    jobService.flushJobLog(8L);
+
+    // Assert
+    verify(jobLogLineRepository, times(1)).saveAll(any());
+    assertEquals(Set.of(7L), jobService.getClaimedJobIds());
+    flushed.countDown();
+    runner.join();
+  }
+
+  @Test
+  void test_getLeaseMillis() {
+    assertEquals(60_000L, jobService.getLeaseMillis());
+  }
+}
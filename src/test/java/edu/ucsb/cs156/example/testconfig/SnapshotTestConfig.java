@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.testconfig;
+
+import edu.ucsb.cs156.example.services.JsonSnapshotService;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+/**
+ * Provides JsonSnapshotService to controller tests, with snapshots rebuilt on the calling thread so
+ * that tests can count repository calls.
+ */
+@TestConfiguration
+@Import({TableVersionTestConfig.class, JsonSnapshotService.class})
+public class SnapshotTestConfig {
+
+  @Bean(name = "snapshots")
+  public TaskExecutor snapshotsExecutor() {
+    return new SyncTaskExecutor();
+  }
+}
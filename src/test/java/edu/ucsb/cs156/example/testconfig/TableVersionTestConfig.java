@@ -0,0 +1,38 @@
+package edu.ucsb.cs156.example.testconfig;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.repositories.TableVersionRepository;
+import edu.ucsb.cs156.example.services.TableVersionService;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Provides TableVersionService to controller tests, which have no database, with the versions kept
+ * in a map instead of the {@code table_versions} table.
+ */
+@TestConfiguration
+@Import(TableVersionService.class)
+public class TableVersionTestConfig {
+
+  @Bean
+  public TableVersionRepository tableVersionRepository() {
+    Map<String, Long> versions = new ConcurrentHashMap<>();
+    TableVersionRepository repository = mock(TableVersionRepository.class);
+    when(repository.findVersion(anyString()))
+        .thenAnswer(invocation -> Optional.ofNullable(versions.get(invocation.getArgument(0))));
+    when(repository.increment(anyString()))
+        .thenAnswer(
+            invocation -> {
+              versions.merge(invocation.getArgument(0), 1L, Long::sum);
+              return 1;
+            });
+    return repository;
+  }
+}